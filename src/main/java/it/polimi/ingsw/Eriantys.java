@@ -3,20 +3,38 @@ package it.polimi.ingsw;
 import it.polimi.ingsw.clients.cli.ClientControllerCli;
 import it.polimi.ingsw.clients.gui.GuiController;
 import it.polimi.ingsw.server.Server;
+import it.polimi.ingsw.server.TransportMode;
+import it.polimi.ingsw.server.modules.OverflowPolicy;
 
 import javax.swing.*;
+import java.nio.file.Path;
 
 public class Eriantys {
     public static void main(String[] args) {
         if (args.length == 0) {
             startClientGui();
         } else if (args[0].equals("--server")) {
-            if (args.length == 3 && args[1].equals("--port")) {
-                int port = Integer.parseInt(args[2]);
-                startServer(port);
-            } else {
-                startServer();
+            int port = Server.DEFAULT_PORT;
+            TransportMode transportMode = TransportMode.THREAD_PER_CLIENT;
+            OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+            boolean compressionEnabled = true;
+            Path unixSocketPath = null;
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--port") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--nio")) {
+                    transportMode = TransportMode.NIO;
+                } else if (args[i].equals("--virtual-threads")) {
+                    transportMode = TransportMode.VIRTUAL_THREADS;
+                } else if (args[i].equals("--disconnect-slow-clients")) {
+                    overflowPolicy = OverflowPolicy.DISCONNECT;
+                } else if (args[i].equals("--no-compression")) {
+                    compressionEnabled = false;
+                } else if (args[i].equals("--unix-socket") && i + 1 < args.length) {
+                    unixSocketPath = Path.of(args[++i]);
+                }
             }
+            startServer(port, transportMode, overflowPolicy, compressionEnabled, unixSocketPath);
         } else if (args[0].equals("--client")) {
             if (args.length == 2 && args[1].equals("--cli"))
                 startClientCli();
@@ -25,12 +43,8 @@ public class Eriantys {
         }
     }
 
-    private static void startServer() {
-        new Thread(new Server()).start();
-    }
-
-    private static void startServer(int port) {
-        new Thread(new Server(port)).start();
+    private static void startServer(int port, TransportMode transportMode, OverflowPolicy overflowPolicy, boolean compressionEnabled, Path unixSocketPath) {
+        new Thread(new Server(port, transportMode, overflowPolicy, compressionEnabled, unixSocketPath)).start();
     }
 
     private static void startClientCli() {
@@ -8,18 +8,19 @@ import it.polimi.ingsw.models.components.Assistant;
 import it.polimi.ingsw.models.components.characters.CharacterType;
 import it.polimi.ingsw.models.state.GameState;
 import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.HashedWheelTimer;
+import it.polimi.ingsw.network.Heartbeat;
 import it.polimi.ingsw.network.JsonCommand;
-import it.polimi.ingsw.network.SocketStreamUtils;
+import it.polimi.ingsw.network.ServerConnection;
+import it.polimi.ingsw.network.StreamServerConnection;
+import it.polimi.ingsw.network.WireProtocol;
+import it.polimi.ingsw.network.delta.GameStateDecoder;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.messages.Parameters;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
 import java.util.List;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Implements the common functionalities of the cli/gui controllers.
@@ -27,38 +28,47 @@ import java.util.concurrent.TimeUnit;
 public abstract class ClientController {
 
     private static final long TIME_BETWEEN_BEATS = 1000;
-    private static final long TIME_BETWEEN_SERVER_DOWN_CHECKS = 2000;
     private static final long SERVER_DOWN_MILLIS_THRESHOLD = 3000;
+    private static final long HEARTBEAT_TICK_MILLIS = 100;
+    private static final int HEARTBEAT_WHEEL_SIZE = 64;
 
-    private final ScheduledThreadPoolExecutor executor;
+    private final HashedWheelTimer heartbeatTimer;
+    private final Heartbeat heartbeat;
+    private final GameStateDecoder gameStateDecoder;
 
     private String nickname;
     private JsonCommand lastMoveFromServer;
     private GameState gameState;
-    private BufferedReader inputStream;
-    private PrintWriter outputStream;
-    private long lastBeatFromServerTimestamp;
+    private volatile ServerConnection connection;
+    private volatile WireProtocol protocol;
+    private boolean resyncRequested;
 
     private boolean clientRunning;
 
     protected ClientController() {
         setClientRunning(true);
-        executor = new ScheduledThreadPoolExecutor(2);
+        heartbeatTimer = new HashedWheelTimer("client-heartbeat", HEARTBEAT_TICK_MILLIS, HEARTBEAT_WHEEL_SIZE);
+        heartbeat = new Heartbeat(heartbeatTimer, TIME_BETWEEN_BEATS, SERVER_DOWN_MILLIS_THRESHOLD);
+        gameStateDecoder = new GameStateDecoder();
+        protocol = WireProtocol.JSON;
     }
 
     public boolean connectToServer(String ip, int port) {
         try {
-            Socket clientSocket = new Socket(ip, port);
-            inputStream = SocketStreamUtils.getInputStream(clientSocket);
-            if (inputStream == null)
-                return false;
-            outputStream = SocketStreamUtils.getOutputStream(clientSocket);
-            return outputStream != null;
+            connectToServer(StreamServerConnection.tcp(ip, port));
+            return true;
         } catch (IOException | IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * Uses the given connection to exchange messages with the server, e.g. a Unix domain socket or an in-process one
+     */
+    public void connectToServer(ServerConnection connection) {
+        this.connection = connection;
+    }
+
     public boolean isClientRunning() {
         return clientRunning;
     }
@@ -67,18 +77,43 @@ public abstract class ClientController {
         this.clientRunning = clientRunning;
     }
 
+    // RECEIVE MESSAGES FROM SERVER
+
+    /**
+     * Waits for the next message from the server, any message received counts as a beat
+     * The client switches to the protocol allowed by the capabilities the server confirms at login
+     *
+     * @return the received message, null if the connection has been closed
+     * @throws IOException if the connection is lost or the message is malformed
+     */
+    public JsonCommand readMessageFromServer() throws IOException {
+        JsonCommand message = connection.read();
+        if (message == null)
+            return null;
+
+        updateServerBeatTimestamp();
+        if (message.getCommand() == Command.LOGIN_SUCCESSFUL)
+            protocol = Capabilities.fromMessage(message).getProtocol();
+        return message;
+    }
+
     // SEND MESSAGES TO SERVER
 
+    /**
+     * Sends the nickname and the wire capabilities worth using on the connection,
+     * the server confirms the ones it supports too if the login succeeds
+     */
     public void sendNicknameToServer() {
-        JsonCommand jsonCommand = (new JsonCommand(Command.LOGIN)).addParameter(Parameters.NICKNAME, nickname, true);
-        outputStream.println(jsonCommand);
+        JsonCommand jsonCommand = connection.getCapabilities().addTo(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.NICKNAME, nickname, true));
+        sendToServer(jsonCommand);
     }
 
     public void sendMatchTypeToServer(Integer numPlayers, boolean expertMatch) {
         JsonCommand jsonCommand = (new JsonCommand(Command.JOIN_MATCH))
                 .addParameter(Parameters.NUM_PLAYERS, numPlayers.toString(), true)
                 .addParameter(Parameters.EXPERT_MATCH, "" + expertMatch, true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendWizardAndTowerToServer(String nickname, Wizard wizard, Tower tower) {
@@ -86,38 +121,38 @@ public abstract class ClientController {
                 .addParameter(Parameters.NICKNAME, nickname, true)
                 .addParameter(Parameters.WIZARD, wizard.toString(), true)
                 .addParameter(Parameters.TOWER, tower.toString(), true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendAssistantToServer(Assistant assistant) {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
                 .addParameter(Parameters.ASSISTANT, assistant.name(), true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendStudentToMoveFromEntranceToHallToServer(Student student) {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_HALL)
                 .addParameter(Parameters.STUDENT_COLOR, "" + student, true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendStudentToMoveFromEntranceToIslandToServer(Student student, int islandId) {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_ISLAND)
                 .addParameter(Parameters.STUDENT_COLOR, "" + student, true)
                 .addParameter(Parameters.ISLAND_ID, "" + islandId, true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendMotherNatureStepsToServer(int steps) {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE)
                 .addParameter(Parameters.STEPS, "" + steps, true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendCloudToServer(int cloudId) {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_PICK_STUDENTS_FROM_CLOUD)
                 .addParameter(Parameters.CLOUD_ID, "" + cloudId, true);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendCharacterToServer(CharacterType characterType, Student student, Island island, List<Student> toExchangeFrom, List<Student> toExchangeTo) {
@@ -143,64 +178,107 @@ public abstract class ClientController {
             }
         }
 
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
     }
 
     public void sendEndTurnToServer() {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_END_TURN);
-        outputStream.println(jsonCommand);
+        sendToServer(jsonCommand);
+    }
+
+    /**
+     * Asks the server to send again the last game state in full, used when the received changes can't be applied
+     */
+    public void sendResyncRequestToServer() {
+        JsonCommand jsonCommand = new JsonCommand(Command.RESYNC);
+        sendToServer(jsonCommand);
     }
 
     public void sendLogoutMessageToServer() {
         stopPeriodicTasks();
         JsonCommand jsonCommand = new JsonCommand(Command.LOGOUT);
-        outputStream.println(jsonCommand);
+        writeToServer(jsonCommand);
     }
 
     /**
-     * Launches a thread that sends beats to the server periodically
+     * Sends the message to the server, any message sent counts as a beat
+     */
+    private void sendToServer(JsonCommand jsonCommand) {
+        heartbeat.messageSent();
+        writeToServer(jsonCommand);
+    }
+
+    /**
+     * Writes the message with the negotiated protocol, messages can be sent from many threads
+     */
+    private synchronized void writeToServer(JsonCommand jsonCommand) {
+        try {
+            connection.send(jsonCommand, protocol);
+        } catch (IOException e) {
+            // the reader detects the disconnection
+        }
+    }
+
+    /**
+     * Sends beats to the server periodically, when the client hasn't sent anything else
      * When the server receives a beat from the client it means the client is still alive
      * If the server doesn't receive a beat from the client it considers the client down
      */
     public void startSendingBeatsToServer() {
-        executor.scheduleAtFixedRate(sendBeatToServer, 0, TIME_BETWEEN_BEATS, TimeUnit.MILLISECONDS);
+        heartbeat.startSendingBeats(sendBeatToServer);
     }
 
     private final Runnable sendBeatToServer = () -> {
         JsonCommand beat = new JsonCommand(Command.BEAT);
-        if (outputStream != null) {
-            outputStream.println(beat);
+        if (connection != null) {
+            writeToServer(beat);
         }
     };
 
     // UTILS, GETTERS AND SETTERS
 
     /**
-     * The client periodically checks if it has received a beat from the server
-     * If, when the client checks, the last beat from the server was received too much time ago,
+     * The client checks if it has received anything from the server
+     * If the last message from the server was received too much time ago,
      * the client considers the server down and disconnects
      */
     public void startCheckingIfServerIsUp() {
-        executor.scheduleAtFixedRate(disconnectWhenServerIsUnreachable, 0, TIME_BETWEEN_SERVER_DOWN_CHECKS, TimeUnit.MILLISECONDS);
+        heartbeat.startCheckingTimeout(disconnectWhenServerIsUnreachable);
     }
 
     private final Runnable disconnectWhenServerIsUnreachable = () -> {
-        long elapsedMillis = System.currentTimeMillis() - lastBeatFromServerTimestamp;
-        if (elapsedMillis > SERVER_DOWN_MILLIS_THRESHOLD) {
-            showServerUnreachableMessage();
-            System.exit(0);
-        }
+        showServerUnreachableMessage();
+        System.exit(0);
     };
 
     public abstract void showServerUnreachableMessage();
 
     public void stopPeriodicTasks() {
-        executor.shutdown();
+        heartbeat.stop();
+        heartbeatTimer.stop();
     }
 
-    /** Set the time of the last beat received from server */
+    /** Set the time of the last message received from server, any message counts as a beat */
     public void updateServerBeatTimestamp() {
-        lastBeatFromServerTimestamp = System.currentTimeMillis();
+        heartbeat.messageReceived();
+    }
+
+    /**
+     * Rebuilds the game state carried by a move done message, which can be a full game state or the changes
+     * to the last received one. Messages must be decoded in the order they are received
+     * If the changes can't be applied a resync is requested to the server, which will send the move again
+     *
+     * @return the decoded game state, null if the message must be ignored while waiting for the resync
+     */
+    public synchronized GameState decodeGameState(JsonCommand moveDone) {
+        GameState decodedGameState = gameStateDecoder.decode(moveDone);
+        if (decodedGameState != null) {
+            resyncRequested = false;
+        } else if (!resyncRequested) {
+            resyncRequested = true;
+            sendResyncRequestToServer();
+        }
+        return decodedGameState;
     }
 
     public void setGameState(GameState gameState) {
@@ -227,10 +305,6 @@ public abstract class ClientController {
         return nickname;
     }
 
-    public BufferedReader getInputStream() {
-        return inputStream;
-    }
-
     public boolean isGameOver() {
         return gameState.getStage().equals(Stage.GAME_OVER);
     }
@@ -9,17 +9,18 @@ import it.polimi.ingsw.models.components.characters.effects.EffectArgs;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 import it.polimi.ingsw.models.state.GameState;
 import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.network.CommandDispatchTable;
 import it.polimi.ingsw.network.GsonManager;
 import it.polimi.ingsw.network.JsonCommand;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.messages.Parameters;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Listen and sends messages from/to server and asks the moves to the user via CLI
@@ -33,6 +34,22 @@ public class ClientControllerCli extends ClientController implements Runnable {
     private static final String CHOOSE_STUDENT_FROM_CARD = "Scegli uno studente dalla carta";
     private static final String SKIP_LINE = "\n----------------------------------------------------------------------------------\n";
 
+    /**
+     * The handlers of the messages sent from server, bound once for all the message processors
+     */
+    private static final CommandDispatchTable<Consumer<MessageProcessor>> MESSAGE_HANDLERS =
+            new CommandDispatchTable<Consumer<MessageProcessor>>(processor -> {
+                throw new IllegalStateException("Invalid command received from server");
+            })
+                    .bind(Command.ENTER_NICKNAME, processor -> processor.requestAndSendNickname(false))
+                    .bind(Command.LOGIN_SUCCESSFUL, MessageProcessor::requestAndSendMatchType)
+                    .bind(Command.NICKNAME_ALREADY_PRESENT, processor -> processor.requestAndSendNickname(true))
+                    .bind(Command.JOIN_SUCCESSFUL, MessageProcessor::printJoinSuccessfulMessage)
+                    .bind(Command.CHOOSE_WIZARD_TOWER, MessageProcessor::chooseWizardAndTower)
+                    .bind(Command.MOVE_DONE, MessageProcessor::moveDone)
+                    .bind(Command.FORCE_END_MATCH, MessageProcessor::forceEndMatch)
+                    .bind(Command.BEAT, MessageProcessor::serverBeatReceived);
+
     private final ClientViewCli clientViewCli;
     private final List<Command> possibleMoves;
 
@@ -78,14 +95,14 @@ public class ClientControllerCli extends ClientController implements Runnable {
      * Listens for server messages and launches a message processor when a message arrives
      */
     private void listenAndProcessServerMessage() {
-        BufferedReader stream = getInputStream();
         while (isClientRunning()) {
             try {
-                String message;
-                if ((message = stream.readLine()) != null)
+                JsonCommand message;
+                if ((message = readMessageFromServer()) != null) {
                     startProcessingMessage(message);
-                else
+                } else {
                     setClientRunning(false);
+                }
             } catch (IOException e) {
                 setClientRunning(false);
             }
@@ -94,11 +111,24 @@ public class ClientControllerCli extends ClientController implements Runnable {
 
     /**
      * Creates and launches a message processor for processing the message sent from server
+     * The game state of a move done message is decoded before launching the processor,
+     * because the changes to the game state must be applied in the order they are received
      *
-     * @param message message to be processed
+     * @param jsonMessage message to be processed
      */
-    private void startProcessingMessage(String message) {
-        new Thread(new MessageProcessor(message)).start();
+    private void startProcessingMessage(JsonCommand jsonMessage) {
+        GameState movedGameState = null;
+        if (jsonMessage.getCommand().equals(Command.MOVE_DONE) && !isIllegalMove(jsonMessage)) {
+            movedGameState = decodeGameState(jsonMessage);
+            // the server will send the move again with the full game state
+            if (movedGameState == null)
+                return;
+        }
+        new Thread(new MessageProcessor(jsonMessage, movedGameState)).start();
+    }
+
+    private boolean isIllegalMove(JsonCommand moveDone) {
+        return moveDone.getCommandParameter(Parameters.LAST_MOVE).getCommand().equals(Command.ILLEGAL_MOVE);
     }
 
     // REQUESTS FOR USER INPUT
@@ -135,10 +165,16 @@ public class ClientControllerCli extends ClientController implements Runnable {
 
     private class MessageProcessor implements Runnable {
 
-        private final String message;
+        private final JsonCommand jsonMessage;
+        private final GameState movedGameState;
 
-        private MessageProcessor(String message) {
-            this.message = message;
+        /**
+         * @param jsonMessage    the message to be processed
+         * @param movedGameState the game state carried by a move done message, null otherwise
+         */
+        private MessageProcessor(JsonCommand jsonMessage, GameState movedGameState) {
+            this.jsonMessage = jsonMessage;
+            this.movedGameState = movedGameState;
         }
 
         /**
@@ -146,46 +182,43 @@ public class ClientControllerCli extends ClientController implements Runnable {
          */
         @Override
         public void run() {
-            JsonCommand jsonMessage = JsonCommand.fromJson(message);
-            switch (jsonMessage.getCommand()) {
-                case ENTER_NICKNAME -> requestAndSendNickname(false);
-                case LOGIN_SUCCESSFUL -> requestAndSendMatchType();
-                case NICKNAME_ALREADY_PRESENT -> requestAndSendNickname(true);
-                case JOIN_SUCCESSFUL -> printJoinSuccessfulMessage();
-                case CHOOSE_WIZARD_TOWER -> {
-                    setGameState(GsonManager.getInstance().fromJson(jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class));
-                    String nicknameThatHasToChoose = jsonMessage.getParameter(Parameters.NICKNAME);
-                    if (nicknameThatHasToChoose.equals(getNickname())) {
-                        List<Wizard> availableWizards = getGameState().getAvailableWizards();
-                        List<Tower> availableTowers = getGameState().getAvailableTowers();
-                        requestAndSendWizardAndTower(availableWizards, availableTowers);
-                    }
-                }
-                case MOVE_DONE -> {
-                    setLastMoveFromServer(JsonCommand.fromJson((jsonMessage.getParameter(Parameters.LAST_MOVE))));
-                    if (!getLastMoveFromServer().getCommand().equals(Command.ILLEGAL_MOVE)) {
-                        setGameState(GsonManager.getInstance().fromJson(jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class));
-                    }
+            MESSAGE_HANDLERS.get(jsonMessage.getCommand()).accept(this);
+        }
 
-                    clientViewCli.clear();
-                    printGameState();
-                    printLastMove();
-
-                    if (!isGameOver()) {
-                        if (isMyTurn()) {
-                            Command nextMove = chooseNextMove();
-                            performPlayerMove(nextMove);
-                        } else {
-                            clientViewCli.println(SKIP_LINE);
-                            clientViewCli.println("Attendi il tuo turno...");
-                        }
-                    } else {
-                        printGameOverAndWinner();
-                    }
+        private void serverBeatReceived() {
+            updateServerBeatTimestamp();
+        }
+
+        private void chooseWizardAndTower() {
+            setGameState(GsonManager.getInstance().fromJson(jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class));
+            String nicknameThatHasToChoose = jsonMessage.getParameter(Parameters.NICKNAME);
+            if (nicknameThatHasToChoose.equals(getNickname())) {
+                List<Wizard> availableWizards = getGameState().getAvailableWizards();
+                List<Tower> availableTowers = getGameState().getAvailableTowers();
+                requestAndSendWizardAndTower(availableWizards, availableTowers);
+            }
+        }
+
+        private void moveDone() {
+            setLastMoveFromServer(jsonMessage.getCommandParameter(Parameters.LAST_MOVE));
+            if (!getLastMoveFromServer().getCommand().equals(Command.ILLEGAL_MOVE)) {
+                setGameState(movedGameState);
+            }
+
+            clientViewCli.clear();
+            printGameState();
+            printLastMove();
+
+            if (!isGameOver()) {
+                if (isMyTurn()) {
+                    Command nextMove = chooseNextMove();
+                    performPlayerMove(nextMove);
+                } else {
+                    clientViewCli.println(SKIP_LINE);
+                    clientViewCli.println("Attendi il tuo turno...");
                 }
-                case FORCE_END_MATCH -> forceEndMatch();
-                case BEAT -> updateServerBeatTimestamp();
-                default -> throw new IllegalStateException("Invalid command received from server");
+            } else {
+                printGameOverAndWinner();
             }
         }
 
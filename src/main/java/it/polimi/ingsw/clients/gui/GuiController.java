@@ -11,6 +11,7 @@ import it.polimi.ingsw.models.components.Assistant;
 import it.polimi.ingsw.models.components.Tower;
 import it.polimi.ingsw.models.components.Wizard;
 import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.CommandDispatchTable;
 import it.polimi.ingsw.network.GsonManager;
 import it.polimi.ingsw.network.JsonCommand;
 import it.polimi.ingsw.network.messages.Command;
@@ -18,9 +19,9 @@ import it.polimi.ingsw.network.messages.Parameters;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 public class GuiController extends ClientController
@@ -28,6 +29,7 @@ public class GuiController extends ClientController
 
     private final SetupFrame setupFrame;
     private GameFrame gameFrame;
+    private final CommandDispatchTable<Consumer<JsonCommand>> messageHandlers;
 
     private final Logger logger = Logger.getGlobal();
 
@@ -36,6 +38,16 @@ public class GuiController extends ClientController
         enableOnlyRamCache();
         useNimbusLookAndFeel();
         setupFrame = new SetupFrame(this);
+        messageHandlers = new CommandDispatchTable<Consumer<JsonCommand>>(
+                message -> System.out.println("IGNORE MESSAGE: " + message.getCommand()))
+                .bind(Command.NICKNAME_ALREADY_PRESENT, message -> GuiUtils.alert("Nickname già usato. Scegli un altro nickname."))
+                .bind(Command.ENTER_NICKNAME, message -> setupFrame.setSetupState(SetupFrameState.LOGIN))
+                .bind(Command.LOGIN_SUCCESSFUL, message -> setupFrame.setSetupState(SetupFrameState.MATCH_SETUP))
+                .bind(Command.JOIN_SUCCESSFUL, message -> setupFrame.setSetupState(SetupFrameState.WAITING))
+                .bind(Command.CHOOSE_WIZARD_TOWER, this::chooseWizardAndTower)
+                .bind(Command.MOVE_DONE, this::moveDone)
+                .bind(Command.BEAT, message -> updateServerBeatTimestamp())
+                .bind(Command.FORCE_END_MATCH, message -> exit(true));
     }
 
     private void useNimbusLookAndFeel() {
@@ -89,13 +101,11 @@ public class GuiController extends ClientController
     }
 
     private final Runnable receiveServerMessages = () -> {
-        BufferedReader stream = getInputStream();
         while (isClientRunning()) {
             try {
-                // TODO: i think this read operation can be handled directly on ClientController.
-                //       This class should only implement a method to handle the received message.
-                String message;
-                if ((message = stream.readLine()) != null) {
+                // any message from the server means it's alive, even if the event thread is busy
+                JsonCommand message;
+                if ((message = readMessageFromServer()) != null) {
                     SwingUtilities.invokeLater(
                             () -> dispatch(message)
                     );
@@ -108,31 +118,27 @@ public class GuiController extends ClientController
         }
     };
 
-    // TODO: would be interesting to register lambdas just for the commands we want on
-    //       the controller so we don't have this giant switch statement.
-    private void dispatch(String message) {
-        JsonCommand jsonMessage = JsonCommand.fromJson(message);
-        Command command = jsonMessage.getCommand();
-        switch (command) {
-            case NICKNAME_ALREADY_PRESENT -> GuiUtils.alert("Nickname già usato. Scegli un altro nickname.");
-            case ENTER_NICKNAME -> setupFrame.setSetupState(SetupFrameState.LOGIN);
-            case LOGIN_SUCCESSFUL -> setupFrame.setSetupState(SetupFrameState.MATCH_SETUP);
-            case JOIN_SUCCESSFUL -> setupFrame.setSetupState(SetupFrameState.WAITING);
-            case CHOOSE_WIZARD_TOWER -> {
-                String playerNameWhoMustChoose = jsonMessage.getParameter(Parameters.NICKNAME);
-                GameState gameState = GsonManager.getInstance().fromJson(
-                        jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class);
-                chooseWizardAndTower(playerNameWhoMustChoose, gameState);
-            }
-            case MOVE_DONE -> {
-                GameState gameState = GsonManager.getInstance().fromJson(jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class);
-                JsonCommand lastMove = JsonCommand.fromJson(jsonMessage.getParameter(Parameters.LAST_MOVE));
-                moveDone(gameState, lastMove);
-            }
-            case BEAT -> updateServerBeatTimestamp();
-            case FORCE_END_MATCH -> exit(true);
-            default -> System.out.println("IGNORE MESSAGE: " + command);
+    private void dispatch(JsonCommand jsonMessage) {
+        messageHandlers.get(jsonMessage.getCommand()).accept(jsonMessage);
+    }
+
+    private void chooseWizardAndTower(JsonCommand jsonMessage) {
+        String playerNameWhoMustChoose = jsonMessage.getParameter(Parameters.NICKNAME);
+        GameState gameState = GsonManager.getInstance().fromJson(
+                jsonMessage.getParameter(Parameters.GAME_STATE), GameState.class);
+        chooseWizardAndTower(playerNameWhoMustChoose, gameState);
+    }
+
+    private void moveDone(JsonCommand jsonMessage) {
+        JsonCommand lastMove = jsonMessage.getCommandParameter(Parameters.LAST_MOVE);
+        GameState gameState = null;
+        if (!lastMove.getCommand().equals(Command.ILLEGAL_MOVE)) {
+            gameState = decodeGameState(jsonMessage);
+            // the server will send the move again with the full game state
+            if (gameState == null)
+                return;
         }
+        moveDone(gameState, lastMove);
     }
 
     private void moveDone(GameState gameState, JsonCommand lastMove) {
@@ -13,6 +13,7 @@ import it.polimi.ingsw.models.exceptions.*;
 import it.polimi.ingsw.models.operations.GameOperations;
 import it.polimi.ingsw.models.state.GameState;
 import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.models.utils.GameRandom;
 
 import java.util.*;
 
@@ -26,7 +27,20 @@ public class GameManager implements HallListener {
      * @throws IllegalArgumentException if the number of players is illegal.
      */
     public GameManager(int numPlayers, boolean expertMatch) {
-        gameState = new GameState(numPlayers, expertMatch);
+        this(numPlayers, expertMatch, GameRandom.randomSeed());
+    }
+
+    /**
+     * Creates a game whose random choices are determined by the given seed,
+     * the same seed and the same moves always lead to the same game.
+     *
+     * @param numPlayers  number of players for this game (2, 3 or 4).
+     * @param expertMatch true if the match is the expert version, false otherwise.
+     * @param seed        the seed of the random generator of the match.
+     * @throws IllegalArgumentException if the number of players is illegal.
+     */
+    public GameManager(int numPlayers, boolean expertMatch, long seed) {
+        gameState = new GameState(numPlayers, expertMatch, seed);
         gameConstants = GameConstants.fromNumPlayers(numPlayers);
 
         GameOperations.setAvailableWizards(gameState);
@@ -162,14 +176,10 @@ public class GameManager implements HallListener {
         if (!gameState.isStage(Stage.PLANNING_FILL_CLOUDS))
             throw new IllegalCallException(gameState.getStage());
 
+        Bag bag = gameState.getBag();
         for (Cloud cloud : gameState.getClouds()) {
-            Bag bag = gameState.getBag();
-            for (int i = 0; i < gameConstants.getNumStudentsOnCloud(); ++i) {
-                if (!bag.isEmpty()) {
-                    Student student = bag.drawStudent();
-                    cloud.receiveStudent(student);
-                }
-            }
+            int numStudents = Math.min(gameConstants.getNumStudentsOnCloud(), bag.getNumStudent());
+            cloud.receiveStudents(bag.drawStudents(numStudents));
         }
 
         proceedToNextStage();
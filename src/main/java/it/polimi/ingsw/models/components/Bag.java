@@ -5,15 +5,33 @@ import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
+/**
+ * The students not placed yet, stored as the number of students of every color
+ * A draw picks a color with probability proportional to its number of students,
+ * which is the same as picking a student at random, in constant time
+ */
 public class Bag implements StudentReceiver {
 
-    private final List<Student> students;
+    private static final Student[] STUDENTS = Student.values();
+
+    private final StudentCounts students;
+
+    // gson lib cannot perform "serialization" if not transient
+    private final transient Random random;
 
     public Bag() {
-        students = new ArrayList<>();
+        this(new Random());
+    }
+
+    /**
+     * @param random the source of the draws, a seeded one makes them reproducible
+     */
+    public Bag(Random random) {
+        students = new StudentCounts();
+        this.random = random;
     }
 
     /**
@@ -32,12 +50,12 @@ public class Bag implements StudentReceiver {
 
     @Override
     public boolean canReceiveStudent(Student student) {
-        return students.size() < GameConstants.MAX_STUDENTS_IN_BAG;
+        return students.getTotal() < GameConstants.MAX_STUDENTS_IN_BAG;
     }
 
     @Override
     public boolean canReceiveStudents(List<Student> students) {
-        return this.students.size() + students.size() <= GameConstants.MAX_STUDENTS_IN_BAG;
+        return this.students.getTotal() + students.size() <= GameConstants.MAX_STUDENTS_IN_BAG;
     }
 
     /**
@@ -50,23 +68,74 @@ public class Bag implements StudentReceiver {
         if (students.isEmpty()) {
             throw new IllegalMoveException("Trying to extract student from an empty bag");
         }
-        Collections.shuffle(students);
-        Student extracted = students.get(0);
-        students.remove(0);
+        Student extracted = sampleStudent();
+        students.remove(extracted);
+        return extracted;
+    }
+
+    /**
+     * Draw the given number of random students from the bag. The students drawn are removed from the bag.
+     *
+     * @param numStudents the number of students to draw.
+     * @return the students drawn, in the order they have been drawn.
+     * @throws IllegalMoveException when the bag has fewer students than the requested ones.
+     */
+    public List<Student> drawStudents(int numStudents) {
+        if (numStudents > students.getTotal()) {
+            throw new IllegalMoveException("Trying to extract " + numStudents + " students from a bag with "
+                    + students.getTotal() + " students");
+        }
+        List<Student> extracted = new ArrayList<>(numStudents);
+        for (int i = 0; i < numStudents; i++) {
+            Student student = sampleStudent();
+            students.remove(student);
+            extracted.add(student);
+        }
         return extracted;
     }
 
+    /**
+     * @return the color of a random student, the bag must not be empty
+     */
+    private Student sampleStudent() {
+        int index = random.nextInt(students.getTotal());
+        for (Student student : STUDENTS) {
+            index -= students.get(student);
+            if (index < 0)
+                return student;
+        }
+        throw new IllegalStateException("Student counts don't match their total");
+    }
+
+    /**
+     * This method must be used only to restore the students after
+     * a deserialization.
+     *
+     * @param counts the number of students of every color, in the order of {@link Student#values()}.
+     */
+    public void restoreStudents(int[] counts) {
+        students.restore(counts);
+    }
+
+    /**
+     * @param color the requested student color.
+     * @return the number of students of the given color in the bag.
+     */
+    public int getNumStudentsByColor(Student color) {
+        return students.get(color);
+    }
+
     public boolean isEmpty() {
         return students.isEmpty();
     }
 
     public int getNumStudent() {
-        return students.size();
+        return students.getTotal();
     }
 
     @Override
     public String toString() {
-        return "Bag: remaining students=" + students.size();
+        return "Bag: remaining students=" + students.getTotal();
     }
 
 }
@@ -3,6 +3,7 @@ package it.polimi.ingsw.models.components;
 import it.polimi.ingsw.models.components.hall.Hall;
 import it.polimi.ingsw.models.components.interfaces.TowerReceiver;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 public class Board implements TowerReceiver {
 
@@ -33,6 +34,7 @@ public class Board implements TowerReceiver {
             throw new IllegalMoveException("Board can only receive " + towerType.toString() + " towers");
         if (numTowers == towerLimit)
             throw new IllegalMoveException("Cannot add any more towers to the board");
+        UndoLog.record(() -> numTowers--);
         numTowers++;
     }
 
@@ -43,12 +45,27 @@ public class Board implements TowerReceiver {
      */
     public boolean removeTower() {
         if (hasTowers()) {
+            UndoLog.record(() -> numTowers++);
             numTowers--;
             return true;
         }
         return false;
     }
 
+    /**
+     * This method must be used only to restore the towers after
+     * a deserialization.
+     *
+     * @param numTowers the number of towers on the board.
+     */
+    public void restoreNumTowers(int numTowers) {
+        this.numTowers = numTowers;
+    }
+
+    public int getTowerLimit() {
+        return towerLimit;
+    }
+
     public boolean hasTowers() {
         return numTowers > 0;
     }
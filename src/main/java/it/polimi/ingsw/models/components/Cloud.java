@@ -2,6 +2,7 @@ package it.polimi.ingsw.models.components;
 
 import it.polimi.ingsw.models.components.interfaces.StudentReceiver;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,17 @@ public class Cloud implements StudentReceiver {
         return id;
     }
 
+    public int getStudentsLimit() {
+        return studentsLimit;
+    }
+
+    /**
+     * @return the students on the cloud, in the order they have been placed
+     */
+    public List<Student> getStudents() {
+        return new ArrayList<>(students);
+    }
+
     /**
      * Place a student on the cloud
      *
@@ -37,6 +49,7 @@ public class Cloud implements StudentReceiver {
         if (!canReceiveStudent(student))
             throw new IllegalMoveException("Cloud can contain only " + studentsLimit + " students");
         students.add(student);
+        UndoLog.record(() -> students.remove(students.size() - 1));
     }
 
     @Override
@@ -75,6 +88,8 @@ public class Cloud implements StudentReceiver {
     }
 
     private void removeAllStudents() {
+        List<Student> oldStudents = new ArrayList<>(students);
+        UndoLog.record(() -> students.addAll(oldStudents));
         students.clear();
     }
 
@@ -3,27 +3,21 @@ package it.polimi.ingsw.models.components;
 import it.polimi.ingsw.models.components.interfaces.StudentReceiver;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Entrance section of the Board
  */
 public class Entrance implements StudentReceiver {
 
-    private final Map<Student, Integer> students;
+    private final StudentCounts students;
     private final int studentsLimit;
 
     /**
      * @param studentsLimit maximum number of students which can be placed on the entrance
      */
     public Entrance(int studentsLimit) {
-        students = new EnumMap<>(Student.class);
-        for (Student s : Student.values()) {
-            students.put(s, 0);
-        }
-
+        students = new StudentCounts();
         this.studentsLimit = studentsLimit;
     }
 
@@ -33,12 +27,11 @@ public class Entrance implements StudentReceiver {
      * @return true if it's empty, false otherwise
      */
     public boolean isEmpty() {
-        for (Student s : Student.values()) {
-            if (students.get(s) != 0) {
-                return false;
-            }
-        }
-        return true;
+        return students.isEmpty();
+    }
+
+    public int getStudentsLimit() {
+        return studentsLimit;
     }
 
     @Override
@@ -57,7 +50,7 @@ public class Entrance implements StudentReceiver {
     public void receiveStudent(Student student) {
         if (!canReceiveStudent(student))
             throw new IllegalMoveException("Entrance cannot contain more than " + studentsLimit + " students");
-        students.put(student, students.get(student) + 1);
+        students.add(student);
     }
 
     @Override
@@ -78,7 +71,7 @@ public class Entrance implements StudentReceiver {
      */
     public boolean removeStudent(Student student) {
         if (students.get(student) > 0) {
-            students.put(student, students.get(student) - 1);
+            students.remove(student);
             return true;
         }
         return false;
@@ -90,11 +83,17 @@ public class Entrance implements StudentReceiver {
      * @return the number of students on the entrance
      */
     public int getNumStudents() {
-        int count = 0;
-        for (Student s : Student.values()) {
-            count += students.get(s);
-        }
-        return count;
+        return students.getTotal();
+    }
+
+    /**
+     * This method must be used only to restore the students after
+     * a deserialization.
+     *
+     * @param counts the number of students of every color, in the order of {@link Student#values()}.
+     */
+    public void restoreStudents(int[] counts) {
+        students.restore(counts);
     }
 
     /**
@@ -5,15 +5,14 @@ import it.polimi.ingsw.models.components.interfaces.TowerReceiver;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 import it.polimi.ingsw.models.exceptions.TowerNotSetException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
 
 public class Island implements StudentReceiver, TowerReceiver, Comparable<Island> {
     private final int position;
     private final int dimension;
-    private final Map<Student, Integer> students;
+    private final StudentCounts students;
     private Tower tower;
     private int numTowers;
 
@@ -31,10 +30,7 @@ public class Island implements StudentReceiver, TowerReceiver, Comparable<Island
             throw new IllegalArgumentException("invalid dimension");
         this.dimension = dimension;
 
-        students = new EnumMap<>(Student.class);
-        for (Student student : Student.values()) {
-            students.put(student, 0);
-        }
+        students = new StudentCounts();
     }
 
     /**
@@ -70,6 +66,34 @@ public class Island implements StudentReceiver, TowerReceiver, Comparable<Island
         return ((position + dimension) % GameConstants.NUMBER_OF_ISLANDS - island.getPosition()) == 0;
     }
 
+    /**
+     * Creates the island resulting from the merge of this island with the island right after it.
+     * The new island has the position of this island, the sum of the dimensions, all the students
+     * and all the towers of the two islands. Since it's a new island its contents are not recorded in the undo log.
+     *
+     * @param next the island right after this island.
+     * @return the island resulting from the merge.
+     * @throws IllegalMoveException when the given island is not right after this island or the tower type is different.
+     * @throws TowerNotSetException when one of the islands has no towers.
+     */
+    public Island mergeWith(Island next) {
+        if (!isBefore(next))
+            throw new IllegalMoveException("Cannot merge not adjacent islands.");
+
+        Island newIsland = new Island(position, dimension + next.dimension);
+
+        if (getTowerType() != next.getTowerType())
+            throw new IllegalMoveException("Cannot merge islands with different towers");
+
+        newIsland.tower = tower;
+        newIsland.numTowers = numTowers + next.numTowers;
+        int[] counts = students.toArray();
+        for (Student student : Student.values())
+            counts[student.ordinal()] += next.getNumStudent(student);
+        newIsland.students.restore(counts);
+        return newIsland;
+    }
+
     /**
      * Return the tower type for this Island
      *
@@ -107,6 +131,11 @@ public class Island implements StudentReceiver, TowerReceiver, Comparable<Island
      */
     public int removeAllTowers() {
         int removedTowers = getNumTowers();
+        Tower oldTower = tower;
+        UndoLog.record(() -> {
+            tower = oldTower;
+            numTowers = removedTowers;
+        });
         tower = null;
         numTowers = 0;
         return removedTowers;
@@ -129,7 +158,7 @@ public class Island implements StudentReceiver, TowerReceiver, Comparable<Island
      */
     @Override
     public void receiveStudent(Student student) {
-        students.put(student, students.get(student) + 1);
+        students.add(student);
     }
 
     @Override
@@ -161,10 +190,25 @@ public class Island implements StudentReceiver, TowerReceiver, Comparable<Island
                     " removing the already existing ones");
         }
 
+        Tower oldTower = this.tower;
+        UndoLog.record(() -> {
+            this.tower = oldTower;
+            numTowers--;
+        });
         this.tower = tower;
         numTowers++;
     }
 
+    /**
+     * This method must be used only to restore the students after
+     * a deserialization.
+     *
+     * @param counts the number of students of every color, in the order of {@link Student#values()}.
+     */
+    public void restoreStudents(int[] counts) {
+        students.restore(counts);
+    }
+
     @Override
     public int compareTo(Island island) {
         return Integer.compare(this.position, island.position);
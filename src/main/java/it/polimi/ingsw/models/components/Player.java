@@ -1,6 +1,7 @@
 package it.polimi.ingsw.models.components;
 
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -94,11 +95,30 @@ public class Player {
      * @throws IllegalMoveException if the player doesn't have the assistant
      */
     public void playAssistant(Assistant assistant) {
-        if (!hand.remove(assistant))
+        int handIndex = hand.indexOf(assistant);
+        if (handIndex < 0)
             throw new IllegalMoveException("Player doesn't have this assistant. " + assistant);
+        Assistant oldLastPlayedAssistant = lastPlayedAssistant;
+        UndoLog.record(() -> {
+            hand.add(handIndex, assistant);
+            lastPlayedAssistant = oldLastPlayedAssistant;
+        });
+        hand.remove(handIndex);
         lastPlayedAssistant = assistant;
     }
 
+    /**
+     * This method must be used only to restore the player after
+     * a deserialization.
+     *
+     * @param lastPlayedAssistant the last played assistant, null if no assistants have been played.
+     * @param numCoins            the number of coins of the player.
+     */
+    public void restoreState(Assistant lastPlayedAssistant, int numCoins) {
+        this.lastPlayedAssistant = lastPlayedAssistant;
+        this.numCoins = numCoins;
+    }
+
     /**
      * @return number of player's coins
      */
@@ -110,6 +130,7 @@ public class Player {
      * Increase the number of coins
      */
     public void addCoin() {
+        UndoLog.record(() -> numCoins--);
         numCoins++;
     }
 
@@ -122,6 +143,7 @@ public class Player {
     public void removeCoins(int numCoins) {
         if (numCoins > this.numCoins)
             throw new IllegalMoveException("Cannot remove " + numCoins + " coins");
+        UndoLog.record(() -> this.numCoins += numCoins);
         this.numCoins -= numCoins;
     }
 
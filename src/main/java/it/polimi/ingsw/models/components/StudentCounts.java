@@ -0,0 +1,112 @@
+package it.polimi.ingsw.models.components;
+
+import it.polimi.ingsw.models.utils.UndoLog;
+
+import java.io.Serializable;
+
+/**
+ * The number of students of every color held by a component, indexed by the ordinal of the color
+ * Adding or removing a student doesn't allocate, unless the change is recorded in the active {@link UndoLog}
+ * It's up to the owner to check its limits before adding or removing students
+ */
+public final class StudentCounts implements Serializable {
+
+    private static final Student[] STUDENTS = Student.values();
+
+    private final int[] counts;
+    private int total;
+
+    public StudentCounts() {
+        counts = new int[STUDENTS.length];
+    }
+
+    public int get(Student student) {
+        return counts[student.ordinal()];
+    }
+
+    /**
+     * @return the number of students of all colors
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * Adds a student of the given color, the change is recorded in the active undo log
+     *
+     * @return the number of students of the color after the addition
+     */
+    public int add(Student student) {
+        if (UndoLog.isRecording())
+            UndoLog.record(() -> decrement(student));
+        return increment(student);
+    }
+
+    /**
+     * Removes a student of the given color, the change is recorded in the active undo log
+     *
+     * @return the number of students of the color after the removal
+     * @throws IllegalStateException if there are no students of the given color
+     */
+    public int remove(Student student) {
+        if (counts[student.ordinal()] == 0)
+            throw new IllegalStateException("No " + student + " students to remove");
+        if (UndoLog.isRecording())
+            UndoLog.record(() -> increment(student));
+        return decrement(student);
+    }
+
+    private int increment(Student student) {
+        total++;
+        return ++counts[student.ordinal()];
+    }
+
+    private int decrement(Student student) {
+        total--;
+        return --counts[student.ordinal()];
+    }
+
+    /**
+     * Replaces all the counts, the change is not recorded: it must be used only to restore the students after a deserialization
+     *
+     * @param counts the number of students of every color, in the order of {@link Student#values()}
+     * @throws IllegalArgumentException if there isn't a non-negative count for every color
+     */
+    public void restore(int[] counts) {
+        if (counts.length != this.counts.length)
+            throw new IllegalArgumentException("Expected " + this.counts.length + " student counts, got " + counts.length);
+        int newTotal = 0;
+        for (int count : counts) {
+            if (count < 0)
+                throw new IllegalArgumentException("Negative student count: " + count);
+            newTotal += count;
+        }
+        System.arraycopy(counts, 0, this.counts, 0, counts.length);
+        total = newTotal;
+    }
+
+    /**
+     * @return a copy of the counts, in the order of {@link Student#values()}
+     */
+    public int[] toArray() {
+        return counts.clone();
+    }
+
+    /**
+     * Same format of the maps of students, e.g. {YELLOW=0, CYAN=2, GREEN=0, RED=1, PINK=0}
+     */
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("{");
+        for (Student student : STUDENTS) {
+            if (student.ordinal() > 0)
+                stringBuilder.append(", ");
+            stringBuilder.append(student).append('=').append(counts[student.ordinal()]);
+        }
+        return stringBuilder.append('}').toString();
+    }
+}
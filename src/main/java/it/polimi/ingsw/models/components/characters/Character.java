@@ -5,6 +5,7 @@ import it.polimi.ingsw.models.components.characters.effects.Effect;
 import it.polimi.ingsw.models.components.characters.effects.EffectArgs;
 import it.polimi.ingsw.models.components.interfaces.StudentReceiver;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -83,7 +84,9 @@ public class Character implements StudentReceiver, Serializable {
     public void pickStudent(Student student) {
         if (!canPickStudent(student))
             throw new IllegalMoveException("Character doesn't have this student: " + student);
-        students.remove(student);
+        int index = students.indexOf(student);
+        UndoLog.record(() -> students.add(index, student));
+        students.remove(index);
     }
 
     public boolean canPickStudent(Student student) {
@@ -102,6 +105,7 @@ public class Character implements StudentReceiver, Serializable {
     public void pickBlock() {
         if (!canPickBlock())
             throw new IllegalMoveException("Cannot pick block from this character");
+        UndoLog.record(() -> islandBlocks++);
         islandBlocks--;
     }
 
@@ -119,6 +123,7 @@ public class Character implements StudentReceiver, Serializable {
             throw new IllegalMoveException(characterType + " cannot receive a block");
         if (islandBlocks == maxIslandBlocks)
             throw new IllegalMoveException(characterType + " cannot receive more than " + islandBlocks + " blocks");
+        UndoLog.record(() -> islandBlocks--);
         islandBlocks++;
     }
 
@@ -138,6 +143,7 @@ public class Character implements StudentReceiver, Serializable {
                     "Character cost is " + getCost() + ".");
 
         if (!costIncrement) {
+            UndoLog.record(() -> costIncrement = false);
             costIncrement = true;
             coins--;
         }
@@ -155,6 +161,18 @@ public class Character implements StudentReceiver, Serializable {
         this.effect = effect;
     }
 
+    /**
+     * This method must be used only to restore the character after
+     * a deserialization.
+     *
+     * @param costIncrement true if the character has already been played, so its cost is incremented.
+     * @param islandBlocks  the number of island blocks on the character.
+     */
+    public void restoreState(boolean costIncrement, int islandBlocks) {
+        this.costIncrement = costIncrement;
+        this.islandBlocks = islandBlocks;
+    }
+
     /**
      * Place a student on the character card
      *
@@ -166,6 +184,7 @@ public class Character implements StudentReceiver, Serializable {
         if (!canReceiveStudent(student))
             throw new IllegalMoveException("Cannot add more than " + studentsLimit + " students on the Character");
         students.add(student);
+        UndoLog.record(() -> students.remove(students.size() - 1));
     }
 
     @Override
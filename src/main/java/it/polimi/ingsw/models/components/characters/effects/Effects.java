@@ -49,7 +49,7 @@ public class Effects {
             GameState state = args.getGameState();
             Character character = args.getCharacter();
 
-            if (!state.getIslands().contains(blockedIsland))
+            if (!state.hasIsland(blockedIsland))
                 throw new IllegalMoveException("Island to block does not exist");
             if (!state.getExpertAttrs().getCharacters().contains(character))
                 throw new IllegalMoveException("Cannot play this character in this match");
@@ -85,7 +85,7 @@ public class Effects {
             Island island = args.getIsland();
 
             GameOperations.updateIslandConqueror(state, island);
-            GameOperations.mergeIslands(state);
+            GameOperations.mergeIslands(state, island);
         }
     };
 
@@ -1,27 +1,23 @@
 package it.polimi.ingsw.models.components.hall;
 
 import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.StudentCounts;
 import it.polimi.ingsw.models.components.interfaces.StudentReceiver;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 
 import java.io.Serializable;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
 
 public class Hall implements StudentReceiver, Serializable {
 
-    private final Map<Student, Integer> students;
+    private final StudentCounts students;
 
     // gson lib cannot perform "serialization" if not transient
     private transient HallListener listener;
 
     public Hall() {
-        students = new EnumMap<>(Student.class);
-        for (Student s : Student.values()) {
-            students.put(s, 0);
-        }
+        students = new StudentCounts();
     }
 
     public void setHallListener(HallListener listener) {
@@ -39,11 +35,11 @@ public class Hall implements StudentReceiver, Serializable {
         if (!canReceiveStudent(student))
             throw new IllegalMoveException("Cannot add any more " + student + " students to the Hall");
 
-        students.put(student, students.get(student) + 1);
+        int numStudents = students.add(student);
 
         if (listener != null) {
             listener.hallChanged();
-            if (students.get(student) % 3 == 0)
+            if (numStudents % 3 == 0)
                 listener.getCoin();
         }
     }
@@ -55,16 +51,10 @@ public class Hall implements StudentReceiver, Serializable {
 
     @Override
     public boolean canReceiveStudents(List<Student> students) {
-        Map<Student, Integer> studentsToReceive = new EnumMap<>(Student.class);
-        for (Student student : Student.values())
-            studentsToReceive.put(student, 0);
+        int[] studentsToReceive = this.students.toArray();
         for (Student student : students)
-            studentsToReceive.put(student, studentsToReceive.get(student) + 1);
-        for (Student student : Student.values()) {
-            if (this.students.get(student) + studentsToReceive.get(student)
-                    > GameConstants.MAX_STUDENTS_ON_HALL_PER_COLOR)
+            if (++studentsToReceive[student.ordinal()] > GameConstants.MAX_STUDENTS_ON_HALL_PER_COLOR)
                 return false;
-        }
         return true;
     }
 
@@ -82,7 +72,7 @@ public class Hall implements StudentReceiver, Serializable {
         if (!canRemoveStudent(student))
             throw new IllegalMoveException("Cannot remove student " + student.name() + "from Hall.");
 
-        students.put(student, students.get(student) - 1);
+        students.remove(student);
         if (listener != null)
             listener.hallChanged();
     }
@@ -91,11 +81,7 @@ public class Hall implements StudentReceiver, Serializable {
      * @return the number of students on hall
      */
     public int getNumStudents() {
-        int count = 0;
-        for (Student s : Student.values()) {
-            count += students.get(s);
-        }
-        return count;
+        return students.getTotal();
     }
 
     /**
@@ -106,6 +92,16 @@ public class Hall implements StudentReceiver, Serializable {
         return students.get(color);
     }
 
+    /**
+     * This method must be used only to restore the students after
+     * a deserialization.
+     *
+     * @param counts the number of students of every color, in the order of {@link Student#values()}.
+     */
+    public void restoreStudents(int[] counts) {
+        students.restore(counts);
+    }
+
     @Override
     public String toString() {
         return "Hall:\n" +
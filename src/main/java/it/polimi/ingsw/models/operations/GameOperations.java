@@ -16,7 +16,6 @@ import it.polimi.ingsw.models.operations.influence.InfluenceCalculator;
 import it.polimi.ingsw.models.operations.influence.StandardInfluence;
 import it.polimi.ingsw.models.state.Stage;
 
-import java.security.SecureRandom;
 import java.util.*;
 
 /**
@@ -26,6 +25,20 @@ import java.util.*;
  */
 public class GameOperations {
 
+    private static final Tower[] TOWERS = Tower.values();
+
+    /**
+     * The calculators hold no state of the match, so the same ones are used by all the matches
+     */
+    private static final InfluenceCalculator STANDARD_INFLUENCE = new StandardInfluence();
+    private static final InfluenceCalculator IGNORE_TOWER_INFLUENCE = new IgnoreTowerInfluence();
+    private static final InfluenceCalculator[] IGNORE_STUDENT_INFLUENCES = new InfluenceCalculator[Student.values().length];
+
+    static {
+        for (Student student : Student.values())
+            IGNORE_STUDENT_INFLUENCES[student.ordinal()] = new IgnoreStudentInfluence(student);
+    }
+
     private GameOperations() {
         // hide constructor
     }
@@ -115,7 +128,7 @@ public class GameOperations {
         // at the beginning actionQueue is null
         List<Integer> actionQueue = state.getPlayerQueue();
         List<Integer> clockwiseOrder = state.getClockwiseOrder();
-        List<Integer> planningQueue = GameOperations.getPlanningQueue(actionQueue, clockwiseOrder);
+        List<Integer> planningQueue = GameOperations.getPlanningQueue(actionQueue, clockwiseOrder, state.getRandom());
         state.setPlayerQueue(planningQueue);
     }
 
@@ -126,16 +139,17 @@ public class GameOperations {
      *
      * @param actionQueue The action queue, null if it's not available.
      * @param clockwiseOrder A list of players id in clockwise order.
+     * @param random The random generator of the match.
      * @return the planning queue.
      */
-    private static List<Integer> getPlanningQueue(List<Integer> actionQueue, List<Integer> clockwiseOrder) {
+    private static List<Integer> getPlanningQueue(List<Integer> actionQueue, List<Integer> clockwiseOrder, Random random) {
         List<Integer> planningQueue = new ArrayList<>();
         int numPlayers = clockwiseOrder.size();
 
         int firstPlayerId;
         if (actionQueue == null) {
             // on first round the first player is chosen randomly
-            int firstPlayerIndex = new SecureRandom().nextInt(0, numPlayers);
+            int firstPlayerIndex = random.nextInt(numPlayers);
             firstPlayerId = clockwiseOrder.get(firstPlayerIndex);
         } else {
             // first player in planning queue is the first player in the action queue
@@ -214,7 +228,7 @@ public class GameOperations {
      * Place Mother Nature on a random island
      */
     private static void setupMotherNature(GameState gameState) {
-        int position = new SecureRandom().nextInt(0, GameConstants.NUMBER_OF_ISLANDS);
+        int position = gameState.getRandom().nextInt(GameConstants.NUMBER_OF_ISLANDS);
         gameState.setMotherNaturePosition(position);
     }
 
@@ -224,7 +238,7 @@ public class GameOperations {
      * NB: mother nature position must be set & islands must be initialized
      */
     private static void setupStudentsOnIslands(GameState gameState) {
-        Bag bag = new Bag();
+        Bag bag = new Bag(gameState.getRandom());
         for (Student student : Student.values()) {
             bag.receiveStudent(student);
             bag.receiveStudent(student);
@@ -261,10 +275,7 @@ public class GameOperations {
         Bag bag = gameState.getBag();
         for (Player player : gameState.getPlayers()) {
             Entrance entrance = player.getBoard().getEntrance();
-            for (int i = 0; i < gameConstants.getMaxStudentsOnEntrance(); ++i) {
-                Student student = bag.drawStudent();
-                entrance.receiveStudent(student);
-            }
+            entrance.receiveStudents(bag.drawStudents(gameConstants.getMaxStudentsOnEntrance()));
         }
     }
 
@@ -272,7 +283,7 @@ public class GameOperations {
      * Add three different characters to the match
      */
     private static void setupCharacters(GameState gameState) {
-        SecureRandom random = new SecureRandom();
+        Random random = gameState.getRandom();
         Set<Integer> charactersIds = new TreeSet<>();
         while (charactersIds.size() != GameConstants.NUM_CHARACTERS) {
             int characterId = random.nextInt(CharacterType.values().length);
@@ -291,10 +302,7 @@ public class GameOperations {
 
     private static void giveStudentsToCharacter(GameState gameState, Character character) {
         Bag bag = gameState.getBag();
-        for (int i = 0; i < character.getStudentsLimit(); ++i) {
-            Student student = bag.drawStudent();
-            character.receiveStudent(student);
-        }
+        character.receiveStudents(bag.drawStudents(character.getStudentsLimit()));
     }
 
     private static void giveOneCoinToPlayers(GameState gameState) {
@@ -386,25 +394,7 @@ public class GameOperations {
     static Island mergeIslands(Island island1, Island island2) {
         if (!areAdjacentIslands(island1, island2))
             throw new IllegalMoveException("Cannot merge not adjacent islands.");
-
-        int position = island1.isBefore(island2) ? island1.getPosition() : island2.getPosition();
-        int dimension = getIslandsDimensionSum(List.of(island1, island2));
-
-        Island newIsland = new Island(position, dimension);
-
-        if (!island1.getTowerType().equals(island2.getTowerType()))
-            throw new IllegalMoveException("Cannot merge islands with different towers");
-
-        Tower tower = island1.getTowerType();
-        int numTowers = island1.getNumTowers() + island2.getNumTowers();
-        giveTowersToIsland(newIsland, tower, numTowers);
-
-        for (Student student : Student.values()) {
-            int numStudents = island1.getNumStudent(student) + island2.getNumStudent(student);
-            giveStudentsToIsland(newIsland, student, numStudents);
-        }
-
-        return newIsland;
+        return island1.isBefore(island2) ? island1.mergeWith(island2) : island2.mergeWith(island1);
     }
 
     /**
@@ -418,46 +408,6 @@ public class GameOperations {
         return island1.isBefore(island2) || island2.isBefore(island1);
     }
 
-    /**
-     * Returns the sum of the islands dimension.
-     * NB: This method doesn't check if the islands are adjacent.
-     *
-     * @param islands the list of islands.
-     * @return the sum of islands dimension.
-     */
-    private static int getIslandsDimensionSum(List<Island> islands) {
-        int sum = 0;
-        for (Island island : islands)
-            sum += island.getDimension();
-        return sum;
-    }
-
-    /**
-     * Give towers to the island.
-     *
-     * @param island   the island that should receive towers.
-     * @param tower    the tower to give to the island.
-     * @param quantity the number of towers to give to the island.
-     */
-    private static void giveTowersToIsland(Island island, Tower tower, int quantity) {
-        for (int i = 0; i < quantity; ++i) {
-            island.receiveTower(tower);
-        }
-    }
-
-    /**
-     * Give students to the island.
-     *
-     * @param island   the island that should receive towers.
-     * @param student  the student to give to the island.
-     * @param quantity the number of students to give to the island.
-     */
-    private static void giveStudentsToIsland(Island island, Student student, int quantity) {
-        for (int i = 0; i < quantity; ++i) {
-            island.receiveStudent(student);
-        }
-    }
-
     /**
      * @param islands the list of islands.
      * @return a list with all the islands that can be merged, an empty list
@@ -489,11 +439,36 @@ public class GameOperations {
     }
 
     /**
-     * Merge islands if there are any.
+     * Merge islands if there are any, looking at every pair of adjacent islands.
      */
     public static void mergeIslands(GameState gameState) {
-        List<Island> islands = gameState.getIslands();
-        List<Island> mergeableIslands = GameOperations.getMergeableIslands(islands);
+        mergeIslands(gameState, GameOperations.getMergeableIslands(gameState.getIslands()));
+    }
+
+    /**
+     * Merge the given island with the islands right before and right after it, if they have the same tower.
+     * These are the only islands that can become mergeable when the towers on the given island change.
+     *
+     * @param island the island whose towers may have changed.
+     * @throws NoSuchElementException if the island doesn't exist in gameState.
+     */
+    public static void mergeIslands(GameState gameState, Island island) {
+        island = gameState.getIslandByPosition(island.getPosition());
+        if (!island.hasTowers())
+            return;
+
+        Island previousIsland = gameState.getIslandAfter(island, -1);
+        Island nextIsland = gameState.getIslandAfter(island, 1);
+        List<Island> mergeableIslands = new ArrayList<>(3);
+        if (areMergeableIslands(previousIsland, island))
+            mergeableIslands.add(previousIsland);
+        mergeableIslands.add(island);
+        if (nextIsland != previousIsland && areMergeableIslands(island, nextIsland))
+            mergeableIslands.add(nextIsland);
+        mergeIslands(gameState, mergeableIslands);
+    }
+
+    private static void mergeIslands(GameState gameState, List<Island> mergeableIslands) {
         if (mergeableIslands.size() >= 2) {
             Island newIsland;
             newIsland = switch (mergeableIslands.size()) {
@@ -505,11 +480,7 @@ public class GameOperations {
             };
 
             gameState.setMotherNaturePosition(newIsland.getPosition());
-
-            islands.removeAll(mergeableIslands);
-            islands.add(newIsland);
-            Collections.sort(islands);
-            gameState.setIslands(islands);
+            gameState.replaceIslands(mergeableIslands, newIsland);
 
             if (gameState.isExpertMatch()) {
                 moveBlocksOnTheNewIsland(gameState, mergeableIslands, newIsland);
@@ -618,30 +589,12 @@ public class GameOperations {
         if (steps > getMaxMotherNatureSteps(state))
             throw new IllegalMoveException("Mother nature cannot perform " + steps + " steps");
 
-        List<Island> islands = state.getIslands();
         Island island = state.getIslandByPosition(state.getMotherNaturePosition());
-        int index = getIndexOfIsland(islands, island);
-
-        int nextIndex = (index + steps) % islands.size();
-        Island nextIsland = islands.get(nextIndex);
+        Island nextIsland = state.getIslandAfter(island, steps);
         state.setMotherNaturePosition(nextIsland.getPosition());
 
         updateIslandConqueror(state, nextIsland);
-        mergeIslands(state);
-    }
-
-    /**
-     * @param islands the list of islands.
-     * @param island the to search in the list.
-     * @return the index of the island in the list.
-     * @throws NoSuchElementException if island is not present in the list.
-     */
-    private static int getIndexOfIsland(List<Island> islands, Island island) {
-        for (int i = 0; i < islands.size(); ++i)
-            if (islands.get(i).equals(island))
-                return i;
-        throw new NoSuchElementException("Island index not found. If this exception occurs it means " +
-                "that mother nature position is calculated in the wrong way");
+        mergeIslands(state, nextIsland);
     }
 
     private static int getMaxMotherNatureSteps(GameState state) {
@@ -671,7 +624,7 @@ public class GameOperations {
             }
         }
 
-        if (!state.getIslands().contains(island))
+        if (!state.hasIsland(island))
             throw new IllegalMoveException("Given island doesn't exist");
 
         Player conqueror = getIslandConqueror(state, island);
@@ -702,31 +655,15 @@ public class GameOperations {
      * @return the player who conquered the island, null if no one can conquer the island.
      */
     private static Player getIslandConqueror(GameState state, Island island) {
-        InfluenceCalculator influenceCalc = getInfluenceCalculator(state);
-
-        Map<Tower, Integer> influencePoints = new EnumMap<>(Tower.class);
-        for (Tower tower : Tower.values())
-            influencePoints.put(tower, 0);
-
-        for (Player player : state.getPlayers()) {
-            List<Student> professors = state.getPlayerProfessors(player);
-
-            int playerInfluence;
-            if (state.isExpertMatch() && state.isCurrentPlayer(player)) {
-                int additionalPoints = state.getExpertAttrs().isTwoAdditionalPoints() ? 2 : 0;
-                playerInfluence = influenceCalc.calculateInfluence(island, player, professors, additionalPoints);
-            } else {
-                playerInfluence = influenceCalc.calculateInfluence(island, player, professors);
-            }
-
-            Tower playerTower = player.getBoard().getTowerType();
-            influencePoints.put(playerTower, influencePoints.get(playerTower) + playerInfluence);
-        }
+        int[] influences = new int[TOWERS.length];
+        getInfluenceCalculator(state).addInfluences(state, island, influences);
+        if (state.isExpertMatch() && state.getExpertAttrs().isTwoAdditionalPoints())
+            influences[state.getCurrentPlayer().getBoard().getTowerType().ordinal()] += 2;
 
         int maxInfluence = 0;
         Player conqueror = null;
-        for (Tower tower : Tower.values()) {
-            int influence = influencePoints.get(tower);
+        for (Tower tower : TOWERS) {
+            int influence = influences[tower.ordinal()];
             if (influence > maxInfluence) {
                 maxInfluence = influence;
                 conqueror = state.getPlayerByTower(tower);
@@ -746,13 +683,13 @@ public class GameOperations {
     private static InfluenceCalculator getInfluenceCalculator(GameState gameState) {
         if (gameState.isExpertMatch()) {
             if (gameState.getExpertAttrs().isIgnoreTowers())
-                return new IgnoreTowerInfluence();
+                return IGNORE_TOWER_INFLUENCE;
 
             Student ignoredStudent = gameState.getExpertAttrs().getIgnoredStudentType();
             if (ignoredStudent != null)
-                return new IgnoreStudentInfluence(ignoredStudent);
+                return IGNORE_STUDENT_INFLUENCES[ignoredStudent.ordinal()];
         }
-        return new StandardInfluence();
+        return STANDARD_INFLUENCE;
     }
 
     /**
@@ -1,34 +1,46 @@
 package it.polimi.ingsw.models.operations.influence;
 
-import it.polimi.ingsw.models.components.Player;
 import it.polimi.ingsw.models.components.Island;
 import it.polimi.ingsw.models.components.Student;
-
-import java.util.List;
+import it.polimi.ingsw.models.components.Tower;
+import it.polimi.ingsw.models.state.GameState;
 
 public interface InfluenceCalculator {
 
     /**
-     * Return the player's influence on the island.
-     *
-     * @param island the island where the influence is calculated.
-     * @param player the player for which the influence is calculated.
-     * @param prof   the professors who have th player.
-     * @return the player's influence on the island.
+     * @return true if the towers on the island give influence points, false otherwise.
+     */
+    default boolean countsTowers() {
+        return true;
+    }
+
+    /**
+     * @param color the color of the students.
+     * @return true if the students of the given color give influence points, false otherwise.
      */
-    int calculateInfluence(Island island, Player player, List<Student> prof);
+    default boolean countsStudents(Student color) {
+        return true;
+    }
 
     /**
-     * Return the player's influence on the island.
+     * Adds the influence of every team on the island to the given points.
+     * The students count for the team whose player owns their professor and the towers for the team that owns them,
+     * so the influence is a sum of the counts kept by the island and the state, without looking at the players.
      *
-     * @param island           the island where the influence is calculated.
-     * @param player           the player for which the influence is calculated.
-     * @param prof             the professors who have th player.
-     * @param additionalPoints additional points to add to the player.
-     * @return the player's influence on the island.
+     * @param state      the state of the game.
+     * @param island     the island where the influence is calculated.
+     * @param influences the influence of every team, indexed by the ordinal of the tower of the team.
      */
-    default int calculateInfluence(Island island, Player player, List<Student> prof, int additionalPoints) {
-        return calculateInfluence(island, player, prof) + additionalPoints;
+    default void addInfluences(GameState state, Island island, int[] influences) {
+        for (Student color : Student.values()) {
+            Tower tower = state.getProfessorTower(color);
+            if (tower != null && countsStudents(color))
+                influences[tower.ordinal()] += island.getNumStudent(color);
+        }
+
+        // in 4 player matches only the leader takes influence points given by the towers
+        if (countsTowers() && island.hasTowers() && state.hasTowerLeader(island.getTowerType()))
+            influences[island.getTowerType().ordinal()] += island.getNumTowers();
     }
 
 }
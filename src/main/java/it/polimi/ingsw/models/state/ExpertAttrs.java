@@ -6,6 +6,7 @@ import it.polimi.ingsw.models.components.characters.Character;
 import it.polimi.ingsw.models.components.characters.CharacterType;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -36,6 +37,8 @@ public class ExpertAttrs {
     }
 
     public void setCharacterAlreadyPlayed(boolean characterAlreadyPlayed) {
+        boolean oldCharacterAlreadyPlayed = this.characterAlreadyPlayed;
+        UndoLog.record(() -> this.characterAlreadyPlayed = oldCharacterAlreadyPlayed);
         this.characterAlreadyPlayed = characterAlreadyPlayed;
     }
 
@@ -44,12 +47,18 @@ public class ExpertAttrs {
     }
 
     public void setCharacters(List<Character> characters) {
+        List<Character> oldCharacters = new ArrayList<>(this.characters);
+        UndoLog.record(() -> {
+            this.characters.clear();
+            this.characters.addAll(oldCharacters);
+        });
         this.characters.clear();
         this.characters.addAll(characters);
     }
 
     public void addCharacter(Character character) {
         characters.add(character);
+        UndoLog.record(() -> characters.remove(characters.size() - 1));
     }
 
     public List<Island> getBlockedIslands() {
@@ -61,16 +70,26 @@ public class ExpertAttrs {
     }
 
     public void removeBlockFromIsland(Island island) {
-        blockedIslands.remove(island);
+        int index = blockedIslands.indexOf(island);
+        if (index < 0)
+            return;
+        Island removedIsland = blockedIslands.remove(index);
+        UndoLog.record(() -> blockedIslands.add(index, removedIsland));
     }
 
     public void setBlockedIslands(List<Island> islands) {
+        List<Island> oldBlockedIslands = new ArrayList<>(this.blockedIslands);
+        UndoLog.record(() -> {
+            this.blockedIslands.clear();
+            this.blockedIslands.addAll(oldBlockedIslands);
+        });
         this.blockedIslands.clear();
         this.blockedIslands.addAll(islands);
     }
 
     public void addBlockToIsland(Island island) {
         blockedIslands.add(island);
+        UndoLog.record(() -> blockedIslands.remove(blockedIslands.size() - 1));
     }
 
     public int getNumCoinsInStock() {
@@ -80,12 +99,14 @@ public class ExpertAttrs {
     public void getCoinsFromStock(int coins) {
         if (!canGetCoins(coins))
             throw new IllegalMoveException("Cannot get more than " + coinStock + " coins from stock");
+        UndoLog.record(() -> coinStock += coins);
         coinStock -= coins;
     }
 
     public void addCoinsToStock(int coins) {
         if (coinStock + coins > GameConstants.NUM_COINS)
             throw new IllegalMoveException("Cannot add more than " + GameConstants.NUM_COINS + " coins to stock");
+        UndoLog.record(() -> coinStock -= coins);
         coinStock += coins;
     }
 
@@ -98,6 +119,8 @@ public class ExpertAttrs {
     }
 
     public void setAdditionalMotherNatureSteps(int additionalMotherNatureSteps) {
+        int oldAdditionalMotherNatureSteps = this.additionalMotherNatureSteps;
+        UndoLog.record(() -> this.additionalMotherNatureSteps = oldAdditionalMotherNatureSteps);
         this.additionalMotherNatureSteps = additionalMotherNatureSteps;
     }
 
@@ -106,6 +129,8 @@ public class ExpertAttrs {
     }
 
     public void setIgnoreTowers(boolean ignoreTowers) {
+        boolean oldIgnoreTowers = this.ignoreTowers;
+        UndoLog.record(() -> this.ignoreTowers = oldIgnoreTowers);
         this.ignoreTowers = ignoreTowers;
     }
 
@@ -114,6 +139,8 @@ public class ExpertAttrs {
     }
 
     public void setTwoAdditionalPoints(boolean twoAdditionalPoints) {
+        boolean oldTwoAdditionalPoints = this.twoAdditionalPoints;
+        UndoLog.record(() -> this.twoAdditionalPoints = oldTwoAdditionalPoints);
         this.twoAdditionalPoints = twoAdditionalPoints;
     }
 
@@ -122,6 +149,8 @@ public class ExpertAttrs {
     }
 
     public void setIgnoredStudent(Student ignoredStudentType) {
+        Student oldIgnoredStudentType = this.ignoredStudentType;
+        UndoLog.record(() -> this.ignoredStudentType = oldIgnoredStudentType);
         this.ignoredStudentType = ignoredStudentType;
     }
 
@@ -130,6 +159,8 @@ public class ExpertAttrs {
     }
 
     public void setProfOwnerOnStudentsTie(boolean profOwnerOnStudentsParity) {
+        boolean oldProfOwnershipOnTie = this.profOwnershipOnTie;
+        UndoLog.record(() -> this.profOwnershipOnTie = oldProfOwnershipOnTie);
         this.profOwnershipOnTie = profOwnerOnStudentsParity;
     }
 
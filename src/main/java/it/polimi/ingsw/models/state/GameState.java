@@ -4,6 +4,8 @@ import it.polimi.ingsw.models.components.*;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.constants.MatchType;
 import it.polimi.ingsw.models.exceptions.*;
+import it.polimi.ingsw.models.utils.GameRandom;
+import it.polimi.ingsw.models.utils.UndoLog;
 
 import java.util.*;
 
@@ -11,6 +13,7 @@ import java.util.*;
  * This class represents the state of the game.
  * NB: It's up to the users of this class to verify that the game
  * is in a legal state or if attributes are valid.
+ * Every change is recorded in the active {@link UndoLog}, if any.
  */
 public class GameState {
 
@@ -36,6 +39,10 @@ public class GameState {
 
     private final Bag bag;
     private final List<Island> islands;
+    /**
+     * Index in the islands of the island at every position, -1 if no island starts there.
+     */
+    private final int[] islandIndexes;
     private final List<Cloud> clouds;
     private int motherNaturePosition;
     /**
@@ -43,6 +50,11 @@ public class GameState {
      * The integer represents the player id.
      */
     private final Map<Student, Integer> professorOwners;
+    /**
+     * The tower of the owner of every professor, indexed by the ordinal of the professor,
+     * null if no player owns it. Kept along with the owners so that influence needs no lookup of the players.
+     */
+    private final Tower[] professorTowers;
 
     private Stage stage;
     private int currentTurn;
@@ -50,20 +62,57 @@ public class GameState {
 
     private Tower winner;
 
+    /**
+     * The source of every random choice of the match, the bag draws from it too.
+     */
+    // gson lib cannot perform "serialization" if not transient
+    private final transient GameRandom random;
+
     public GameState(int numPlayers, boolean expertMatch) {
+        this(numPlayers, expertMatch ? new ExpertAttrs() : null, new GameRandom());
+    }
+
+    /**
+     * Creates a game state whose random choices are determined by the given seed.
+     *
+     * @param seed the seed of the random generator of the match.
+     */
+    public GameState(int numPlayers, boolean expertMatch, long seed) {
+        this(numPlayers, expertMatch ? new ExpertAttrs() : null, new GameRandom(seed));
+    }
+
+    /**
+     * Creates a game state with the given expert attributes, used to restore a state after a deserialization.
+     *
+     * @param expertAttrs the attributes of the expert match, null if the match is not expert.
+     */
+    public GameState(int numPlayers, ExpertAttrs expertAttrs) {
+        this(numPlayers, expertAttrs, new GameRandom());
+    }
+
+    /**
+     * Creates a game state with the given expert attributes and random generator, used to restore a state after a deserialization.
+     *
+     * @param expertAttrs the attributes of the expert match, null if the match is not expert.
+     * @param random      the random generator of the match.
+     */
+    public GameState(int numPlayers, ExpertAttrs expertAttrs, GameRandom random) {
         matchType = MatchType.fromNumPlayers(numPlayers);
-        this.expertMatch = expertMatch;
-        if (expertMatch)
-            expertAttrs = new ExpertAttrs();
+        this.expertMatch = expertAttrs != null;
+        this.expertAttrs = expertAttrs;
 
         availableWizards = new ArrayList<>();
         availableTowers = new ArrayList<>();
         islands = new ArrayList<>();
+        islandIndexes = new int[GameConstants.NUMBER_OF_ISLANDS];
+        Arrays.fill(islandIndexes, -1);
         clouds = new ArrayList<>();
         players = new ArrayList<>();
-        bag = new Bag();
+        this.random = random;
+        bag = new Bag(random);
 
         professorOwners = new EnumMap<>(Student.class);
+        professorTowers = new Tower[Student.values().length];
         for (Student student : Student.values()) {
             professorOwners.put(student, null);
         }
@@ -81,6 +130,13 @@ public class GameState {
         return expertMatch;
     }
 
+    /**
+     * @return the random generator of the match, its seed can be used to replay the match.
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+
     /**
      * @return the attributes for the expert match, null if not expert game
      */
@@ -89,6 +145,8 @@ public class GameState {
     }
 
     public void setAvailableWizards(List<Wizard> availableWizards) {
+        List<Wizard> oldAvailableWizards = this.availableWizards;
+        UndoLog.record(() -> this.availableWizards = oldAvailableWizards);
         this.availableWizards = new ArrayList<>(availableWizards);
     }
 
@@ -97,6 +155,8 @@ public class GameState {
     }
 
     public void setAvailableTowers(List<Tower> availableTowers) {
+        List<Tower> oldAvailableTowers = this.availableTowers;
+        UndoLog.record(() -> this.availableTowers = oldAvailableTowers);
         this.availableTowers = new ArrayList<>(availableTowers);
     }
 
@@ -111,7 +171,17 @@ public class GameState {
     public void addPlayer(Player player) {
         if (players.size() >= getNumPlayers())
             throw new IllegalMoveException("Cannot add more than " + matchType + " players.");
+        Tower[] oldProfessorTowers = professorTowers.clone();
+        UndoLog.record(() -> {
+            players.remove(players.size() - 1);
+            System.arraycopy(oldProfessorTowers, 0, professorTowers, 0, professorTowers.length);
+        });
         players.add(player);
+        for (Student student : Student.values()) {
+            Integer owner = professorOwners.get(student);
+            if (owner != null && owner == player.getId())
+                professorTowers[student.ordinal()] = player.getBoard().getTowerType();
+        }
     }
 
     public List<Player> getPlayers() {
@@ -163,6 +233,8 @@ public class GameState {
     }
 
     public void setClockwiseOrder(List<Integer> clockwiseOrder) {
+        List<Integer> oldClockwiseOrder = this.clockwiseOrder;
+        UndoLog.record(() -> this.clockwiseOrder = oldClockwiseOrder);
         this.clockwiseOrder = clockwiseOrder;
     }
 
@@ -171,6 +243,8 @@ public class GameState {
     }
 
     public void setPlayerQueue(List<Integer> playerQueue) {
+        List<Integer> oldPlayerQueue = this.playerQueue;
+        UndoLog.record(() -> this.playerQueue = oldPlayerQueue);
         this.playerQueue = playerQueue;
     }
 
@@ -187,30 +261,98 @@ public class GameState {
     }
 
     public void setIslands(List<Island> islands) {
+        Island[] oldIslands = this.islands.toArray(new Island[0]);
+        Island[] newIslands = islands.toArray(new Island[0]);
+        UndoLog.record(() -> restoreIslands(oldIslands));
+        restoreIslands(newIslands);
+    }
+
+    private void restoreIslands(Island[] islands) {
         this.islands.clear();
-        this.islands.addAll(islands);
+        Collections.addAll(this.islands, islands);
+        indexIslands(0);
+    }
+
+    /**
+     * Replaces the given adjacent islands with the island resulting from their merge, keeping the ascendant order.
+     *
+     * @param mergedIslands the islands that have been merged, they must be islands of this state.
+     * @param newIsland     the island resulting from the merge.
+     */
+    public void replaceIslands(List<Island> mergedIslands, Island newIsland) {
+        if (UndoLog.isRecording()) {
+            Island[] oldIslands = islands.toArray(new Island[0]);
+            UndoLog.record(() -> restoreIslands(oldIslands));
+        }
+        int firstChangedIndex = islands.size();
+        for (Island island : mergedIslands) {
+            firstChangedIndex = Math.min(firstChangedIndex, islandIndexes[island.getPosition()]);
+            islandIndexes[island.getPosition()] = -1;
+        }
+        islands.removeAll(mergedIslands);
+        int index = islands.size();
+        while (index > 0 && islands.get(index - 1).getPosition() > newIsland.getPosition())
+            index--;
+        islands.add(index, newIsland);
+        indexIslands(Math.min(firstChangedIndex, index));
+    }
+
+    /**
+     * Updates the index of the positions of the islands from the given index of the list.
+     */
+    private void indexIslands(int fromIndex) {
+        if (fromIndex == 0)
+            Arrays.fill(islandIndexes, -1);
+        for (int i = fromIndex; i < islands.size(); i++)
+            islandIndexes[islands.get(i).getPosition()] = i;
     }
 
     /**
-     * @return islands with ascendant id
+     * @return a read-only view of the islands with ascendant id, it reflects the following changes of the islands.
      */
     public List<Island> getIslands() {
-        return new ArrayList<>(islands);
+        return Collections.unmodifiableList(islands);
     }
 
     /**
      * @throws NoSuchElementException if the given position does not correspond to an existing island
      */
     public Island getIslandByPosition(int position) {
-        for (Island island : islands) {
-            if (island.getPosition() == position) {
-                return island;
-            }
-        }
-        throw new NoSuchElementException("Requested island is not present: position=" + position);
+        int index = position >= 0 && position < islandIndexes.length ? islandIndexes[position] : -1;
+        if (index < 0)
+            throw new NoSuchElementException("Requested island is not present: position=" + position);
+        return islands.get(index);
+    }
+
+    /**
+     * @return true if the given island is one of the islands of this state, false otherwise.
+     */
+    public boolean hasIsland(Island island) {
+        int position = island.getPosition();
+        return position >= 0 && position < islandIndexes.length && islandIndexes[position] >= 0;
+    }
+
+    /**
+     * Walks the islands clockwise, the island after the last one is the first one.
+     *
+     * @param island the island to start from, it must be an island of this state.
+     * @param steps  the number of islands to walk, negative to walk counterclockwise.
+     * @return the island reached after the given steps.
+     * @throws NoSuchElementException if the given island is not an island of this state.
+     */
+    public Island getIslandAfter(Island island, int steps) {
+        if (!hasIsland(island))
+            throw new NoSuchElementException("Requested island is not present: position=" + island.getPosition());
+        int index = Math.floorMod(islandIndexes[island.getPosition()] + steps, islands.size());
+        return islands.get(index);
     }
 
     public void setClouds(List<Cloud> clouds) {
+        List<Cloud> oldClouds = new ArrayList<>(this.clouds);
+        UndoLog.record(() -> {
+            this.clouds.clear();
+            this.clouds.addAll(oldClouds);
+        });
         this.clouds.clear();
         this.clouds.addAll(clouds);
     }
@@ -238,6 +380,8 @@ public class GameState {
         if (motherNaturePosition < 0 || motherNaturePosition > GameConstants.NUMBER_OF_ISLANDS)
             throw new InvalidMotherNaturePosition("Trying to put mother nature on not existing island");
 
+        int oldMotherNaturePosition = this.motherNaturePosition;
+        UndoLog.record(() -> this.motherNaturePosition = oldMotherNaturePosition);
         this.motherNaturePosition = motherNaturePosition;
     }
 
@@ -250,7 +394,43 @@ public class GameState {
      * @param playerId the id of the player who owns the prof.
      */
     public void setProfessorOwner(Student student, Integer playerId) {
+        Integer oldOwner = professorOwners.get(student);
+        Tower oldTower = professorTowers[student.ordinal()];
+        UndoLog.record(() -> {
+            professorOwners.put(student, oldOwner);
+            professorTowers[student.ordinal()] = oldTower;
+        });
         professorOwners.put(student, playerId);
+        professorTowers[student.ordinal()] = getTowerOfPlayer(playerId);
+    }
+
+    /**
+     * @return the tower of the player with the given id, null if the id is null or the player has not been added yet.
+     */
+    private Tower getTowerOfPlayer(Integer playerId) {
+        if (playerId != null)
+            for (Player player : players)
+                if (player.getId() == playerId)
+                    return player.getBoard().getTowerType();
+        return null;
+    }
+
+    /**
+     * @param prof the color of the professor.
+     * @return the tower of the player who owns the prof, null if no players own the prof.
+     */
+    public Tower getProfessorTower(Student prof) {
+        return professorTowers[prof.ordinal()];
+    }
+
+    /**
+     * @return true if a player keeps the towers of the given color, i.e. the team of the towers plays this match.
+     */
+    public boolean hasTowerLeader(Tower tower) {
+        for (Player player : players)
+            if (player.isLeader() && player.getBoard().getTowerType() == tower)
+                return true;
+        return false;
     }
 
     /**
@@ -272,6 +452,8 @@ public class GameState {
     }
 
     public void setStage(Stage stage) {
+        Stage oldStage = this.stage;
+        UndoLog.record(() -> this.stage = oldStage);
         this.stage = stage;
     }
 
@@ -288,15 +470,17 @@ public class GameState {
     }
 
     public void setCurrentTurn(int currentTurn) {
+        int oldCurrentTurn = this.currentTurn;
+        UndoLog.record(() -> this.currentTurn = oldCurrentTurn);
         this.currentTurn = currentTurn;
     }
 
     public void resetTurn() {
-        currentTurn = 0;
+        setCurrentTurn(0);
     }
 
     public void nextTurn() {
-        currentTurn++;
+        setCurrentTurn(currentTurn + 1);
     }
 
     public boolean isLastTurn() {
@@ -308,11 +492,13 @@ public class GameState {
     }
 
     public void setStudentsToMove(int studentsToMove) {
+        int oldStudentsToMove = this.studentsToMove;
+        UndoLog.record(() -> this.studentsToMove = oldStudentsToMove);
         this.studentsToMove = studentsToMove;
     }
 
     public void decrementStudentsToMove() {
-        studentsToMove--;
+        setStudentsToMove(studentsToMove - 1);
     }
 
     public Tower getWinner() {
@@ -320,6 +506,8 @@ public class GameState {
     }
 
     public void setWinner(Tower winner) {
+        Tower oldWinner = this.winner;
+        UndoLog.record(() -> this.winner = oldWinner);
         this.winner = winner;
     }
 }
@@ -0,0 +1,524 @@
+package it.polimi.ingsw.models.state;
+
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.characters.CharacterType;
+import it.polimi.ingsw.models.components.characters.Characters;
+import it.polimi.ingsw.models.constants.GameConstants;
+import it.polimi.ingsw.models.utils.GameRandom;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact binary snapshots of the game state, used to clone, store or send a state without going through JSON
+ * A snapshot starts with its format version, followed by a stream of bit-packed fields:
+ * numbers are Elias gamma coded, so that the small counts of students and towers take a few bits,
+ * enums are written as their ordinals in the fewest bits that fit all the constants, nullable ones as ordinal plus one,
+ * the hand of a player is a mask of {@link Assistant#values()} and names are written as UTF-8 bytes
+ * The fields are the ones written by the JSON adapters of the state, in the same order,
+ * plus the seed and the state of the random generator after the expert attributes, so that a decoded state makes the same draws
+ */
+public final class GameStateCodec {
+
+    /**
+     * The version of the snapshots written by this codec, snapshots of other versions are rejected
+     * Every change to the layout must increment it
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final Wizard[] WIZARDS = Wizard.values();
+    private static final Tower[] TOWERS = Tower.values();
+    private static final Assistant[] ASSISTANTS = Assistant.values();
+    private static final Student[] STUDENTS = Student.values();
+    private static final Stage[] STAGES = Stage.values();
+    private static final CharacterType[] CHARACTER_TYPES = CharacterType.values();
+
+    private GameStateCodec() {
+    }
+
+    /**
+     * @return the snapshot of the given state
+     * @throws IllegalArgumentException if a number of the state is negative
+     */
+    public static byte[] encode(GameState gameState) {
+        BitWriter out = new BitWriter();
+        out.writeBits(FORMAT_VERSION, 8);
+        out.writeNumber(gameState.getNumPlayers());
+        out.writeBoolean(gameState.isExpertMatch());
+        if (gameState.isExpertMatch())
+            writeExpertAttrs(out, gameState.getExpertAttrs());
+        out.writeLong(gameState.getRandom().getSeed());
+        out.writeLong(gameState.getRandom().getState());
+
+        out.writeNumber(gameState.getAvailableWizards().size());
+        for (Wizard wizard : gameState.getAvailableWizards())
+            out.writeEnum(wizard, WIZARDS.length);
+        out.writeNumber(gameState.getAvailableTowers().size());
+        for (Tower tower : gameState.getAvailableTowers())
+            out.writeEnum(tower, TOWERS.length);
+
+        List<Player> players = gameState.getPlayers();
+        out.writeNumber(players.size());
+        for (Player player : players)
+            writePlayer(out, player);
+        writeOptionalNumbers(out, gameState.getClockwiseOrder());
+        writeOptionalNumbers(out, gameState.getPlayerQueue());
+
+        Bag bag = gameState.getBag();
+        for (Student student : STUDENTS)
+            out.writeNumber(bag.getNumStudentsByColor(student));
+        List<Island> islands = gameState.getIslands();
+        out.writeNumber(islands.size());
+        for (Island island : islands)
+            writeIsland(out, island);
+        List<Cloud> clouds = gameState.getClouds();
+        out.writeNumber(clouds.size());
+        for (Cloud cloud : clouds)
+            writeCloud(out, cloud);
+        out.writeNumber(gameState.getMotherNaturePosition());
+        for (Student student : STUDENTS)
+            out.writeOptionalNumber(gameState.getProfessorOwner(student));
+
+        out.writeOptionalEnum(gameState.getStage(), STAGES.length);
+        out.writeNumber(gameState.getCurrentTurn());
+        out.writeNumber(gameState.getStudentsToMove());
+        out.writeOptionalEnum(gameState.getWinner(), TOWERS.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the state of the given snapshot
+     * @throws IllegalArgumentException if the snapshot is truncated, invalid or of another version
+     */
+    public static GameState decode(byte[] snapshot) {
+        BitReader in = new BitReader(snapshot);
+        int version = in.readBits(8);
+        if (version != FORMAT_VERSION)
+            throw new IllegalArgumentException("Unsupported snapshot version: " + version);
+
+        int numPlayers = in.readNumber();
+        ExpertAttrs expertAttrs = in.readBoolean() ? readExpertAttrs(in) : null;
+        GameRandom random = new GameRandom(in.readLong(), in.readLong());
+        GameState gameState = new GameState(numPlayers, expertAttrs, random);
+
+        List<Wizard> availableWizards = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            availableWizards.add(in.readEnum(WIZARDS));
+        gameState.setAvailableWizards(availableWizards);
+        List<Tower> availableTowers = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            availableTowers.add(in.readEnum(TOWERS));
+        gameState.setAvailableTowers(availableTowers);
+
+        for (int i = in.readLength(); i > 0; i--)
+            gameState.addPlayer(readPlayer(in));
+        gameState.setClockwiseOrder(readOptionalNumbers(in));
+        gameState.setPlayerQueue(readOptionalNumbers(in));
+
+        gameState.getBag().restoreStudents(readCounts(in));
+        List<Island> islands = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            islands.add(readIsland(in));
+        gameState.setIslands(islands);
+        List<Cloud> clouds = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            clouds.add(readCloud(in));
+        gameState.setClouds(clouds);
+        gameState.setMotherNaturePosition(in.readNumber());
+        for (Student student : STUDENTS)
+            gameState.setProfessorOwner(student, in.readOptionalNumber());
+
+        gameState.setStage(in.readOptionalEnum(STAGES));
+        gameState.setCurrentTurn(in.readNumber());
+        gameState.setStudentsToMove(in.readNumber());
+        gameState.setWinner(in.readOptionalEnum(TOWERS));
+
+        if (expertAttrs != null)
+            expertAttrs.setBlockedIslands(resolveIslands(gameState, expertAttrs.getBlockedIslands()));
+        return gameState;
+    }
+
+    /**
+     * @return a deep copy of the given state, the hall listeners are not copied
+     */
+    public static GameState copy(GameState gameState) {
+        return decode(encode(gameState));
+    }
+
+    private static void writeExpertAttrs(BitWriter out, ExpertAttrs expertAttrs) {
+        out.writeNumber(expertAttrs.getCharacters().size());
+        for (Character character : expertAttrs.getCharacters()) {
+            out.writeEnum(character.getCharacterType(), CHARACTER_TYPES.length);
+            writeStudents(out, character.getStudents());
+            out.writeBoolean(character.isCostIncrement());
+            out.writeNumber(character.getNumIslandBlocks());
+        }
+        out.writeNumber(expertAttrs.getNumCoinsInStock());
+        out.writeBoolean(expertAttrs.isCharacterAlreadyPlayed());
+        out.writeNumber(expertAttrs.getBlockedIslands().size());
+        for (Island island : expertAttrs.getBlockedIslands())
+            out.writeNumber(island.getPosition());
+        out.writeNumber(expertAttrs.getAdditionalMotherNatureSteps());
+        out.writeBoolean(expertAttrs.isIgnoreTowers());
+        out.writeBoolean(expertAttrs.isTwoAdditionalPoints());
+        out.writeOptionalEnum(expertAttrs.getIgnoredStudentType(), STUDENTS.length);
+        out.writeBoolean(expertAttrs.getProfOwnershipOnTie());
+    }
+
+    /**
+     * Blocked islands are read as placeholders with the right position, they are resolved once the islands are read
+     */
+    private static ExpertAttrs readExpertAttrs(BitReader in) {
+        ExpertAttrs expertAttrs = new ExpertAttrs();
+        List<Character> characters = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--) {
+            Character character = Characters.get(in.readEnum(CHARACTER_TYPES));
+            for (Student student : readStudents(in))
+                character.receiveStudent(student);
+            boolean costIncrement = in.readBoolean();
+            character.restoreState(costIncrement, in.readNumber());
+            characters.add(character);
+        }
+        expertAttrs.setCharacters(characters);
+        expertAttrs.getCoinsFromStock(GameConstants.NUM_COINS - in.readNumber());
+        expertAttrs.setCharacterAlreadyPlayed(in.readBoolean());
+        List<Island> blockedIslands = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            blockedIslands.add(new Island(in.readNumber(), 1));
+        expertAttrs.setBlockedIslands(blockedIslands);
+        expertAttrs.setAdditionalMotherNatureSteps(in.readNumber());
+        expertAttrs.setIgnoreTowers(in.readBoolean());
+        expertAttrs.setTwoAdditionalPoints(in.readBoolean());
+        expertAttrs.setIgnoredStudent(in.readOptionalEnum(STUDENTS));
+        expertAttrs.setProfOwnerOnStudentsTie(in.readBoolean());
+        return expertAttrs;
+    }
+
+    private static void writePlayer(BitWriter out, Player player) {
+        out.writeEnum(player.getWizard(), WIZARDS.length);
+        out.writeString(player.getName());
+        out.writeBoolean(player.isLeader());
+
+        Board board = player.getBoard();
+        out.writeEnum(board.getTowerType(), TOWERS.length);
+        out.writeNumber(board.getTowerLimit());
+        out.writeNumber(board.getNumTowers());
+        out.writeNumber(board.getEntrance().getStudentsLimit());
+        for (Student student : STUDENTS)
+            out.writeNumber(board.getEntrance().getNumStudentsByColor(student));
+        for (Student student : STUDENTS)
+            out.writeNumber(board.getHall().getNumStudentsByColor(student));
+
+        int hand = 0;
+        for (Assistant assistant : player.getPlayableAssistants())
+            hand |= 1 << assistant.ordinal();
+        out.writeBits(hand, ASSISTANTS.length);
+        out.writeOptionalEnum(player.getLastPlayedAssistant(), ASSISTANTS.length);
+        out.writeNumber(player.getNumCoins());
+    }
+
+    private static Player readPlayer(BitReader in) {
+        Wizard wizard = in.readEnum(WIZARDS);
+        String name = in.readString();
+        boolean leader = in.readBoolean();
+
+        Tower towerType = in.readEnum(TOWERS);
+        int towerLimit = in.readNumber();
+        int numTowers = in.readNumber();
+        Board board = new Board(towerType, towerLimit, in.readNumber());
+        board.restoreNumTowers(numTowers);
+        board.getEntrance().restoreStudents(readCounts(in));
+        board.getHall().restoreStudents(readCounts(in));
+
+        int handMask = in.readBits(ASSISTANTS.length);
+        List<Assistant> hand = new ArrayList<>(Integer.bitCount(handMask));
+        for (Assistant assistant : ASSISTANTS)
+            if ((handMask & (1 << assistant.ordinal())) != 0)
+                hand.add(assistant);
+        Assistant lastPlayedAssistant = in.readOptionalEnum(ASSISTANTS);
+
+        Player player = new Player(wizard, name, hand, board, leader);
+        player.restoreState(lastPlayedAssistant, in.readNumber());
+        return player;
+    }
+
+    private static void writeIsland(BitWriter out, Island island) {
+        out.writeNumber(island.getPosition());
+        out.writeNumber(island.getDimension());
+        for (Student student : STUDENTS)
+            out.writeNumber(island.getNumStudent(student));
+        out.writeOptionalEnum(island.hasTowers() ? island.getTowerType() : null, TOWERS.length);
+        if (island.hasTowers())
+            out.writeNumber(island.getNumTowers());
+    }
+
+    private static Island readIsland(BitReader in) {
+        int position = in.readNumber();
+        Island island = new Island(position, in.readNumber());
+        island.restoreStudents(readCounts(in));
+        Tower tower = in.readOptionalEnum(TOWERS);
+        if (tower != null)
+            for (int i = in.readNumber(); i > 0; i--)
+                island.receiveTower(tower);
+        return island;
+    }
+
+    private static void writeCloud(BitWriter out, Cloud cloud) {
+        out.writeNumber(cloud.getId());
+        out.writeNumber(cloud.getStudentsLimit());
+        writeStudents(out, cloud.getStudents());
+    }
+
+    private static Cloud readCloud(BitReader in) {
+        int id = in.readNumber();
+        Cloud cloud = new Cloud(id, in.readNumber());
+        for (Student student : readStudents(in))
+            cloud.receiveStudent(student);
+        return cloud;
+    }
+
+    private static int[] readCounts(BitReader in) {
+        int[] counts = new int[STUDENTS.length];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = in.readNumber();
+        return counts;
+    }
+
+    /**
+     * Writes an ordered group of students
+     */
+    private static void writeStudents(BitWriter out, List<Student> students) {
+        out.writeNumber(students.size());
+        for (Student student : students)
+            out.writeEnum(student, STUDENTS.length);
+    }
+
+    private static List<Student> readStudents(BitReader in) {
+        List<Student> students = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            students.add(in.readEnum(STUDENTS));
+        return students;
+    }
+
+    private static void writeOptionalNumbers(BitWriter out, List<Integer> values) {
+        out.writeBoolean(values != null);
+        if (values == null)
+            return;
+        out.writeNumber(values.size());
+        for (int value : values)
+            out.writeNumber(value);
+    }
+
+    private static List<Integer> readOptionalNumbers(BitReader in) {
+        if (!in.readBoolean())
+            return null;
+        List<Integer> values = new ArrayList<>();
+        for (int i = in.readLength(); i > 0; i--)
+            values.add(in.readNumber());
+        return values;
+    }
+
+    /**
+     * @return the islands of the state in the given positions, the placeholders whose position has no island are kept
+     */
+    private static List<Island> resolveIslands(GameState gameState, List<Island> placeholders) {
+        List<Island> islands = new ArrayList<>(placeholders.size());
+        for (Island placeholder : placeholders) {
+            try {
+                islands.add(gameState.getIslandByPosition(placeholder.getPosition()));
+            } catch (NoSuchElementException e) {
+                islands.add(placeholder);
+            }
+        }
+        return islands;
+    }
+
+    /**
+     * @return the number of bits needed to write the given number of different values
+     */
+    private static int bitsFor(int numValues) {
+        return numValues <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(numValues - 1);
+    }
+
+    /**
+     * Writes bits from the most significant one, the last byte is padded with zeros
+     */
+    private static final class BitWriter {
+        private byte[] buffer = new byte[128];
+        private int length;
+        private long pending;
+        private int numPending;
+
+        /**
+         * @param width at most 32
+         */
+        void writeBits(long value, int width) {
+            pending = (pending << width) | (value & ((1L << width) - 1));
+            numPending += width;
+            while (numPending >= 8) {
+                numPending -= 8;
+                if (length == buffer.length)
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                buffer[length++] = (byte) (pending >>> numPending);
+            }
+        }
+
+        void writeLong(long value) {
+            writeBits(value >>> 32, 32);
+            writeBits(value, 32);
+        }
+
+        void writeBoolean(boolean value) {
+            writeBits(value ? 1 : 0, 1);
+        }
+
+        /**
+         * Writes the Elias gamma code of the number plus one: as many zeros as the bits after the leading one, then the bits
+         *
+         * @throws IllegalArgumentException if the number is negative
+         */
+        void writeNumber(int value) {
+            if (value < 0)
+                throw new IllegalArgumentException("Negative number in game state: " + value);
+            long code = value + 1L;
+            int width = 64 - Long.numberOfLeadingZeros(code);
+            if (width <= 16) {
+                // the leading zeros of the code are the ones of the prefix
+                writeBits(code, 2 * width - 1);
+            } else {
+                writeBits(0, width - 1);
+                writeBits(code, width);
+            }
+        }
+
+        void writeOptionalNumber(Integer value) {
+            writeNumber(value == null ? 0 : value + 1);
+        }
+
+        void writeEnum(Enum<?> value, int numValues) {
+            writeBits(value.ordinal(), bitsFor(numValues));
+        }
+
+        void writeOptionalEnum(Enum<?> value, int numValues) {
+            writeBits(value == null ? 0 : value.ordinal() + 1, bitsFor(numValues + 1));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeNumber(bytes.length);
+            for (byte b : bytes)
+                writeBits(b, 8);
+        }
+
+        byte[] toByteArray() {
+            if (numPending > 0)
+                writeBits(0, 8 - numPending);
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    /**
+     * Reads the bits written by {@link BitWriter}
+     */
+    private static final class BitReader {
+        private final byte[] data;
+        private int offset;
+        private long pending;
+        private int numPending;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * @param width at most 32
+         * @throws IllegalArgumentException if the snapshot ends before the bits
+         */
+        int readBits(int width) {
+            if (numPending < width) {
+                refill();
+                if (numPending < width)
+                    throw new IllegalArgumentException("Truncated game state snapshot");
+            }
+            numPending -= width;
+            return (int) ((pending >>> numPending) & ((1L << width) - 1));
+        }
+
+        /**
+         * Reads as many bytes as they fit in the pending bits
+         */
+        private void refill() {
+            while (numPending <= 56 && offset < data.length) {
+                pending = (pending << 8) | (data[offset++] & 0xFF);
+                numPending += 8;
+            }
+        }
+
+        long readLong() {
+            long high = readBits(32) & 0xFFFFFFFFL;
+            return (high << 32) | (readBits(32) & 0xFFFFFFFFL);
+        }
+
+        boolean readBoolean() {
+            return readBits(1) == 1;
+        }
+
+        int readNumber() {
+            refill();
+            if (numPending == 0)
+                throw new IllegalArgumentException("Truncated game state snapshot");
+            int numZeros = Long.numberOfLeadingZeros(pending << (64 - numPending));
+            if (numZeros >= numPending)
+                throw new IllegalArgumentException("Truncated game state snapshot");
+            if (numZeros > 31)
+                throw new IllegalArgumentException("Invalid number in game state snapshot");
+            numPending -= numZeros;
+            long code = readBits(numZeros + 1) & 0xFFFFFFFFL;
+            if (code - 1 > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Invalid number in game state snapshot");
+            return (int) (code - 1);
+        }
+
+        /**
+         * @return the number of elements of a group, every element takes at least a bit
+         * @throws IllegalArgumentException if there are not enough bits left for the elements
+         */
+        int readLength() {
+            int length = readNumber();
+            if (length > (long) (data.length - offset) * 8 + numPending)
+                throw new IllegalArgumentException("Invalid length in game state snapshot: " + length);
+            return length;
+        }
+
+        Integer readOptionalNumber() {
+            int value = readNumber();
+            return value == 0 ? null : value - 1;
+        }
+
+        <E extends Enum<E>> E readEnum(E[] values) {
+            int ordinal = readBits(bitsFor(values.length));
+            if (ordinal >= values.length)
+                throw new IllegalArgumentException("Invalid " + values[0].getDeclaringClass().getSimpleName() + " " + ordinal);
+            return values[ordinal];
+        }
+
+        <E extends Enum<E>> E readOptionalEnum(E[] values) {
+            int code = readBits(bitsFor(values.length + 1));
+            if (code > values.length)
+                throw new IllegalArgumentException("Invalid " + values[0].getDeclaringClass().getSimpleName() + " " + (code - 1));
+            return code == 0 ? null : values[code - 1];
+        }
+
+        String readString() {
+            int length = readLength();
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+                bytes[i] = (byte) readBits(8);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
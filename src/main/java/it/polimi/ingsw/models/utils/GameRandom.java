@@ -0,0 +1,83 @@
+package it.polimi.ingsw.models.utils;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The source of all the randomness of a match, a SplitMix64 generator whose whole state is a single long
+ * Two generators with the same seed produce the same values, so a match can be replayed from its seed and its moves
+ * Every value drawn is recorded in the active {@link UndoLog}, so a move rolled back doesn't consume values
+ * Not thread safe, like the rest of the model
+ */
+public class GameRandom extends Random {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private long state;
+
+    /**
+     * Creates a generator with a random seed
+     */
+    public GameRandom() {
+        this(randomSeed());
+    }
+
+    public GameRandom(long seed) {
+        this(seed, seed);
+    }
+
+    /**
+     * Creates a generator that continues the sequence of another one, used to restore a state after a deserialization
+     *
+     * @param seed  the seed the sequence started from.
+     * @param state the state reached by the sequence.
+     */
+    public GameRandom(long seed, long state) {
+        super(0);
+        this.seed = seed;
+        this.state = state;
+    }
+
+    /**
+     * @return an unpredictable seed, cheap to get unlike the ones of SecureRandom
+     */
+    public static long randomSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * @return the seed the sequence started from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the state reached by the sequence, the next values depend only on it.
+     */
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public long nextLong() {
+        if (UndoLog.isRecording()) {
+            long oldState = state;
+            UndoLog.record(() -> state = oldState);
+        }
+        state += GOLDEN_GAMMA;
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * All the other methods of {@link Random} draw their values from here
+     */
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+}
@@ -0,0 +1,82 @@
+package it.polimi.ingsw.models.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Journal of the changes performed on the model by the current thread.
+ * While a log is active every mutator of the model records the action that reverts its change,
+ * so that a move that fails halfway can be reverted in place.
+ * Undo actions must restore the fields directly, without calling other mutators or listeners.
+ */
+public class UndoLog {
+
+    private static final ThreadLocal<UndoLog> CURRENT = new ThreadLocal<>();
+
+    private final Deque<Runnable> undoActions;
+
+    private UndoLog() {
+        undoActions = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts recording the changes performed by the current thread.
+     *
+     * @return the started log, it must be committed or rolled back by the same thread.
+     * @throws IllegalStateException if a log is already active on the current thread.
+     */
+    public static UndoLog begin() {
+        if (CURRENT.get() != null)
+            throw new IllegalStateException("An undo log is already active on this thread");
+        UndoLog undoLog = new UndoLog();
+        CURRENT.set(undoLog);
+        return undoLog;
+    }
+
+    /**
+     * Records the action that reverts a change. Does nothing if no log is active on the current thread.
+     *
+     * @param undoAction the action that restores the previous value of the changed fields.
+     */
+    public static void record(Runnable undoAction) {
+        UndoLog undoLog = CURRENT.get();
+        if (undoLog != null)
+            undoLog.undoActions.push(undoAction);
+    }
+
+    /**
+     * @return true if the changes performed by the current thread are being recorded, false otherwise.
+     */
+    public static boolean isRecording() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Keeps the recorded changes and stops recording.
+     */
+    public void commit() {
+        end();
+        undoActions.clear();
+    }
+
+    /**
+     * Reverts the recorded changes, from the last to the first one, and stops recording.
+     */
+    public void rollback() {
+        end();
+        while (!undoActions.isEmpty())
+            undoActions.pop().run();
+    }
+
+    /**
+     * @return the number of recorded changes.
+     */
+    public int size() {
+        return undoActions.size();
+    }
+
+    private void end() {
+        if (CURRENT.get() == this)
+            CURRENT.remove();
+    }
+}
@@ -0,0 +1,282 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes the messages of the binary wire protocol
+ * A frame is made of:
+ * - the magic byte {@value #MAGIC}, which can't start a JSON message, so the two encodings can share a stream
+ * - the length of the body, a 4 bytes big-endian integer
+ * - the body: a flags byte, the command id, the number of parameters and the parameters,
+ *   everything after the flags is deflated if the {@value #FLAG_DEFLATE} flag is set, see {@link FrameCompression}
+ * Every parameter is a key, either the id of a known parameter or a literal string, followed by a typed value:
+ * integers are written as variable length numbers and booleans take no space at all,
+ * JSON objects and arrays are written as strings and nested commands as a command id followed by their parameters
+ */
+public class BinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xEB;
+    public static final int HEADER_LENGTH = 5;
+    /**
+     * The largest body accepted, a whole game state takes a few KB
+     */
+    public static final int MAX_BODY_LENGTH = 1024 * 1024;
+    public static final int FLAG_DEFLATE = 1;
+
+    private static final int LITERAL_KEY = ParameterKeys.UNKNOWN;
+    private static final byte TAG_STRING = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_FALSE = 3;
+    private static final byte TAG_NULL = 4;
+    private static final byte TAG_JSON = 5;
+    private static final byte TAG_COMMAND = 6;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * @return the whole frame of the given message, header included
+     */
+    public static byte[] encode(JsonCommand jsonCommand) {
+        return encode(jsonCommand, false);
+    }
+
+    /**
+     * @param compress true if the body can be deflated, it's deflated only if it's large enough
+     * @return the whole frame of the given message, header included
+     */
+    public static byte[] encode(JsonCommand jsonCommand, boolean compress) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        writeInt(out, 0);
+
+        out.write(0);
+        writeCommand(out, jsonCommand);
+
+        byte[] frame = out.toByteArray();
+        if (compress) {
+            int bodyStart = HEADER_LENGTH + 1;
+            byte[] compressed = FrameCompression.compress(frame, bodyStart, frame.length - bodyStart);
+            if (compressed != null) {
+                frame = Arrays.copyOf(frame, bodyStart + compressed.length);
+                frame[HEADER_LENGTH] = FLAG_DEFLATE;
+                System.arraycopy(compressed, 0, frame, bodyStart, compressed.length);
+            }
+        }
+        ByteBuffer.wrap(frame, 1, 4).putInt(frame.length - HEADER_LENGTH);
+        return frame;
+    }
+
+    /**
+     * @param header the first {@value #HEADER_LENGTH} bytes of a frame, ready to be read
+     * @return the length of the body of the frame
+     * @throws IllegalArgumentException if the header is not the one of a binary frame or the body is too long
+     */
+    public static int readBodyLength(ByteBuffer header) {
+        if (header.get() != MAGIC)
+            throw new IllegalArgumentException("Not a binary frame");
+        int length = header.getInt();
+        if (length < 0 || length > MAX_BODY_LENGTH)
+            throw new IllegalArgumentException("Invalid binary frame length: " + length);
+        return length;
+    }
+
+    /**
+     * @param body the body of a frame, all its remaining bytes are consumed
+     * @return the decoded message
+     * @throws IllegalArgumentException if the body is malformed
+     */
+    public static JsonCommand decodeBody(ByteBuffer body) {
+        return decodeBody(body, true);
+    }
+
+    /**
+     * @param body           the body of a frame, all its remaining bytes are consumed
+     * @param deflateAllowed false if the peer hasn't negotiated the compression, its compressed bodies are rejected
+     * @return the decoded message
+     * @throws IllegalArgumentException if the body is malformed or compressed when it's not allowed
+     */
+    public static JsonCommand decodeBody(ByteBuffer body, boolean deflateAllowed) {
+        try {
+            int flags = body.get();
+            if ((flags & ~FLAG_DEFLATE) != 0)
+                throw new IllegalArgumentException("Unsupported binary frame flags: " + flags);
+            if ((flags & FLAG_DEFLATE) != 0) {
+                if (!deflateAllowed)
+                    throw new IllegalArgumentException("Compressed binary frame without negotiated compression");
+                body = inflate(body);
+            }
+            JsonCommand jsonCommand = readCommand(body, 0);
+            if (body.hasRemaining())
+                throw new IllegalArgumentException("Unexpected bytes at the end of a binary frame");
+            return jsonCommand;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary frame", e);
+        }
+    }
+
+    /**
+     * @return the decompressed remaining bytes of the given buffer, which are all consumed
+     */
+    private static ByteBuffer inflate(ByteBuffer body) {
+        byte[] compressed;
+        int offset;
+        if (body.hasArray()) {
+            compressed = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            compressed = new byte[body.remaining()];
+            body.get(body.position(), compressed);
+            offset = 0;
+        }
+        int length = body.remaining();
+        body.position(body.limit());
+        return ByteBuffer.wrap(FrameCompression.decompress(compressed, offset, length, MAX_BODY_LENGTH));
+    }
+
+    private static void writeCommand(ByteArrayOutputStream out, JsonCommand jsonCommand) {
+        int numParameters = jsonCommand.getParameterCount();
+        out.write(jsonCommand.getCommand().getId());
+        writeVarLong(out, numParameters);
+        for (int i = 0; i < numParameters; i++) {
+            writeKey(out, jsonCommand.getParameterKeyId(i), jsonCommand.getParameterName(i));
+            JsonCommand nestedCommand = jsonCommand.getParameterCommand(i);
+            if (nestedCommand != null) {
+                out.write(TAG_COMMAND);
+                writeCommand(out, nestedCommand);
+            } else if (jsonCommand.getParameterValueStyle(i) == JsonCommand.ValueStyle.STRUCTURED
+                    && jsonCommand.getParameterValue(i) != null) {
+                out.write(TAG_JSON);
+                writeString(out, jsonCommand.getParameterValue(i));
+            } else {
+                writeValue(out, jsonCommand.getParameterValue(i));
+            }
+        }
+    }
+
+    private static JsonCommand readCommand(ByteBuffer in, int depth) {
+        JsonCommand jsonCommand = new JsonCommand(Command.fromId(in.get() & 0xFF));
+        long numParameters = readVarLong(in);
+        for (long i = 0; i < numParameters; i++) {
+            int keyId = (int) readVarLong(in);
+            String key = keyId == LITERAL_KEY ? readString(in) : ParameterKeys.nameOf(keyId);
+            byte tag = in.get();
+            if (tag == TAG_COMMAND) {
+                if (depth == JsonCommand.MAX_NESTED_COMMANDS)
+                    throw new IllegalArgumentException("Too many nested commands in a binary frame");
+                jsonCommand.addParameter(key, readCommand(in, depth + 1));
+            } else if (tag == TAG_JSON) {
+                jsonCommand.addParameter(key, readString(in), JsonCommand.ValueStyle.STRUCTURED);
+            } else {
+                jsonCommand.addParameter(key, readValue(tag, in), JsonCommand.ValueStyle.DOUBLE_QUOTES);
+            }
+        }
+        return jsonCommand;
+    }
+
+    private static void writeKey(ByteArrayOutputStream out, int keyId, String key) {
+        writeVarLong(out, keyId);
+        if (keyId == LITERAL_KEY)
+            writeString(out, key);
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value.equals("true")) {
+            out.write(TAG_TRUE);
+        } else if (value.equals("false")) {
+            out.write(TAG_FALSE);
+        } else if (isCanonicalLong(value)) {
+            out.write(TAG_INT);
+            long number = Long.parseLong(value);
+            writeVarLong(out, (number << 1) ^ (number >> 63));
+        } else {
+            out.write(TAG_STRING);
+            writeString(out, value);
+        }
+    }
+
+    private static String readValue(byte tag, ByteBuffer in) {
+        return switch (tag) {
+            case TAG_STRING -> readString(in);
+            case TAG_INT -> {
+                long zigzag = readVarLong(in);
+                yield String.valueOf((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case TAG_TRUE -> "true";
+            case TAG_FALSE -> "false";
+            case TAG_NULL -> null;
+            default -> throw new IllegalArgumentException("Unknown value tag: " + tag);
+        };
+    }
+
+    /**
+     * @return true if the value is an integer written without redundant characters, so that it is decoded to the same string
+     */
+    private static boolean isCanonicalLong(String value) {
+        int length = value.length();
+        int start = value.startsWith("-") ? 1 : 0;
+        if (length == start || length - start > 18)
+            return false;
+        if (value.charAt(start) == '0')
+            return length == 1;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length > in.remaining())
+            throw new IllegalArgumentException("Truncated binary frame");
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Writes the unsigned value 7 bits at a time, the high bit of every byte tells if another byte follows
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Malformed variable length number");
+    }
+}
@@ -0,0 +1,165 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Parameters;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * The version of the wire protocol and the optional features supported by a peer
+ * The client declares its capabilities in the login message and the server answers with the negotiated ones,
+ * which are the features supported by both at the lowest of the two versions
+ * Unknown feature names are ignored, so a peer can declare features that the other one doesn't know yet
+ * A peer that declares no capabilities is a legacy one: only the protocol it asks for is supported,
+ * and it reads every parameter as a string, so it gets no nested commands or JSON values
+ */
+public final class Capabilities {
+
+    /**
+     * The version of the wire protocol implemented by this code, legacy peers have version 0
+     */
+    public static final int CURRENT_VERSION = 1;
+
+    /**
+     * The capabilities of a peer that has not logged in yet, or that supports only the JSON protocol
+     */
+    public static final Capabilities NONE = new Capabilities(0, EnumSet.noneOf(WireFeature.class));
+
+    private final int version;
+    private final Set<WireFeature> features;
+
+    private Capabilities(int version, EnumSet<WireFeature> features) {
+        this.version = version;
+        this.features = Collections.unmodifiableSet(features);
+    }
+
+    /**
+     * @return the capabilities with the current version and the given features
+     */
+    public static Capabilities of(WireFeature... features) {
+        EnumSet<WireFeature> featureSet = EnumSet.noneOf(WireFeature.class);
+        Collections.addAll(featureSet, features);
+        return new Capabilities(CURRENT_VERSION, featureSet);
+    }
+
+    /**
+     * @return the capabilities with the current version and all the features
+     */
+    public static Capabilities all() {
+        return new Capabilities(CURRENT_VERSION, EnumSet.allOf(WireFeature.class));
+    }
+
+    /**
+     * Reads the capabilities declared in a login or login successful message
+     * If the message has no capabilities the ones of a legacy peer are derived from the protocol it asks for
+     *
+     * @return the declared capabilities
+     * @throws IllegalArgumentException if the version is not a non-negative number
+     */
+    public static Capabilities fromMessage(JsonCommand message) {
+        String featureNames = message.getParameter(Parameters.CAPABILITIES);
+        if (featureNames == null)
+            return fromProtocol(WireProtocol.fromProtocolName(message.getParameter(Parameters.PROTOCOL)));
+
+        int version;
+        try {
+            version = Integer.parseInt(message.getParameter(Parameters.WIRE_VERSION));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid wire version: " + message.getParameter(Parameters.WIRE_VERSION), e);
+        }
+        if (version < 0)
+            throw new IllegalArgumentException("Invalid wire version: " + version);
+
+        EnumSet<WireFeature> features = EnumSet.noneOf(WireFeature.class);
+        for (String featureName : featureNames.split(",")) {
+            WireFeature feature = WireFeature.fromFeatureName(featureName.trim());
+            if (feature != null)
+                features.add(feature);
+        }
+        return new Capabilities(version, features);
+    }
+
+    /**
+     * @return the capabilities of a legacy peer that asks for the given protocol
+     */
+    private static Capabilities fromProtocol(WireProtocol protocol) {
+        EnumSet<WireFeature> features = EnumSet.noneOf(WireFeature.class);
+        if (protocol != WireProtocol.JSON)
+            features.add(WireFeature.BINARY);
+        if (protocol == WireProtocol.COMPRESSED_BINARY)
+            features.add(WireFeature.DEFLATE);
+        return new Capabilities(0, features);
+    }
+
+    /**
+     * @return the same capabilities with the given feature too
+     */
+    public Capabilities with(WireFeature feature) {
+        EnumSet<WireFeature> featureSet = EnumSet.of(feature);
+        featureSet.addAll(features);
+        return new Capabilities(version, featureSet);
+    }
+
+    /**
+     * @param peer the capabilities declared by the other peer
+     * @return the capabilities supported by both peers
+     */
+    public Capabilities negotiate(Capabilities peer) {
+        EnumSet<WireFeature> common = EnumSet.noneOf(WireFeature.class);
+        common.addAll(features);
+        common.retainAll(peer.features);
+        return new Capabilities(Math.min(version, peer.version), common);
+    }
+
+    /**
+     * Adds the capabilities to the given message, together with the protocol for the legacy peers
+     *
+     * @return the given message
+     */
+    public JsonCommand addTo(JsonCommand message) {
+        StringJoiner featureNames = new StringJoiner(",");
+        for (WireFeature feature : features)
+            featureNames.add(feature.getFeatureName());
+        message.addParameter(Parameters.WIRE_VERSION, String.valueOf(version), true)
+                .addParameter(Parameters.CAPABILITIES, featureNames.toString(), true);
+        WireProtocol protocol = getProtocol();
+        if (protocol != WireProtocol.JSON)
+            message.addParameter(Parameters.PROTOCOL, protocol.getProtocolName(), true);
+        return message;
+    }
+
+    /**
+     * @return the cheapest wire protocol allowed by these capabilities
+     */
+    public WireProtocol getProtocol() {
+        if (!supports(WireFeature.BINARY))
+            return WireProtocol.JSON;
+        return supports(WireFeature.DEFLATE) ? WireProtocol.COMPRESSED_BINARY : WireProtocol.BINARY;
+    }
+
+    public boolean supports(WireFeature feature) {
+        return features.contains(feature);
+    }
+
+    /**
+     * @return true if the peer reads only the messages of the legacy format, i.e. its version is 0
+     */
+    public boolean isLegacy() {
+        return version == 0;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Set<WireFeature> getFeatures() {
+        return features;
+    }
+
+    @Override
+    public String toString() {
+        return "v" + version + " " + features;
+    }
+}
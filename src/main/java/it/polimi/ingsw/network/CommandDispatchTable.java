@@ -0,0 +1,49 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+
+/**
+ * Binds a handler to every command that a receiver knows how to process, indexed by the command id
+ * The handlers are bound once when the receiver is created, then looking up the handler of a message costs an array access
+ * The commands without a handler get the default one
+ *
+ * @param <H> the type of the handlers, chosen by the receiver
+ */
+public class CommandDispatchTable<H> {
+    private final Object[] handlers;
+    private final H defaultHandler;
+
+    /**
+     * @param defaultHandler the handler of the commands that have no handler of their own
+     */
+    public CommandDispatchTable(H defaultHandler) {
+        handlers = new Object[Command.count()];
+        this.defaultHandler = defaultHandler;
+    }
+
+    /**
+     * Binds the handler to the given command, replacing the handler already bound to it
+     *
+     * @return this table
+     */
+    public CommandDispatchTable<H> bind(Command command, H handler) {
+        handlers[command.getId()] = handler;
+        return this;
+    }
+
+    /**
+     * @return the handler bound to the given command, or the default handler
+     */
+    @SuppressWarnings("unchecked")
+    public H get(Command command) {
+        Object handler = handlers[command.getId()];
+        return handler != null ? (H) handler : defaultHandler;
+    }
+
+    /**
+     * @return true if a handler is bound to the given command
+     */
+    public boolean isBound(Command command) {
+        return handlers[command.getId()] != null;
+    }
+}
@@ -0,0 +1,76 @@
+package it.polimi.ingsw.network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the frames compressed and decompressed by {@link FrameCompression}, updated by many threads at once
+ */
+public class CompressionStats {
+
+    private final LongAdder compressedFrames = new LongAdder();
+    private final LongAdder uncompressedFrames = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder decompressedFrames = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    void recordCompression(int originalLength, int compressedLength, long nanos) {
+        compressedFrames.increment();
+        bytesBeforeCompression.add(originalLength);
+        bytesAfterCompression.add(compressedLength);
+        compressionNanos.add(nanos);
+    }
+
+    /**
+     * Records a frame sent as it is, because it's too small or compression doesn't make it smaller
+     */
+    void recordUncompressed() {
+        uncompressedFrames.increment();
+    }
+
+    void recordDecompression(long nanos) {
+        decompressedFrames.increment();
+        decompressionNanos.add(nanos);
+    }
+
+    public long getCompressedFrames() {
+        return compressedFrames.sum();
+    }
+
+    public long getUncompressedFrames() {
+        return uncompressedFrames.sum();
+    }
+
+    /**
+     * @return the compressed size of the compressed frames over their original size, 1 if no frames have been compressed
+     */
+    public double getCompressionRatio() {
+        long before = bytesBeforeCompression.sum();
+        return before == 0 ? 1 : (double) bytesAfterCompression.sum() / before;
+    }
+
+    /**
+     * @return the average time spent compressing a frame, in microseconds
+     */
+    public double getAverageCompressionMicros() {
+        long frames = compressedFrames.sum();
+        return frames == 0 ? 0 : compressionNanos.sum() / 1000.0 / frames;
+    }
+
+    /**
+     * @return the average time spent decompressing a frame, in microseconds
+     */
+    public double getAverageDecompressionMicros() {
+        long frames = decompressedFrames.sum();
+        return frames == 0 ? 0 : decompressionNanos.sum() / 1000.0 / frames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Messaggi compressi: %d (non compressi: %d), rapporto di compressione: %.2f, "
+                        + "tempo medio di compressione: %.1f us, di decompressione: %.1f us",
+                getCompressedFrames(), getUncompressedFrames(), getCompressionRatio(),
+                getAverageCompressionMicros(), getAverageDecompressionMicros());
+    }
+}
@@ -0,0 +1,135 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A message already encoded as it is sent on the network, by default as UTF-8 JSON followed by the line terminator
+ * The same frame can be sent to many clients, the message is encoded only once for every wire protocol
+ * Frames of some commands are coalescible: a frame not sent yet can be dropped when a newer frame of the same command
+ * is sent, because the newer one supersedes it (e.g. beats)
+ * A frame that carries the game state, as a whole or as a patch, is superseded only by a newer frame with the whole state:
+ * a dropped patch would leave a gap in the versions received by the client
+ * When nothing else makes room, a newer frame with the game state replaces the older ones anyway:
+ * the client notices the gap in the versions and asks for a resync
+ */
+public class Frame {
+
+    private static final String LINE_TERMINATOR = "\n";
+
+    private final byte[] bytes;
+    private final Command command;
+    private final WireProtocol protocol;
+    private final JsonCommand jsonCommand;
+    private final String sessionId;
+    private final boolean carriesState;
+    private final boolean carriesWholeState;
+    private final String json;
+    private volatile Frame binaryFrame;
+    private volatile Frame compressedFrame;
+
+    private Frame(byte[] bytes, WireProtocol protocol, JsonCommand jsonCommand, String json) {
+        this.bytes = bytes;
+        this.protocol = protocol;
+        this.jsonCommand = jsonCommand;
+        this.json = json;
+        command = jsonCommand == null ? null : jsonCommand.getCommand();
+        sessionId = jsonCommand == null ? null : jsonCommand.getParameter(Parameters.SESSION_ID);
+        carriesWholeState = jsonCommand != null && jsonCommand.getParameter(Parameters.GAME_STATE) != null;
+        carriesState = carriesWholeState || (jsonCommand != null && jsonCommand.getParameter(Parameters.GAME_STATE_PATCH) != null);
+    }
+
+    public static Frame of(String message) {
+        return new Frame((message + LINE_TERMINATOR).getBytes(StandardCharsets.UTF_8), WireProtocol.JSON, null, message);
+    }
+
+    public static Frame of(JsonCommand jsonCommand) {
+        String json = jsonCommand.toJson();
+        return new Frame((json + LINE_TERMINATOR).getBytes(StandardCharsets.UTF_8), WireProtocol.JSON, jsonCommand, json);
+    }
+
+    /**
+     * @return the same message encoded with the given protocol, the encoding is performed once and shared
+     */
+    public Frame as(WireProtocol targetProtocol) {
+        if (targetProtocol == protocol)
+            return this;
+        if (targetProtocol == WireProtocol.JSON)
+            return of(jsonCommand);
+
+        boolean compress = targetProtocol == WireProtocol.COMPRESSED_BINARY;
+        Frame encodedFrame = compress ? compressedFrame : binaryFrame;
+        if (encodedFrame == null) {
+            JsonCommand source = jsonCommand != null ? jsonCommand : JsonCommand.fromJson(json);
+            encodedFrame = new Frame(BinaryCodec.encode(source, compress), targetProtocol, source, null);
+            if (compress)
+                compressedFrame = encodedFrame;
+            else
+                binaryFrame = encodedFrame;
+        }
+        return encodedFrame;
+    }
+
+    /**
+     * @return the message of the frame, it's parsed only if the frame has been created from a string
+     * The returned command may be shared with the other receivers of the frame, so it must not be modified
+     */
+    public JsonCommand toJsonCommand() {
+        return jsonCommand != null ? jsonCommand : JsonCommand.fromJson(json);
+    }
+
+    public WireProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return true if the frame can be dropped when a newer frame of the same command is sent
+     */
+    public boolean isCoalescible() {
+        return command == Command.MOVE_DONE || command == Command.BEAT;
+    }
+
+    /**
+     * @return true if the given frame is superseded by this one, frames of different sessions never supersede each other
+     *         and a frame with the game state is superseded only by a frame with the whole game state
+     */
+    public boolean supersedes(Frame frame) {
+        return frame.isCoalescible() && frame.command == command && Objects.equals(frame.sessionId, sessionId)
+                && (!frame.carriesState || carriesWholeState);
+    }
+
+    /**
+     * @return true if the given frame can be dropped for this one leaving a gap in the game state versions,
+     *         which the client recovers from with a resync
+     */
+    public boolean replacesWithGap(Frame frame) {
+        return carriesState && frame.isCoalescible() && frame.command == command && Objects.equals(frame.sessionId, sessionId);
+    }
+
+    /**
+     * Writes the whole frame to the given stream
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes);
+    }
+
+    /**
+     * @return a new read-only buffer over the bytes of the frame, every caller gets its own position
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the number of bytes of the frame, line terminator or header included
+     */
+    public int length() {
+        return bytes.length;
+    }
+}
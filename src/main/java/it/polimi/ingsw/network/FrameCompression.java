@@ -0,0 +1,118 @@
+package it.polimi.ingsw.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.MissingResourceException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflates the bodies of large binary frames with a preset dictionary
+ * Large frames are full game states, whose keys and enum names repeat a lot: the dictionary is made of game states
+ * written by {@link GsonManager}, so even the first occurrence of a pattern in a frame is found in it
+ * Frames are compressed one by one, instead of the whole stream, because a frame is encoded once and shared by the
+ * clients of a match
+ */
+public final class FrameCompression {
+
+    /**
+     * Bodies shorter than this are not worth the cost of the compression
+     */
+    public static final int MIN_COMPRESSED_LENGTH = 512;
+
+    private static final int INITIAL_OUTPUT_CAPACITY = 16 * 1024;
+    private static final String DICTIONARY_PATH = "/network/deflate-dictionary.json";
+    private static final byte[] DICTIONARY = loadDictionary();
+    private static final CompressionStats STATS = new CompressionStats();
+
+    private FrameCompression() {
+    }
+
+    /**
+     * @return the compressed bytes, null if the bytes are too few or compression doesn't make them fewer
+     */
+    static byte[] compress(byte[] bytes, int offset, int length) {
+        if (length < MIN_COMPRESSED_LENGTH) {
+            STATS.recordUncompressed();
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(bytes, offset, length);
+            deflater.finish();
+            // a compressed body longer than the original one is useless
+            byte[] buffer = new byte[length];
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < buffer.length)
+                compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+            if (!deflater.finished()) {
+                STATS.recordUncompressed();
+                return null;
+            }
+            STATS.recordCompression(length, compressedLength, System.nanoTime() - start);
+            return Arrays.copyOf(buffer, compressedLength);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param maxLength the maximum number of bytes the compressed ones can expand to
+     * @return the decompressed bytes
+     * @throws IllegalArgumentException if the bytes are not compressed with the dictionary or expand to too many bytes
+     */
+    static byte[] decompress(byte[] bytes, int offset, int length, int maxLength) {
+        long start = System.nanoTime();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            // the length is claimed by the peer, so the output grows with the bytes actually inflated
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Math.min(length * 4L, maxLength), INITIAL_OUTPUT_CAPACITY));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                // the zlib header tells the id of the dictionary, which is checked when it's set
+                if (inflater.needsDictionary())
+                    inflater.setDictionary(DICTIONARY);
+                else if (count == 0 && inflater.needsInput())
+                    throw new IllegalArgumentException("Truncated compressed frame");
+                if (out.size() + count > maxLength)
+                    throw new IllegalArgumentException("Compressed frame longer than " + maxLength + " bytes");
+                out.write(buffer, 0, count);
+            }
+            if (inflater.getRemaining() != 0)
+                throw new IllegalArgumentException("Unexpected bytes after the end of a compressed frame");
+            STATS.recordDecompression(System.nanoTime() - start);
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed compressed frame", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return the statistics of all the frames compressed and decompressed by this process
+     */
+    public static CompressionStats getStats() {
+        return STATS;
+    }
+
+    private static byte[] loadDictionary() {
+        try (InputStream stream = FrameCompression.class.getResourceAsStream(DICTIONARY_PATH)) {
+            if (stream == null)
+                throw new MissingResourceException("Compression dictionary not found",
+                        FrameCompression.class.getName(), DICTIONARY_PATH);
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,16 +2,50 @@ package it.polimi.ingsw.network;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.Gson;
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.hall.Hall;
+import it.polimi.ingsw.models.state.ExpertAttrs;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.adapters.*;
 
+/**
+ * Provides the Gson instance used to exchange the game state
+ * The model is written by hand-written streaming adapters in a compact layout, instead of by reflection
+ */
 public class GsonManager {
     private static Gson instance;
+    private static Gson legacyInstance;
 
     private GsonManager() {
     }
 
     public static Gson getInstance() {
         if (instance == null)
-            instance = new GsonBuilder().create();
+            instance = new GsonBuilder()
+                    .registerTypeAdapter(GameState.class, new GameStateAdapter().nullSafe())
+                    .registerTypeAdapter(ExpertAttrs.class, new ExpertAttrsAdapter().nullSafe())
+                    .registerTypeAdapter(Player.class, new PlayerAdapter().nullSafe())
+                    .registerTypeAdapter(Board.class, new BoardAdapter().nullSafe())
+                    .registerTypeAdapter(Entrance.class, new EntranceAdapter().nullSafe())
+                    .registerTypeAdapter(Hall.class, new HallAdapter().nullSafe())
+                    .registerTypeAdapter(Island.class, new IslandAdapter().nullSafe())
+                    .registerTypeAdapter(Cloud.class, new CloudAdapter().nullSafe())
+                    .registerTypeAdapter(Bag.class, new BagAdapter().nullSafe())
+                    .registerTypeAdapter(Character.class, new CharacterAdapter().nullSafe())
+                    .create();
         return instance;
     }
+
+    /**
+     * @return the Gson instance that writes the game state in the reflective layout read by the legacy clients
+     */
+    public static Gson getLegacyInstance() {
+        if (legacyInstance == null)
+            legacyInstance = new GsonBuilder()
+                    .registerTypeAdapter(StudentCounts.class, new LegacyStudentCountsAdapter().nullSafe())
+                    .registerTypeAdapter(Bag.class, new LegacyBagAdapter().nullSafe())
+                    .create();
+        return legacyInstance;
+    }
 }
@@ -0,0 +1,195 @@
+package it.polimi.ingsw.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A timer that can handle a large number of timeouts with a single thread
+ * The timeouts are stored in a wheel of buckets, one for every tick: at every tick only the bucket of the tick is visited,
+ * so the cost of a tick doesn't depend on the number of pending timeouts.
+ * Timeouts expire with a precision of one tick and tasks are run on the timer thread, so they must be short
+ */
+public class HashedWheelTimer {
+
+    private final long tickNanos;
+    private final List<Queue<Timeout>> wheel;
+    private final int mask;
+    private final Queue<Timeout> newTimeouts;
+    private final AtomicInteger pendingTimeouts;
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running;
+    private volatile long tickLagNanos;
+    private volatile long maxTickLagNanos;
+    private long tick;
+
+    /**
+     * @param name       the name of the timer thread
+     * @param tickMillis the duration of a tick
+     * @param wheelSize  the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0)
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+
+        int buckets = Integer.highestOneBit(wheelSize);
+        if (buckets < wheelSize)
+            buckets <<= 1;
+        wheel = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++)
+            wheel.add(new ArrayDeque<>());
+        mask = buckets - 1;
+
+        newTimeouts = new ConcurrentLinkedQueue<>();
+        pendingTimeouts = new AtomicInteger();
+        startTime = System.nanoTime();
+        running = true;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules the task to be run once, after the given delay
+     *
+     * @return the handle that can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread, pending timeouts are discarded
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * @return how late the last tick was processed, in milliseconds
+     */
+    public long getTickLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickLagNanos);
+    }
+
+    /**
+     * @return the highest lag of a tick since the timer started, in milliseconds
+     */
+    public long getMaxTickLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxTickLagNanos);
+    }
+
+    /**
+     * @return the number of timeouts scheduled and neither expired nor discarded after a cancellation
+     */
+    public int getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = waitForNextTick();
+            if (!running)
+                break;
+            long lag = System.nanoTime() - startTime - tickDeadline;
+            tickLagNanos = lag;
+            if (lag > maxTickLagNanos)
+                maxTickLagNanos = lag;
+
+            transferNewTimeouts();
+            expireTimeouts(wheel.get((int) (tick & mask)), tickDeadline);
+            tick++;
+        }
+    }
+
+    /**
+     * @return the time at which the current tick ends, relative to the start of the timer
+     */
+    private long waitForNextTick() {
+        long tickDeadline = tickNanos * (tick + 1);
+        long sleepNanos;
+        while (running && (sleepNanos = tickDeadline - (System.nanoTime() - startTime)) > 0)
+            LockSupport.parkNanos(this, sleepNanos);
+        return tickDeadline;
+    }
+
+    private void transferNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                pendingTimeouts.decrementAndGet();
+                continue;
+            }
+            long expirationTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expirationTick - tick) / wheel.size();
+            // a timeout that is already expired is run at the current tick
+            wheel.get((int) (Math.max(expirationTick, tick) & mask)).add(timeout);
+        }
+    }
+
+    private void expireTimeouts(Queue<Timeout> bucket, long tickDeadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+                pendingTimeouts.decrementAndGet();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                iterator.remove();
+                pendingTimeouts.decrementAndGet();
+                runTask(timeout.task);
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            Logger.getLogger(HashedWheelTimer.class.getName()).log(Level.WARNING, "Errore nell'esecuzione di un timer", e);
+        }
+    }
+
+    /**
+     * A task scheduled on the timer
+     */
+    public static class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Prevents the task from being run, if it hasn't been run yet
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package it.polimi.ingsw.network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a single connection alive and detects when the other side is gone, using the events of a shared timer
+ * Any message counts as a beat: a beat is sent only if nothing else has been sent in the last interval,
+ * and the connection times out only if nothing at all has been received for the timeout duration
+ */
+public class Heartbeat {
+
+    private final HashedWheelTimer timer;
+    private final long beatIntervalMillis;
+    private final long timeoutMillis;
+    private volatile long lastSent;
+    private volatile long lastReceived;
+    private volatile HashedWheelTimer.Timeout beatTimeout;
+    private volatile HashedWheelTimer.Timeout receiveTimeout;
+    private volatile boolean stopped;
+
+    /**
+     * @param timer              the timer that runs the events of the connection
+     * @param beatIntervalMillis the maximum time between two messages sent to the other side
+     * @param timeoutMillis      the time without messages from the other side after which the connection is considered down
+     */
+    public Heartbeat(HashedWheelTimer timer, long beatIntervalMillis, long timeoutMillis) {
+        this.timer = timer;
+        this.beatIntervalMillis = beatIntervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        long now = now();
+        lastSent = now;
+        lastReceived = now;
+    }
+
+    /**
+     * Sends a beat whenever nothing has been sent for a beat interval
+     *
+     * @param sendBeat sends a beat to the other side
+     */
+    public void startSendingBeats(Runnable sendBeat) {
+        sendBeat.run();
+        messageSent();
+        beatTimeout = timer.schedule(() -> beat(sendBeat), beatIntervalMillis);
+    }
+
+    /**
+     * Runs the given action once, when nothing has been received for the timeout duration
+     */
+    public void startCheckingTimeout(Runnable onTimeout) {
+        lastReceived = now();
+        receiveTimeout = timer.schedule(() -> checkTimeout(onTimeout), timeoutMillis);
+    }
+
+    /**
+     * Records that a message has been sent to the other side
+     */
+    public void messageSent() {
+        lastSent = now();
+    }
+
+    /**
+     * Records that a message has been received from the other side
+     */
+    public void messageReceived() {
+        lastReceived = now();
+    }
+
+    /**
+     * Cancels the pending events, no other beat will be sent
+     */
+    public void stop() {
+        stopped = true;
+        cancel(beatTimeout);
+        cancel(receiveTimeout);
+    }
+
+    private void beat(Runnable sendBeat) {
+        if (stopped)
+            return;
+        long idleMillis = now() - lastSent;
+        if (idleMillis >= beatIntervalMillis) {
+            sendBeat.run();
+            messageSent();
+        }
+        // the next beat is due one interval after the last message
+        long delay = beatIntervalMillis - Math.min(beatIntervalMillis, now() - lastSent);
+        beatTimeout = timer.schedule(() -> beat(sendBeat), Math.max(delay, 1));
+    }
+
+    private void checkTimeout(Runnable onTimeout) {
+        if (stopped)
+            return;
+        long silentMillis = now() - lastReceived;
+        if (silentMillis >= timeoutMillis) {
+            stopped = true;
+            onTimeout.run();
+        } else {
+            receiveTimeout = timer.schedule(() -> checkTimeout(onTimeout), timeoutMillis - silentMillis);
+        }
+    }
+
+    private static void cancel(HashedWheelTimer.Timeout timeout) {
+        if (timeout != null)
+            timeout.cancel();
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
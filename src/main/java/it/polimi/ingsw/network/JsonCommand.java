@@ -1,73 +1,70 @@
 package it.polimi.ingsw.network;
 
-import com.google.gson.Gson;
 import it.polimi.ingsw.network.messages.Command;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Custom JSON structure
  * It creates an object containing a command
  * It's possible to add other parameters
  * With toJson converts the structure to a JSON string
+ * Parameters are kept in insertion order, each one in its own slot with the id of the known parameter name
+ * and the way its value must be written, messages have a few parameters so a list is faster than a map
+ * Values can also be JSON objects or arrays (e.g. a game state) or other commands (e.g. the last move),
+ * they are embedded in the message as they are, so they are neither escaped nor parsed twice
  */
 public class JsonCommand {
 
-    private static final String COMMAND = "command";
-
-    private final Map<String, String> entries;
-    private final List<Boolean> useQuotes;
-    private final List<Boolean> useSingleQuotes;
+    static final String COMMAND = "command";
+    /**
+     * How many commands can be nested one in another, so that a malformed message can't exhaust the stack
+     */
+    static final int MAX_NESTED_COMMANDS = 4;
 
-    private JsonCommand() {
-        entries = new LinkedHashMap<>();
-        useQuotes = new ArrayList<>();
-        useSingleQuotes = new ArrayList<>();
+    /**
+     * How a parameter value is written in JSON
+     */
+    enum ValueStyle {
+        DOUBLE_QUOTES,
+        SINGLE_QUOTES,
+        UNQUOTED,
+        /**
+         * A JSON object or array, written as it is
+         */
+        STRUCTURED
     }
 
+    private Command command;
+    private final List<Parameter> parameters;
+
     /**
      * Creates a JsonCommand with the given command
      */
     public JsonCommand(Command command) {
-        this();
-        entries.put(COMMAND, command.getCommandString());
-        useQuotes.add(true);
-        useSingleQuotes.add(false);
+        this.command = command;
+        parameters = new ArrayList<>(4);
+    }
+
+    /**
+     * Used by the parser, which finds the command while reading the parameters
+     */
+    JsonCommand() {
+        this(null);
+    }
+
+    void setCommand(Command command) {
+        this.command = command;
     }
 
     /**
      * @param json a JSON string compatible with JsonCommand structure (should have the command parameter)
      * @return a JsonCommand structure given a JSON string
-     * @throws IllegalArgumentException if given string doesn't contain the command parameter
+     * @throws IllegalArgumentException if given string doesn't contain the command parameter or is not valid JSON
      */
     public static JsonCommand fromJson(String json) {
-        JsonCommand jsonCommand = new JsonCommand();
-
-        Gson gson = GsonManager.getInstance();
-        Map<?, ?> map = gson.fromJson(json, Map.class);
-
-        if (!map.containsKey(COMMAND)) {
-            throw new IllegalArgumentException("Given string doesn't contain command parameter");
-        }
-
-        for (Map.Entry<?, ?> entry : map.entrySet()) {
-            try {
-                jsonCommand.entries.put((String) entry.getKey(), (String) entry.getValue());
-            } catch (ClassCastException e) {
-                try {
-                    jsonCommand.entries.put((String) entry.getKey(), "" + Integer.parseInt(("" + entry.getValue()).replace(".0", "")));
-                } catch (NumberFormatException e2) {
-                    jsonCommand.entries.put((String) entry.getKey(), entry.getValue().toString());
-                }
-            }
-            jsonCommand.useQuotes.add(true);
-            jsonCommand.useSingleQuotes.add(false);
-        }
-
-        return jsonCommand;
+        return JsonCommandParser.parse(json);
     }
 
     /**
@@ -75,7 +72,7 @@ public class JsonCommand {
      * @param useQuotes true if the parameter value should have quotes when converted to JSON
      */
     public JsonCommand addParameter(String parameterName, String parameterValue, boolean useQuotes) {
-        return addParameter(parameterName, parameterValue, useQuotes, false);
+        return addParameter(parameterName, parameterValue, useQuotes ? ValueStyle.DOUBLE_QUOTES : ValueStyle.UNQUOTED);
     }
 
     /**
@@ -83,51 +80,150 @@ public class JsonCommand {
      * The parameter value will be printed with single quotes instead of double ones
      */
     public JsonCommand addParameterSingleQuotes(String parameterName, String parameterValue) {
-        return addParameter(parameterName, parameterValue, true, true);
+        return addParameter(parameterName, parameterValue, ValueStyle.SINGLE_QUOTES);
     }
 
     /**
-     * Adds a parameter to the JSON structure
-     * The parameter value will be printed with single, double or no quotes depending on given arguments
+     * Adds a parameter whose value is a JSON object or array, embedded in the message as it is
+     * @param json a valid JSON object or array, it's not checked
      */
-    private JsonCommand addParameter(String parameterName, String parameterValue, boolean useQuotes, boolean useSingleQuotes){
-        entries.put(parameterName, parameterValue);
-        this.useQuotes.add(useQuotes);
-        this.useSingleQuotes.add(useSingleQuotes);
+    public JsonCommand addParameterJson(String parameterName, String json) {
+        return addParameter(parameterName, json, ValueStyle.STRUCTURED);
+    }
+
+    /**
+     * Adds a parameter whose value is another command, embedded in the message as a JSON object
+     */
+    public JsonCommand addParameter(String parameterName, JsonCommand nestedCommand) {
+        return addParameter(parameterName, ParameterKeys.idOf(parameterName), nestedCommand);
+    }
+
+    /**
+     * Same as {@link #addParameter(String, JsonCommand)}, used by the codecs that already know the id of the name
+     */
+    JsonCommand addParameter(String parameterName, int keyId, JsonCommand nestedCommand) {
+        return setParameter(parameterName, keyId, null, ValueStyle.STRUCTURED, nestedCommand);
+    }
+
+    /**
+     * Adds a parameter to the JSON structure, replacing the value of a parameter with the same name
+     * The parameter value will be printed with single, double or no quotes depending on the given style
+     */
+    JsonCommand addParameter(String parameterName, String parameterValue, ValueStyle valueStyle) {
+        return addParameter(parameterName, ParameterKeys.idOf(parameterName), parameterValue, valueStyle);
+    }
+
+    /**
+     * Same as {@link #addParameter(String, String, ValueStyle)}, used by the codecs that already know the id of the name
+     */
+    JsonCommand addParameter(String parameterName, int keyId, String parameterValue, ValueStyle valueStyle) {
+        return setParameter(parameterName, keyId, parameterValue, valueStyle, null);
+    }
+
+    private JsonCommand setParameter(String parameterName, int keyId, String parameterValue, ValueStyle valueStyle,
+                                     JsonCommand nestedCommand) {
+        Parameter parameter = findParameter(parameterName, keyId);
+        if (parameter == null) {
+            parameter = new Parameter(parameterName, keyId);
+            parameters.add(parameter);
+        }
+        parameter.value = parameterValue;
+        parameter.valueStyle = valueStyle;
+        parameter.nestedCommand = nestedCommand;
         return this;
     }
 
+    /**
+     * @return a copy of the message that can be modified without changing this one, nested commands are shared
+     */
+    public JsonCommand copy() {
+        JsonCommand copy = new JsonCommand(command);
+        for (Parameter parameter : parameters)
+            copy.setParameter(parameter.name, parameter.keyId, parameter.value, parameter.valueStyle, parameter.nestedCommand);
+        return copy;
+    }
+
+    private Parameter findParameter(String parameterName, int keyId) {
+        for (Parameter parameter : parameters) {
+            if (keyId != ParameterKeys.UNKNOWN ? parameter.keyId == keyId : parameter.name.equals(parameterName))
+                return parameter;
+        }
+        return null;
+    }
+
     /**
      * @return the JSON representation of the object (e.g. {"command": "enterNickname", "parameter1": a, "parameter2": 'b'})
+     * String values are escaped, so they are read back unchanged whatever they contain
      */
     public String toJson() {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("{");
-
-        int i = 0;
-        for (Map.Entry<String, String> param : entries.entrySet()) {
-            stringBuilder.append("\"").append(param.getKey()).append("\": ");
-
-            boolean useQuotesForTheCurrentParameter = useQuotes.get(i);
-            if (useQuotesForTheCurrentParameter) {
-                boolean useSingleQuotesForTheCurrentParameter = useSingleQuotes.get(i);
-                if (useSingleQuotesForTheCurrentParameter) {
-                    stringBuilder.append("'").append(param.getValue()).append("'");
-                } else {
-                    stringBuilder.append("\"").append(param.getValue()).append("\"");
-                }
+        StringBuilder stringBuilder = new StringBuilder(32 + 16 * parameters.size());
+        appendJson(stringBuilder);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Appends the JSON representation of the object, nested commands are appended to the same builder
+     */
+    private void appendJson(StringBuilder stringBuilder) {
+        stringBuilder.append("{\"" + COMMAND + "\": \"").append(command.getCommandString()).append('"');
+
+        for (Parameter parameter : parameters) {
+            stringBuilder.append(", ");
+            appendQuoted(stringBuilder, parameter.name, '"');
+            stringBuilder.append(": ");
+
+            String value = parameter.value;
+            if (parameter.nestedCommand != null) {
+                parameter.nestedCommand.appendJson(stringBuilder);
+            } else if (value == null) {
+                stringBuilder.append("null");
             } else {
-                stringBuilder.append(param.getValue());
+                switch (parameter.valueStyle) {
+                    case DOUBLE_QUOTES -> appendQuoted(stringBuilder, value, '"');
+                    case SINGLE_QUOTES -> appendQuoted(stringBuilder, value, '\'');
+                    case UNQUOTED, STRUCTURED -> stringBuilder.append(value);
+                }
             }
+        }
+
+        stringBuilder.append('}');
+    }
 
-            if (i < useQuotes.size() - 1) {
-                stringBuilder.append(", ");
+    /**
+     * Appends the string between the given quotes, escaping the quote, the backslash and the line terminators,
+     * which would split the message
+     * Strings usually contain nothing to escape (e.g. game states written by Gson), so they are searched in bulk first
+     */
+    private static void appendQuoted(StringBuilder stringBuilder, String string, char quote) {
+        stringBuilder.append(quote);
+        int start = 0;
+        if (needsEscaping(string, quote)) {
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c == quote || c == '\\' || c < ' ') {
+                    stringBuilder.append(string, start, i);
+                    appendEscaped(stringBuilder, c);
+                    start = i + 1;
+                }
             }
-            i++;
         }
+        stringBuilder.append(string, start, string.length());
+        stringBuilder.append(quote);
+    }
 
-        stringBuilder.append("}");
-        return stringBuilder.toString();
+    private static boolean needsEscaping(String string, char quote) {
+        return string.indexOf(quote) >= 0 || string.indexOf('\\') >= 0
+                || string.indexOf('\n') >= 0 || string.indexOf('\r') >= 0;
+    }
+
+    private static void appendEscaped(StringBuilder stringBuilder, char c) {
+        switch (c) {
+            case '\n' -> stringBuilder.append("\\n");
+            case '\r' -> stringBuilder.append("\\r");
+            case '\t' -> stringBuilder.append("\\t");
+            case '"', '\'', '\\' -> stringBuilder.append('\\').append(c);
+            default -> stringBuilder.append(String.format("\\u%04x", (int) c));
+        }
     }
 
     /**
@@ -139,10 +235,77 @@ public class JsonCommand {
     }
 
     public Command getCommand() {
-        return Command.fromCommandString(entries.get(COMMAND));
+        return command;
     }
 
     public String getParameter(String parameterName) {
-        return entries.get(parameterName);
+        if (parameterName.equals(COMMAND))
+            return command.getCommandString();
+        Parameter parameter = findParameter(parameterName, ParameterKeys.idOf(parameterName));
+        if (parameter == null)
+            return null;
+        return parameter.nestedCommand != null ? parameter.nestedCommand.toJson() : parameter.value;
+    }
+
+    /**
+     * @return the command carried by the given parameter, null if the parameter is not present or is null
+     * @throws IllegalArgumentException if the parameter value is not a command
+     */
+    public JsonCommand getCommandParameter(String parameterName) {
+        Parameter parameter = findParameter(parameterName, ParameterKeys.idOf(parameterName));
+        if (parameter == null || (parameter.nestedCommand == null && parameter.value == null))
+            return null;
+        if (parameter.nestedCommand == null)
+            parameter.nestedCommand = fromJson(parameter.value);
+        return parameter.nestedCommand;
+    }
+
+    // SLOTS ACCESS FOR THE CODECS, the command is not counted as a parameter
+
+    int getParameterCount() {
+        return parameters.size();
+    }
+
+    String getParameterName(int index) {
+        return parameters.get(index).name;
+    }
+
+    /**
+     * @return the id of the known name of the parameter, {@link ParameterKeys#UNKNOWN} if the name is not known
+     */
+    int getParameterKeyId(int index) {
+        return parameters.get(index).keyId;
+    }
+
+    /**
+     * @return the value of the parameter, null if the value is null or a nested command
+     */
+    String getParameterValue(int index) {
+        return parameters.get(index).value;
+    }
+
+    ValueStyle getParameterValueStyle(int index) {
+        return parameters.get(index).valueStyle;
+    }
+
+    /**
+     * @return the command carried by the parameter, null if its value is not a nested command
+     */
+    JsonCommand getParameterCommand(int index) {
+        return parameters.get(index).nestedCommand;
+    }
+
+    private static class Parameter {
+        private final String name;
+        private final int keyId;
+        private String value;
+        private ValueStyle valueStyle;
+        // parsed lazily, a command can be read by many threads when it's delivered in-process
+        private volatile JsonCommand nestedCommand;
+
+        private Parameter(String name, int keyId) {
+            this.name = name;
+            this.keyId = keyId;
+        }
     }
 }
@@ -0,0 +1,261 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.JsonCommand.ValueStyle;
+import it.polimi.ingsw.network.messages.Command;
+
+/**
+ * Reads a JsonCommand from its JSON representation in a single pass, without building any intermediate structure
+ * The accepted syntax is the lenient one of the messages exchanged so far:
+ * strings can be enclosed in double or single quotes or not quoted at all, and pairs can be separated by ';'
+ * Numbers, booleans and null are kept as written, nested arrays and objects are kept as JSON text,
+ * except the values of the parameters that hold a command, which are parsed in the same pass
+ */
+final class JsonCommandParser {
+
+    private final String json;
+    private final StringBuilder buffer;
+    private int position;
+
+    private JsonCommandParser(String json) {
+        this.json = json;
+        buffer = new StringBuilder();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string is not a JSON object or doesn't contain the command parameter
+     */
+    static JsonCommand parse(String json) {
+        if (json == null)
+            throw new IllegalArgumentException("Null JSON string");
+        return new JsonCommandParser(json).parseCommand();
+    }
+
+    private JsonCommand parseCommand() {
+        JsonCommand jsonCommand = parseObject(0);
+        if (nextNonWhitespace() != -1)
+            throw error("Unexpected characters after the end of the message");
+        return jsonCommand;
+    }
+
+    /**
+     * @param depth how many commands contain the one to parse
+     */
+    private JsonCommand parseObject(int depth) {
+        if (depth > JsonCommand.MAX_NESTED_COMMANDS)
+            throw error("Too many nested commands");
+        JsonCommand jsonCommand = new JsonCommand();
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                parsePair(jsonCommand, depth);
+            } while (consumeIf(',') || consumeIf(';'));
+            expect('}');
+        }
+        if (jsonCommand.getCommand() == null)
+            throw new IllegalArgumentException("Given string doesn't contain command parameter");
+        return jsonCommand;
+    }
+
+    private void parsePair(JsonCommand jsonCommand, int depth) {
+        int keyStart = skipWhitespace();
+        char first = peek();
+        String key;
+        int keyId;
+        if ((first == '"' || first == '\'') && isPlainString(keyStart + 1, first)) {
+            // the name is compared in place, known names don't even allocate a string
+            int keyEnd = json.indexOf(first, keyStart + 1);
+            keyId = ParameterKeys.idOf(json, keyStart + 1, keyEnd);
+            key = keyId != ParameterKeys.UNKNOWN ? ParameterKeys.nameOf(keyId) : json.substring(keyStart + 1, keyEnd);
+            position = keyEnd + 1;
+        } else {
+            key = parseScalar();
+            keyId = ParameterKeys.idOf(key);
+        }
+
+        expect(':');
+        skipWhitespace();
+        char valueStart = peek();
+        ValueStyle valueStyle = switch (valueStart) {
+            case '"' -> ValueStyle.DOUBLE_QUOTES;
+            case '\'' -> ValueStyle.SINGLE_QUOTES;
+            case '[', '{' -> ValueStyle.STRUCTURED;
+            default -> ValueStyle.UNQUOTED;
+        };
+        if (valueStart == '{' && ParameterKeys.holdsCommand(keyId)) {
+            jsonCommand.addParameter(key, keyId, parseObject(depth + 1));
+            return;
+        }
+        String value = valueStyle == ValueStyle.STRUCTURED ? parseStructured() : parseScalar();
+
+        if (key.equals(JsonCommand.COMMAND)) {
+            if (value == null)
+                throw new IllegalArgumentException("Given string doesn't contain command parameter");
+            jsonCommand.setCommand(Command.fromCommandString(value));
+        } else {
+            jsonCommand.addParameter(key, keyId, value, valueStyle);
+        }
+    }
+
+    /**
+     * @return the string, number, boolean or null at the current position, null is returned as a null string
+     */
+    private String parseScalar() {
+        skipWhitespace();
+        char c = peek();
+        if (c == '"' || c == '\'')
+            return parseQuoted(c);
+
+        int start = position;
+        while (position < json.length() && !isDelimiter(json.charAt(position)))
+            position++;
+        if (position == start)
+            throw error("Expected a value");
+        String literal = json.substring(start, position);
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String parseQuoted(char quote) {
+        int start = position + 1;
+        if (isPlainString(start, quote)) {
+            int end = json.indexOf(quote, start);
+            position = end + 1;
+            return json.substring(start, end);
+        }
+
+        buffer.setLength(0);
+        position = start;
+        while (true) {
+            if (position >= json.length())
+                throw error("Unterminated string");
+            char c = json.charAt(position++);
+            if (c == quote)
+                return buffer.toString();
+            buffer.append(c == '\\' ? parseEscape() : c);
+        }
+    }
+
+    /**
+     * @return true if the string starting at the given position is terminated and contains no escape sequences
+     */
+    private boolean isPlainString(int start, char quote) {
+        int end = json.indexOf(quote, start);
+        if (end < 0)
+            return false;
+        return json.indexOf('\\', start, end) < 0;
+    }
+
+    private char parseEscape() {
+        if (position >= json.length())
+            throw error("Unterminated escape sequence");
+        char c = json.charAt(position++);
+        return switch (c) {
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'u' -> {
+                if (position + 4 > json.length())
+                    throw error("Unterminated escape sequence");
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(json.charAt(position++), 16);
+                    if (digit < 0)
+                        throw error("Invalid unicode escape sequence");
+                    code = code * 16 + digit;
+                }
+                yield (char) code;
+            }
+            case '"', '\'', '\\', '/' -> c;
+            default -> throw error("Invalid escape sequence");
+        };
+    }
+
+    /**
+     * Skips a nested array or object, checking only that brackets and strings are terminated
+     *
+     * @return the nested value as it is written in the message
+     */
+    private String parseStructured() {
+        int start = position;
+        // the closing brackets still expected, innermost last
+        buffer.setLength(0);
+        do {
+            if (position >= json.length())
+                throw error("Unterminated nested value");
+            char c = json.charAt(position++);
+            switch (c) {
+                case '{' -> buffer.append('}');
+                case '[' -> buffer.append(']');
+                case '}', ']' -> {
+                    if (buffer.charAt(buffer.length() - 1) != c)
+                        throw error("Unexpected '" + c + "'");
+                    buffer.setLength(buffer.length() - 1);
+                }
+                case '"', '\'' -> skipString(c);
+                default -> {
+                    // part of a scalar value or a separator
+                }
+            }
+        } while (buffer.length() > 0);
+        return json.substring(start, position);
+    }
+
+    /**
+     * Skips the rest of a string, searching in bulk for the closing quote and the escape sequences before it
+     */
+    private void skipString(char quote) {
+        while (true) {
+            int end = json.indexOf(quote, position);
+            if (end < 0)
+                throw error("Unterminated string");
+            int escape = json.indexOf('\\', position, end);
+            if (escape < 0) {
+                position = end + 1;
+                return;
+            }
+            position = escape + 2;
+        }
+    }
+
+    private static boolean isDelimiter(char c) {
+        return switch (c) {
+            case ',', ':', ';', '}', ']', '{', '[', '"', '\'', ' ', '\t', '\n', '\r' -> true;
+            default -> false;
+        };
+    }
+
+    private int skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position)))
+            position++;
+        return position;
+    }
+
+    private int nextNonWhitespace() {
+        skipWhitespace();
+        return position < json.length() ? json.charAt(position) : -1;
+    }
+
+    private char peek() {
+        if (position >= json.length())
+            throw error("Unexpected end of the message");
+        return json.charAt(position);
+    }
+
+    private boolean consumeIf(char c) {
+        if (nextNonWhitespace() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consumeIf(c))
+            throw error("Expected '" + c + "'");
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " of a JSON message");
+    }
+}
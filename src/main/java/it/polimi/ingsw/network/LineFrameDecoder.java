@@ -0,0 +1,63 @@
+package it.polimi.ingsw.network;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a stream of bytes received in arbitrary chunks into newline-delimited messages
+ * Bytes are buffered until the line terminator is received, so a message can be split
+ * across many reads and a single read can contain many messages
+ */
+public class LineFrameDecoder {
+
+    private static final byte LINE_TERMINATOR = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final ByteArrayOutputStream pending;
+
+    public LineFrameDecoder() {
+        pending = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Consumes all the remaining bytes of the given buffer
+     *
+     * @param buffer the received bytes, ready to be read
+     * @return the complete messages found so far, without line terminators
+     */
+    public List<String> decode(ByteBuffer buffer) {
+        List<String> messages = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == LINE_TERMINATOR) {
+                messages.add(takePendingLine());
+            } else {
+                pending.write(b);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * @return the buffered line decoded as UTF-8, a trailing carriage return is discarded
+     */
+    private String takePendingLine() {
+        byte[] line = pending.toByteArray();
+        pending.reset();
+
+        int length = line.length;
+        if (length > 0 && line[length - 1] == CARRIAGE_RETURN)
+            length--;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of bytes received that are not part of a complete message yet
+     */
+    public int getPendingBytes() {
+        return pending.size();
+    }
+}
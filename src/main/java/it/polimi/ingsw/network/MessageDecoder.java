@@ -0,0 +1,119 @@
+package it.polimi.ingsw.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the messages received in arbitrary chunks from a non-blocking channel
+ * Every message can be either a JSON line or a binary frame, the encoding is recognized from its first byte:
+ * lines are split by a {@link LineFrameDecoder}, binary frames are buffered until their whole body is received
+ * The buffer of a body grows with the bytes actually received, so a header alone doesn't reserve the whole declared length
+ */
+public class MessageDecoder {
+
+    private static final int INITIAL_BODY_CAPACITY = 4096;
+
+    private final LineFrameDecoder lineDecoder;
+    private final ByteBuffer header;
+    private ByteBuffer body;
+    private int bodyLength;
+    private volatile boolean deflateAllowed;
+    private boolean readingLine;
+    private boolean readingBinary;
+
+    public MessageDecoder() {
+        lineDecoder = new LineFrameDecoder();
+        header = ByteBuffer.allocate(BinaryCodec.HEADER_LENGTH);
+    }
+
+    /**
+     * Consumes all the remaining bytes of the given buffer
+     *
+     * @param buffer the received bytes, ready to be read
+     * @return the complete messages found so far
+     * @throws IllegalArgumentException if a message is malformed
+     */
+    public List<JsonCommand> decode(ByteBuffer buffer) {
+        List<JsonCommand> messages = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            if (!readingLine && !readingBinary) {
+                if (buffer.get(buffer.position()) == BinaryCodec.MAGIC)
+                    readingBinary = true;
+                else
+                    readingLine = true;
+            }
+
+            JsonCommand message = readingBinary ? decodeBinary(buffer) : decodeLine(buffer);
+            if (message != null)
+                messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Feeds the line decoder up to the end of the current line
+     */
+    private JsonCommand decodeLine(ByteBuffer buffer) {
+        int end = buffer.position();
+        while (end < buffer.limit() && buffer.get(end) != '\n')
+            end++;
+        if (end == buffer.limit()) {
+            lineDecoder.decode(buffer);
+            return null;
+        }
+
+        ByteBuffer line = buffer.slice(buffer.position(), end + 1 - buffer.position());
+        buffer.position(end + 1);
+        readingLine = false;
+        return JsonCommand.fromJson(lineDecoder.decode(line).get(0));
+    }
+
+    private JsonCommand decodeBinary(ByteBuffer buffer) {
+        if (body == null) {
+            transfer(buffer, header);
+            if (header.hasRemaining())
+                return null;
+            header.flip();
+            bodyLength = BinaryCodec.readBodyLength(header);
+            body = ByteBuffer.allocate(Math.min(bodyLength, INITIAL_BODY_CAPACITY));
+            header.clear();
+        }
+
+        while (buffer.hasRemaining() && body.position() < bodyLength) {
+            if (!body.hasRemaining())
+                body = ByteBuffer.allocate(Math.min(bodyLength, body.capacity() * 2)).put(body.flip());
+            transfer(buffer, body);
+        }
+        if (body.position() < bodyLength)
+            return null;
+        body.flip();
+        JsonCommand message = BinaryCodec.decodeBody(body, deflateAllowed);
+        body = null;
+        readingBinary = false;
+        return message;
+    }
+
+    private static void transfer(ByteBuffer source, ByteBuffer destination) {
+        int count = Math.min(source.remaining(), destination.remaining());
+        destination.put(destination.position(), source, source.position(), count);
+        destination.position(destination.position() + count);
+        source.position(source.position() + count);
+    }
+
+    /**
+     * Compressed frames are rejected until the compression has been negotiated with the peer
+     */
+    public void setDeflateAllowed(boolean deflateAllowed) {
+        this.deflateAllowed = deflateAllowed;
+    }
+
+    /**
+     * @return the number of bytes received that are not part of a complete message yet
+     */
+    public int getPendingBytes() {
+        if (readingBinary)
+            return body == null ? header.position() : BinaryCodec.HEADER_LENGTH + body.position();
+        return lineDecoder.getPendingBytes();
+    }
+}
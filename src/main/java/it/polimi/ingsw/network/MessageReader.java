@@ -0,0 +1,107 @@
+package it.polimi.ingsw.network;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the messages received from a blocking stream, one at a time
+ * Every message can be either a JSON line or a binary frame, the encoding is recognized from its first byte
+ */
+public class MessageReader {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int INITIAL_BODY_CAPACITY = 4096;
+    private static final int LINE_TERMINATOR = '\n';
+    private static final int CARRIAGE_RETURN = '\r';
+
+    private final InputStream inputStream;
+    private final ByteArrayOutputStream line;
+    private volatile boolean deflateAllowed;
+
+    public MessageReader(InputStream inputStream) {
+        this.inputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        line = new ByteArrayOutputStream();
+    }
+
+    /**
+     * Compressed frames are rejected until the compression has been negotiated with the peer
+     */
+    public void setDeflateAllowed(boolean deflateAllowed) {
+        this.deflateAllowed = deflateAllowed;
+    }
+
+    /**
+     * Waits for the next message
+     *
+     * @return the received message, null if the stream has ended
+     * @throws IOException              if the stream can't be read or ends in the middle of a message
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    public JsonCommand read() throws IOException {
+        int first = inputStream.read();
+        if (first < 0)
+            return null;
+        if ((byte) first == BinaryCodec.MAGIC)
+            return readBinaryFrame();
+        return JsonCommand.fromJson(readLine(first));
+    }
+
+    private JsonCommand readBinaryFrame() throws IOException {
+        byte[] header = new byte[BinaryCodec.HEADER_LENGTH];
+        header[0] = BinaryCodec.MAGIC;
+        readFully(header, 1, header.length - 1);
+        int bodyLength = BinaryCodec.readBodyLength(ByteBuffer.wrap(header));
+
+        return BinaryCodec.decodeBody(ByteBuffer.wrap(readBody(bodyLength)), deflateAllowed);
+    }
+
+    /**
+     * The body grows with the received bytes, so a declared length is not allocated before the peer sends it
+     */
+    private byte[] readBody(int bodyLength) throws IOException {
+        byte[] body = new byte[Math.min(bodyLength, INITIAL_BODY_CAPACITY)];
+        int read = 0;
+        while (read < bodyLength) {
+            if (read == body.length)
+                body = Arrays.copyOf(body, (int) Math.min(bodyLength, 2L * body.length));
+            int count = inputStream.read(body, read, body.length - read);
+            if (count < 0)
+                throw new EOFException("Stream ended in the middle of a message");
+            read += count;
+        }
+        return body;
+    }
+
+    private String readLine(int first) throws IOException {
+        line.reset();
+        int b = first;
+        while (b != LINE_TERMINATOR) {
+            if (b < 0)
+                throw new EOFException("Stream ended in the middle of a message");
+            line.write(b);
+            b = inputStream.read();
+        }
+
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == CARRIAGE_RETURN)
+            length--;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(byte[] bytes, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = inputStream.read(bytes, offset + read, length - read);
+            if (count < 0)
+                throw new EOFException("Stream ended in the middle of a message");
+            read += count;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carries the sessions of many clients, e.g. bots, on a single connection to the server, see {@link WireFeature#SESSIONS}
+ * The connection logs in once with its own nickname, then every session logs in with its nickname and plays its matches
+ * A single thread reads the messages of the connection and delivers them to the sessions,
+ * and a single heartbeat keeps the connection alive for all of them: sessions don't send nor receive beats
+ */
+public class MultiplexedServerConnection implements Closeable {
+
+    private static final long MILLIS_BETWEEN_BEATS = 1000;
+    private static final long SERVER_DOWN_MILLIS_THRESHOLD = 3000;
+    private static final long HEARTBEAT_TICK_MILLIS = 100;
+    private static final int HEARTBEAT_WHEEL_SIZE = 64;
+
+    /**
+     * Queued to the sessions when the connection is closed, it's never returned to the clients
+     */
+    private static final JsonCommand END_OF_SESSION = new JsonCommand(Command.CLOSE_SESSION);
+
+    private final ServerConnection connection;
+    private final WireProtocol protocol;
+    private final ConcurrentMap<String, Session> sessions;
+    private final AtomicLong lastSessionId;
+    private final HashedWheelTimer heartbeatTimer;
+    private final Heartbeat heartbeat;
+    private volatile boolean closed;
+
+    private MultiplexedServerConnection(ServerConnection connection, WireProtocol protocol) {
+        this.connection = connection;
+        this.protocol = protocol;
+        sessions = new ConcurrentHashMap<>();
+        lastSessionId = new AtomicLong();
+        heartbeatTimer = new HashedWheelTimer("multiplexed-heartbeat", HEARTBEAT_TICK_MILLIS, HEARTBEAT_WHEEL_SIZE);
+        heartbeat = new Heartbeat(heartbeatTimer, MILLIS_BETWEEN_BEATS, SERVER_DOWN_MILLIS_THRESHOLD);
+    }
+
+    /**
+     * Logs in on the given connection and starts delivering its messages to the sessions
+     *
+     * @param connection a connection that has not logged in yet
+     * @param nickname   the nickname of the connection itself, it can't be used by the sessions
+     * @return the connection ready to open sessions
+     * @throws IOException if the login fails or the server doesn't support sessions, the connection is closed
+     */
+    public static MultiplexedServerConnection open(ServerConnection connection, String nickname) throws IOException {
+        try {
+            WireProtocol protocol = login(connection, nickname);
+            MultiplexedServerConnection multiplexedConnection = new MultiplexedServerConnection(connection, protocol);
+            multiplexedConnection.start();
+            return multiplexedConnection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the protocol negotiated with the server
+     */
+    private static WireProtocol login(ServerConnection connection, String nickname) throws IOException {
+        if (readSkippingBeats(connection).getCommand() != Command.ENTER_NICKNAME)
+            throw new IOException("Unexpected message from server before login");
+        connection.send(connection.getCapabilities().with(WireFeature.SESSIONS).addTo(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.NICKNAME, nickname, true)), WireProtocol.JSON);
+
+        JsonCommand response = readSkippingBeats(connection);
+        if (response.getCommand() != Command.LOGIN_SUCCESSFUL)
+            throw new IOException("Login refused by server: " + response.getCommand());
+        Capabilities capabilities = Capabilities.fromMessage(response);
+        if (!capabilities.supports(WireFeature.SESSIONS))
+            throw new IOException("The server doesn't support sessions");
+        return capabilities.getProtocol();
+    }
+
+    private static JsonCommand readSkippingBeats(ServerConnection connection) throws IOException {
+        JsonCommand message;
+        do {
+            message = connection.read();
+            if (message == null)
+                throw new IOException("Connection closed by server");
+        } while (message.getCommand() == Command.BEAT);
+        return message;
+    }
+
+    private void start() {
+        Thread reader = new Thread(this::readMessages, "multiplexed-connection-reader");
+        reader.setDaemon(true);
+        reader.start();
+        heartbeat.startSendingBeats(() -> sendQuietly(new JsonCommand(Command.BEAT)));
+        heartbeat.startCheckingTimeout(this::close);
+    }
+
+    /**
+     * Delivers every message to its session, the messages of the connection itself are beats and are dropped
+     */
+    private void readMessages() {
+        try {
+            JsonCommand message;
+            while ((message = connection.read()) != null) {
+                heartbeat.messageReceived();
+                String sessionId = message.getParameter(Parameters.SESSION_ID);
+                Session session = sessionId == null ? null : sessions.get(sessionId);
+                if (session != null)
+                    session.messages.add(message);
+            }
+        } catch (IOException e) {
+            // the sessions are closed below
+        }
+        close();
+    }
+
+    /**
+     * Opens a new session, the server asks it to enter its nickname as it does with a new connection
+     * Sessions don't receive beats: when the server is down or the connection is closed their reads return null
+     *
+     * @return the connection the client of the session uses to exchange messages with the server
+     * @throws IOException if the connection is closed
+     */
+    public ServerConnection openSession() throws IOException {
+        Session session = new Session(String.valueOf(lastSessionId.incrementAndGet()));
+        sessions.put(session.sessionId, session);
+        // the first message with the id of the session opens it
+        send(new JsonCommand(Command.BEAT).addParameter(Parameters.SESSION_ID, session.sessionId, true));
+        return session;
+    }
+
+    private void send(JsonCommand jsonCommand) throws IOException {
+        if (closed)
+            throw new IOException("Connection closed");
+        connection.send(jsonCommand, protocol);
+        heartbeat.messageSent();
+    }
+
+    private void sendQuietly(JsonCommand jsonCommand) {
+        try {
+            send(jsonCommand);
+        } catch (IOException e) {
+            // the reader detects the disconnection
+        }
+    }
+
+    public int getNumSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Closes the connection and all its sessions
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        heartbeat.stop();
+        heartbeatTimer.stop();
+        for (Session session : sessions.values())
+            session.messages.add(END_OF_SESSION);
+        sessions.clear();
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // the connection is discarded anyway
+        }
+    }
+
+    private class Session implements ServerConnection {
+        private final String sessionId;
+        private final BlockingQueue<JsonCommand> messages;
+
+        private Session(String sessionId) {
+            this.sessionId = sessionId;
+            messages = new LinkedBlockingQueue<>();
+        }
+
+        @Override
+        public JsonCommand read() throws IOException {
+            try {
+                JsonCommand message = messages.take();
+                if (message == END_OF_SESSION) {
+                    // the following reads find the connection closed too
+                    messages.add(END_OF_SESSION);
+                    return null;
+                }
+                return message;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a message from the server");
+            }
+        }
+
+        /**
+         * The message is sent with the protocol of the connection, beats are dropped because the connection sends its own
+         */
+        @Override
+        public void send(JsonCommand jsonCommand, WireProtocol protocol) throws IOException {
+            if (sessions.get(sessionId) != this)
+                throw new IOException("Session closed");
+            if (jsonCommand.getCommand() == Command.BEAT)
+                return;
+            MultiplexedServerConnection.this.send(jsonCommand.copy().addParameter(Parameters.SESSION_ID, sessionId, true));
+        }
+
+        /**
+         * The encoding is chosen by the connection, sessions only decide how game states are sent
+         */
+        @Override
+        public Capabilities getCapabilities() {
+            return Capabilities.of(WireFeature.STATE_PATCH);
+        }
+
+        @Override
+        public void close() {
+            if (!sessions.remove(sessionId, this))
+                return;
+            // the messages not read yet are useless to a client that closes its session
+            messages.clear();
+            messages.add(END_OF_SESSION);
+            sendQuietly(new JsonCommand(Command.CLOSE_SESSION).addParameter(Parameters.SESSION_ID, sessionId, true));
+        }
+    }
+}
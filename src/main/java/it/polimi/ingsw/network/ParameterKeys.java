@@ -0,0 +1,98 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Parameters;
+
+/**
+ * The table of the known parameter names, shared by the codecs
+ * Every known name has a small id, so that codecs can refer to it without comparing or copying strings
+ */
+final class ParameterKeys {
+
+    static final int UNKNOWN = 0;
+
+    /**
+     * The ids of the parameters are their positions in this array plus one, new parameters must be appended
+     */
+    private static final String[] KNOWN_KEYS = {
+            Parameters.STUDENT_COLOR, Parameters.ISLAND_ID, Parameters.CHARACTER_TYPE, Parameters.TO_EXCHANGE_FROM,
+            Parameters.TO_EXCHANGE_TO, Parameters.TO_EXCHANGE_FROM_NUMBER, Parameters.TO_EXCHANGE_TO_NUMBER,
+            Parameters.CLOUD_ID, Parameters.STEPS, Parameters.ASSISTANT, Parameters.NICKNAME, Parameters.NUM_PLAYERS,
+            Parameters.EXPERT_MATCH, Parameters.WIZARD, Parameters.TOWER, Parameters.GAME_STATE, Parameters.LAST_MOVE,
+            Parameters.GAME_STATE_PATCH, Parameters.STATE_VERSION, Parameters.STATE_CHECKSUM, Parameters.PROTOCOL,
+            Parameters.WIRE_VERSION, Parameters.CAPABILITIES, Parameters.SESSION_ID
+    };
+
+    /**
+     * The known keys grouped by length, so that a key read from a message is compared with a few candidates only
+     */
+    private static final int[][] IDS_BY_LENGTH;
+
+    static {
+        int maxLength = 0;
+        for (String key : KNOWN_KEYS)
+            maxLength = Math.max(maxLength, key.length());
+
+        int[] counts = new int[maxLength + 1];
+        for (String key : KNOWN_KEYS)
+            counts[key.length()]++;
+        IDS_BY_LENGTH = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++)
+            IDS_BY_LENGTH[length] = new int[counts[length]];
+        for (int i = KNOWN_KEYS.length - 1; i >= 0; i--) {
+            int length = KNOWN_KEYS[i].length();
+            IDS_BY_LENGTH[length][--counts[length]] = i + 1;
+        }
+    }
+
+    /**
+     * The id of the only parameter whose value is another command
+     */
+    private static final int LAST_MOVE_ID = idOf(Parameters.LAST_MOVE);
+
+    private ParameterKeys() {
+    }
+
+    /**
+     * @return true if the value of the parameter with the given id is a command
+     */
+    static boolean holdsCommand(int id) {
+        return id == LAST_MOVE_ID;
+    }
+
+    /**
+     * @return the id of the given parameter name, {@link #UNKNOWN} if it's not a known parameter
+     */
+    static int idOf(String key) {
+        return idOf(key, 0, key.length());
+    }
+
+    /**
+     * @return the id of the parameter name found in the given region of the text, {@link #UNKNOWN} if it's not a known parameter
+     */
+    static int idOf(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length >= IDS_BY_LENGTH.length)
+            return UNKNOWN;
+        for (int id : IDS_BY_LENGTH[length])
+            if (regionEquals(KNOWN_KEYS[id - 1], text, start))
+                return id;
+        return UNKNOWN;
+    }
+
+    private static boolean regionEquals(String key, CharSequence text, int start) {
+        for (int i = 0; i < key.length(); i++)
+            if (key.charAt(i) != text.charAt(start + i))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the name of the parameter with the given id
+     * @throws IllegalArgumentException if the id is not the one of a known parameter
+     */
+    static String nameOf(int id) {
+        if (id <= UNKNOWN || id > KNOWN_KEYS.length)
+            throw new IllegalArgumentException("Unknown parameter id: " + id);
+        return KNOWN_KEYS[id - 1];
+    }
+}
@@ -0,0 +1,32 @@
+package it.polimi.ingsw.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The connection of a client to the server, whatever the transport it uses
+ * Messages can be sent from many threads, they are read by a single thread
+ */
+public interface ServerConnection extends Closeable {
+
+    /**
+     * Waits for the next message from the server
+     *
+     * @return the received message, null if the connection has been closed
+     * @throws IOException if the connection is lost or the message is malformed
+     */
+    JsonCommand read() throws IOException;
+
+    /**
+     * Sends the message to the server
+     *
+     * @param protocol the protocol negotiated with the server, transports that don't encode messages ignore it
+     * @throws IOException if the connection is lost
+     */
+    void send(JsonCommand jsonCommand, WireProtocol protocol) throws IOException;
+
+    /**
+     * @return the wire capabilities worth declaring at login on this connection
+     */
+    Capabilities getCapabilities();
+}
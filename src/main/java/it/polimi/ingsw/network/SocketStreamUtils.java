@@ -1,17 +1,19 @@
 package it.polimi.ingsw.network;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class SocketStreamUtils {
-    public static BufferedReader getInputStream(Socket clientSocket) {
+    /**
+     * @return the input stream of the socket without any decoding, used to read messages of any wire protocol
+     */
+    public static InputStream getByteInputStream(Socket clientSocket) {
         try {
-            return new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+            return clientSocket.getInputStream();
         } catch (IOException e) {
             Logger.getLogger(SocketStreamUtils.class.getName()).log(
                     Level.SEVERE, () -> "Errore nell'apertura dello stream di input");
@@ -19,9 +21,12 @@ public class SocketStreamUtils {
         return null;
     }
 
-    public static PrintWriter getOutputStream(Socket clientSocket) {
+    /**
+     * @return the output stream of the socket without any encoding, used to write already encoded frames
+     */
+    public static OutputStream getByteOutputStream(Socket clientSocket) {
         try {
-            return new PrintWriter(clientSocket.getOutputStream(), true);
+            return clientSocket.getOutputStream();
         } catch (IOException e) {
             Logger.getLogger(SocketStreamUtils.class.getName()).log(
                     Level.SEVERE, () -> "Errore nell'apertura dello stream di output");
@@ -0,0 +1,81 @@
+package it.polimi.ingsw.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * A connection to the server over a byte stream, either a TCP socket or a Unix domain socket
+ */
+public class StreamServerConnection implements ServerConnection {
+    private final MessageReader inputStream;
+    private final OutputStream outputStream;
+    private final Closeable connection;
+
+    /**
+     * @param inputStream  the stream the messages of the server are read from
+     * @param outputStream the stream the messages for the server are written to, every frame is written at once
+     * @param connection   the underlying connection, closed together with this one
+     */
+    public StreamServerConnection(InputStream inputStream, OutputStream outputStream, Closeable connection) {
+        this.inputStream = new MessageReader(inputStream);
+        // the server compresses its frames only if the client declared the compression at login
+        this.inputStream.setDeflateAllowed(getCapabilities().supports(WireFeature.DEFLATE));
+        this.outputStream = outputStream;
+        this.connection = connection;
+    }
+
+    /**
+     * @return a connection to the server listening on the given TCP address
+     * @throws IOException if the server can't be reached
+     */
+    public static StreamServerConnection tcp(String ip, int port) throws IOException {
+        Socket socket = new Socket(ip, port);
+        try {
+            return new StreamServerConnection(socket.getInputStream(), socket.getOutputStream(), socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a connection to the server listening on the Unix domain socket with the given path
+     * @throws IOException if the server can't be reached
+     */
+    public static StreamServerConnection unix(Path path) throws IOException {
+        SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(path));
+        return new StreamServerConnection(Channels.newInputStream(channel), Channels.newOutputStream(channel), channel);
+    }
+
+    @Override
+    public JsonCommand read() throws IOException {
+        try {
+            return inputStream.read();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed message from server", e);
+        }
+    }
+
+    @Override
+    public synchronized void send(JsonCommand jsonCommand, WireProtocol protocol) throws IOException {
+        Frame.of(jsonCommand).as(protocol).writeTo(outputStream);
+        outputStream.flush();
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return Capabilities.of(WireFeature.BINARY, WireFeature.DEFLATE, WireFeature.STATE_PATCH);
+    }
+
+    @Override
+    public void close() throws IOException {
+        connection.close();
+    }
+}
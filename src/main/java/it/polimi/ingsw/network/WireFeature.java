@@ -0,0 +1,44 @@
+package it.polimi.ingsw.network;
+
+/**
+ * The optional features of the wire protocol a peer can declare at login, see {@link Capabilities}
+ */
+public enum WireFeature {
+    /**
+     * Length-prefixed binary frames, see {@link BinaryCodec}
+     */
+    BINARY("binary"),
+    /**
+     * Deflated binary frames, only meaningful together with {@link #BINARY}, see {@link FrameCompression}
+     */
+    DEFLATE("deflate"),
+    /**
+     * Game states sent as patches of the previous one, see {@link it.polimi.ingsw.network.delta.GameStateDecoder}
+     */
+    STATE_PATCH("statePatch"),
+    /**
+     * Many client sessions carried by the same connection, every message is tagged with the id of its session,
+     * see {@link MultiplexedServerConnection}
+     */
+    SESSIONS("sessions");
+
+    private final String featureName;
+
+    WireFeature(String featureName) {
+        this.featureName = featureName;
+    }
+
+    public String getFeatureName() {
+        return featureName;
+    }
+
+    /**
+     * @return the feature with the given name, null if the name is unknown
+     */
+    public static WireFeature fromFeatureName(String featureName) {
+        for (WireFeature feature : values())
+            if (feature.featureName.equals(featureName))
+                return feature;
+        return null;
+    }
+}
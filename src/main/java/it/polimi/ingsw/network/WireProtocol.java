@@ -0,0 +1,40 @@
+package it.polimi.ingsw.network;
+
+/**
+ * The encodings of the messages exchanged by clients and server
+ * Readers accept both encodings, the one used to send messages is negotiated during the login
+ */
+public enum WireProtocol {
+    /**
+     * One JSON object per line, always supported
+     */
+    JSON("json"),
+    /**
+     * Length-prefixed binary frames, see {@link BinaryCodec}
+     */
+    BINARY("binary"),
+    /**
+     * Binary frames whose large bodies are deflated, see {@link FrameCompression}
+     */
+    COMPRESSED_BINARY("binary-deflate");
+
+    private final String protocolName;
+
+    WireProtocol(String protocolName) {
+        this.protocolName = protocolName;
+    }
+
+    public String getProtocolName() {
+        return protocolName;
+    }
+
+    /**
+     * @return the protocol with the given name, JSON if the name is null or unknown
+     */
+    public static WireProtocol fromProtocolName(String protocolName) {
+        for (WireProtocol protocol : values())
+            if (protocol.protocolName.equals(protocolName))
+                return protocol;
+        return JSON;
+    }
+}
@@ -0,0 +1,30 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Bag;
+import it.polimi.ingsw.models.components.Student;
+
+import java.io.IOException;
+
+/**
+ * Writes a bag as the array of its student counts, the order of the students doesn't matter since draws are random
+ */
+public class BagAdapter extends TypeAdapter<Bag> {
+
+    @Override
+    public void write(JsonWriter out, Bag bag) throws IOException {
+        int[] counts = new int[Student.values().length];
+        for (Student student : Student.values())
+            counts[student.ordinal()] = bag.getNumStudentsByColor(student);
+        CompactJson.writeCounts(out, counts);
+    }
+
+    @Override
+    public Bag read(JsonReader in) throws IOException {
+        Bag bag = new Bag();
+        bag.restoreStudents(CompactJson.readCounts(in));
+        return bag;
+    }
+}
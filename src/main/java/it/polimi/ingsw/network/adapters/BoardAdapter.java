@@ -0,0 +1,62 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Board;
+import it.polimi.ingsw.models.components.Tower;
+
+import java.io.IOException;
+
+/**
+ * Writes a board as {towerType, towerLimit, numTowers, entranceLimit, entrance: [counts], hall: [counts]}
+ * The entrance and the hall are inlined, they are created by the board itself
+ */
+public class BoardAdapter extends TypeAdapter<Board> {
+
+    @Override
+    public void write(JsonWriter out, Board board) throws IOException {
+        out.beginObject();
+        out.name("towerType").value(board.getTowerType().name());
+        out.name("towerLimit").value(board.getTowerLimit());
+        out.name("numTowers").value(board.getNumTowers());
+        out.name("entranceLimit").value(board.getEntrance().getStudentsLimit());
+        out.name("entrance");
+        CompactJson.writeCounts(out, EntranceAdapter.counts(board.getEntrance()));
+        out.name("hall");
+        CompactJson.writeCounts(out, HallAdapter.counts(board.getHall()));
+        out.endObject();
+    }
+
+    @Override
+    public Board read(JsonReader in) throws IOException {
+        Tower towerType = null;
+        int towerLimit = 0;
+        int numTowers = 0;
+        int entranceLimit = 0;
+        int[] entrance = null;
+        int[] hall = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "towerType" -> towerType = CompactJson.readEnum(in, Tower.class);
+                case "towerLimit" -> towerLimit = in.nextInt();
+                case "numTowers" -> numTowers = in.nextInt();
+                case "entranceLimit" -> entranceLimit = in.nextInt();
+                case "entrance" -> entrance = CompactJson.readCounts(in);
+                case "hall" -> hall = CompactJson.readCounts(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Board board = new Board(towerType, towerLimit, entranceLimit);
+        board.restoreNumTowers(numTowers);
+        if (entrance != null)
+            board.getEntrance().restoreStudents(entrance);
+        if (hall != null)
+            board.getHall().restoreStudents(hall);
+        return board;
+    }
+}
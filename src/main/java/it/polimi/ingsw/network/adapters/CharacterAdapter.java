@@ -0,0 +1,59 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.characters.CharacterType;
+import it.polimi.ingsw.models.components.characters.Characters;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a character as {characterType, students: [ordinals], costIncrement, islandBlocks}
+ * Cost, limits and effect depend only on the type, so the character is rebuilt from it with its effect already set
+ */
+public class CharacterAdapter extends TypeAdapter<Character> {
+
+    @Override
+    public void write(JsonWriter out, Character character) throws IOException {
+        out.beginObject();
+        out.name("characterType").value(character.getCharacterType().name());
+        out.name("students");
+        CompactJson.writeList(out, character.getStudents());
+        out.name("costIncrement").value(character.isCostIncrement());
+        out.name("islandBlocks").value(character.getNumIslandBlocks());
+        out.endObject();
+    }
+
+    @Override
+    public Character read(JsonReader in) throws IOException {
+        CharacterType characterType = null;
+        List<Student> students = List.of();
+        boolean costIncrement = false;
+        Integer islandBlocks = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "characterType" -> characterType = CompactJson.readEnum(in, CharacterType.class);
+                case "students" -> students = CompactJson.readList(in);
+                case "costIncrement" -> costIncrement = in.nextBoolean();
+                case "islandBlocks" -> islandBlocks = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (characterType == null)
+            throw new JsonParseException("Missing character type at " + in.getPath());
+
+        Character character = Characters.get(characterType);
+        for (Student student : students)
+            character.receiveStudent(student);
+        character.restoreState(costIncrement, islandBlocks != null ? islandBlocks : character.getNumIslandBlocks());
+        return character;
+    }
+}
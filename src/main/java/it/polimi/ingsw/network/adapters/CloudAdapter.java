@@ -0,0 +1,49 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Cloud;
+import it.polimi.ingsw.models.components.Student;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a cloud as {id, studentsLimit, students: [ordinals]}, students are kept in the order they have been placed
+ */
+public class CloudAdapter extends TypeAdapter<Cloud> {
+
+    @Override
+    public void write(JsonWriter out, Cloud cloud) throws IOException {
+        out.beginObject();
+        out.name("id").value(cloud.getId());
+        out.name("studentsLimit").value(cloud.getStudentsLimit());
+        out.name("students");
+        CompactJson.writeList(out, cloud.getStudents());
+        out.endObject();
+    }
+
+    @Override
+    public Cloud read(JsonReader in) throws IOException {
+        int id = 0;
+        int studentsLimit = 0;
+        List<Student> students = List.of();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = in.nextInt();
+                case "studentsLimit" -> studentsLimit = in.nextInt();
+                case "students" -> students = CompactJson.readList(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Cloud cloud = new Cloud(id, studentsLimit);
+        for (Student student : students)
+            cloud.receiveStudent(student);
+        return cloud;
+    }
+}
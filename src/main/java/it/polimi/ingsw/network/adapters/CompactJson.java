@@ -0,0 +1,127 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Student;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact JSON forms of the values shared by the adapters
+ * Student counts are arrays with one number for every color, in the order of {@link Student#values()},
+ * ordered groups of students are arrays of their ordinals, the other enums are written by name
+ */
+final class CompactJson {
+
+    private static final Student[] STUDENTS = Student.values();
+
+    private CompactJson() {
+    }
+
+    static void writeCounts(JsonWriter out, int[] counts) throws IOException {
+        out.beginArray();
+        for (int count : counts)
+            out.value(count);
+        out.endArray();
+    }
+
+    /**
+     * @throws JsonParseException if the array doesn't contain a count for every color
+     */
+    static int[] readCounts(JsonReader in) throws IOException {
+        int[] counts = new int[STUDENTS.length];
+        int i = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (i == counts.length)
+                throw new JsonParseException("Too many student counts at " + in.getPath());
+            counts[i++] = in.nextInt();
+        }
+        in.endArray();
+        if (i != counts.length)
+            throw new JsonParseException("Missing student counts at " + in.getPath());
+        return counts;
+    }
+
+    static void writeList(JsonWriter out, List<Student> students) throws IOException {
+        out.beginArray();
+        for (Student student : students)
+            out.value(student.ordinal());
+        out.endArray();
+    }
+
+    static List<Student> readList(JsonReader in) throws IOException {
+        List<Student> students = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+            students.add(fromOrdinal(in.nextInt(), in));
+        in.endArray();
+        return students;
+    }
+
+    /**
+     * @throws JsonParseException if the ordinal is not the one of a student
+     */
+    static Student fromOrdinal(int ordinal, JsonReader in) {
+        if (ordinal < 0 || ordinal >= STUDENTS.length)
+            throw new JsonParseException("Invalid student " + ordinal + " at " + in.getPath());
+        return STUDENTS[ordinal];
+    }
+
+    static Student readStudent(JsonReader in) throws IOException {
+        return fromOrdinal(in.nextInt(), in);
+    }
+
+    /**
+     * @return the enum constant with the name read, null if a JSON null is read
+     * @throws JsonParseException if the name is not the one of a constant
+     */
+    static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> enumClass) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = in.nextString();
+        try {
+            return Enum.valueOf(enumClass, name);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Invalid " + enumClass.getSimpleName() + " " + name + " at " + in.getPath(), e);
+        }
+    }
+
+    static <E extends Enum<E>> void writeEnums(JsonWriter out, List<E> values) throws IOException {
+        out.beginArray();
+        for (E value : values)
+            out.value(value.name());
+        out.endArray();
+    }
+
+    static <E extends Enum<E>> List<E> readEnums(JsonReader in, Class<E> enumClass) throws IOException {
+        List<E> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+            values.add(readEnum(in, enumClass));
+        in.endArray();
+        return values;
+    }
+
+    static void writeInts(JsonWriter out, List<Integer> values) throws IOException {
+        out.beginArray();
+        for (Integer value : values)
+            out.value(value);
+        out.endArray();
+    }
+
+    static List<Integer> readInts(JsonReader in) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+            values.add(in.nextInt());
+        in.endArray();
+        return values;
+    }
+}
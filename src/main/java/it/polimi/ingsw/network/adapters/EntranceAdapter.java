@@ -0,0 +1,52 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Entrance;
+import it.polimi.ingsw.models.components.Student;
+
+import java.io.IOException;
+
+/**
+ * Writes an entrance as {studentsLimit, students: [counts]}
+ */
+public class EntranceAdapter extends TypeAdapter<Entrance> {
+
+    @Override
+    public void write(JsonWriter out, Entrance entrance) throws IOException {
+        out.beginObject();
+        out.name("studentsLimit").value(entrance.getStudentsLimit());
+        out.name("students");
+        CompactJson.writeCounts(out, counts(entrance));
+        out.endObject();
+    }
+
+    @Override
+    public Entrance read(JsonReader in) throws IOException {
+        int studentsLimit = 0;
+        int[] counts = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "studentsLimit" -> studentsLimit = in.nextInt();
+                case "students" -> counts = CompactJson.readCounts(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Entrance entrance = new Entrance(studentsLimit);
+        if (counts != null)
+            entrance.restoreStudents(counts);
+        return entrance;
+    }
+
+    static int[] counts(Entrance entrance) {
+        int[] counts = new int[Student.values().length];
+        for (Student student : Student.values())
+            counts[student.ordinal()] = entrance.getNumStudentsByColor(student);
+        return counts;
+    }
+}
@@ -0,0 +1,86 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Island;
+import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.constants.GameConstants;
+import it.polimi.ingsw.models.state.ExpertAttrs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the expert attributes as {characters, coinStock, characterAlreadyPlayed, blockedIslands: [positions],
+ * additionalMotherNatureSteps, ignoreTowers, twoAdditionalPoints, ignoredStudentType, profOwnershipOnTie},
+ * the ignored student type only if present
+ * Blocked islands are read as placeholders with the right position,
+ * {@link GameStateAdapter} replaces them with the islands of the state
+ */
+public class ExpertAttrsAdapter extends TypeAdapter<ExpertAttrs> {
+
+    private final CharacterAdapter characterAdapter = new CharacterAdapter();
+
+    @Override
+    public void write(JsonWriter out, ExpertAttrs expertAttrs) throws IOException {
+        out.beginObject();
+        out.name("characters").beginArray();
+        for (Character character : expertAttrs.getCharacters())
+            characterAdapter.write(out, character);
+        out.endArray();
+        out.name("coinStock").value(expertAttrs.getNumCoinsInStock());
+        out.name("characterAlreadyPlayed").value(expertAttrs.isCharacterAlreadyPlayed());
+        out.name("blockedIslands").beginArray();
+        for (Island island : expertAttrs.getBlockedIslands())
+            out.value(island.getPosition());
+        out.endArray();
+        out.name("additionalMotherNatureSteps").value(expertAttrs.getAdditionalMotherNatureSteps());
+        out.name("ignoreTowers").value(expertAttrs.isIgnoreTowers());
+        out.name("twoAdditionalPoints").value(expertAttrs.isTwoAdditionalPoints());
+        if (expertAttrs.getIgnoredStudentType() != null)
+            out.name("ignoredStudentType").value(expertAttrs.getIgnoredStudentType().ordinal());
+        out.name("profOwnershipOnTie").value(expertAttrs.getProfOwnershipOnTie());
+        out.endObject();
+    }
+
+    @Override
+    public ExpertAttrs read(JsonReader in) throws IOException {
+        ExpertAttrs expertAttrs = new ExpertAttrs();
+        List<Character> characters = new ArrayList<>();
+        List<Island> blockedIslands = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "characters" -> {
+                    in.beginArray();
+                    while (in.hasNext())
+                        characters.add(characterAdapter.read(in));
+                    in.endArray();
+                }
+                case "coinStock" -> expertAttrs.getCoinsFromStock(GameConstants.NUM_COINS - in.nextInt());
+                case "characterAlreadyPlayed" -> expertAttrs.setCharacterAlreadyPlayed(in.nextBoolean());
+                case "blockedIslands" -> {
+                    in.beginArray();
+                    while (in.hasNext())
+                        blockedIslands.add(new Island(in.nextInt(), 1));
+                    in.endArray();
+                }
+                case "additionalMotherNatureSteps" -> expertAttrs.setAdditionalMotherNatureSteps(in.nextInt());
+                case "ignoreTowers" -> expertAttrs.setIgnoreTowers(in.nextBoolean());
+                case "twoAdditionalPoints" -> expertAttrs.setTwoAdditionalPoints(in.nextBoolean());
+                case "ignoredStudentType" -> expertAttrs.setIgnoredStudent(CompactJson.readStudent(in));
+                case "profOwnershipOnTie" -> expertAttrs.setProfOwnerOnStudentsTie(in.nextBoolean());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        expertAttrs.setCharacters(characters);
+        expertAttrs.setBlockedIslands(blockedIslands);
+        return expertAttrs;
+    }
+}
@@ -0,0 +1,202 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.state.ExpertAttrs;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.models.state.Stage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Writes the whole game state in a single pass, composing the adapters of its components
+ * The layout is {numPlayers, expertAttrs, availableWizards, availableTowers, players, clockwiseOrder, playerQueue,
+ * bag: [counts], islands, clouds, motherNaturePosition, professorOwners: [player ids], stage, currentTurn,
+ * studentsToMove, winner}, null values are not written
+ * Fields can be read in any order, the state is built once all of them have been read
+ * The random generator of the state is not written, so that clients cannot predict the draws: a read state gets a new one
+ */
+public class GameStateAdapter extends TypeAdapter<GameState> {
+
+    private final ExpertAttrsAdapter expertAttrsAdapter = new ExpertAttrsAdapter();
+    private final PlayerAdapter playerAdapter = new PlayerAdapter();
+    private final BagAdapter bagAdapter = new BagAdapter();
+    private final IslandAdapter islandAdapter = new IslandAdapter();
+    private final CloudAdapter cloudAdapter = new CloudAdapter();
+
+    @Override
+    public void write(JsonWriter out, GameState gameState) throws IOException {
+        out.beginObject();
+        out.name("numPlayers").value(gameState.getNumPlayers());
+        if (gameState.isExpertMatch()) {
+            out.name("expertAttrs");
+            expertAttrsAdapter.write(out, gameState.getExpertAttrs());
+        }
+        out.name("availableWizards");
+        CompactJson.writeEnums(out, gameState.getAvailableWizards());
+        out.name("availableTowers");
+        CompactJson.writeEnums(out, gameState.getAvailableTowers());
+
+        out.name("players").beginArray();
+        for (Player player : gameState.getPlayers())
+            playerAdapter.write(out, player);
+        out.endArray();
+        if (gameState.getClockwiseOrder() != null) {
+            out.name("clockwiseOrder");
+            CompactJson.writeInts(out, gameState.getClockwiseOrder());
+        }
+        if (gameState.getPlayerQueue() != null) {
+            out.name("playerQueue");
+            CompactJson.writeInts(out, gameState.getPlayerQueue());
+        }
+
+        out.name("bag");
+        bagAdapter.write(out, gameState.getBag());
+        out.name("islands").beginArray();
+        for (Island island : gameState.getIslands())
+            islandAdapter.write(out, island);
+        out.endArray();
+        out.name("clouds").beginArray();
+        for (Cloud cloud : gameState.getClouds())
+            cloudAdapter.write(out, cloud);
+        out.endArray();
+        out.name("motherNaturePosition").value(gameState.getMotherNaturePosition());
+        out.name("professorOwners").beginArray();
+        for (Student student : Student.values())
+            out.value(gameState.getProfessorOwner(student));
+        out.endArray();
+
+        if (gameState.getStage() != null)
+            out.name("stage").value(gameState.getStage().name());
+        out.name("currentTurn").value(gameState.getCurrentTurn());
+        out.name("studentsToMove").value(gameState.getStudentsToMove());
+        if (gameState.getWinner() != null)
+            out.name("winner").value(gameState.getWinner().name());
+        out.endObject();
+    }
+
+    @Override
+    public GameState read(JsonReader in) throws IOException {
+        int numPlayers = 0;
+        ExpertAttrs expertAttrs = null;
+        List<Wizard> availableWizards = List.of();
+        List<Tower> availableTowers = List.of();
+        List<Player> players = new ArrayList<>();
+        List<Integer> clockwiseOrder = null;
+        List<Integer> playerQueue = null;
+        int[] bag = null;
+        List<Island> islands = new ArrayList<>();
+        List<Cloud> clouds = new ArrayList<>();
+        int motherNaturePosition = 0;
+        Integer[] professorOwners = new Integer[Student.values().length];
+        Stage stage = null;
+        int currentTurn = 0;
+        int studentsToMove = 0;
+        Tower winner = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "numPlayers" -> numPlayers = in.nextInt();
+                case "expertAttrs" -> expertAttrs = expertAttrsAdapter.read(in);
+                case "availableWizards" -> availableWizards = CompactJson.readEnums(in, Wizard.class);
+                case "availableTowers" -> availableTowers = CompactJson.readEnums(in, Tower.class);
+                case "players" -> {
+                    in.beginArray();
+                    while (in.hasNext())
+                        players.add(playerAdapter.read(in));
+                    in.endArray();
+                }
+                case "clockwiseOrder" -> clockwiseOrder = CompactJson.readInts(in);
+                case "playerQueue" -> playerQueue = CompactJson.readInts(in);
+                case "bag" -> bag = CompactJson.readCounts(in);
+                case "islands" -> {
+                    in.beginArray();
+                    while (in.hasNext())
+                        islands.add(islandAdapter.read(in));
+                    in.endArray();
+                }
+                case "clouds" -> {
+                    in.beginArray();
+                    while (in.hasNext())
+                        clouds.add(cloudAdapter.read(in));
+                    in.endArray();
+                }
+                case "motherNaturePosition" -> motherNaturePosition = in.nextInt();
+                case "professorOwners" -> readProfessorOwners(in, professorOwners);
+                case "stage" -> stage = CompactJson.readEnum(in, Stage.class);
+                case "currentTurn" -> currentTurn = in.nextInt();
+                case "studentsToMove" -> studentsToMove = in.nextInt();
+                case "winner" -> winner = CompactJson.readEnum(in, Tower.class);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        GameState gameState;
+        try {
+            gameState = new GameState(numPlayers, expertAttrs);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Invalid number of players " + numPlayers, e);
+        }
+        gameState.setAvailableWizards(availableWizards);
+        gameState.setAvailableTowers(availableTowers);
+        for (Player player : players)
+            gameState.addPlayer(player);
+        gameState.setClockwiseOrder(clockwiseOrder);
+        gameState.setPlayerQueue(playerQueue);
+        if (bag != null)
+            gameState.getBag().restoreStudents(bag);
+        gameState.setIslands(islands);
+        gameState.setClouds(clouds);
+        gameState.setMotherNaturePosition(motherNaturePosition);
+        for (Student student : Student.values())
+            gameState.setProfessorOwner(student, professorOwners[student.ordinal()]);
+        gameState.setStage(stage);
+        gameState.setCurrentTurn(currentTurn);
+        gameState.setStudentsToMove(studentsToMove);
+        gameState.setWinner(winner);
+
+        if (expertAttrs != null)
+            expertAttrs.setBlockedIslands(resolveIslands(gameState, expertAttrs.getBlockedIslands()));
+        return gameState;
+    }
+
+    private static void readProfessorOwners(JsonReader in, Integer[] professorOwners) throws IOException {
+        int i = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (i == professorOwners.length)
+                throw new JsonParseException("Too many professor owners at " + in.getPath());
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                i++;
+            } else {
+                professorOwners[i++] = in.nextInt();
+            }
+        }
+        in.endArray();
+    }
+
+    /**
+     * @return the islands of the state in the given positions, the placeholders whose position has no island are kept
+     */
+    private static List<Island> resolveIslands(GameState gameState, List<Island> placeholders) {
+        List<Island> islands = new ArrayList<>(placeholders.size());
+        for (Island placeholder : placeholders) {
+            try {
+                islands.add(gameState.getIslandByPosition(placeholder.getPosition()));
+            } catch (NoSuchElementException e) {
+                islands.add(placeholder);
+            }
+        }
+        return islands;
+    }
+}
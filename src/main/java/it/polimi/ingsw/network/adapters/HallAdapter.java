@@ -0,0 +1,35 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.hall.Hall;
+
+import java.io.IOException;
+
+/**
+ * Writes a hall as the array of its student counts
+ * The listener is not written, it's restored by the GameManager
+ */
+public class HallAdapter extends TypeAdapter<Hall> {
+
+    @Override
+    public void write(JsonWriter out, Hall hall) throws IOException {
+        CompactJson.writeCounts(out, counts(hall));
+    }
+
+    @Override
+    public Hall read(JsonReader in) throws IOException {
+        Hall hall = new Hall();
+        hall.restoreStudents(CompactJson.readCounts(in));
+        return hall;
+    }
+
+    static int[] counts(Hall hall) {
+        int[] counts = new int[Student.values().length];
+        for (Student student : Student.values())
+            counts[student.ordinal()] = hall.getNumStudentsByColor(student);
+        return counts;
+    }
+}
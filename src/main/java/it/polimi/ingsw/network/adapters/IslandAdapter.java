@@ -0,0 +1,62 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Island;
+import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.Tower;
+
+import java.io.IOException;
+
+/**
+ * Writes an island as {position, dimension, students: [counts], tower, numTowers}, the tower only if there are towers
+ */
+public class IslandAdapter extends TypeAdapter<Island> {
+
+    @Override
+    public void write(JsonWriter out, Island island) throws IOException {
+        out.beginObject();
+        out.name("position").value(island.getPosition());
+        out.name("dimension").value(island.getDimension());
+        out.name("students");
+        int[] counts = new int[Student.values().length];
+        for (Student student : Student.values())
+            counts[student.ordinal()] = island.getNumStudent(student);
+        CompactJson.writeCounts(out, counts);
+        if (island.hasTowers())
+            out.name("tower").value(island.getTowerType().name());
+        out.name("numTowers").value(island.getNumTowers());
+        out.endObject();
+    }
+
+    @Override
+    public Island read(JsonReader in) throws IOException {
+        int position = 0;
+        int dimension = 1;
+        int[] counts = null;
+        Tower tower = null;
+        int numTowers = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "position" -> position = in.nextInt();
+                case "dimension" -> dimension = in.nextInt();
+                case "students" -> counts = CompactJson.readCounts(in);
+                case "tower" -> tower = CompactJson.readEnum(in, Tower.class);
+                case "numTowers" -> numTowers = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Island island = new Island(position, dimension);
+        if (counts != null)
+            island.restoreStudents(counts);
+        if (tower != null)
+            for (int i = 0; i < numTowers; i++)
+                island.receiveTower(tower);
+        return island;
+    }
+}
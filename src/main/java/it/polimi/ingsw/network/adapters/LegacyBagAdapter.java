@@ -0,0 +1,48 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Bag;
+import it.polimi.ingsw.models.components.Student;
+
+import java.io.IOException;
+
+/**
+ * Writes a bag as the list of its students of the legacy reflective layout, e.g. {"students":["RED","RED",...]}
+ */
+public class LegacyBagAdapter extends TypeAdapter<Bag> {
+
+    private static final String STUDENTS = "students";
+
+    @Override
+    public void write(JsonWriter out, Bag bag) throws IOException {
+        out.beginObject();
+        out.name(STUDENTS).beginArray();
+        for (Student student : Student.values())
+            for (int i = bag.getNumStudentsByColor(student); i > 0; i--)
+                out.value(student.name());
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public Bag read(JsonReader in) throws IOException {
+        int[] counts = new int[Student.values().length];
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals(STUDENTS)) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            while (in.hasNext())
+                counts[Student.valueOf(in.nextString()).ordinal()]++;
+            in.endArray();
+        }
+        in.endObject();
+        Bag bag = new Bag();
+        bag.restoreStudents(counts);
+        return bag;
+    }
+}
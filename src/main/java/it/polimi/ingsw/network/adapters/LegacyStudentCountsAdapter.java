@@ -0,0 +1,35 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Student;
+import it.polimi.ingsw.models.components.StudentCounts;
+
+import java.io.IOException;
+
+/**
+ * Writes the student counts as the map of the legacy reflective layout, e.g. {"YELLOW":0,"CYAN":2,...}
+ */
+public class LegacyStudentCountsAdapter extends TypeAdapter<StudentCounts> {
+
+    @Override
+    public void write(JsonWriter out, StudentCounts students) throws IOException {
+        out.beginObject();
+        for (Student student : Student.values())
+            out.name(student.name()).value(students.get(student));
+        out.endObject();
+    }
+
+    @Override
+    public StudentCounts read(JsonReader in) throws IOException {
+        int[] counts = new int[Student.values().length];
+        in.beginObject();
+        while (in.hasNext())
+            counts[Student.valueOf(in.nextName()).ordinal()] = in.nextInt();
+        in.endObject();
+        StudentCounts students = new StudentCounts();
+        students.restore(counts);
+        return students;
+    }
+}
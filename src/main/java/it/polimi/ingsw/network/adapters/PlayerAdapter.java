@@ -0,0 +1,67 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import it.polimi.ingsw.models.components.Assistant;
+import it.polimi.ingsw.models.components.Board;
+import it.polimi.ingsw.models.components.Player;
+import it.polimi.ingsw.models.components.Wizard;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a player as {wizard, name, leader, board, hand: [assistants], lastPlayedAssistant, numCoins},
+ * the last played assistant only if present
+ */
+public class PlayerAdapter extends TypeAdapter<Player> {
+
+    private final BoardAdapter boardAdapter = new BoardAdapter();
+
+    @Override
+    public void write(JsonWriter out, Player player) throws IOException {
+        out.beginObject();
+        out.name("wizard").value(player.getWizard().name());
+        out.name("name").value(player.getName());
+        out.name("leader").value(player.isLeader());
+        out.name("board");
+        boardAdapter.write(out, player.getBoard());
+        out.name("hand");
+        CompactJson.writeEnums(out, player.getPlayableAssistants());
+        if (player.getLastPlayedAssistant() != null)
+            out.name("lastPlayedAssistant").value(player.getLastPlayedAssistant().name());
+        out.name("numCoins").value(player.getNumCoins());
+        out.endObject();
+    }
+
+    @Override
+    public Player read(JsonReader in) throws IOException {
+        Wizard wizard = null;
+        String name = null;
+        boolean leader = true;
+        Board board = null;
+        List<Assistant> hand = List.of();
+        Assistant lastPlayedAssistant = null;
+        int numCoins = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "wizard" -> wizard = CompactJson.readEnum(in, Wizard.class);
+                case "name" -> name = in.nextString();
+                case "leader" -> leader = in.nextBoolean();
+                case "board" -> board = boardAdapter.read(in);
+                case "hand" -> hand = CompactJson.readEnums(in, Assistant.class);
+                case "lastPlayedAssistant" -> lastPlayedAssistant = CompactJson.readEnum(in, Assistant.class);
+                case "numCoins" -> numCoins = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Player player = new Player(wizard, name, hand, board, leader);
+        player.restoreState(lastPlayedAssistant, numCoins);
+        return player;
+    }
+}
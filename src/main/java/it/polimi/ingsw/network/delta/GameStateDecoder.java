@@ -0,0 +1,53 @@
+package it.polimi.ingsw.network.delta;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.GsonManager;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.messages.Parameters;
+
+/**
+ * Rebuilds the game states encoded by a {@link GameStateEncoder}
+ * Keeps the last received version, so that the next patch can be applied to it
+ */
+public class GameStateDecoder {
+
+    private JsonElement tree;
+    private long version;
+
+    /**
+     * @param message a message that carries a full game state or a patch
+     * @return the decoded game state, null if the patch can't be applied to the last version
+     * or the result doesn't match the checksum, in that case a resync is needed
+     */
+    public synchronized GameState decode(JsonCommand message) {
+        long messageVersion = Long.parseLong(message.getParameter(Parameters.STATE_VERSION));
+        long checksum = Long.parseLong(message.getParameter(Parameters.STATE_CHECKSUM));
+
+        JsonElement decodedTree;
+        String keyframe = message.getParameter(Parameters.GAME_STATE);
+        if (keyframe != null) {
+            decodedTree = JsonParser.parseString(keyframe);
+        } else {
+            if (tree == null || messageVersion != version + 1)
+                return invalidate();
+            decodedTree = JsonPatch.apply(tree, JsonParser.parseString(message.getParameter(Parameters.GAME_STATE_PATCH)));
+        }
+
+        if (JsonChecksum.of(decodedTree) != checksum)
+            return invalidate();
+
+        tree = decodedTree;
+        version = messageVersion;
+        return GsonManager.getInstance().fromJson(tree, GameState.class);
+    }
+
+    /**
+     * Discards the last version, patches are ignored until a full game state is received
+     */
+    private GameState invalidate() {
+        tree = null;
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package it.polimi.ingsw.network.delta;
+
+import com.google.gson.JsonElement;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.GsonManager;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.messages.Parameters;
+
+/**
+ * Encodes the game states broadcast by the server as patches of the previously broadcast one
+ * Every version is numbered: a patch can be applied only to the previous version,
+ * a full game state (keyframe) is sent periodically and whenever a client asks for a resync
+ */
+public class GameStateEncoder {
+
+    static final int KEYFRAME_INTERVAL = 20;
+
+    private JsonElement lastTree;
+    private long version;
+    private int patchesSinceKeyframe;
+
+    /**
+     * Adds the given game state to the response, as a patch if possible
+     *
+     * @param gameState the game state to broadcast
+     * @param response  the message that will carry the game state
+     * @return the given response
+     */
+    public synchronized JsonCommand encode(GameState gameState, JsonCommand response) {
+        JsonElement tree = GsonManager.getInstance().toJsonTree(gameState, GameState.class);
+        boolean keyframe = lastTree == null || patchesSinceKeyframe >= KEYFRAME_INTERVAL;
+        JsonElement patch = keyframe ? null : JsonPatch.diff(lastTree, tree);
+
+        lastTree = tree;
+        version++;
+        if (keyframe) {
+            patchesSinceKeyframe = 0;
+            return addKeyframe(response);
+        }
+        patchesSinceKeyframe++;
+        // an empty patch still advances the version
+        return addPatch(response, patch == null ? "{}" : GsonManager.getInstance().toJson(patch));
+    }
+
+    /**
+     * Adds the last encoded game state to the response as a full game state, without creating a new version
+     *
+     * @return the given response, or null if no game state has been encoded yet
+     */
+    public synchronized JsonCommand encodeKeyframe(JsonCommand response) {
+        if (lastTree == null)
+            return null;
+        return addKeyframe(response);
+    }
+
+    private JsonCommand addKeyframe(JsonCommand response) {
+        return addVersion(response.addParameterJson(Parameters.GAME_STATE, GsonManager.getInstance().toJson(lastTree)));
+    }
+
+    private JsonCommand addPatch(JsonCommand response, String patch) {
+        return addVersion(response.addParameterJson(Parameters.GAME_STATE_PATCH, patch));
+    }
+
+    private JsonCommand addVersion(JsonCommand response) {
+        return response
+                .addParameter(Parameters.STATE_VERSION, String.valueOf(version), true)
+                .addParameter(Parameters.STATE_CHECKSUM, String.valueOf(JsonChecksum.of(lastTree)), true);
+    }
+}
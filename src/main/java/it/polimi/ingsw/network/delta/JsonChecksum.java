@@ -0,0 +1,64 @@
+package it.polimi.ingsw.network.delta;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Computes a checksum of a JSON tree that doesn't depend on the order of the members of the objects,
+ * so that a tree rebuilt by applying patches has the same checksum of the original one
+ */
+public class JsonChecksum {
+
+    private JsonChecksum() {
+    }
+
+    /**
+     * @return the CRC32 of the canonical form of the given tree
+     */
+    public static long of(JsonElement element) {
+        CRC32 crc = new CRC32();
+        update(crc, element);
+        return crc.getValue();
+    }
+
+    private static void update(CRC32 crc, JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            crc.update('n');
+        } else if (element.isJsonObject()) {
+            crc.update('{');
+            Map<String, JsonElement> sortedMembers = new TreeMap<>();
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet())
+                sortedMembers.put(member.getKey(), member.getValue());
+            for (Map.Entry<String, JsonElement> member : sortedMembers.entrySet()) {
+                updateString(crc, member.getKey());
+                update(crc, member.getValue());
+            }
+            crc.update('}');
+        } else if (element.isJsonArray()) {
+            crc.update('[');
+            for (JsonElement item : element.getAsJsonArray())
+                update(crc, item);
+            crc.update(']');
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isNumber())
+                crc.update('#');
+            else if (primitive.isBoolean())
+                crc.update('b');
+            else
+                crc.update('s');
+            updateString(crc, primitive.getAsString());
+        }
+    }
+
+    private static void updateString(CRC32 crc, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        crc.update(bytes.length);
+        crc.update(bytes);
+    }
+}
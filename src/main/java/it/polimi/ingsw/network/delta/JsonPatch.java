@@ -0,0 +1,117 @@
+package it.polimi.ingsw.network.delta;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+
+/**
+ * Computes and applies the differences between two JSON trees
+ * The patch format is the JSON merge patch (RFC 7386):
+ * - an object patch contains only the changed members, a member set to null is removed
+ * - any other value replaces the old one
+ * Arrays of objects that keep their length are patched element by element, the patch is an object
+ * with the single member {@value #ARRAY_PATCH} that maps the index of every changed element to its patch
+ */
+public class JsonPatch {
+
+    static final String ARRAY_PATCH = "[]";
+
+    private JsonPatch() {
+    }
+
+    /**
+     * @param source the old tree
+     * @param target the new tree
+     * @return the patch that transforms source into target, null if the trees are equal
+     */
+    public static JsonElement diff(JsonElement source, JsonElement target) {
+        if (source == null || source.isJsonNull())
+            return target.deepCopy();
+        if (source.isJsonObject() && target.isJsonObject())
+            return diffObjects(source.getAsJsonObject(), target.getAsJsonObject());
+        if (source.isJsonArray() && target.isJsonArray() && canPatchElements(source.getAsJsonArray(), target.getAsJsonArray()))
+            return diffArrays(source.getAsJsonArray(), target.getAsJsonArray());
+        return source.equals(target) ? null : target.deepCopy();
+    }
+
+    private static JsonObject diffObjects(JsonObject source, JsonObject target) {
+        JsonObject patch = new JsonObject();
+        for (String key : source.keySet()) {
+            if (!target.has(key))
+                patch.add(key, JsonNull.INSTANCE);
+        }
+        for (Map.Entry<String, JsonElement> member : target.entrySet()) {
+            JsonElement memberPatch = diff(source.get(member.getKey()), member.getValue());
+            if (memberPatch != null)
+                patch.add(member.getKey(), memberPatch);
+        }
+        return patch.size() == 0 ? null : patch;
+    }
+
+    /**
+     * Replacing an array of primitives is always smaller than patching its elements
+     */
+    private static boolean canPatchElements(JsonArray source, JsonArray target) {
+        if (source.size() != target.size())
+            return false;
+        for (JsonElement element : target) {
+            if (element.isJsonObject() || element.isJsonArray())
+                return true;
+        }
+        return false;
+    }
+
+    private static JsonElement diffArrays(JsonArray source, JsonArray target) {
+        JsonObject elementPatches = new JsonObject();
+        for (int i = 0; i < target.size(); i++) {
+            JsonElement elementPatch = diff(source.get(i), target.get(i));
+            if (elementPatch != null)
+                elementPatches.add(String.valueOf(i), elementPatch);
+        }
+        if (elementPatches.size() == 0)
+            return null;
+        JsonObject patch = new JsonObject();
+        patch.add(ARRAY_PATCH, elementPatches);
+        return patch;
+    }
+
+    /**
+     * Applies the patch to the given tree, the tree may be modified in place
+     *
+     * @param base  the tree to patch, null if missing
+     * @param patch a patch created by {@link #diff(JsonElement, JsonElement)}
+     * @return the patched tree
+     */
+    public static JsonElement apply(JsonElement base, JsonElement patch) {
+        if (!patch.isJsonObject())
+            return patch.deepCopy();
+
+        JsonObject objectPatch = patch.getAsJsonObject();
+        if (base != null && base.isJsonArray() && isArrayPatch(objectPatch))
+            return applyToArray(base.getAsJsonArray(), objectPatch.getAsJsonObject(ARRAY_PATCH));
+
+        JsonObject result = base != null && base.isJsonObject() ? base.getAsJsonObject() : new JsonObject();
+        for (Map.Entry<String, JsonElement> member : objectPatch.entrySet()) {
+            if (member.getValue().isJsonNull())
+                result.remove(member.getKey());
+            else
+                result.add(member.getKey(), apply(result.get(member.getKey()), member.getValue()));
+        }
+        return result;
+    }
+
+    private static boolean isArrayPatch(JsonObject patch) {
+        return patch.size() == 1 && patch.has(ARRAY_PATCH);
+    }
+
+    private static JsonArray applyToArray(JsonArray base, JsonObject elementPatches) {
+        for (Map.Entry<String, JsonElement> elementPatch : elementPatches.entrySet()) {
+            int i = Integer.parseInt(elementPatch.getKey());
+            base.set(i, apply(base.get(i), elementPatch.getValue()));
+        }
+        return base;
+    }
+}
@@ -1,5 +1,12 @@
 package it.polimi.ingsw.network.messages;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The commands exchanged by server and clients
+ * Every command has a compact id, its position in the declaration, so new commands must be appended
+ */
 public enum Command {
     INITIALIZATION("initialization"),
     LOGIN("login"),
@@ -21,7 +28,17 @@ public enum Command {
     PLAYER_MOVE_END_TURN("playerMoveEndTurn"),
     BEAT("beat"),
     LOGOUT("logout"),
-    ILLEGAL_MOVE("illegalMove");
+    RESYNC("resync"),
+    ILLEGAL_MOVE("illegalMove"),
+    CLOSE_SESSION("closeSession");
+
+    private static final Command[] BY_ID = values();
+    private static final Map<String, Command> BY_COMMAND_STRING = new HashMap<>();
+
+    static {
+        for (Command command : BY_ID)
+            BY_COMMAND_STRING.put(command.commandString, command);
+    }
 
     private final String commandString;
 
@@ -33,10 +50,36 @@ public enum Command {
         return commandString;
     }
 
+    /**
+     * @return the compact id of the command, used by the binary codec and by the dispatch tables
+     */
+    public int getId() {
+        return ordinal();
+    }
+
+    /**
+     * @return the number of commands, every id is lower than it
+     */
+    public static int count() {
+        return BY_ID.length;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no command has the given id
+     */
+    public static Command fromId(int id) {
+        if (id < 0 || id >= BY_ID.length)
+            throw new IllegalArgumentException("Unknown command id: " + id);
+        return BY_ID[id];
+    }
+
+    /**
+     * @throws IllegalArgumentException if no command has the given string
+     */
     public static Command fromCommandString(String string) {
-        for (Command command : Command.values())
-            if (command.getCommandString().equals(string))
-                return command;
-        throw new IllegalArgumentException("invalid command string: " + string);
+        Command command = BY_COMMAND_STRING.get(string);
+        if (command == null)
+            throw new IllegalArgumentException("invalid command string: " + string);
+        return command;
     }
 }
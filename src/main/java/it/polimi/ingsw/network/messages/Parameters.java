@@ -19,6 +19,13 @@ public class Parameters {
     public static final String TOWER = "tower";
     public static final String GAME_STATE = "gameState";
     public static final String LAST_MOVE = "lastMove";
+    public static final String GAME_STATE_PATCH = "gameStatePatch";
+    public static final String STATE_VERSION = "stateVersion";
+    public static final String STATE_CHECKSUM = "stateChecksum";
+    public static final String PROTOCOL = "protocol";
+    public static final String WIRE_VERSION = "wireVersion";
+    public static final String CAPABILITIES = "capabilities";
+    public static final String SESSION_ID = "sessionId";
 
     private Parameters() {
     }
@@ -0,0 +1,125 @@
+package it.polimi.ingsw.server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The queue of the messages of a single match
+ * Messages can be submitted from any thread, they are processed one at a time and in order
+ * by the worker of the match, so the state of the match needs no locks
+ * The queue is bounded and submitting never blocks, since it runs on the threads that read the connections:
+ * a message that doesn't fit, or that the worker can't take, is rejected and the caller disconnects its sender
+ */
+public class MatchMailbox {
+
+    /**
+     * Maximum number of messages processed before giving the worker to the other matches
+     */
+    static final int MAX_BATCH_SIZE = 32;
+    /**
+     * Maximum number of messages waiting to be processed, far more than the players of a match send legitimately
+     */
+    static final int MAX_QUEUE_DEPTH = 1024;
+
+    private final long matchId;
+    private final ExecutorService worker;
+    private final Queue<Runnable> messages;
+    private final AtomicInteger queueDepth;
+    private final AtomicBoolean scheduled;
+    private volatile int maxQueueDepth;
+
+    MatchMailbox(long matchId, ExecutorService worker) {
+        this.matchId = matchId;
+        this.worker = worker;
+        messages = new ConcurrentLinkedQueue<>();
+        queueDepth = new AtomicInteger();
+        scheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Queues the message and schedules the mailbox on its worker if it's not scheduled yet
+     *
+     * @return false if the message has been rejected because the mailbox is full or the worker can't take it
+     */
+    public boolean submit(Runnable message) {
+        int depth = queueDepth.incrementAndGet();
+        if (depth > MAX_QUEUE_DEPTH) {
+            queueDepth.decrementAndGet();
+            String logMessage = "Partita " + matchId + ": Coda dei messaggi piena, " + MAX_QUEUE_DEPTH + " messaggi in attesa";
+            Logger.getLogger(MatchMailbox.class.getName()).log(Level.WARNING, () -> logMessage);
+            return false;
+        }
+        if (depth > maxQueueDepth)
+            maxQueueDepth = depth;
+        messages.add(message);
+        if (!scheduled.compareAndSet(false, true) || tryExecute())
+            return true;
+        // the worker is shut down or has no room, the message is dropped instead of waiting for it
+        scheduled.set(false);
+        if (messages.remove(message))
+            queueDepth.decrementAndGet();
+        String logMessage = "Partita " + matchId + ": Coda del worker piena, messaggio rifiutato";
+        Logger.getLogger(MatchMailbox.class.getName()).log(Level.WARNING, () -> logMessage);
+        return false;
+    }
+
+    private boolean tryExecute() {
+        try {
+            worker.execute(this::drain);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a batch of messages, then gives the worker to the other matches if there are more
+     * When the worker can't take the mailbox back, it keeps draining it instead of waiting for room in its own queue
+     */
+    private void drain() {
+        do {
+            runBatch();
+            scheduled.set(false);
+            // messages submitted while draining, or left by the batch limit
+        } while (!messages.isEmpty() && scheduled.compareAndSet(false, true) && !tryExecute());
+    }
+
+    private void runBatch() {
+        for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+            Runnable message = messages.poll();
+            if (message == null)
+                break;
+            queueDepth.decrementAndGet();
+            try {
+                message.run();
+            } catch (RuntimeException e) {
+                String logMessage = "Partita " + matchId + ": Errore nella gestione del messaggio, " + e.getMessage();
+                Logger.getLogger(MatchMailbox.class.getName()).log(Level.WARNING, () -> logMessage);
+            }
+        }
+    }
+
+    public long getMatchId() {
+        return matchId;
+    }
+
+    /**
+     * @return the number of messages waiting to be processed
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the highest number of messages that have been waiting at the same time
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+}
@@ -0,0 +1,72 @@
+package it.polimi.ingsw.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed pool of workers shared by all the matches of the server
+ * Every worker is a single thread with a bounded queue, a match is always scheduled on the same worker
+ * (chosen by its id), so the messages of a match are never processed by two threads at the same time
+ * With virtual threads every batch of a mailbox runs on a new virtual thread instead, the mailbox itself
+ * keeps its messages in order
+ */
+public class MatchScheduler {
+
+    static final int WORKER_QUEUE_CAPACITY = 10_000;
+
+    private final ExecutorService[] workers;
+    private final boolean virtual;
+
+    /**
+     * @param numWorkers the number of threads that process the messages of the matches
+     */
+    public MatchScheduler(int numWorkers) {
+        workers = new ExecutorService[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            String name = "match-worker-" + i;
+            workers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(WORKER_QUEUE_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        virtual = false;
+    }
+
+    private MatchScheduler(ExecutorService virtualWorker) {
+        workers = new ExecutorService[]{virtualWorker};
+        virtual = true;
+    }
+
+    /**
+     * @return a scheduler that runs the messages of the matches on virtual threads
+     */
+    public static MatchScheduler ofVirtualThreads() {
+        return new MatchScheduler(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("match-", 0).factory()));
+    }
+
+    /**
+     * @return a new mailbox for the match with the given id, drained by the worker of the match
+     */
+    public MatchMailbox createMailbox(long matchId) {
+        return new MatchMailbox(matchId, workers[(int) Math.floorMod(matchId, (long) workers.length)]);
+    }
+
+    public int getNumWorkers() {
+        return workers.length;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void shutdown() {
+        for (ExecutorService worker : workers)
+            worker.shutdown();
+    }
+}
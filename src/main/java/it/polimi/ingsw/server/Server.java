@@ -2,10 +2,26 @@ package it.polimi.ingsw.server;
 
 import it.polimi.ingsw.server.modules.ClientAuthenticator;
 import it.polimi.ingsw.server.modules.ClientHandler;
+import it.polimi.ingsw.server.modules.InProcessClientHandler;
 import it.polimi.ingsw.server.modules.Match;
 import it.polimi.ingsw.server.modules.MatchMaker;
+import it.polimi.ingsw.server.modules.OutboundQueue;
+import it.polimi.ingsw.server.modules.OverflowPolicy;
+import it.polimi.ingsw.server.modules.SessionClientHandler;
+import it.polimi.ingsw.server.modules.SessionMultiplexer;
+import it.polimi.ingsw.server.modules.SocketClientHandler;
+import it.polimi.ingsw.server.modules.StreamClientHandler;
+import it.polimi.ingsw.server.modules.WaitingMatches;
+import it.polimi.ingsw.server.nio.ChannelClientHandler;
+import it.polimi.ingsw.server.nio.EventLoop;
+import it.polimi.ingsw.server.nio.EventLoopGroup;
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.FrameCompression;
+import it.polimi.ingsw.network.HashedWheelTimer;
 import it.polimi.ingsw.network.JsonCommand;
-import it.polimi.ingsw.network.SocketStreamUtils;
+import it.polimi.ingsw.network.ServerConnection;
+import it.polimi.ingsw.network.WireFeature;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.observers.ClientHandlerChangeEvent;
 import it.polimi.ingsw.network.observers.ClientHandlerChangeListener;
@@ -13,30 +29,56 @@ import it.polimi.ingsw.network.observers.MatchChangeEvent;
 import it.polimi.ingsw.network.observers.MatchChangeListener;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Server implements MatchChangeListener, ClientHandlerChangeListener, Runnable {
 
-    private static final int DEFAULT_PORT = 5000;
+    public static final int DEFAULT_PORT = 5000;
     private static final long MILLIS_BETWEEN_BEATS = 1000;
-    private static final long MILLIS_BETWEEN_SERVER_DOWN_CHECK = 2000;
+    private static final long HEARTBEAT_TICK_MILLIS = 100;
+    private static final int HEARTBEAT_WHEEL_SIZE = 512;
     private static final long MILLIS_TO_CONSIDER_SERVER_DOWN = 3000;
     private static final String CLIENT = "Client ";
+    private static final Frame BEAT_FRAME = Frame.of(new JsonCommand(Command.BEAT));
+
+    private static final long MILLIS_BETWEEN_STATS = 30_000;
+
+    private static final int NUM_EVENT_LOOPS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int NUM_MATCH_WORKERS = Math.min(4, Runtime.getRuntime().availableProcessors());
 
     private final int port;
+    private final TransportMode transportMode;
+    private final OverflowPolicy overflowPolicy;
+    private final Capabilities capabilities;
+    private final Path unixSocketPath;
     private Queue<ClientHandler> connectedClients;
-    private final ConcurrentMap<ClientHandler, Long> connectedClientsLastBeat;
     private final ConcurrentMap<ClientHandler, String> clientNicknames;
     private final ConcurrentSkipListSet<String> nicknames;
-    private final Queue<Match> waitingMatches;
+    private final ConcurrentMap<ClientHandler, Match> clientMatches;
+    private final WaitingMatches waitingMatches;
     private final Queue<Match> activeMatches;
+    private final MatchScheduler matchScheduler;
+    private final HashedWheelTimer heartbeatTimer;
+    private final ScheduledThreadPoolExecutor periodicExecutor;
+    private final VirtualThreadPinningMonitor pinningMonitor;
     private boolean serverRunning;
 
     public Server() {
@@ -44,92 +86,334 @@ public class Server implements MatchChangeListener, ClientHandlerChangeListener,
     }
 
     public Server(int port) {
+        this(port, TransportMode.THREAD_PER_CLIENT);
+    }
+
+    /**
+     * @param port          the port the server listens on
+     * @param transportMode the way the connections of the clients are handled
+     */
+    public Server(int port, TransportMode transportMode) {
+        this(port, transportMode, OverflowPolicy.COALESCE);
+    }
+
+    /**
+     * @param port           the port the server listens on
+     * @param transportMode  the way the connections of the clients are handled
+     * @param overflowPolicy what to do with the clients that don't read their messages fast enough
+     */
+    public Server(int port, TransportMode transportMode, OverflowPolicy overflowPolicy) {
+        this(port, transportMode, overflowPolicy, true);
+    }
+
+    /**
+     * @param port               the port the server listens on
+     * @param transportMode      the way the connections of the clients are handled
+     * @param overflowPolicy     what to do with the clients that don't read their messages fast enough
+     * @param compressionEnabled true if the clients can ask for the compressed binary protocol
+     */
+    public Server(int port, TransportMode transportMode, OverflowPolicy overflowPolicy, boolean compressionEnabled) {
+        this(port, transportMode, overflowPolicy, compressionEnabled, null);
+    }
+
+    /**
+     * @param port               the port the server listens on
+     * @param transportMode      the way the connections of the clients are handled
+     * @param overflowPolicy     what to do with the clients that don't read their messages fast enough
+     * @param compressionEnabled true if the clients can ask for the compressed binary protocol
+     * @param unixSocketPath     the path of the Unix domain socket the server listens on too, null for none
+     */
+    public Server(int port, TransportMode transportMode, OverflowPolicy overflowPolicy, boolean compressionEnabled, Path unixSocketPath) {
         this.port = port;
+        this.transportMode = transportMode;
+        this.overflowPolicy = overflowPolicy;
+        this.unixSocketPath = unixSocketPath;
+        capabilities = compressionEnabled ? Capabilities.all() : Capabilities.of(WireFeature.BINARY, WireFeature.STATE_PATCH, WireFeature.SESSIONS);
 
         connectedClients = new ConcurrentLinkedQueue<>();
-        connectedClientsLastBeat = new ConcurrentHashMap<>();
         clientNicknames = new ConcurrentHashMap<>();
         nicknames = new ConcurrentSkipListSet<>();
-        waitingMatches = new ConcurrentLinkedQueue<>();
+        clientMatches = new ConcurrentHashMap<>();
+        waitingMatches = new WaitingMatches();
         activeMatches = new ConcurrentLinkedQueue<>();
+        heartbeatTimer = new HashedWheelTimer("server-heartbeat", HEARTBEAT_TICK_MILLIS, HEARTBEAT_WHEEL_SIZE);
+        // the periodic tasks are short and few, they stay on platform threads in every mode
+        periodicExecutor = new ScheduledThreadPoolExecutor(2);
+        if (transportMode == TransportMode.VIRTUAL_THREADS) {
+            matchScheduler = MatchScheduler.ofVirtualThreads();
+            pinningMonitor = new VirtualThreadPinningMonitor();
+        } else {
+            matchScheduler = new MatchScheduler(NUM_MATCH_WORKERS);
+            pinningMonitor = null;
+        }
     }
 
     public void run() {
         setServerRunning(true);
 
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            String message = "Server avviato all'indirizzo: " + InetAddress.getLocalHost().getHostAddress() + ":" + port;
-            Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
-            Logger.getLogger(Server.class.getName()).log(Level.INFO, "Server in attesa di connessioni...");
-
-            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2);
-            executor.scheduleAtFixedRate(sendBeatsToClients, 0, MILLIS_BETWEEN_BEATS, TimeUnit.MILLISECONDS);
-            executor.scheduleAtFixedRate(removeOfflineClients, 0, MILLIS_BETWEEN_SERVER_DOWN_CHECK, TimeUnit.MILLISECONDS);
+        switch (transportMode) {
+            case THREAD_PER_CLIENT, VIRTUAL_THREADS -> runThreadPerClient();
+            case NIO -> runNio();
+        }
+    }
 
+    private void runThreadPerClient() {
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            logServerStarted();
+            startPeriodicTasks();
+            startUnixSocketAcceptor(this::acceptUnixClients);
             acceptClients(serverSocket);
         } catch (IOException e) {
             Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella creazione del server");
         }
     }
 
+    private void runNio() {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            EventLoopGroup eventLoopGroup = new EventLoopGroup(NUM_EVENT_LOOPS);
+            logServerStarted();
+            startPeriodicTasks();
+            startUnixSocketAcceptor(unixChannel -> acceptChannels(unixChannel, eventLoopGroup));
+            acceptChannels(serverChannel, eventLoopGroup);
+            eventLoopGroup.stop();
+        } catch (IOException e) {
+            Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella creazione del server");
+        }
+    }
+
+    private void logServerStarted() throws UnknownHostException {
+        String message = "Server avviato all'indirizzo: " + InetAddress.getLocalHost().getHostAddress() + ":" + port + " (" + transportMode + ")";
+        Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+        Logger.getLogger(Server.class.getName()).log(Level.INFO, "Server in attesa di connessioni...");
+    }
+
+    /**
+     * Beats and liveness checks are events of the heartbeat timer, scheduled for every connection
+     * The periodic executor runs the statistics and the disconnection of the offline clients
+     */
+    private void startPeriodicTasks() {
+        if (pinningMonitor != null)
+            pinningMonitor.start();
+        periodicExecutor.scheduleAtFixedRate(this::logServerStats, MILLIS_BETWEEN_STATS, MILLIS_BETWEEN_STATS, TimeUnit.MILLISECONDS);
+    }
+
     private void acceptClients(ServerSocket serverSocket) {
         while (serverRunning) {
             try {
                 Socket clientSocket = serverSocket.accept();
-                ClientHandler clientHandler = new ClientHandler(clientSocket);
-                clientHandler.addBeatListener(this);
-                connectedClients.add(clientHandler);
-                connectedClientsLastBeat.put(clientHandler, System.currentTimeMillis());
+                startStreamClientHandler(new SocketClientHandler(clientSocket, createOutboundQueue()));
+            } catch (IOException e) {
+                Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella accept del client");
+            }
+        }
+    }
+
+    /**
+     * Accepts the clients connected to the Unix domain socket, they are handled like the TCP ones
+     */
+    private void acceptUnixClients(ServerSocketChannel unixChannel) {
+        while (serverRunning) {
+            try {
+                SocketChannel clientChannel = unixChannel.accept();
+                startStreamClientHandler(new StreamClientHandler(ClientHandler.nextLocalClientName("unix"),
+                        Channels.newInputStream(clientChannel), Channels.newOutputStream(clientChannel),
+                        clientChannel, createOutboundQueue()));
+            } catch (IOException e) {
+                Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella accept del client");
+            }
+        }
+    }
 
-                String message = CLIENT + clientSocket.getInetAddress().getHostAddress() + ":" + clientSocket.getPort() + ": Si è connesso";
+    private void startStreamClientHandler(StreamClientHandler clientHandler) {
+        createClientHandlerThread(clientHandler, "reader", clientHandler).start();
+        createClientHandlerThread(clientHandler, "writer", clientHandler.getWriter()).start();
+        registerClient(clientHandler);
+    }
+
+    /**
+     * Listens on the Unix domain socket too, if the server has one, accepting its clients on a dedicated thread
+     */
+    private void startUnixSocketAcceptor(Consumer<ServerSocketChannel> acceptor) {
+        if (unixSocketPath == null)
+            return;
+        new Thread(() -> {
+            try (ServerSocketChannel unixChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                bindUnixSocket(unixChannel);
+                String message = "Server in ascolto sul socket Unix: " + unixSocketPath;
                 Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+                acceptor.accept(unixChannel);
+                deleteUnixSocket();
+            } catch (IOException | UnsupportedOperationException e) {
+                Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella creazione del socket Unix");
+            }
+        }, "server-unix-acceptor").start();
+    }
 
-                new Thread(clientHandler).start();
-                new ClientAuthenticator(clientHandler, nicknames, clientNicknames, this);
-                clientHandler.sendMessageToClient(new JsonCommand(Command.ENTER_NICKNAME).toJson());
+    /**
+     * The socket file left by a previous run makes the bind fail, so it's deleted and the bind is retried
+     * Only a socket file is deleted, a regular file or a directory at the same path makes the bind fail
+     * The socket file is deleted when the server stops
+     */
+    private void bindUnixSocket(ServerSocketChannel unixChannel) throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(unixSocketPath);
+        try {
+            unixChannel.bind(address);
+        } catch (IOException e) {
+            if (!Files.exists(unixSocketPath, LinkOption.NOFOLLOW_LINKS)
+                    || !Files.readAttributes(unixSocketPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther())
+                throw e;
+            Files.delete(unixSocketPath);
+            unixChannel.bind(address);
+        }
+        unixSocketPath.toFile().deleteOnExit();
+    }
+
+    private void deleteUnixSocket() {
+        try {
+            Files.deleteIfExists(unixSocketPath);
+        } catch (IOException e) {
+            Logger.getLogger(Server.class.getName()).log(Level.WARNING, "Errore nella cancellazione del socket Unix");
+        }
+    }
+
+    /**
+     * Connects a client running in this process, e.g. a bot or a test, without encoding its messages
+     * The server doesn't need to be listening on the network
+     *
+     * @return the connection the client uses to exchange messages with the server
+     */
+    public ServerConnection connectInProcess() {
+        InProcessClientHandler clientHandler = new InProcessClientHandler(createOutboundQueue());
+        registerClient(clientHandler);
+        return clientHandler.getClientConnection();
+    }
+
+    /**
+     * Every client handler listens on its own thread and writes on another one,
+     * the moves of the matches are processed by the workers of the match scheduler
+     */
+    private Thread createClientHandlerThread(StreamClientHandler clientHandler, String role, Runnable task) {
+        String name = "client-handler-" + role + "-" + clientHandler.getClientIp();
+        if (transportMode == TransportMode.VIRTUAL_THREADS)
+            return Thread.ofVirtual().name(name).unstarted(task);
+        return new Thread(task, name);
+    }
+
+    private OutboundQueue createOutboundQueue() {
+        return new OutboundQueue(OutboundQueue.DEFAULT_MAX_BYTES, overflowPolicy);
+    }
+
+    private void acceptChannels(ServerSocketChannel serverChannel, EventLoopGroup eventLoopGroup) {
+        while (serverRunning) {
+            try {
+                SocketChannel clientChannel = serverChannel.accept();
+                EventLoop eventLoop = eventLoopGroup.next();
+                ChannelClientHandler clientHandler = new ChannelClientHandler(clientChannel, eventLoop, createOutboundQueue());
+                registerClient(clientHandler);
+                // listeners are registered before reading so that no message can be lost
+                eventLoop.register(clientHandler);
             } catch (IOException e) {
                 Logger.getLogger(Server.class.getName()).log(Level.SEVERE, "Errore nella accept del client");
             }
         }
     }
 
-    private final Runnable sendBeatsToClients = () -> {
-        JsonCommand beat = new JsonCommand(Command.BEAT);
-        for (ClientHandler client : connectedClients) {
-            PrintWriter outputStream = SocketStreamUtils.getOutputStream(client.getSocket());
-            if (outputStream != null)
-                outputStream.println(beat);
+    /**
+     * Adds a newly connected client to the server lists and asks it to enter its nickname
+     */
+    private void registerClient(ClientHandler clientHandler) {
+        connectedClients.add(clientHandler);
+        clientHandler.startHeartbeat(heartbeatTimer, MILLIS_BETWEEN_BEATS, MILLIS_TO_CONSIDER_SERVER_DOWN, BEAT_FRAME,
+                () -> periodicExecutor.execute(() -> removeOfflineClient(clientHandler)));
+
+        String message = CLIENT + clientHandler.getClientIp() + ": Si è connesso";
+        Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+
+        new ClientAuthenticator(clientHandler, nicknames, clientNicknames, this, capabilities);
+        clientHandler.sendMessageToClient(new JsonCommand(Command.ENTER_NICKNAME).toJson());
+    }
+
+    /**
+     * Adds a session opened on the connection of another client and asks it to enter its nickname
+     * Sessions have no heartbeat, they are removed when they are closed or when their connection is removed
+     */
+    private void registerSession(ClientHandler session) {
+        connectedClients.add(session);
+
+        String message = CLIENT + session.getClientIp() + ": Ha aperto una sessione";
+        Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+
+        new ClientAuthenticator(session, nicknames, clientNicknames, this, capabilities);
+        session.sendMessageToClient(new JsonCommand(Command.ENTER_NICKNAME).toJson());
+    }
+
+    /**
+     * Removes a client that hasn't sent anything for too long, and ends its match
+     * The sessions carried by the client are removed too
+     */
+    private void removeOfflineClient(ClientHandler client) {
+        SessionMultiplexer sessions = client.getSessionMultiplexer();
+        if (sessions != null) {
+            for (ClientHandler session : sessions.closeAll())
+                removeOfflineClient(session);
         }
-    };
 
-    private final Runnable removeOfflineClients = () -> {
-        for (ClientHandler client : connectedClients) {
-            if (isClientDown(client)) {
-                removeClientFromServerLists(client);
-                Match match = findMatchByClientHandler(client);
-                if (match != null) {
-                    removeClientsOfTheMatchFromServerLists(client, match);
-                }
-
-                String message = CLIENT + client.getSocket().getInetAddress().getHostAddress() + ":" + client.getSocket().getPort() + ": Il client è stato disconnesso definitivamente";
-                Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+        Match match = clientMatches.get(client);
+        removeClientFromServerLists(client);
+        if (match != null) {
+            removeClientsOfTheMatchFromServerLists(client, match);
+        }
+
+        String message = CLIENT + client.getClientIp() + ": Il client è stato disconnesso definitivamente";
+        Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
+    }
+
+    private void logServerStats() {
+        int queuedMessages = 0;
+        int maxQueueDepth = 0;
+        for (Match match : activeMatches) {
+            MatchMailbox mailbox = match.getMailbox();
+            if (mailbox != null) {
+                queuedMessages += mailbox.getQueueDepth();
+                maxQueueDepth = Math.max(maxQueueDepth, mailbox.getMaxQueueDepth());
             }
         }
-    };
+        String message = "Partite attive: " + activeMatches.size() + ", messaggi in coda: " + queuedMessages
+                + ", coda massima: " + maxQueueDepth
+                + (matchScheduler.isVirtual() ? " (virtual thread)" : " (" + matchScheduler.getNumWorkers() + " worker)");
+        Logger.getLogger(Server.class.getName()).log(Level.FINE, () -> message);
+
+        if (pinningMonitor != null) {
+            String pinningMessage = "Virtual thread bloccati sul carrier thread: " + pinningMonitor.getPinnedEvents()
+                    + " eventi, " + pinningMonitor.getPinnedTime().toMillis() + " ms in totale";
+            Logger.getLogger(Server.class.getName()).log(Level.FINE, () -> pinningMessage);
+        }
+
+        String timerMessage = "Client connessi: " + connectedClients.size() + ", timer in attesa: " + heartbeatTimer.getPendingTimeouts()
+                + ", ritardo del timer: " + heartbeatTimer.getTickLagMillis() + " ms (massimo " + heartbeatTimer.getMaxTickLagMillis() + " ms)";
+        Logger.getLogger(Server.class.getName()).log(Level.FINE, () -> timerMessage);
 
-    private boolean isClientDown(ClientHandler client) {
-        long currentTimestamp = System.currentTimeMillis();
-        Long lastBeat = connectedClientsLastBeat.get(client);
-        return lastBeat != null
-                && Math.abs(currentTimestamp - lastBeat) > MILLIS_TO_CONSIDER_SERVER_DOWN;
+        long queuedBytes = 0;
+        long droppedFrames = 0;
+        for (ClientHandler client : connectedClients) {
+            queuedBytes += client.getOutboundQueue().getQueuedBytes();
+            droppedFrames += client.getOutboundQueue().getDroppedFrames();
+        }
+        String outboundMessage = "Byte in coda di uscita: " + queuedBytes + ", messaggi scartati: " + droppedFrames + " (" + overflowPolicy + ")";
+        Logger.getLogger(Server.class.getName()).log(Level.FINE, () -> outboundMessage);
+
+        String compressionMessage = FrameCompression.getStats().toString();
+        Logger.getLogger(Server.class.getName()).log(Level.FINE, () -> compressionMessage);
     }
 
     private void removeClientsOfTheMatchFromServerLists(ClientHandler client, Match match) {
         Queue<ClientHandler> otherClientsInMatch = match.getClients();
+        Frame forceEndMatch = Frame.of(new JsonCommand(Command.FORCE_END_MATCH));
         for (ClientHandler otherClient : otherClientsInMatch) {
             if (!otherClient.equals(client)) {
-                otherClient.sendMessageToClient(new JsonCommand(Command.FORCE_END_MATCH).toJson());
-                String message = CLIENT + client.getSocket().getInetAddress().getHostAddress() + ":" + client.getSocket().getPort() + ": Il client è stato disconnesso definitivamente";
+                otherClient.sendFrame(forceEndMatch);
+                String message = CLIENT + client.getClientIp() + ": Il client è stato disconnesso definitivamente";
                 Logger.getLogger(Server.class.getName()).log(Level.INFO, () -> message);
                 removeClientFromServerLists(otherClient);
             }
@@ -141,22 +425,14 @@ public class Server implements MatchChangeListener, ClientHandlerChangeListener,
     private void removeClientFromServerLists(ClientHandler client) {
         // This call is mandatory to avoid memory leaks after a match is ended
         client.removeAllListeners();
+        client.stopHeartbeat();
 
         connectedClients.remove(client);
-        connectedClientsLastBeat.remove(client);
-        nicknames.remove(clientNicknames.remove(client));
-    }
-
-    private Match findMatchByClientHandler(ClientHandler client) {
-        for (Match match : activeMatches) {
-            if (match.getClients().contains(client))
-                return match;
-        }
-        for (Match match : waitingMatches) {
-            if (match.getClients().contains(client))
-                return match;
-        }
-        return null;
+        clientMatches.remove(client);
+        // clients that never logged in have no nickname
+        String nickname = clientNicknames.remove(client);
+        if (nickname != null)
+            nicknames.remove(nickname);
     }
 
     public void setServerRunning(boolean serverRunning) {
@@ -166,16 +442,25 @@ public class Server implements MatchChangeListener, ClientHandlerChangeListener,
     @Override
     public void matchChange(MatchChangeEvent event) {
         if (event.getEventName().equals("startMatch")) {
-            event.getMatch().create();
+            event.getMatch().create(matchScheduler);
         }
     }
 
     @Override
     public void clientHandlerChange(ClientHandlerChangeEvent event) {
-        if (event.getEventName().equals("clientAuthenticated")) {
-            new MatchMaker(event.getClientHandler(), clientNicknames.get(event.getClientHandler()), waitingMatches, activeMatches, this);
-        } else if (event.getEventName().equals("beatReceived")) {
-            connectedClientsLastBeat.put(event.getClientHandler(), System.currentTimeMillis());
+        ClientHandler clientHandler = event.getClientHandler();
+        switch (event.getEventName()) {
+            case "clientAuthenticated" -> {
+                // a session can't carry other sessions
+                if (clientHandler.getCapabilities().supports(WireFeature.SESSIONS) && !(clientHandler instanceof SessionClientHandler))
+                    clientHandler.enableSessions(this);
+                new MatchMaker(clientHandler, clientNicknames.get(clientHandler), waitingMatches, activeMatches, clientMatches, this);
+            }
+            case "sessionOpened" -> registerSession(clientHandler);
+            case "sessionClosed" -> periodicExecutor.execute(() -> removeOfflineClient(clientHandler));
+            default -> {
+                // other events are handled by the listeners of the single clients
+            }
         }
     }
 }
@@ -7,16 +7,22 @@ import it.polimi.ingsw.models.components.characters.effects.EffectArgs;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
 import it.polimi.ingsw.models.state.GameState;
 import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.models.utils.UndoLog;
+import it.polimi.ingsw.network.CommandDispatchTable;
+import it.polimi.ingsw.network.Frame;
 import it.polimi.ingsw.network.GsonManager;
 import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.WireFeature;
 import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.delta.GameStateEncoder;
 import it.polimi.ingsw.network.messages.Parameters;
 import it.polimi.ingsw.network.observers.JsonCommandChangeEvent;
-import it.polimi.ingsw.network.observers.JsonCommandChangeListener;
 import it.polimi.ingsw.server.modules.ClientHandler;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  * Receives the requests from the clients through the client handlers
@@ -24,21 +30,60 @@ import java.util.List;
  * Sends the response to all clients through the client handlers
  * It refers to a single active match
  * Every client handler handles the communication with a single client connected to the current match
+ * If the match has a mailbox the requests are processed by the worker of the match,
+ * otherwise they are processed on the thread that received them
  */
-public class ServerController implements JsonCommandChangeListener {
+public class ServerController {
 
-    private GameManager gameManager;
+    /**
+     * The handlers of the requests, every other request is a move
+     */
+    private static final CommandDispatchTable<BiFunction<ServerController, JsonCommand, JsonCommand>> REQUEST_HANDLERS =
+            new CommandDispatchTable<BiFunction<ServerController, JsonCommand, JsonCommand>>(ServerController::executeMove)
+                    .bind(Command.LOGOUT, (controller, request) -> controller.createForceEndMatchResponse())
+                    .bind(Command.PLAYER_MOVE_ADD_PLAYER, ServerController::handleAddPlayerRequest);
+
+    /**
+     * The handlers of the moves, the other commands are not moves and are rejected
+     */
+    private static final CommandDispatchTable<BiConsumer<ServerController, JsonCommand>> MOVE_HANDLERS =
+            new CommandDispatchTable<BiConsumer<ServerController, JsonCommand>>((controller, move) -> {
+                throw new IllegalMoveException("Client sent invalid command");
+            })
+                    .bind(Command.PLAYER_MOVE_PLAY_ASSISTANT, ServerController::playAssistant)
+                    .bind(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_HALL, ServerController::moveStudentFromEntranceToHall)
+                    .bind(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_ISLAND, ServerController::moveStudentFromEntranceToIsland)
+                    .bind(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE, ServerController::moveMotherNature)
+                    .bind(Command.PLAYER_MOVE_PICK_STUDENTS_FROM_CLOUD, ServerController::pickStudentsFromCloud)
+                    .bind(Command.PLAYER_MOVE_PLAY_CHARACTER, ServerController::playCharacter)
+                    .bind(Command.PLAYER_MOVE_END_TURN, (controller, move) -> controller.endTurn());
+
+    private final GameManager gameManager;
     private final List<ClientHandler> clientHandlers;
     private final List<String> nicknamesToBeAdded;
+    private final GameStateEncoder gameStateEncoder;
+    private final MatchMailbox mailbox;
+    private JsonCommand lastBroadcastMove;
 
     /**
      * @param gameManager the model of the application used to perform changes on the gameState
      * @param nicknames   the list of the nicknames associated to this match
      */
     public ServerController(GameManager gameManager, List<String> nicknames) {
+        this(gameManager, nicknames, null);
+    }
+
+    /**
+     * @param gameManager the model of the application used to perform changes on the gameState
+     * @param nicknames   the list of the nicknames associated to this match
+     * @param mailbox     the mailbox of the match, null to process the requests on the receiving thread
+     */
+    public ServerController(GameManager gameManager, List<String> nicknames, MatchMailbox mailbox) {
         this.gameManager = gameManager;
+        this.mailbox = mailbox;
         this.clientHandlers = new ArrayList<>();
         nicknamesToBeAdded = new ArrayList<>(nicknames);
+        gameStateEncoder = new GameStateEncoder();
     }
 
     /**
@@ -53,27 +98,74 @@ public class ServerController implements JsonCommandChangeListener {
 
     private void addClientHandler(ClientHandler clientHandler) {
         clientHandlers.add(clientHandler);
-        clientHandler.addMessageListener(this);
+        // one listener per client, so the messages keep track of their sender
+        clientHandler.addMessageListener(event -> messageReceived(event, clientHandler));
     }
 
     /**
-     * Fired when a message from one client has been received
+     * Messages are handled one at a time, so that the game state versions are sent in the order they are created
+     *
+     * @param sender the client that sent the message
      */
-    @Override
-    public void jsonCommandChange(JsonCommandChangeEvent event) {
-        if (event.getEventName().equals("messageReceived")) {
-            JsonCommand request = event.getJsonCommand();
-            JsonCommand response = handleRequest(request);
-            sendResponseToClients(response);
+    private void messageReceived(JsonCommandChangeEvent event, ClientHandler sender) {
+        if (!event.getEventName().equals("messageReceived"))
+            return;
+        JsonCommand request = event.getJsonCommand();
+        if (mailbox != null) {
+            // a client flooding the match is disconnected rather than blocking the thread that reads it
+            if (!mailbox.submit(() -> processMessage(request, sender)))
+                sender.disconnect();
+        } else {
+            synchronized (this) {
+                processMessage(request, sender);
+            }
         }
     }
 
+    private void processMessage(JsonCommand request, ClientHandler sender) {
+        if (request.getCommand().equals(Command.RESYNC)) {
+            sendResyncResponse(sender);
+            return;
+        }
+        JsonCommand response = handleRequest(request);
+        sendResponseToClients(response);
+    }
+
+    /**
+     * Sends the last broadcast game state as a full game state to the client that lost track of it
+     * The response carries the last broadcast move, so the client can process it as a regular move
+     *
+     * @param clientHandler the client that requested the resync
+     */
+    private void sendResyncResponse(ClientHandler clientHandler) {
+        JsonCommand response = createResyncResponse();
+        if (response != null)
+            clientHandler.sendMessageToClient(response.toJson());
+    }
+
     /**
      * Send the response to a previous request to all clients through the client handlers
+     * The response is encoded once and the same frame is written to every client,
+     * the clients that don't support game state patches get the full game state instead, encoded once as well,
+     * and so do the legacy clients with the response in their format
      */
     public void sendResponseToClients(JsonCommand response) {
+        Frame frame = Frame.of(response);
+        Frame fullStateFrame = null;
+        Frame legacyFrame = null;
         for (ClientHandler clientHandler : clientHandlers) {
-            clientHandler.sendMessageToClient(response.toJson());
+            if (clientHandler.getCapabilities().isLegacy()) {
+                if (legacyFrame == null)
+                    legacyFrame = Frame.of(createLegacyResponse(response));
+                clientHandler.sendFrame(legacyFrame);
+            } else if (response.getParameter(Parameters.GAME_STATE_PATCH) == null
+                    || clientHandler.getCapabilities().supports(WireFeature.STATE_PATCH)) {
+                clientHandler.sendFrame(frame);
+            } else {
+                if (fullStateFrame == null)
+                    fullStateFrame = Frame.of(createResyncResponse());
+                clientHandler.sendFrame(fullStateFrame);
+            }
         }
     }
 
@@ -92,22 +184,19 @@ public class ServerController implements JsonCommandChangeListener {
      * @return the response or the result that the request produced
      */
     JsonCommand handleRequest(JsonCommand request) {
-        //Keeps a copy of the old gameState so in case of problems it's possible to rollback
-        GameState oldGameState = getClonedGameState();
+        //Records the changes performed by the request so in case of problems it's possible to rollback
+        UndoLog undoLog = UndoLog.begin();
 
         JsonCommand response;
         try {
-            response = switch (request.getCommand()) {
-                case LOGOUT -> createForceEndMatchResponse();
-                case PLAYER_MOVE_ADD_PLAYER -> handleAddPlayerRequest(request);
-                default -> executeMove(request);
-            };
+            response = REQUEST_HANDLERS.get(request.getCommand()).apply(this, request);
+            undoLog.commit();
         } catch (RuntimeException e) {
-            rollbackGameState(oldGameState);
+            undoLog.rollback();
             JsonCommand lastMove = new JsonCommand(Command.ILLEGAL_MOVE)
                     .addParameter(Parameters.NICKNAME, gameManager.getGameState().getCurrentPlayer().getName(), true);
             response = new JsonCommand(Command.MOVE_DONE)
-                    .addParameterSingleQuotes(Parameters.LAST_MOVE, lastMove.toJson());
+                    .addParameter(Parameters.LAST_MOVE, lastMove);
         }
 
         return response;
@@ -123,9 +212,8 @@ public class ServerController implements JsonCommandChangeListener {
         addPlayer(request);
         if (nicknamesToBeAdded.isEmpty()) {
             prepareInitialGameState();
-            String initialGameState = serializeGameStateJson();
             JsonCommand lastMove = new JsonCommand(Command.INITIALIZATION);
-            return createMoveDoneResponse(initialGameState, lastMove);
+            return createMoveDoneResponse(lastMove);
         } else {
             return prepareWizardAndTowerRequestForNextClient();
         }
@@ -139,7 +227,7 @@ public class ServerController implements JsonCommandChangeListener {
         String gameState = serializeGameStateJson();
         response = new JsonCommand(Command.CHOOSE_WIZARD_TOWER)
                 .addParameter(Parameters.NICKNAME, nicknamesToBeAdded.get(0), true)
-                .addParameterSingleQuotes(Parameters.GAME_STATE, gameState);
+                .addParameterJson(Parameters.GAME_STATE, gameState);
         return response;
     }
 
@@ -150,23 +238,12 @@ public class ServerController implements JsonCommandChangeListener {
      */
     private JsonCommand executeMove(JsonCommand move) {
         JsonCommand response;
-        Command command = move.getCommand();
         Player currentPlayer = gameManager.getGameState().getCurrentPlayer();
 
-        switch (command) {
-            case PLAYER_MOVE_PLAY_ASSISTANT -> playAssistant(move);
-            case PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_HALL -> moveStudentFromEntranceToHall(move);
-            case PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_ISLAND -> moveStudentFromEntranceToIsland(move);
-            case PLAYER_MOVE_MOVE_MOTHER_NATURE -> moveMotherNature(move);
-            case PLAYER_MOVE_PICK_STUDENTS_FROM_CLOUD -> pickStudentsFromCloud(move);
-            case PLAYER_MOVE_PLAY_CHARACTER -> playCharacter(move);
-            case PLAYER_MOVE_END_TURN -> endTurn();
-            default -> throw new IllegalMoveException("Client sent invalid command");
-        }
+        MOVE_HANDLERS.get(move.getCommand()).accept(this, move);
 
-        String changedGameState = serializeGameStateJson();
         move.addParameter(Parameters.NICKNAME, currentPlayer.getName(), true);
-        response = createMoveDoneResponse(changedGameState, move);
+        response = createMoveDoneResponse(move);
         return response;
     }
 
@@ -275,39 +352,50 @@ public class ServerController implements JsonCommandChangeListener {
     }
 
     /**
-     * @return the game state created by the given serialized game state string
+     * @return the prepared response with the changes of the game state since the last broadcast one
+     * and the information about the last performed move
      */
-    private GameState deserializeGameStateJson(String serializedGameState) {
-        return GsonManager.getInstance().fromJson(serializedGameState, GameState.class);
+    private JsonCommand createMoveDoneResponse(JsonCommand lastMove) {
+        lastBroadcastMove = lastMove;
+        JsonCommand response = new JsonCommand(Command.MOVE_DONE);
+        gameStateEncoder.encode(gameManager.getGameState(), response);
+        return response.addParameter(Parameters.LAST_MOVE, lastMove);
     }
 
     /**
-     * @return the prepared response with the serialized game state and the information about the last performed move
+     * @return the prepared response with the last broadcast game state and move, null if no move has been broadcast yet
      */
-    private JsonCommand createMoveDoneResponse(String serializedGameState, JsonCommand lastMove) {
-        return new JsonCommand(Command.MOVE_DONE)
-                .addParameterSingleQuotes(Parameters.GAME_STATE, serializedGameState)
-                .addParameterSingleQuotes(Parameters.LAST_MOVE, lastMove.toJson());
+    private JsonCommand createResyncResponse() {
+        if (lastBroadcastMove == null)
+            return null;
+        JsonCommand response = gameStateEncoder.encodeKeyframe(new JsonCommand(Command.MOVE_DONE));
+        return response.addParameter(Parameters.LAST_MOVE, lastBroadcastMove);
     }
 
     /**
-     * @return the prepared response with the force end match command for the clients
-     */
-    private JsonCommand createForceEndMatchResponse() {
-        return new JsonCommand(Command.FORCE_END_MATCH);
-    }
-
-    /**
-     * @return the cloned game state
+     * Legacy clients read every parameter as a string, so the game state is written as a single quoted string
+     * in the reflective layout, always as a whole, and so is the last move
+     *
+     * @return the given response, prepared for the legacy clients
      */
-    private GameState getClonedGameState() {
-        return deserializeGameStateJson(serializeGameStateJson());
+    private JsonCommand createLegacyResponse(JsonCommand response) {
+        JsonCommand legacyResponse = new JsonCommand(response.getCommand());
+        String nickname = response.getParameter(Parameters.NICKNAME);
+        if (nickname != null)
+            legacyResponse.addParameter(Parameters.NICKNAME, nickname, true);
+        if (response.getParameter(Parameters.GAME_STATE) != null || response.getParameter(Parameters.GAME_STATE_PATCH) != null)
+            legacyResponse.addParameterSingleQuotes(Parameters.GAME_STATE,
+                    GsonManager.getLegacyInstance().toJson(gameManager.getGameState(), GameState.class));
+        JsonCommand lastMove = response.getCommandParameter(Parameters.LAST_MOVE);
+        if (lastMove != null)
+            legacyResponse.addParameterSingleQuotes(Parameters.LAST_MOVE, lastMove.toJson());
+        return legacyResponse;
     }
 
     /**
-     * Recreates the game manager based on the given gameState
+     * @return the prepared response with the force end match command for the clients
      */
-    private void rollbackGameState(GameState oldGameState) {
-        gameManager = new GameManager(oldGameState);
+    private JsonCommand createForceEndMatchResponse() {
+        return new JsonCommand(Command.FORCE_END_MATCH);
     }
 }
@@ -0,0 +1,19 @@
+package it.polimi.ingsw.server;
+
+/**
+ * The ways the server can handle the connections of the clients
+ */
+public enum TransportMode {
+    /**
+     * Every client is handled by a dedicated platform thread blocked on the socket
+     */
+    THREAD_PER_CLIENT,
+    /**
+     * Every client is handled by a dedicated virtual thread blocked on the socket
+     */
+    VIRTUAL_THREADS,
+    /**
+     * Clients are multiplexed on a small pool of selector based event loops
+     */
+    NIO
+}
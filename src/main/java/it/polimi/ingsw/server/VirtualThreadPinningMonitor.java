@@ -0,0 +1,77 @@
+package it.polimi.ingsw.server;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reports when a virtual thread blocks while pinned to its carrier thread
+ * (e.g. while holding a monitor in a synchronized block or inside the locks of a PrintWriter),
+ * which prevents the carrier from running other virtual threads.
+ * Pinning events are collected through Java Flight Recorder and logged with the frame of the
+ * application that caused them.
+ */
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "it.polimi.ingsw";
+
+    private final AtomicLong pinnedEvents;
+    private final AtomicLong pinnedNanos;
+
+    public VirtualThreadPinningMonitor() {
+        pinnedEvents = new AtomicLong(0);
+        pinnedNanos = new AtomicLong(0);
+    }
+
+    /**
+     * Starts listening for pinning events on a daemon thread
+     */
+    public void start() {
+        RecordingStream recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::pinnedEventReceived);
+        recordingStream.startAsync();
+    }
+
+    private void pinnedEventReceived(RecordedEvent event) {
+        long count = pinnedEvents.incrementAndGet();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+
+        String message = "Virtual thread bloccato sul carrier thread per " + event.getDuration().toMillis() + "ms in "
+                + findApplicationFrame(event) + " (totale eventi: " + count + ")";
+        Logger.getLogger(VirtualThreadPinningMonitor.class.getName()).log(Level.WARNING, () -> message);
+    }
+
+    /**
+     * @return the first frame of the stack trace belonging to the application, or the top frame if there is none
+     */
+    private String findApplicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty())
+            return "?";
+
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String className = frame.getMethod().getType().getName();
+            if (className.startsWith(APPLICATION_PACKAGE))
+                return formatFrame(frame);
+        }
+        return formatFrame(event.getStackTrace().getFrames().get(0));
+    }
+
+    private String formatFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    public long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    public Duration getPinnedTime() {
+        return Duration.ofNanos(pinnedNanos.get());
+    }
+}
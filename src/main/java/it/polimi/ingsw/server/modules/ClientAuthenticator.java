@@ -1,5 +1,6 @@
 package it.polimi.ingsw.server.modules;
 
+import it.polimi.ingsw.network.Capabilities;
 import it.polimi.ingsw.network.JsonCommand;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.messages.Parameters;
@@ -16,6 +17,8 @@ import java.util.logging.Logger;
 /**
  * Handles the client request of entering its nickname
  * If a nickname is already present it will be re-requested to the client
+ * The client also declares its wire capabilities, the ones supported by the server too are confirmed
+ * in the response and used for the messages sent to the client after the login
  */
 public class ClientAuthenticator implements JsonCommandChangeListener {
 
@@ -23,17 +26,20 @@ public class ClientAuthenticator implements JsonCommandChangeListener {
     private final ConcurrentSkipListSet<String> nicknames;
     private final ConcurrentMap<ClientHandler, String> clientNicknames;
     private final ClientHandlerChangeSupport clientHandlerChangeSupport;
+    private final Capabilities serverCapabilities;
 
     /**
      * @param clientHandler the client handler that handles the current client
      * @param nicknames the list of nicknames that is used to see if client requested nickname is already present
      * @param clientNicknames the association of client and nickname, the client is added to this list when it sends a valid nickname
      * @param chcl the client handler listener that will be notified when the client has inserted a valid nickname (i.e. server)
+     * @param serverCapabilities the wire capabilities supported by the server
      */
-    public ClientAuthenticator(ClientHandler clientHandler, ConcurrentSkipListSet<String> nicknames, ConcurrentMap<ClientHandler, String> clientNicknames, ClientHandlerChangeListener chcl) {
+    public ClientAuthenticator(ClientHandler clientHandler, ConcurrentSkipListSet<String> nicknames, ConcurrentMap<ClientHandler, String> clientNicknames, ClientHandlerChangeListener chcl, Capabilities serverCapabilities) {
         this.clientHandler = clientHandler;
         this.nicknames = nicknames;
         this.clientNicknames = clientNicknames;
+        this.serverCapabilities = serverCapabilities;
 
         clientHandler.addMessageListener(this);
 
@@ -54,14 +60,19 @@ public class ClientAuthenticator implements JsonCommandChangeListener {
 
             JsonCommand response;
             if (command == Command.LOGIN) {
+                Capabilities capabilities = serverCapabilities.negotiate(Capabilities.fromMessage(request));
                 if (!isNicknameAlreadyPresent(name)) {
+                    clientHandler.setCapabilities(capabilities);
                     addNickname(name);
-                    response = new JsonCommand(Command.LOGIN_SUCCESSFUL);
-                    logClientEnteredNickname(name);
+                    response = capabilities.addTo(new JsonCommand(Command.LOGIN_SUCCESSFUL));
+                    logClientEnteredNickname(name, capabilities);
                 } else {
                     response = new JsonCommand(Command.NICKNAME_ALREADY_PRESENT);
                 }
                 clientHandler.sendMessageToClient(response.toJson());
+                // the confirmation is still sent with the JSON protocol, the client switches when it reads it
+                if (response.getCommand() == Command.LOGIN_SUCCESSFUL)
+                    clientHandler.setProtocol(capabilities.getProtocol());
             } else {
                 throw new IllegalArgumentException("Expected login command, " + command + " given");
             }
@@ -85,8 +96,8 @@ public class ClientAuthenticator implements JsonCommandChangeListener {
         clientHandlerChangeSupport.fireClientHandlerChange("clientAuthenticated", clientHandler);
     }
 
-    private void logClientEnteredNickname(String name) {
-        String message = "Client " + clientHandler.getClientIp() + ": Ha inserito il suo nickname (" + name + ")";
+    private void logClientEnteredNickname(String name, Capabilities capabilities) {
+        String message = "Client " + clientHandler.getClientIp() + ": Ha inserito il suo nickname (" + name + "), protocollo " + capabilities;
         Logger.getLogger(ClientAuthenticator.class.getName()).log(Level.INFO, () -> message);
     }
 }
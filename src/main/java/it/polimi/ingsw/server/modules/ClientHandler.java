@@ -1,67 +1,66 @@
 package it.polimi.ingsw.server.modules;
 
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.HashedWheelTimer;
+import it.polimi.ingsw.network.Heartbeat;
 import it.polimi.ingsw.network.JsonCommand;
-import it.polimi.ingsw.network.SocketStreamUtils;
+import it.polimi.ingsw.network.WireProtocol;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.observers.ClientHandlerChangeListener;
 import it.polimi.ingsw.network.observers.ClientHandlerChangeSupport;
 import it.polimi.ingsw.network.observers.JsonCommandChangeListener;
 import it.polimi.ingsw.network.observers.JsonCommandChangeSupport;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Handles the communication with a single client
+ * Subclasses implement the transport used to exchange messages with the client,
+ * this class notifies the registered listeners when a message is received
+ * Messages are sent through a bounded outbound queue that the transport drains asynchronously,
+ * so a slow client never blocks the thread that sends the message
+ * Clients start with the JSON protocol and negotiate their wire capabilities at login, frames are encoded accordingly
  */
-public class ClientHandler implements Runnable {
-    private final Socket socket;
-    private final BufferedReader inputStream;
-    private final PrintWriter outputStream;
+public abstract class ClientHandler {
+    private static final AtomicLong LOCAL_CLIENT_IDS = new AtomicLong();
+
     private final String clientIp;
     private final JsonCommandChangeSupport messageListeners;
     private final ClientHandlerChangeSupport beatListeners;
+    private final OutboundQueue outboundQueue;
+    private volatile Heartbeat heartbeat;
+    private volatile WireProtocol protocol;
+    private volatile Capabilities capabilities;
+    private volatile SessionMultiplexer sessionMultiplexer;
+
+    /**
+     * @param clientIp the address of the client, used for logging
+     */
+    protected ClientHandler(String clientIp) {
+        this(clientIp, new OutboundQueue(OutboundQueue.DEFAULT_MAX_BYTES, OverflowPolicy.COALESCE));
+    }
 
-    public ClientHandler(Socket socket) {
-        this.socket = socket;
+    /**
+     * @param clientIp      the address of the client, used for logging
+     * @param outboundQueue the queue of the frames waiting to be written to the client
+     */
+    protected ClientHandler(String clientIp, OutboundQueue outboundQueue) {
+        this.clientIp = clientIp;
+        this.outboundQueue = outboundQueue;
         messageListeners = new JsonCommandChangeSupport();
         beatListeners = new ClientHandlerChangeSupport();
-
-        clientIp = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
-        inputStream = SocketStreamUtils.getInputStream(socket);
-        outputStream = SocketStreamUtils.getOutputStream(socket);
-        if (inputStream == null || outputStream == null) {
-            String message = "Client " + clientIp + ": Errore nell'apertura dei flussi di rete";
-            Logger.getLogger(ClientHandler.class.getName()).log(Level.INFO, () -> message);
-        }
+        protocol = WireProtocol.JSON;
+        capabilities = Capabilities.NONE;
     }
 
     /**
-     * Listens for messages from the client
-     * When a message is received it notifies the registered listeners
-     */
-    @Override
-    public void run() {
-        boolean running = true;
-        while (running) {
-            try {
-                String command;
-                if ((command = inputStream.readLine()) != null) {
-                    JsonCommand jsonCommand = JsonCommand.fromJson(command);
-                    notifyListeners(jsonCommand);
-                } else {
-                    running = false;
-                }
-            } catch (IOException e) {
-                running = false;
-            }
-        }
-        String message = "Client " + clientIp + ": Si è disconnesso";
-        Logger.getLogger(ClientHandler.class.getName()).log(Level.INFO, () -> message);
+     * @return a unique name for a client connected through a transport without network addresses, used for logging
+     */
+    public static String nextLocalClientName(String transport) {
+        return transport + "#" + LOCAL_CLIENT_IDS.incrementAndGet();
     }
 
     /**
@@ -86,6 +85,29 @@ public class ClientHandler implements Runnable {
         beatListeners.removeClientHandlerChangeListener(chcl);
     }
 
+    /**
+     * Starts sending beats to the client and checking that the client is alive
+     * Any message counts as a beat, in both directions
+     *
+     * @param timer     the timer shared by the connections of the server
+     * @param onTimeout run once if nothing is received from the client for the timeout duration
+     */
+    public void startHeartbeat(HashedWheelTimer timer, long beatIntervalMillis, long timeoutMillis, Frame beatFrame, Runnable onTimeout) {
+        Heartbeat newHeartbeat = new Heartbeat(timer, beatIntervalMillis, timeoutMillis);
+        heartbeat = newHeartbeat;
+        newHeartbeat.startCheckingTimeout(onTimeout);
+        newHeartbeat.startSendingBeats(() -> queueFrame(beatFrame));
+    }
+
+    /**
+     * Stops sending beats to the client and checking that the client is alive
+     */
+    public void stopHeartbeat() {
+        Heartbeat currentHeartbeat = heartbeat;
+        if (currentHeartbeat != null)
+            currentHeartbeat.stop();
+    }
+
     /**
      * Removes all the registered listeners
      */
@@ -102,6 +124,21 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    /**
+     * Notifies the registered listeners of a message received from the client
+     *
+     * @param jsonCommand the decoded message, whatever its wire protocol
+     */
+    protected void messageReceived(JsonCommand jsonCommand) {
+        Heartbeat currentHeartbeat = heartbeat;
+        if (currentHeartbeat != null)
+            currentHeartbeat.messageReceived();
+        SessionMultiplexer currentSessions = sessionMultiplexer;
+        if (currentSessions != null && currentSessions.dispatch(jsonCommand))
+            return;
+        notifyListeners(jsonCommand);
+    }
+
     /**
      * Notifies the registered listeners of the received message
      * If the message is a beat from the client it notifies the registered beat listeners (i.e. the server)
@@ -119,14 +156,95 @@ public class ClientHandler implements Runnable {
      * Sends the message to the handled client
      */
     public void sendMessageToClient(String message) {
-        outputStream.println(message);
+        sendFrame(Frame.of(message));
     }
 
-    public String getClientIp() {
-        return clientIp;
+    /**
+     * Sends an already encoded message to the handled client
+     * The frame is not modified, so the same frame can be sent to many clients
+     */
+    public void sendFrame(Frame frame) {
+        Heartbeat currentHeartbeat = heartbeat;
+        if (currentHeartbeat != null)
+            currentHeartbeat.messageSent();
+        queueFrame(frame);
+    }
+
+    /**
+     * Queues the frame for the transport, or disconnects the client if it's too slow to read its messages
+     */
+    private void queueFrame(Frame frame) {
+        if (outboundQueue.offer(frame.as(protocol))) {
+            framesQueued();
+        } else {
+            String message = "Client " + clientIp + ": Coda di uscita piena (" + outboundQueue.getQueuedBytes() + " byte), il client è troppo lento e viene disconnesso";
+            Logger.getLogger(ClientHandler.class.getName()).log(Level.WARNING, () -> message);
+            disconnect();
+        }
     }
 
-    public Socket getSocket() {
-        return socket;
+    /**
+     * Drops the queued frames and closes the connection with the client, it may be called from any thread
+     */
+    public void disconnect() {
+        outboundQueue.close();
+        closeConnection();
+    }
+
+    /**
+     * Called after a frame has been queued, the transport must write the queued frames to the client
+     */
+    protected abstract void framesQueued();
+
+    /**
+     * Closes the connection with the client, it may be called from any thread
+     */
+    protected abstract void closeConnection();
+
+    /**
+     * Sets the protocol of the frames sent from now on, the frames already queued are not encoded again
+     */
+    public void setProtocol(WireProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * Sets the capabilities negotiated at login, the protocol they allow is set separately
+     * because the login confirmation is still sent with the JSON protocol
+     */
+    public void setCapabilities(Capabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    public Capabilities getCapabilities() {
+        return capabilities;
+    }
+
+    public WireProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Lets the client open many sessions on this connection, the messages tagged with a session id are delivered to them
+     *
+     * @param sessionListener the listener notified when a session is opened or closed (i.e. server)
+     */
+    public void enableSessions(ClientHandlerChangeListener sessionListener) {
+        sessionMultiplexer = new SessionMultiplexer(this, sessionListener);
+    }
+
+    /**
+     * @return the sessions carried by this connection, null if sessions are not enabled
+     */
+    public SessionMultiplexer getSessionMultiplexer() {
+        return sessionMultiplexer;
+    }
+
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    public String getClientIp() {
+        return clientIp;
     }
 }
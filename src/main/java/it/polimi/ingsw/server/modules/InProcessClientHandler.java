@@ -0,0 +1,104 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.ServerConnection;
+import it.polimi.ingsw.network.WireFeature;
+import it.polimi.ingsw.network.WireProtocol;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles a client running in the same process as the server, e.g. a bot or a test
+ * Messages are exchanged as objects and never encoded: the client reads the frames directly from the outbound queue
+ * and its messages are delivered to the listeners on the thread that sends them, one at a time
+ */
+public class InProcessClientHandler extends ClientHandler {
+    private final ServerConnection clientConnection;
+    private volatile boolean closed;
+
+    public InProcessClientHandler() {
+        this(new OutboundQueue(OutboundQueue.DEFAULT_MAX_BYTES, OverflowPolicy.COALESCE));
+    }
+
+    /**
+     * @param outboundQueue the queue of the frames waiting to be read by the client
+     */
+    public InProcessClientHandler(OutboundQueue outboundQueue) {
+        super(nextLocalClientName("in-process"), outboundQueue);
+        clientConnection = new ClientConnection();
+    }
+
+    /**
+     * @return the end of the connection used by the client
+     */
+    public ServerConnection getClientConnection() {
+        return clientConnection;
+    }
+
+    /**
+     * The client reads the frames from the queue when it wants, it's woken up by the queue itself
+     */
+    @Override
+    protected void framesQueued() {
+        // nothing to do
+    }
+
+    @Override
+    protected void closeConnection() {
+        closed = true;
+        getOutboundQueue().close();
+    }
+
+    private class ClientConnection implements ServerConnection {
+
+        @Override
+        public JsonCommand read() throws IOException {
+            try {
+                Frame frame = getOutboundQueue().take();
+                return frame == null ? null : frame.toJsonCommand();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a message from the server");
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed message from server", e);
+            }
+        }
+
+        @Override
+        public void send(JsonCommand jsonCommand, WireProtocol protocol) throws IOException {
+            synchronized (this) {
+                if (closed)
+                    throw new IOException("Connection closed");
+                try {
+                    messageReceived(jsonCommand);
+                } catch (IllegalArgumentException e) {
+                    // like a stream client that sends an unexpected message, the client is disconnected
+                    close();
+                    throw new IOException("Message rejected by the server", e);
+                }
+            }
+        }
+
+        /**
+         * Binary frames and compression only add work when nothing is written to the network
+         */
+        @Override
+        public Capabilities getCapabilities() {
+            return Capabilities.of(WireFeature.STATE_PATCH);
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closeConnection();
+            String message = "Client " + getClientIp() + ": Si è disconnesso";
+            Logger.getLogger(InProcessClientHandler.class.getName()).log(Level.INFO, () -> message);
+        }
+    }
+}
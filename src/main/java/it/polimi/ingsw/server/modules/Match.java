@@ -1,35 +1,85 @@
 package it.polimi.ingsw.server.modules;
 
 import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.utils.GameRandom;
+import it.polimi.ingsw.server.MatchMailbox;
+import it.polimi.ingsw.server.MatchScheduler;
 import it.polimi.ingsw.server.ServerController;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A match contains the information about the connected clients and their nicknames
  * When all players are connected it can create the game manager and its gameState
  */
 public class Match {
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id;
     private final int numPlayers;
     private final boolean expertMatch;
     private final ConcurrentLinkedQueue<ClientHandler> clients;
     private final ConcurrentMap<ClientHandler, String> nicknames;
+    private final AtomicInteger reservedSeats;
+    private final AtomicInteger joinedClients;
+    private volatile boolean closed;
+    private MatchMailbox mailbox;
 
     public Match(int numPlayers, boolean expertMatch) {
+        id = NEXT_ID.getAndIncrement();
         this.numPlayers = numPlayers;
         this.expertMatch = expertMatch;
         clients = new ConcurrentLinkedQueue<>();
         nicknames = new ConcurrentHashMap<>();
+        reservedSeats = new AtomicInteger();
+        joinedClients = new AtomicInteger();
     }
 
-    public void addClient(ClientHandler clientHandler, String nickname) {
-        if (!isReadyForStart()) {
-            clients.add(clientHandler);
-            nicknames.put(clientHandler, nickname);
-        }
+    /**
+     * Reserves a seat for a client that is going to join the match
+     *
+     * @return the number of the reserved seat, starting from 0, or -1 if the match is full or closed
+     */
+    int reserveSeat() {
+        int seats;
+        do {
+            seats = reservedSeats.get();
+            if (closed || seats >= numPlayers)
+                return -1;
+        } while (!reservedSeats.compareAndSet(seats, seats + 1));
+        return seats;
+    }
+
+    /**
+     * @return true if all the seats of the match have been reserved
+     */
+    boolean isFull() {
+        return reservedSeats.get() >= numPlayers;
+    }
+
+    /**
+     * Prevents other clients from reserving a seat in the match
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Adds a client to the match, a seat must have been reserved for it
+     *
+     * @return true if the client is the last one the match was waiting for
+     */
+    public boolean addClient(ClientHandler clientHandler, String nickname) {
+        clients.add(clientHandler);
+        nicknames.put(clientHandler, nickname);
+        return joinedClients.incrementAndGet() == numPlayers;
     }
 
     /**
@@ -43,19 +93,37 @@ public class Match {
     /**
      * Creates the game manager with its gameState and the controller that will manage the match
      * A match is ready for creation when the number of connected clients is the same as declared num players
+     * @param matchScheduler the scheduler whose workers will process the messages of the match
      * @throws IllegalStateException if the match is not ready to be created
      */
-    public void create() {
+    public void create(MatchScheduler matchScheduler) {
         if (isReadyForStart()) {
-            GameManager gameManager = new GameManager(numPlayers, expertMatch);
-            ServerController serverController = new ServerController(gameManager, nicknames.values().stream().toList());
+            long seed = GameRandom.randomSeed();
+            GameManager gameManager = new GameManager(numPlayers, expertMatch, seed);
+            String message = "Partita " + id + " avviata con seed " + seed;
+            Logger.getLogger(Match.class.getName()).log(Level.INFO, () -> message);
+            mailbox = matchScheduler.createMailbox(id);
+            ServerController serverController = new ServerController(gameManager, nicknames.values().stream().toList(), mailbox);
             serverController.addClientHandlers(clients.stream().toList());
-            serverController.sendFirstWizardAndTowerRequestToClients();
+            // the listeners are registered, so from now on only the worker of the match may touch its state
+            if (!mailbox.submit(serverController::sendFirstWizardAndTowerRequestToClients))
+                clients.forEach(ClientHandler::disconnect);
         } else {
             throw new IllegalStateException("Trying to create a match but not all players are connected");
         }
     }
 
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the mailbox of the match, null if the match has not been created yet
+     */
+    public MatchMailbox getMailbox() {
+        return mailbox;
+    }
+
     public Queue<ClientHandler> getClients() {
         return clients;
     }
@@ -8,6 +8,7 @@ import it.polimi.ingsw.network.observers.JsonCommandChangeListener;
 import it.polimi.ingsw.network.observers.MatchChangeListener;
 import it.polimi.ingsw.network.observers.MatchChangeSupport;
 
+import java.util.Map;
 import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,13 +17,15 @@ import java.util.logging.Logger;
  * Handles the client request of joining a match
  * If the client requests to enter an already present match it connects to it
  * Otherwise it creates a new waiting match and connects the client to it
+ * The seat is reserved atomically, so concurrent joins never overfill a match
  */
 public class MatchMaker implements JsonCommandChangeListener {
 
     private final ClientHandler clientHandler;
     private final String clientNickname;
-    private final Queue<Match> waitingMatches;
+    private final WaitingMatches waitingMatches;
     private final Queue<Match> activeMatches;
+    private final Map<ClientHandler, Match> clientMatches;
     private final MatchChangeSupport matchChangeSupport;
     private final String clientIp;
 
@@ -31,13 +34,15 @@ public class MatchMaker implements JsonCommandChangeListener {
      * @param clientNickname the client nickname
      * @param waitingMatches the list of the waiting matches owned by the server
      * @param activeMatches the list of the active matches owned by the server
+     * @param clientMatches the index of the match joined by every client, owned by the server
      * @param mcl the reference to the match change listener that will be notified when the match is ready to start
      */
-    public MatchMaker(ClientHandler clientHandler, String clientNickname, Queue<Match> waitingMatches, Queue<Match> activeMatches, MatchChangeListener mcl) {
+    public MatchMaker(ClientHandler clientHandler, String clientNickname, WaitingMatches waitingMatches, Queue<Match> activeMatches, Map<ClientHandler, Match> clientMatches, MatchChangeListener mcl) {
         this.clientHandler = clientHandler;
         this.clientNickname = clientNickname;
         this.waitingMatches = waitingMatches;
         this.activeMatches = activeMatches;
+        this.clientMatches = clientMatches;
         clientIp = "Client " + clientHandler.getClientIp();
         clientHandler.addMessageListener(this);
         matchChangeSupport = new MatchChangeSupport();
@@ -58,20 +63,18 @@ public class MatchMaker implements JsonCommandChangeListener {
                 int numPlayers = Integer.parseInt(request.getParameter(Parameters.NUM_PLAYERS));
                 boolean expertMatch = Boolean.parseBoolean(request.getParameter(Parameters.EXPERT_MATCH));
 
-                Match requestedMatch = findRequestedMatch(numPlayers, expertMatch);
-                if (requestedMatch == null) {
-                    addNewWaitingMatch(numPlayers, expertMatch);
+                WaitingMatches.Seat seat = waitingMatches.reserveSeat(numPlayers, expertMatch);
+                Match requestedMatch = seat.match();
+                if (addClientToMatch(requestedMatch)) {
+                    logClientJoinAndMatchStart(numPlayers, expertMatch);
                     sendJoinSuccessfulResponseToClient();
+                    moveFromWaitingToActive(requestedMatch);
                 } else {
-                    addClientToMatch(requestedMatch);
-                    if (requestedMatch.isReadyForStart()) {
-                        logClientJoinAndMatchStart(numPlayers, expertMatch);
-                        sendJoinSuccessfulResponseToClient();
-                        moveFromWaitingToActive(requestedMatch);
-                    } else {
-                        sendJoinSuccessfulResponseToClient();
+                    sendJoinSuccessfulResponseToClient();
+                    if (seat.isFirst())
+                        logClientJoinAndCreatedMatch(numPlayers, expertMatch);
+                    else
                         logClientJoin(numPlayers, expertMatch);
-                    }
                 }
             }
         }
@@ -85,33 +88,12 @@ public class MatchMaker implements JsonCommandChangeListener {
         clientHandler.sendMessageToClient(response.toJson());
     }
 
-    private void addClientToMatch(Match match) {
-        match.addClient(clientHandler, clientNickname);
-    }
-
-    /**
-     * Searches for the requested match in waiting matches based on num players and expert property
-     *
-     * @return the requested match or null if there is no waiting matches with requested properties
-     */
-    private Match findRequestedMatch(int numPlayers, boolean expertMatch) {
-        for (Match match : waitingMatches) {
-            if (match.getNumPlayers() == numPlayers && match.isExpertMatch() == expertMatch) {
-                return match;
-            }
-        }
-        return null;
-    }
-
     /**
-     * Add a new match with the given properties to the waiting matches
+     * @return true if the client is the last one the match was waiting for
      */
-    private void addNewWaitingMatch(int numPlayers, boolean expertMatch) {
-        Match newMatch = new Match(numPlayers, expertMatch);
-        addClientToMatch(newMatch);
-        waitingMatches.add(newMatch);
-
-        logClientJoinAndCreatedMatch(numPlayers, expertMatch);
+    private boolean addClientToMatch(Match match) {
+        clientMatches.put(clientHandler, match);
+        return match.addClient(clientHandler, clientNickname);
     }
 
     /**
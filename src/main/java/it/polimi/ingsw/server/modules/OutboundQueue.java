@@ -0,0 +1,177 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.Frame;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The frames waiting to be written to a single client, bounded by their total size
+ * Frames can be queued from any thread without waiting for the client, the transport drains the queue asynchronously
+ * A lock is used instead of synchronized blocks, so that a virtual thread waiting for frames doesn't pin its carrier
+ */
+public class OutboundQueue {
+
+    public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private final int maxBytes;
+    private final OverflowPolicy overflowPolicy;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Deque<Frame> frames;
+    private long queuedBytes;
+    private long droppedFrames;
+    private boolean closed;
+
+    /**
+     * @param maxBytes       the maximum total size of the queued frames
+     * @param overflowPolicy what to do when a frame doesn't fit in the queue
+     */
+    public OutboundQueue(int maxBytes, OverflowPolicy overflowPolicy) {
+        this.maxBytes = maxBytes;
+        this.overflowPolicy = overflowPolicy;
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        frames = new ArrayDeque<>();
+    }
+
+    /**
+     * Queues the frame, applying the overflow policy if it doesn't fit
+     * Frames queued after the queue is closed are discarded
+     *
+     * @return false if the frame doesn't fit and the client must be disconnected, true otherwise
+     */
+    public boolean offer(Frame frame) {
+        lock.lock();
+        try {
+            if (closed)
+                return true;
+            if (queuedBytes + frame.length() > maxBytes) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT)
+                    return false;
+                dropSupersededFrames(frame);
+                // a slow client would be disconnected by the patches otherwise, it resyncs after the gap
+                if (queuedBytes + frame.length() > maxBytes)
+                    dropFramesReplacedWithGap(frame);
+                if (queuedBytes + frame.length() > maxBytes)
+                    return false;
+            }
+            frames.add(frame);
+            queuedBytes += frame.length();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropSupersededFrames(Frame frame) {
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            Frame queuedFrame = iterator.next();
+            if (frame.supersedes(queuedFrame))
+                drop(iterator, queuedFrame);
+        }
+    }
+
+    private void dropFramesReplacedWithGap(Frame frame) {
+        Iterator<Frame> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            Frame queuedFrame = iterator.next();
+            if (frame.replacesWithGap(queuedFrame))
+                drop(iterator, queuedFrame);
+        }
+    }
+
+    private void drop(Iterator<Frame> iterator, Frame queuedFrame) {
+        iterator.remove();
+        queuedBytes -= queuedFrame.length();
+        droppedFrames++;
+    }
+
+    /**
+     * @return the first queued frame, null if the queue is empty
+     */
+    public Frame poll() {
+        lock.lock();
+        try {
+            return removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a frame is queued
+     *
+     * @return the first queued frame, null if the queue has been closed
+     */
+    public Frame take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (frames.isEmpty() && !closed)
+                notEmpty.await();
+            return removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Frame removeFirst() {
+        Frame frame = frames.poll();
+        if (frame != null)
+            queuedBytes -= frame.length();
+        return frame;
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return frames.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the queued frames and wakes up the threads waiting for frames
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            frames.clear();
+            queuedBytes = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the total size of the frames waiting to be written
+     */
+    public long getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of frames dropped because a newer frame superseded them
+     */
+    public long getDroppedFrames() {
+        lock.lock();
+        try {
+            return droppedFrames;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package it.polimi.ingsw.server.modules;
+
+/**
+ * What happens when the outbound queue of a client is full, i.e. the client doesn't read the messages fast enough
+ */
+public enum OverflowPolicy {
+    /**
+     * The queued frames superseded by the new one are dropped, the client is disconnected only if there is still no room
+     */
+    COALESCE,
+    /**
+     * The client is disconnected as soon as its queue is full
+     */
+    DISCONNECT
+}
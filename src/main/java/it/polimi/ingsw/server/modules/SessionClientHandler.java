@@ -0,0 +1,46 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.messages.Parameters;
+
+/**
+ * Handles a client session carried by the connection of another client handler, see {@link SessionMultiplexer}
+ * The frames of the session are tagged with its id and sent through the connection, with its protocol and queue,
+ * and the session has no heartbeat of its own: it lives as long as the connection does
+ */
+public class SessionClientHandler extends ClientHandler {
+    private final ClientHandler connection;
+    private final String sessionId;
+    private final SessionMultiplexer sessionMultiplexer;
+
+    SessionClientHandler(ClientHandler connection, String sessionId, SessionMultiplexer sessionMultiplexer) {
+        // the queue of the session is never used, its frames are queued on the connection
+        super(connection.getClientIp() + "/" + sessionId, new OutboundQueue(0, OverflowPolicy.DISCONNECT));
+        this.connection = connection;
+        this.sessionId = sessionId;
+        this.sessionMultiplexer = sessionMultiplexer;
+    }
+
+    /**
+     * Sends the frame through the connection, tagged with the id of the session
+     * The tagged frame is encoded for this session only, because the tag is different for every session
+     */
+    @Override
+    public void sendFrame(Frame frame) {
+        connection.sendFrame(Frame.of(frame.toJsonCommand().copy().addParameter(Parameters.SESSION_ID, sessionId, true)));
+    }
+
+    @Override
+    protected void framesQueued() {
+        // frames are never queued on the session
+    }
+
+    @Override
+    protected void closeConnection() {
+        sessionMultiplexer.close(sessionId);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+}
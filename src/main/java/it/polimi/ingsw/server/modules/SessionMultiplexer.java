@@ -0,0 +1,95 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import it.polimi.ingsw.network.observers.ClientHandlerChangeListener;
+import it.polimi.ingsw.network.observers.ClientHandlerChangeSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Delivers the messages of a connection that carries many client sessions to the sessions they are tagged with
+ * A session is opened by the first message carrying its id and closed by the close session command,
+ * every session is a client on its own: it logs in, joins matches and plays like the clients with a connection
+ * The listener is notified with the "sessionOpened" event before the first message is delivered to the session,
+ * and with the "sessionClosed" event when the client closes it
+ */
+public class SessionMultiplexer {
+
+    /**
+     * The maximum number of sessions open at the same time on a connection
+     */
+    public static final int MAX_SESSIONS = 1024;
+
+    private final ClientHandler connection;
+    private final ConcurrentMap<String, SessionClientHandler> sessions;
+    private final ClientHandlerChangeSupport sessionListeners;
+
+    /**
+     * @param connection      the client handler of the connection that carries the sessions
+     * @param sessionListener the listener notified when a session is opened or closed (i.e. server)
+     */
+    SessionMultiplexer(ClientHandler connection, ClientHandlerChangeListener sessionListener) {
+        this.connection = connection;
+        sessions = new ConcurrentHashMap<>();
+        sessionListeners = new ClientHandlerChangeSupport();
+        sessionListeners.addClientHandlerChangeListener(sessionListener);
+    }
+
+    /**
+     * Delivers the message to its session, opening the session if it's the first message with its id
+     * Messages are received from the thread that reads the connection, one at a time
+     *
+     * @return false if the message is not tagged with a session and belongs to the connection itself
+     * @throws IllegalArgumentException if the message would open too many sessions
+     */
+    boolean dispatch(JsonCommand jsonCommand) {
+        String sessionId = jsonCommand.getParameter(Parameters.SESSION_ID);
+        if (sessionId == null)
+            return false;
+
+        if (jsonCommand.getCommand() == Command.CLOSE_SESSION) {
+            close(sessionId);
+            return true;
+        }
+
+        SessionClientHandler session = sessions.get(sessionId);
+        if (session == null) {
+            if (sessions.size() >= MAX_SESSIONS)
+                throw new IllegalArgumentException("More than " + MAX_SESSIONS + " sessions on the same connection");
+            session = new SessionClientHandler(connection, sessionId, this);
+            sessions.put(sessionId, session);
+            sessionListeners.fireClientHandlerChange("sessionOpened", session);
+        }
+        session.messageReceived(jsonCommand);
+        return true;
+    }
+
+    /**
+     * Closes the session with the given id and notifies the listener, if it's open
+     */
+    void close(String sessionId) {
+        SessionClientHandler session = sessions.remove(sessionId);
+        if (session != null)
+            sessionListeners.fireClientHandlerChange("sessionClosed", session);
+    }
+
+    /**
+     * Closes all the sessions, e.g. when their connection is lost, without notifying the listener
+     *
+     * @return the sessions that were open
+     */
+    public List<ClientHandler> closeAll() {
+        List<ClientHandler> closedSessions = new ArrayList<>(sessions.values());
+        sessions.clear();
+        return closedSessions;
+    }
+
+    public int getNumSessions() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,25 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.SocketStreamUtils;
+
+import java.net.Socket;
+
+/**
+ * Handles the communication with a single client through a blocking TCP socket
+ */
+public class SocketClientHandler extends StreamClientHandler {
+
+    public SocketClientHandler(Socket socket) {
+        this(socket, new OutboundQueue(OutboundQueue.DEFAULT_MAX_BYTES, OverflowPolicy.COALESCE));
+    }
+
+    /**
+     * @param socket        the connected socket of the client
+     * @param outboundQueue the queue of the frames waiting to be written to the client
+     */
+    public SocketClientHandler(Socket socket, OutboundQueue outboundQueue) {
+        super(socket.getInetAddress().getHostAddress() + ":" + socket.getPort(),
+                SocketStreamUtils.getByteInputStream(socket), SocketStreamUtils.getByteOutputStream(socket),
+                socket, outboundQueue);
+    }
+}
@@ -0,0 +1,123 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.MessageReader;
+import it.polimi.ingsw.network.WireFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the communication with a single client through a blocking byte stream, e.g. a socket
+ * Every instance must be run on its own thread, which listens for the messages of the client,
+ * and its writer on another thread, which writes the queued frames to the client
+ */
+public class StreamClientHandler extends ClientHandler implements Runnable {
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+    private final Closeable connection;
+    private final MessageReader inputStream;
+    private final OutputStream outputStream;
+
+    /**
+     * @param clientIp      the address of the client, used for logging
+     * @param inputStream   the stream the messages of the client are read from, null if it couldn't be opened
+     * @param outputStream  the stream the frames are written to, null if it couldn't be opened
+     * @param connection    the connection the streams belong to, closed to disconnect the client
+     * @param outboundQueue the queue of the frames waiting to be written to the client
+     */
+    public StreamClientHandler(String clientIp, InputStream inputStream, OutputStream outputStream, Closeable connection, OutboundQueue outboundQueue) {
+        super(clientIp, outboundQueue);
+        this.connection = connection;
+
+        this.inputStream = inputStream == null ? null : new MessageReader(inputStream);
+        this.outputStream = outputStream == null ? null : new BufferedOutputStream(outputStream, OUTPUT_BUFFER_SIZE);
+        if (inputStream == null || outputStream == null) {
+            String message = "Client " + getClientIp() + ": Errore nell'apertura dei flussi di rete";
+            Logger.getLogger(StreamClientHandler.class.getName()).log(Level.INFO, () -> message);
+        }
+    }
+
+    /**
+     * Listens for messages from the client
+     * When a message is received it notifies the registered listeners
+     */
+    @Override
+    public void run() {
+        boolean running = true;
+        while (running) {
+            try {
+                JsonCommand command;
+                if ((command = inputStream.read()) != null) {
+                    messageReceived(command);
+                } else {
+                    running = false;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                running = false;
+            }
+        }
+        // stops the writer
+        getOutboundQueue().close();
+        String message = "Client " + getClientIp() + ": Si è disconnesso";
+        Logger.getLogger(StreamClientHandler.class.getName()).log(Level.INFO, () -> message);
+    }
+
+    /**
+     * @return the task that writes the queued frames to the client, until the connection is closed
+     * Frames queued while writing are written together and flushed once
+     */
+    public Runnable getWriter() {
+        return this::writeQueuedFrames;
+    }
+
+    private void writeQueuedFrames() {
+        if (outputStream == null)
+            return;
+        OutboundQueue outboundQueue = getOutboundQueue();
+        try {
+            Frame frame;
+            while ((frame = outboundQueue.take()) != null) {
+                frame.writeTo(outputStream);
+                if (outboundQueue.isEmpty())
+                    outputStream.flush();
+            }
+        } catch (IOException e) {
+            // the reader thread detects the disconnection
+            outboundQueue.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void setCapabilities(Capabilities capabilities) {
+        super.setCapabilities(capabilities);
+        if (inputStream != null)
+            inputStream.setDeflateAllowed(capabilities.supports(WireFeature.DEFLATE));
+    }
+
+    /**
+     * The writer is waiting on the queue, it's woken up by the queue itself
+     */
+    @Override
+    protected void framesQueued() {
+        // nothing to do
+    }
+
+    @Override
+    protected void closeConnection() {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // the connection is discarded anyway
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package it.polimi.ingsw.server.modules;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The matches that are waiting for players, grouped by type (num players and expert property)
+ * Every type has at most one open match: joining a match reserves a seat in the open match of the requested type
+ * or replaces it with a new one, so concurrent joins never overfill a match and never scan the other waiting matches
+ */
+public class WaitingMatches implements Iterable<Match> {
+
+    private final ConcurrentMap<MatchType, AtomicReference<Match>> openMatches;
+
+    public WaitingMatches() {
+        openMatches = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Reserves a seat in the open match with the given properties, creating a new one if there is no free seat
+     * The client must then be added to the match of the returned seat
+     *
+     * @return the reserved seat
+     */
+    public Seat reserveSeat(int numPlayers, boolean expertMatch) {
+        AtomicReference<Match> openMatch = openMatches.computeIfAbsent(new MatchType(numPlayers, expertMatch), type -> new AtomicReference<>());
+        while (true) {
+            Match match = openMatch.get();
+            int number = match != null ? match.reserveSeat() : -1;
+            if (number >= 0) {
+                if (match.isFull())
+                    openMatch.compareAndSet(match, null);
+                return new Seat(match, number);
+            }
+
+            Match newMatch = new Match(numPlayers, expertMatch);
+            number = newMatch.reserveSeat();
+            if (openMatch.compareAndSet(match, newMatch))
+                return new Seat(newMatch, number);
+        }
+    }
+
+    /**
+     * Closes the given match and removes it from the waiting ones, no other player will join it
+     */
+    public void remove(Match match) {
+        match.close();
+        AtomicReference<Match> openMatch = openMatches.get(new MatchType(match.getNumPlayers(), match.isExpertMatch()));
+        if (openMatch != null)
+            openMatch.compareAndSet(match, null);
+    }
+
+    /**
+     * Iterates over the open matches, one for every type
+     */
+    @Override
+    public Iterator<Match> iterator() {
+        return openMatches.values().stream()
+                .map(AtomicReference::get)
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+
+    private record MatchType(int numPlayers, boolean expertMatch) {
+    }
+
+    /**
+     * A seat reserved in a waiting match
+     *
+     * @param match  the match of the seat
+     * @param number the number of the seat, in the order the seats of the match have been reserved
+     */
+    public record Seat(Match match, int number) {
+
+        /**
+         * @return true if the seat is the first one of its match, i.e. the client created the match
+         */
+        public boolean isFirst() {
+            return number == 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package it.polimi.ingsw.server.nio;
+
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.MessageDecoder;
+import it.polimi.ingsw.network.WireFeature;
+import it.polimi.ingsw.server.modules.ClientHandler;
+import it.polimi.ingsw.server.modules.OutboundQueue;
+import it.polimi.ingsw.server.modules.OverflowPolicy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles the communication with a single client through a non-blocking channel
+ * Reads and writes are performed by the event loop the channel is registered to,
+ * messages can be sent from any thread and are queued until the event loop writes them
+ */
+public class ChannelClientHandler extends ClientHandler {
+    private final SocketChannel channel;
+    private final EventLoop eventLoop;
+    private final MessageDecoder decoder;
+    private final AtomicBoolean flushRequested;
+    private SelectionKey selectionKey;
+    private ByteBuffer pendingWrite;
+    private volatile boolean closed;
+
+    /**
+     * @param channel   the connected channel of the client, it will be configured as non-blocking
+     * @param eventLoop the event loop that will perform the reads and the writes on the channel
+     */
+    public ChannelClientHandler(SocketChannel channel, EventLoop eventLoop) {
+        this(channel, eventLoop, new OutboundQueue(OutboundQueue.DEFAULT_MAX_BYTES, OverflowPolicy.COALESCE));
+    }
+
+    /**
+     * @param channel       the connected channel of the client, it will be configured as non-blocking
+     * @param eventLoop     the event loop that will perform the reads and the writes on the channel
+     * @param outboundQueue the queue of the frames waiting to be written to the client
+     */
+    public ChannelClientHandler(SocketChannel channel, EventLoop eventLoop, OutboundQueue outboundQueue) {
+        super(formatAddress(channel), outboundQueue);
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        decoder = new MessageDecoder();
+        flushRequested = new AtomicBoolean(false);
+    }
+
+    private static String formatAddress(SocketChannel channel) {
+        try {
+            SocketAddress address = channel.getRemoteAddress();
+            if (address instanceof InetSocketAddress inetAddress)
+                return inetAddress.getAddress().getHostAddress() + ":" + inetAddress.getPort();
+            // the clients of a Unix domain socket are usually unnamed
+            if (address instanceof UnixDomainSocketAddress)
+                return nextLocalClientName("unix");
+            return String.valueOf(address);
+        } catch (IOException e) {
+            return "?";
+        }
+    }
+
+    @Override
+    public void setCapabilities(Capabilities capabilities) {
+        super.setCapabilities(capabilities);
+        decoder.setDeflateAllowed(capabilities.supports(WireFeature.DEFLATE));
+    }
+
+    /**
+     * Asks the event loop to write the queued frames to the client
+     */
+    @Override
+    protected void framesQueued() {
+        if (!closed && flushRequested.compareAndSet(false, true))
+            eventLoop.requestFlush(this);
+    }
+
+    @Override
+    protected void closeConnection() {
+        eventLoop.requestClose(this);
+    }
+
+    // EVENT LOOP CALLBACKS, always called from the event loop thread
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    SelectionKey getSelectionKey() {
+        return selectionKey;
+    }
+
+    /**
+     * Decodes the received bytes and notifies the listeners for every complete message
+     */
+    void bytesReceived(ByteBuffer buffer) {
+        for (JsonCommand message : decoder.decode(buffer)) {
+            messageReceived(message);
+        }
+    }
+
+    /**
+     * Must be called before flushing, so that messages queued during the flush request a new one
+     */
+    void clearFlushRequest() {
+        flushRequested.set(false);
+    }
+
+    /**
+     * Writes as many queued messages as the channel accepts without blocking
+     *
+     * @return true if all the queued messages have been written, false otherwise
+     */
+    boolean flush() throws IOException {
+        while (true) {
+            if (pendingWrite == null) {
+                Frame frame = getOutboundQueue().poll();
+                if (frame == null)
+                    return true;
+                pendingWrite = frame.toByteBuffer();
+            }
+            channel.write(pendingWrite);
+            if (pendingWrite.hasRemaining())
+                return false;
+            pendingWrite = null;
+        }
+    }
+
+    boolean hasQueuedMessages() {
+        return pendingWrite != null || !getOutboundQueue().isEmpty();
+    }
+
+    /**
+     * Closes the channel and discards the messages not sent yet
+     */
+    void close() {
+        if (closed)
+            return;
+        closed = true;
+        getOutboundQueue().close();
+        pendingWrite = null;
+        if (selectionKey != null)
+            selectionKey.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // the channel is discarded anyway
+        }
+        String message = "Client " + getClientIp() + ": Si è disconnesso";
+        Logger.getLogger(ChannelClientHandler.class.getName()).log(Level.INFO, () -> message);
+    }
+}
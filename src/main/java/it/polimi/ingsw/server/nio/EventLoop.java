@@ -0,0 +1,175 @@
+package it.polimi.ingsw.server.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single thread that performs the reads and the writes of many channels using a selector
+ * The listeners of the client handlers are notified on the event loop thread
+ */
+public class EventLoop implements Runnable {
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final Selector selector;
+    private final Queue<ChannelClientHandler> pendingRegistrations;
+    private final Queue<ChannelClientHandler> pendingFlushes;
+    private final Queue<ChannelClientHandler> pendingCloses;
+    private final ByteBuffer readBuffer;
+    private volatile boolean running;
+
+    public EventLoop() throws IOException {
+        selector = Selector.open();
+        pendingRegistrations = new ConcurrentLinkedQueue<>();
+        pendingFlushes = new ConcurrentLinkedQueue<>();
+        pendingCloses = new ConcurrentLinkedQueue<>();
+        readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        running = true;
+    }
+
+    /**
+     * Asks the event loop to start reading from the channel of the given client handler
+     * Messages already queued on the client handler are written as soon as the channel is registered
+     */
+    public void register(ChannelClientHandler clientHandler) {
+        pendingRegistrations.add(clientHandler);
+        selector.wakeup();
+    }
+
+    /**
+     * Asks the event loop to write the messages queued on the given client handler
+     */
+    void requestFlush(ChannelClientHandler clientHandler) {
+        pendingFlushes.add(clientHandler);
+        selector.wakeup();
+    }
+
+    /**
+     * Asks the event loop to close the channel of the given client handler
+     */
+    void requestClose(ChannelClientHandler clientHandler) {
+        pendingCloses.add(clientHandler);
+        selector.wakeup();
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                processRegistrations();
+                processFlushes();
+                processCloses();
+                processSelectedKeys();
+            } catch (IOException e) {
+                Logger.getLogger(EventLoop.class.getName()).log(Level.SEVERE, "Errore nel selettore dell'event loop");
+                running = false;
+            }
+        }
+        closeAll();
+    }
+
+    private void processRegistrations() {
+        ChannelClientHandler clientHandler;
+        while ((clientHandler = pendingRegistrations.poll()) != null) {
+            try {
+                clientHandler.getChannel().configureBlocking(false);
+                int interestOps = SelectionKey.OP_READ;
+                if (clientHandler.hasQueuedMessages())
+                    interestOps |= SelectionKey.OP_WRITE;
+                SelectionKey key = clientHandler.getChannel().register(selector, interestOps, clientHandler);
+                clientHandler.setSelectionKey(key);
+            } catch (IOException e) {
+                clientHandler.close();
+            }
+        }
+    }
+
+    private void processFlushes() {
+        ChannelClientHandler clientHandler;
+        while ((clientHandler = pendingFlushes.poll()) != null) {
+            clientHandler.clearFlushRequest();
+            // not registered yet, the registration will enable the writes
+            if (clientHandler.getSelectionKey() != null)
+                flush(clientHandler);
+        }
+    }
+
+    private void processCloses() {
+        ChannelClientHandler clientHandler;
+        while ((clientHandler = pendingCloses.poll()) != null)
+            clientHandler.close();
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+
+            ChannelClientHandler clientHandler = (ChannelClientHandler) key.attachment();
+            if (key.isValid() && key.isReadable())
+                read(clientHandler);
+            if (key.isValid() && key.isWritable())
+                flush(clientHandler);
+        }
+    }
+
+    private void read(ChannelClientHandler clientHandler) {
+        try {
+            readBuffer.clear();
+            int read = clientHandler.getChannel().read(readBuffer);
+            if (read < 0) {
+                clientHandler.close();
+                return;
+            }
+            readBuffer.flip();
+            clientHandler.bytesReceived(readBuffer);
+        } catch (IOException e) {
+            clientHandler.close();
+        } catch (RuntimeException e) {
+            // a malformed message or a failing listener must not stop the other connections of the loop
+            String message = "Client " + clientHandler.getClientIp() + ": Errore nella gestione del messaggio, " + e.getMessage();
+            Logger.getLogger(EventLoop.class.getName()).log(Level.WARNING, () -> message);
+            clientHandler.close();
+        }
+    }
+
+    private void flush(ChannelClientHandler clientHandler) {
+        SelectionKey key = clientHandler.getSelectionKey();
+        try {
+            boolean completed = clientHandler.flush();
+            if (key.isValid()) {
+                int interestOps = completed
+                        ? SelectionKey.OP_READ
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+                key.interestOps(interestOps);
+            }
+        } catch (IOException e) {
+            clientHandler.close();
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            ((ChannelClientHandler) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // nothing else to release
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package it.polimi.ingsw.server.nio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed pool of event loops, each one running on its own thread
+ * New channels are assigned to the event loops in round-robin order
+ */
+public class EventLoopGroup {
+    private final List<EventLoop> eventLoops;
+    private final AtomicInteger nextEventLoop;
+
+    /**
+     * Creates and starts the event loops
+     *
+     * @param numEventLoops the number of event loops (and threads) of the group
+     * @throws IOException if a selector cannot be opened
+     */
+    public EventLoopGroup(int numEventLoops) throws IOException {
+        eventLoops = new ArrayList<>(numEventLoops);
+        nextEventLoop = new AtomicInteger(0);
+
+        for (int i = 0; i < numEventLoops; i++) {
+            EventLoop eventLoop = new EventLoop();
+            eventLoops.add(eventLoop);
+            Thread thread = new Thread(eventLoop, "event-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return the event loop that should handle the next accepted channel
+     */
+    public EventLoop next() {
+        int index = Math.floorMod(nextEventLoop.getAndIncrement(), eventLoops.size());
+        return eventLoops.get(index);
+    }
+
+    public void stop() {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import it.polimi.ingsw.models.components.hall.Hall;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.constants.MatchType;
 import it.polimi.ingsw.models.exceptions.IllegalCallException;
+import it.polimi.ingsw.models.state.GameStateCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -178,6 +179,21 @@ class GameManagerTest {
         assertEquals(0, player.getNumCoins());
     }
 
+    @Test
+    void shouldPrepareTheSameMatchWithTheSameSeed() {
+        GameManager first = new GameManager(3, true, 1234);
+        GameManager second = new GameManager(3, true, 1234);
+        addThreePlayersToGameState(first);
+        addThreePlayersToGameState(second);
+        first.preparation();
+        second.preparation();
+        first.fillClouds();
+        second.fillClouds();
+
+        assertEquals(1234, first.getGameState().getRandom().getSeed());
+        assertArrayEquals(GameStateCodec.encode(first.getGameState()), GameStateCodec.encode(second.getGameState()));
+    }
+
     private void addTwoPlayersToGameState(GameManager manager) {
         manager.addPlayer("player1", Wizard.WITCH, Tower.BLACK);
         manager.addPlayer("player2", Wizard.KING, Tower.WHITE);
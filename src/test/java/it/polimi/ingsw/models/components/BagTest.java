@@ -2,9 +2,11 @@ package it.polimi.ingsw.models.components;
 
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.utils.UndoLog;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,4 +100,62 @@ class BagTest {
         assertThrows(IllegalMoveException.class, bag::drawStudent);
     }
 
+    @Test
+    void shouldDrawOnlyTheStudentsInTheBag() {
+        Bag bag = new Bag();
+        bag.receiveStudent(Student.CYAN);
+        bag.receiveStudent(Student.CYAN);
+        bag.receiveStudent(Student.PINK);
+
+        List<Student> drawn = bag.drawStudents(3);
+        assertEquals(2, drawn.stream().filter(student -> student == Student.CYAN).count());
+        assertTrue(drawn.contains(Student.PINK));
+        assertTrue(bag.isEmpty());
+    }
+
+    @Test
+    void shouldThrowAnExceptionIfDrawingMoreStudentsThanAvailable() {
+        Bag bag = new Bag();
+        bag.receiveStudent(Student.RED);
+        assertThrows(IllegalMoveException.class, () -> bag.drawStudents(2));
+        assertEquals(1, bag.getNumStudent());
+    }
+
+    @Test
+    void shouldDrawTheSameStudentsWithTheSameSeed() {
+        Bag first = new Bag(new Random(42));
+        Bag second = new Bag(new Random(42));
+        fillBag(first);
+        fillBag(second);
+        assertEquals(first.drawStudents(20), second.drawStudents(20));
+    }
+
+    @Test
+    void shouldDrawTheColorsInProportionToTheirStudents() {
+        Bag bag = new Bag(new Random(7));
+        int numDraws = 20000;
+        int numRed = 0;
+        for (int i = 0; i < numDraws; i++) {
+            bag.restoreStudents(new int[]{0, 0, 0, 30, 10});
+            if (bag.drawStudent() == Student.RED)
+                numRed++;
+        }
+        assertEquals(0.75, (double) numRed / numDraws, 0.02);
+    }
+
+    @Test
+    void shouldPutBackTheStudentsDrawnOnRollback() {
+        Bag bag = new Bag();
+        fillBag(bag);
+
+        UndoLog undoLog = UndoLog.begin();
+        bag.drawStudents(10);
+        bag.drawStudent();
+        undoLog.rollback();
+
+        assertEquals(GameConstants.MAX_STUDENTS_IN_BAG, bag.getNumStudent());
+        for (Student student : Student.values())
+            assertEquals(GameConstants.MAX_STUDENTS_IN_BAG / Student.values().length, bag.getNumStudentsByColor(student));
+    }
+
 }
@@ -177,4 +177,25 @@ class IslandTest {
         assertFalse(island.isBefore(island));
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldMergeWithTheNextIsland() {
+        Island island = new Island(11, 1);
+        Island next = new Island(0, 2);
+        island.receiveTower(Tower.GREY);
+        next.receiveTower(Tower.GREY);
+        next.receiveTower(Tower.GREY);
+        island.receiveStudent(Student.RED);
+        next.receiveStudent(Student.RED);
+        next.receiveStudent(Student.PINK);
+
+        Island merged = island.mergeWith(next);
+        assertEquals(11, merged.getPosition());
+        assertEquals(3, merged.getDimension());
+        assertEquals(Tower.GREY, merged.getTowerType());
+        assertEquals(3, merged.getNumTowers());
+        assertEquals(2, merged.getNumStudent(Student.RED));
+        assertEquals(1, merged.getNumStudent(Student.PINK));
+        assertThrows(IllegalMoveException.class, () -> next.mergeWith(island));
+    }
+
+}
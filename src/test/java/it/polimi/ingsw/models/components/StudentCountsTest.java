@@ -0,0 +1,60 @@
+package it.polimi.ingsw.models.components;
+
+import it.polimi.ingsw.models.utils.UndoLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentCountsTest {
+
+    @Test
+    void shouldCountTheStudentsOfEveryColor() {
+        StudentCounts students = new StudentCounts();
+        assertTrue(students.isEmpty());
+
+        assertEquals(1, students.add(Student.RED));
+        assertEquals(2, students.add(Student.RED));
+        assertEquals(1, students.add(Student.PINK));
+        assertEquals(1, students.remove(Student.RED));
+
+        assertEquals(1, students.get(Student.RED));
+        assertEquals(1, students.get(Student.PINK));
+        assertEquals(0, students.get(Student.CYAN));
+        assertEquals(2, students.getTotal());
+        assertArrayEquals(new int[]{0, 0, 0, 1, 1}, students.toArray());
+        assertEquals("{YELLOW=0, CYAN=0, GREEN=0, RED=1, PINK=1}", students.toString());
+    }
+
+    @Test
+    void shouldNotRemoveMissingStudents() {
+        StudentCounts students = new StudentCounts();
+        assertThrows(IllegalStateException.class, () -> students.remove(Student.GREEN));
+        assertEquals(0, students.getTotal());
+    }
+
+    @Test
+    void shouldRestoreTheCounts() {
+        StudentCounts students = new StudentCounts();
+        students.restore(new int[]{1, 2, 3, 4, 5});
+        assertEquals(15, students.getTotal());
+        assertEquals(3, students.get(Student.GREEN));
+
+        assertThrows(IllegalArgumentException.class, () -> students.restore(new int[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> students.restore(new int[]{0, 0, -1, 0, 0}));
+        assertEquals(15, students.getTotal());
+    }
+
+    @Test
+    void shouldRollbackTheChanges() {
+        StudentCounts students = new StudentCounts();
+        students.add(Student.YELLOW);
+
+        UndoLog undoLog = UndoLog.begin();
+        students.add(Student.CYAN);
+        students.remove(Student.YELLOW);
+        undoLog.rollback();
+
+        assertArrayEquals(new int[]{1, 0, 0, 0, 0}, students.toArray());
+        assertEquals(1, students.getTotal());
+    }
+}
@@ -680,6 +680,29 @@ class GameOperationsTest {
         );
     }
 
+    @Test
+    void shouldMergeTheIslandWithItsNeighbours() {
+        GameState state = new GameState(2, false);
+        Island island0 = new Island(0, 1);
+        Island island1 = new Island(1, 1);
+        Island island2 = new Island(2, 1);
+        Island island11 = new Island(11, 1);
+        island0.receiveTower(Tower.BLACK);
+        island1.receiveTower(Tower.WHITE);
+        island2.receiveTower(Tower.WHITE);
+        island11.receiveTower(Tower.BLACK);
+        state.setIslands(List.of(island0, island1, island2, island11));
+
+        GameOperations.mergeIslands(state, island0);
+
+        assertEquals(3, state.getIslands().size());
+        Island merged = state.getIslandByPosition(11);
+        assertEquals(2, merged.getDimension());
+        assertEquals(2, merged.getNumTowers());
+        assertEquals(11, state.getMotherNaturePosition());
+        assertSame(island1, state.getIslandAfter(merged, 1));
+    }
+
     @Test
     void mergingIslandsShouldMoveTheBlocksOnTheNewIsland() {
         GameState state = new GameState(2, true);
@@ -7,52 +7,62 @@ import it.polimi.ingsw.models.components.Island;
 import it.polimi.ingsw.models.components.Student;
 import it.polimi.ingsw.models.components.Tower;
 import it.polimi.ingsw.models.components.Assistant;
+import it.polimi.ingsw.models.state.GameState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class InfluenceCalculatorTest {
 
     private InfluenceCalculator influenceCalc;
     private Player player;
-    // list with all the professors
-    private List<Student> professors;
+    private GameState state;
 
     @BeforeEach
     void initInfluenceCalculator() {
         influenceCalc = new StandardInfluence();
     }
 
+    /**
+     * The player owns all the professors
+     */
     @BeforeEach
     void initPlayer() {
         Board board = new Board(Tower.BLACK, 1, 1);
         player = new Player(Wizard.WITCH, "test", new ArrayList<>(), board);
+        state = new GameState(2, false);
+        state.addPlayer(player);
+        for (Student color : Student.values())
+            state.setProfessorOwner(color, player.getId());
     }
 
-    @BeforeEach
-    void initProfessors() {
-        professors = new ArrayList<>();
-        professors.addAll(Arrays.asList(Student.values()));
+    /**
+     * @return the influence of the team of the player on the island
+     */
+    private int playerInfluence(Island island) {
+        int[] influences = new int[Tower.values().length];
+        influenceCalc.addInfluences(state, island, influences);
+        return influences[Tower.BLACK.ordinal()];
     }
 
     @Test
     void emptyIslandDoesNotGiveInfluence() {
         Island island = new Island(0, 1);
 
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(0, influence);
 
         influenceCalc = new IgnoreStudentInfluence(Student.RED);
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(0, influence);
 
         influenceCalc = new IgnoreTowerInfluence();
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(0, influence);
     }
 
@@ -61,15 +71,15 @@ class InfluenceCalculatorTest {
         Island island = new Island(0, 3);
 
         island.receiveTower(Tower.BLACK);
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(1, influence);
 
         island.receiveTower(Tower.BLACK);
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(2, influence);
 
         influenceCalc = new IgnoreStudentInfluence(Student.RED);
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(2, influence);
     }
 
@@ -78,11 +88,11 @@ class InfluenceCalculatorTest {
         Island island = new Island(0, 3);
 
         island.receiveTower(Tower.WHITE);
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(0, influence);
 
         influenceCalc = new IgnoreStudentInfluence(Student.RED);
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(0, influence);
     }
 
@@ -92,7 +102,7 @@ class InfluenceCalculatorTest {
         island.receiveTower(Tower.BLACK);
 
         influenceCalc = new IgnoreTowerInfluence();
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(0, influence);
     }
 
@@ -105,7 +115,7 @@ class InfluenceCalculatorTest {
         island.receiveStudent(Student.CYAN);
         island.receiveStudent(Student.YELLOW);
 
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(5, influence);
     }
 
@@ -118,10 +128,10 @@ class InfluenceCalculatorTest {
         island.receiveStudent(Student.CYAN);
         island.receiveStudent(Student.YELLOW);
 
-        int influence = influenceCalc.calculateInfluence(
-                island, player,
-                List.of(Student.RED)
-        );
+        for (Student color : Student.values())
+            if (color != Student.RED)
+                state.setProfessorOwner(color, null);
+        int influence = playerInfluence(island);
         assertEquals(2, influence);
     }
 
@@ -135,7 +145,7 @@ class InfluenceCalculatorTest {
         island.receiveStudent(Student.YELLOW);
 
         influenceCalc = new IgnoreStudentInfluence(Student.RED);
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(3, influence);
     }
 
@@ -145,18 +155,20 @@ class InfluenceCalculatorTest {
 
         Board board = new Board(Tower.BLACK, 1, 0);
         Player player = new Player(Wizard.WITCH, "test", List.of(Assistant.values()), board, false);
+        state = new GameState(4, false);
+        state.addPlayer(player);
 
         island.receiveTower(Tower.BLACK);
-        int influence = influenceCalc.calculateInfluence(island, player, professors);
+        int influence = playerInfluence(island);
         assertEquals(0, influence);
 
         influenceCalc = new IgnoreStudentInfluence(Student.RED);
-        influence = influenceCalc.calculateInfluence(island, player, professors);
+        influence = playerInfluence(island);
         assertEquals(0, influence);
     }
 
     @Test
-    void shouldAddAdditionalPoints() {
+    void shouldAddToTheGivenPoints() {
         Island island = new Island(0, 1);
         island.receiveStudent(Student.RED);
         island.receiveStudent(Student.RED);
@@ -164,8 +176,39 @@ class InfluenceCalculatorTest {
         island.receiveStudent(Student.CYAN);
         island.receiveStudent(Student.YELLOW);
 
-        int influence = influenceCalc.calculateInfluence(island, player, professors, 2);
-        assertEquals(7, influence);
+        int[] influences = new int[Tower.values().length];
+        influences[Tower.BLACK.ordinal()] = 2;
+        influenceCalc.addInfluences(state, island, influences);
+        assertEquals(7, influences[Tower.BLACK.ordinal()]);
+    }
+
+    @Test
+    void shouldAddTheInfluenceOfEveryTeam() {
+        state = new GameState(2, false);
+        state.addPlayer(player);
+        state.addPlayer(new Player(Wizard.KING, "other", new ArrayList<>(), new Board(Tower.WHITE, 1, 1)));
+        state.setProfessorOwner(Student.RED, player.getId());
+        state.setProfessorOwner(Student.CYAN, Wizard.KING.ordinal());
+
+        Island island = new Island(0, 2);
+        island.receiveStudent(Student.RED);
+        island.receiveStudent(Student.RED);
+        island.receiveStudent(Student.CYAN);
+        island.receiveStudent(Student.PINK);
+        island.receiveTower(Tower.WHITE);
+        island.receiveTower(Tower.WHITE);
+
+        int[] influences = new int[Tower.values().length];
+        influenceCalc.addInfluences(state, island, influences);
+        assertArrayEquals(new int[]{3, 0, 2}, influences);
+
+        influences = new int[Tower.values().length];
+        new IgnoreTowerInfluence().addInfluences(state, island, influences);
+        assertArrayEquals(new int[]{1, 0, 2}, influences);
+
+        influences = new int[Tower.values().length];
+        new IgnoreStudentInfluence(Student.RED).addInfluences(state, island, influences);
+        assertArrayEquals(new int[]{3, 0, 0}, influences);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package it.polimi.ingsw.models.state;
+
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.Tower;
+import it.polimi.ingsw.models.components.Wizard;
+import it.polimi.ingsw.network.GsonManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary snapshots of a prepared 2 players match with its JSON form
+ * Run with: mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=it.polimi.ingsw.models.state.GameStateCodecBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateCodecBenchmark {
+
+    private GameState gameState;
+    private byte[] snapshot;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        GameManager gameManager = new GameManager(2, false);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        gameState = gameManager.getGameState();
+        snapshot = GameStateCodec.encode(gameState);
+        json = GsonManager.getInstance().toJson(gameState, GameState.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameStateCodec.encode(gameState);
+    }
+
+    @Benchmark
+    public GameState decode() {
+        return GameStateCodec.decode(snapshot);
+    }
+
+    @Benchmark
+    public String writeJson() {
+        return GsonManager.getInstance().toJson(gameState, GameState.class);
+    }
+
+    @Benchmark
+    public GameState readJson() {
+        return GsonManager.getInstance().fromJson(json, GameState.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GameStateCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
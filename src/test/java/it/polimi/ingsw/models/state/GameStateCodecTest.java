@@ -0,0 +1,134 @@
+package it.polimi.ingsw.models.state;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.characters.CharacterType;
+import it.polimi.ingsw.models.components.characters.Characters;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateCodecTest {
+
+    /**
+     * Compares every field of the states, the bag is compared by counts because its order is not kept
+     */
+    private static final Gson REFLECTIVE = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+            return false;
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return clazz == Bag.class;
+        }
+    }).create();
+
+    private static void assertSameState(GameState expected, GameState actual) {
+        assertEquals(REFLECTIVE.toJson(expected, GameState.class), REFLECTIVE.toJson(actual, GameState.class));
+        for (Student student : Student.values())
+            assertEquals(expected.getBag().getNumStudentsByColor(student), actual.getBag().getNumStudentsByColor(student));
+    }
+
+    private static GameManager preparedMatch(int numPlayers, boolean expert) {
+        GameManager gameManager = new GameManager(numPlayers, expert);
+        Wizard[] wizards = Wizard.values();
+        Tower[] towers = numPlayers == 3 ? new Tower[]{Tower.BLACK, Tower.WHITE, Tower.GREY}
+                : new Tower[]{Tower.BLACK, Tower.WHITE, Tower.BLACK, Tower.WHITE};
+        for (int i = 0; i < numPlayers; i++)
+            gameManager.addPlayer("player" + i, wizards[i], towers[i]);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        return gameManager;
+    }
+
+    @Test
+    void shouldRoundTripEmptyState() {
+        GameState gameState = new GameState(2, false);
+        GameState restored = GameStateCodec.decode(GameStateCodec.encode(gameState));
+
+        assertSameState(gameState, restored);
+        assertNull(restored.getExpertAttrs());
+        assertNull(restored.getPlayerQueue());
+    }
+
+    @Test
+    void shouldRoundTripPreparedMatches() {
+        for (int numPlayers = 2; numPlayers <= 4; numPlayers++) {
+            GameState gameState = preparedMatch(numPlayers, numPlayers == 3).getGameState();
+            assertSameState(gameState, GameStateCodec.decode(GameStateCodec.encode(gameState)));
+        }
+    }
+
+    @Test
+    void shouldRoundTripExpertAttrs() {
+        GameManager gameManager = preparedMatch(2, true);
+        String firstPlayer = gameManager.getGameState().getCurrentPlayer().getName();
+        gameManager.playAssistant(Assistant.CAT);
+        GameState gameState = gameManager.getGameState();
+        Island blockedIsland = gameState.getIslands().get(3);
+        blockedIsland.receiveTower(Tower.WHITE);
+        ExpertAttrs expertAttrs = gameState.getExpertAttrs();
+        Character jester = Characters.get(CharacterType.JESTER);
+        jester.receiveStudent(Student.RED);
+        jester.receiveStudent(Student.CYAN);
+        jester.restoreState(true, 0);
+        expertAttrs.setCharacters(List.of(Characters.get(CharacterType.CIRCE), jester, Characters.get(CharacterType.KNIGHT)));
+        expertAttrs.addBlockToIsland(blockedIsland);
+        expertAttrs.setIgnoredStudent(Student.PINK);
+        expertAttrs.setAdditionalMotherNatureSteps(2);
+        gameState.setWinner(Tower.WHITE);
+
+        GameState restored = GameStateCodec.decode(GameStateCodec.encode(gameState));
+        assertSameState(gameState, restored);
+        assertSame(restored.getIslandByPosition(blockedIsland.getPosition()), restored.getExpertAttrs().getBlockedIslands().get(0));
+        assertEquals(List.of(Student.RED, Student.CYAN), restored.getExpertAttrs().getCharacterByType(CharacterType.JESTER).getStudents());
+        assertEquals(Assistant.CAT, restored.getPlayerByName(firstPlayer).getLastPlayedAssistant());
+    }
+
+    @Test
+    void shouldKeepTheRandomGenerator() {
+        GameState gameState = new GameManager(2, false, 99).getGameState();
+        gameState.getRandom().nextLong();
+        GameState restored = GameStateCodec.decode(GameStateCodec.encode(gameState));
+
+        assertEquals(99, restored.getRandom().getSeed());
+        assertEquals(gameState.getRandom().nextLong(), restored.getRandom().nextLong());
+    }
+
+    @Test
+    void shouldWriteASmallSnapshot() {
+        byte[] snapshot = GameStateCodec.encode(preparedMatch(2, false).getGameState());
+        assertTrue(snapshot.length < 200, snapshot.length + " bytes");
+    }
+
+    @Test
+    void shouldCopyTheState() {
+        GameState gameState = preparedMatch(2, false).getGameState();
+        GameState copy = GameStateCodec.copy(gameState);
+        assertSameState(gameState, copy);
+
+        copy.getIslands().get(0).receiveStudent(Student.GREEN);
+        assertNotEquals(REFLECTIVE.toJson(gameState, GameState.class), REFLECTIVE.toJson(copy, GameState.class));
+    }
+
+    @Test
+    void shouldRejectInvalidSnapshots() {
+        byte[] snapshot = GameStateCodec.encode(preparedMatch(2, true).getGameState());
+
+        byte[] otherVersion = snapshot.clone();
+        otherVersion[0] = (byte) (GameStateCodec.FORMAT_VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> GameStateCodec.decode(otherVersion));
+        assertThrows(IllegalArgumentException.class, () -> GameStateCodec.decode(Arrays.copyOf(snapshot, snapshot.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> GameStateCodec.decode(new byte[0]));
+    }
+}
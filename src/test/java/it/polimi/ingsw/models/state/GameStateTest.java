@@ -3,6 +3,7 @@ package it.polimi.ingsw.models.state;
 import it.polimi.ingsw.models.components.*;
 import it.polimi.ingsw.models.components.Board;
 import it.polimi.ingsw.models.exceptions.*;
+import it.polimi.ingsw.models.utils.UndoLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -138,6 +139,53 @@ class GameStateTest {
         );
     }
 
+    @Test
+    void shouldWalkTheIslandsClockwise() {
+        Island island0 = new Island(0, 1);
+        Island island4 = new Island(4, 3);
+        Island island9 = new Island(9, 1);
+        gameState.setIslands(List.of(island0, island4, island9));
+
+        assertSame(island4, gameState.getIslandAfter(island0, 1));
+        assertSame(island0, gameState.getIslandAfter(island9, 1));
+        assertSame(island9, gameState.getIslandAfter(island0, -1));
+        assertSame(island4, gameState.getIslandAfter(island4, 3));
+        assertThrows(NoSuchElementException.class, () -> gameState.getIslandAfter(new Island(5, 1), 1));
+    }
+
+    @Test
+    void shouldReplaceTheMergedIslands() {
+        Island island0 = new Island(0, 1);
+        Island island1 = new Island(1, 1);
+        Island island2 = new Island(2, 1);
+        Island island11 = new Island(11, 1);
+        gameState.setIslands(List.of(island0, island1, island2, island11));
+
+        Island merged = new Island(11, 2);
+        gameState.replaceIslands(List.of(island11, island0), merged);
+
+        assertEquals(List.of(island1, island2, merged), gameState.getIslands());
+        assertSame(merged, gameState.getIslandByPosition(11));
+        assertSame(island1, gameState.getIslandByPosition(1));
+        assertTrue(gameState.hasIsland(island2));
+        assertFalse(gameState.hasIsland(island0));
+        assertThrows(NoSuchElementException.class, () -> gameState.getIslandByPosition(0));
+    }
+
+    @Test
+    void shouldRestoreTheIslandsOnRollback() {
+        Island island0 = new Island(0, 1);
+        Island island1 = new Island(1, 1);
+        gameState.setIslands(List.of(island0, island1));
+
+        UndoLog undoLog = UndoLog.begin();
+        gameState.replaceIslands(List.of(island0, island1), new Island(0, 2));
+        undoLog.rollback();
+
+        assertEquals(List.of(island0, island1), gameState.getIslands());
+        assertSame(island1, gameState.getIslandByPosition(1));
+    }
+
     @Test
     void shouldThrowAnExceptionBecauseSearchingForNonExistingPlayer() {
         GameState gameState = new GameState(2, false);
@@ -224,6 +272,27 @@ class GameStateTest {
         assertEquals(Tower.BLACK, state.getWinner());
     }
 
+    @Test
+    void shouldTrackTheTowersOfTheProfessorOwners() {
+        Player player1 = createPlayer("p1", Wizard.WITCH, Tower.BLACK);
+        Player player2 = createPlayer("p2", Wizard.KING, Tower.WHITE);
+        gameState.setProfessorOwner(Student.GREEN, player2.getId());
+        gameState.addPlayer(player1);
+        assertNull(gameState.getProfessorTower(Student.GREEN));
+
+        UndoLog undoLog = UndoLog.begin();
+        gameState.addPlayer(player2);
+        assertEquals(Tower.WHITE, gameState.getProfessorTower(Student.GREEN));
+        gameState.setProfessorOwner(Student.GREEN, player1.getId());
+        assertEquals(Tower.BLACK, gameState.getProfessorTower(Student.GREEN));
+        undoLog.rollback();
+
+        assertNull(gameState.getProfessorTower(Student.GREEN));
+        assertEquals(player2.getId(), gameState.getProfessorOwner(Student.GREEN));
+        assertTrue(gameState.hasTowerLeader(Tower.BLACK));
+        assertFalse(gameState.hasTowerLeader(Tower.WHITE));
+    }
+
     private Player createPlayer(String name, Wizard wizard, Tower tower) {
         Board board = new Board(tower, 8, 7);
         return new Player(wizard, name, List.of(Assistant.values()), board);
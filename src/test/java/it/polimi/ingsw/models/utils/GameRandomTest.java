@@ -0,0 +1,51 @@
+package it.polimi.ingsw.models.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRandomTest {
+
+    @Test
+    void shouldDrawTheSameValuesWithTheSameSeed() {
+        GameRandom first = new GameRandom(42);
+        GameRandom second = new GameRandom(42);
+        for (int i = 0; i < 100; i++)
+            assertEquals(first.nextInt(12), second.nextInt(12));
+        assertEquals(42, first.getSeed());
+        assertNotEquals(new GameRandom(42).nextLong(), new GameRandom(43).nextLong());
+    }
+
+    @Test
+    void shouldContinueTheSequenceFromItsState() {
+        GameRandom random = new GameRandom(7);
+        random.nextLong();
+        GameRandom restored = new GameRandom(random.getSeed(), random.getState());
+        assertEquals(random.nextLong(), restored.nextLong());
+        assertEquals(7, restored.getSeed());
+    }
+
+    @Test
+    void shouldDrawValuesInRange() {
+        GameRandom random = new GameRandom(3);
+        boolean[] drawn = new boolean[5];
+        for (int i = 0; i < 1000; i++)
+            drawn[random.nextInt(5)] = true;
+        for (boolean value : drawn)
+            assertTrue(value);
+    }
+
+    @Test
+    void shouldDrawTheSameValuesAfterRollback() {
+        GameRandom random = new GameRandom(11);
+        long state = random.getState();
+
+        UndoLog undoLog = UndoLog.begin();
+        long drawn = random.nextLong();
+        random.nextInt(10);
+        undoLog.rollback();
+
+        assertEquals(state, random.getState());
+        assertEquals(drawn, random.nextLong());
+    }
+}
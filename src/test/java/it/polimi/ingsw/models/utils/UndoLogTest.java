@@ -0,0 +1,139 @@
+package it.polimi.ingsw.models.utils;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.characters.CharacterType;
+import it.polimi.ingsw.models.components.characters.Characters;
+import it.polimi.ingsw.models.components.characters.effects.EffectArgs;
+import it.polimi.ingsw.models.exceptions.IllegalMoveException;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.models.state.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoLogTest {
+    GameManager gameManager;
+    UndoLog undoLog;
+
+    @BeforeEach
+    void setup() {
+        gameManager = new GameManager(3, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.GREY);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // never leave a log active on the test thread
+        if (undoLog != null)
+            undoLog.commit();
+    }
+
+    private String serialize() {
+        return new Gson().toJson(gameManager.getGameState(), GameState.class);
+    }
+
+    private Student anyStudentInEntrance() {
+        Entrance entrance = gameManager.getGameState().getCurrentPlayer().getBoard().getEntrance();
+        for (Student student : Student.values())
+            if (entrance.getNumStudentsByColor(student) > 0)
+                return student;
+        throw new IllegalStateException("empty entrance");
+    }
+
+    private void playRound() {
+        gameManager.playAssistant(Assistant.CAT);
+        gameManager.playAssistant(Assistant.DOG);
+        gameManager.playAssistant(Assistant.SNAKE);
+        for (int i = 0; i < 3; i++) {
+            while (gameManager.getGameState().isStage(Stage.ACTION_MOVE_STUDENTS))
+                gameManager.moveStudentFromEntranceToHall(anyStudentInEntrance());
+            gameManager.moveMotherNature(1);
+            int cloudId = 0;
+            while (gameManager.getGameState().getCloudById(cloudId).isEmpty())
+                cloudId++;
+            gameManager.pickStudentsFromCloud(cloudId);
+            gameManager.endTurn();
+        }
+        gameManager.nextRound();
+        gameManager.fillClouds();
+    }
+
+    @Test
+    void shouldNotRecordWithoutAnActiveLog() {
+        assertFalse(UndoLog.isRecording());
+        UndoLog.record(() -> fail("must not be recorded"));
+
+        undoLog = UndoLog.begin();
+        assertTrue(UndoLog.isRecording());
+        assertEquals(0, undoLog.size());
+    }
+
+    @Test
+    void shouldNotBeginTwice() {
+        undoLog = UndoLog.begin();
+        assertThrows(IllegalStateException.class, UndoLog::begin);
+    }
+
+    @Test
+    void shouldRevertAWholeRound() {
+        String before = serialize();
+
+        undoLog = UndoLog.begin();
+        playRound();
+        assertNotEquals(before, serialize());
+        assertTrue(undoLog.size() > 0);
+
+        undoLog.rollback();
+        assertFalse(UndoLog.isRecording());
+        assertEquals(before, serialize());
+    }
+
+    @Test
+    void shouldKeepTheChangesOnCommit() {
+        undoLog = UndoLog.begin();
+        playRound();
+        String after = serialize();
+
+        undoLog.commit();
+        assertFalse(UndoLog.isRecording());
+        assertEquals(0, undoLog.size());
+        assertEquals(after, serialize());
+    }
+
+    @Test
+    void shouldRevertACharacterThatFailsHalfway() {
+        GameState gameState = gameManager.getGameState();
+        gameState.setStage(Stage.ACTION_MOVE_STUDENTS);
+        gameState.getCurrentPlayer().addCoin();
+        gameState.getExpertAttrs().getCoinsFromStock(1);
+        Character dionysus = Characters.get(CharacterType.DIONYSUS);
+        dionysus.receiveStudent(Student.RED);
+        gameState.getExpertAttrs().setCharacters(List.of(dionysus));
+        String before = serialize();
+
+        EffectArgs effectArgs = new EffectArgs.Builder()
+                .setGameState(gameState)
+                .setCharacter(dionysus)
+                .setIsland(gameState.getIslandByPosition(gameState.getMotherNaturePosition()))
+                .setStudent(Student.PINK)
+                .build();
+        undoLog = UndoLog.begin();
+        // the coins are taken before the effect fails
+        assertThrows(IllegalMoveException.class, () -> gameManager.playCharacter(CharacterType.DIONYSUS, effectArgs));
+        assertNotEquals(before, serialize());
+
+        undoLog.rollback();
+        assertEquals(before, serialize());
+    }
+}
@@ -0,0 +1,103 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCodecTest {
+
+    private JsonCommand roundTrip(JsonCommand jsonCommand) {
+        ByteBuffer frame = ByteBuffer.wrap(BinaryCodec.encode(jsonCommand));
+        int bodyLength = BinaryCodec.readBodyLength(frame);
+        assertEquals(frame.remaining(), bodyLength);
+        return BinaryCodec.decodeBody(frame);
+    }
+
+    @Test
+    void shouldDecodeTheEncodedParameters() {
+        JsonCommand lastMove = new JsonCommand(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_ISLAND)
+                .addParameter(Parameters.ISLAND_ID, "3", true);
+        JsonCommand jsonCommand = new JsonCommand(Command.MOVE_DONE)
+                .addParameter(Parameters.NICKNAME, "Giocatore è", true)
+                .addParameter(Parameters.STATE_VERSION, "12345678901", true)
+                .addParameter(Parameters.STEPS, "-2", true)
+                .addParameter(Parameters.EXPERT_MATCH, "true", true)
+                .addParameter("customKey", "false", true)
+                .addParameter(Parameters.LAST_MOVE, lastMove)
+                .addParameterJson(Parameters.GAME_STATE, "{\"islands\":[1,2]}");
+
+        JsonCommand decoded = roundTrip(jsonCommand);
+
+        assertEquals(Command.MOVE_DONE, decoded.getCommand());
+        assertEquals("Giocatore è", decoded.getParameter(Parameters.NICKNAME));
+        assertEquals("12345678901", decoded.getParameter(Parameters.STATE_VERSION));
+        assertEquals("-2", decoded.getParameter(Parameters.STEPS));
+        assertEquals("true", decoded.getParameter(Parameters.EXPERT_MATCH));
+        assertEquals("false", decoded.getParameter("customKey"));
+        assertEquals(lastMove.toJson(), decoded.getParameter(Parameters.LAST_MOVE));
+        assertEquals("3", decoded.getCommandParameter(Parameters.LAST_MOVE).getParameter(Parameters.ISLAND_ID));
+        assertEquals("{\"islands\":[1,2]}", decoded.getParameter(Parameters.GAME_STATE));
+        assertEquals(jsonCommand.toJson(), decoded.toJson());
+    }
+
+    @Test
+    void shouldKeepNonCanonicalNumbersAsStrings() {
+        JsonCommand jsonCommand = new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.NICKNAME, "007", true)
+                .addParameter(Parameters.STEPS, "-0", true)
+                .addParameter(Parameters.CLOUD_ID, "+1", true)
+                .addParameter(Parameters.ISLAND_ID, "", true);
+
+        JsonCommand decoded = roundTrip(jsonCommand);
+
+        assertEquals("007", decoded.getParameter(Parameters.NICKNAME));
+        assertEquals("-0", decoded.getParameter(Parameters.STEPS));
+        assertEquals("+1", decoded.getParameter(Parameters.CLOUD_ID));
+        assertEquals("", decoded.getParameter(Parameters.ISLAND_ID));
+    }
+
+    @Test
+    void shouldBeSmallerThanJsonForSmallMessages() {
+        JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE)
+                .addParameter(Parameters.STEPS, "3", true);
+        assertTrue(BinaryCodec.encode(jsonCommand).length < Frame.of(jsonCommand).length());
+    }
+
+    @Test
+    void shouldRejectInvalidHeaders() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.readBodyLength(ByteBuffer.wrap(new byte[]{'{', 0, 0, 0, 1})));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.readBodyLength(ByteBuffer.wrap(new byte[]{BinaryCodec.MAGIC, 0x7F, 0, 0, 0})));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryCodec.readBodyLength(ByteBuffer.wrap(new byte[]{BinaryCodec.MAGIC, (byte) 0xFF, 0, 0, 0})));
+    }
+
+    @Test
+    void shouldRejectMalformedBodies() {
+        byte[] frame = BinaryCodec.encode(new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "name", true));
+        byte[] body = Arrays.copyOfRange(frame, BinaryCodec.HEADER_LENGTH, frame.length);
+
+        byte[] truncated = Arrays.copyOf(body, body.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(truncated)));
+
+        byte[] unknownCommand = body.clone();
+        unknownCommand[1] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(unknownCommand)));
+
+        byte[] trailingBytes = Arrays.copyOf(body, body.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(trailingBytes)));
+
+        JsonCommand deepMove = new JsonCommand(Command.BEAT);
+        for (int i = 0; i < 10; i++)
+            deepMove = new JsonCommand(Command.MOVE_DONE).addParameter(Parameters.LAST_MOVE, deepMove);
+        byte[] tooDeepMove = BinaryCodec.encode(deepMove);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(
+                ByteBuffer.wrap(tooDeepMove, BinaryCodec.HEADER_LENGTH, tooDeepMove.length - BinaryCodec.HEADER_LENGTH)));
+    }
+}
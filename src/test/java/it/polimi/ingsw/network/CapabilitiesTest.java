@@ -0,0 +1,64 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapabilitiesTest {
+
+    @Test
+    void shouldReadTheDeclaredCapabilities() {
+        JsonCommand login = Capabilities.all().addTo(new JsonCommand(Command.LOGIN));
+
+        Capabilities capabilities = Capabilities.fromMessage(JsonCommand.fromJson(login.toJson()));
+
+        assertEquals(Capabilities.CURRENT_VERSION, capabilities.getVersion());
+        assertEquals(EnumSet.allOf(WireFeature.class), capabilities.getFeatures());
+        assertEquals(WireProtocol.COMPRESSED_BINARY.getProtocolName(), login.getParameter(Parameters.PROTOCOL));
+    }
+
+    @Test
+    void shouldNegotiateTheCommonFeaturesAtTheLowestVersion() {
+        JsonCommand login = new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.WIRE_VERSION, "7", true)
+                .addParameter(Parameters.CAPABILITIES, "binary,statePatch,futureFeature", true);
+        Capabilities server = Capabilities.of(WireFeature.BINARY, WireFeature.DEFLATE);
+
+        Capabilities negotiated = server.negotiate(Capabilities.fromMessage(login));
+
+        assertEquals(Capabilities.CURRENT_VERSION, negotiated.getVersion());
+        assertEquals(EnumSet.of(WireFeature.BINARY), negotiated.getFeatures());
+        assertEquals(WireProtocol.BINARY, negotiated.getProtocol());
+    }
+
+    @Test
+    void shouldDeriveTheCapabilitiesOfLegacyPeersFromTheProtocol() {
+        Capabilities json = Capabilities.fromMessage(new JsonCommand(Command.LOGIN));
+        Capabilities compressed = Capabilities.fromMessage(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.PROTOCOL, WireProtocol.COMPRESSED_BINARY.getProtocolName(), true));
+
+        assertEquals(0, json.getVersion());
+        assertEquals(WireProtocol.JSON, json.getProtocol());
+        assertFalse(json.supports(WireFeature.STATE_PATCH));
+        assertEquals(WireProtocol.COMPRESSED_BINARY, compressed.getProtocol());
+        assertFalse(compressed.supports(WireFeature.STATE_PATCH));
+    }
+
+    @Test
+    void shouldNotCompressWithoutBinaryFrames() {
+        assertEquals(WireProtocol.JSON, Capabilities.of(WireFeature.DEFLATE, WireFeature.STATE_PATCH).getProtocol());
+    }
+
+    @Test
+    void shouldRejectInvalidVersions() {
+        assertThrows(IllegalArgumentException.class, () -> Capabilities.fromMessage(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.WIRE_VERSION, "-1", true)
+                .addParameter(Parameters.CAPABILITIES, "binary", true)));
+        assertThrows(IllegalArgumentException.class, () -> Capabilities.fromMessage(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.CAPABILITIES, "binary", true)));
+    }
+}
@@ -0,0 +1,41 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandDispatchTableTest {
+
+    @Test
+    void shouldReturnTheBoundHandlerOrTheDefaultOne() {
+        CommandDispatchTable<String> table = new CommandDispatchTable<>("default")
+                .bind(Command.LOGIN, "login")
+                .bind(Command.BEAT, "beat");
+
+        assertEquals("login", table.get(Command.LOGIN));
+        assertEquals("beat", table.get(Command.BEAT));
+        assertEquals("default", table.get(Command.CLOSE_SESSION));
+        assertTrue(table.isBound(Command.LOGIN));
+        assertFalse(table.isBound(Command.MOVE_DONE));
+    }
+
+    @Test
+    void shouldReplaceTheHandlerBoundToACommand() {
+        CommandDispatchTable<String> table = new CommandDispatchTable<>("default")
+                .bind(Command.LOGIN, "first")
+                .bind(Command.LOGIN, "second");
+
+        assertEquals("second", table.get(Command.LOGIN));
+    }
+
+    @Test
+    void shouldLookUpEveryCommandByIdAndString() {
+        for (Command command : Command.values()) {
+            assertSame(command, Command.fromId(command.getId()));
+            assertSame(command, Command.fromCommandString(command.getCommandString()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Command.fromId(Command.count()));
+        assertThrows(IllegalArgumentException.class, () -> Command.fromCommandString("unknownCommand"));
+    }
+}
@@ -0,0 +1,89 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.Tower;
+import it.polimi.ingsw.models.components.Wizard;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameCompressionTest {
+
+    private static JsonCommand updateGameState() {
+        GameManager gameManager = new GameManager(3, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.WHITE);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.GREY);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        String gameState = GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class);
+        return new JsonCommand(Command.MOVE_DONE).addParameterJson(Parameters.GAME_STATE, gameState);
+    }
+
+    private static ByteBuffer body(byte[] frame) {
+        return ByteBuffer.wrap(frame, BinaryCodec.HEADER_LENGTH, frame.length - BinaryCodec.HEADER_LENGTH);
+    }
+
+    @Test
+    void shouldCompressLargeFrames() {
+        JsonCommand jsonCommand = updateGameState();
+        long compressedFrames = FrameCompression.getStats().getCompressedFrames();
+
+        byte[] plain = BinaryCodec.encode(jsonCommand);
+        byte[] compressed = BinaryCodec.encode(jsonCommand, true);
+
+        assertEquals(BinaryCodec.FLAG_DEFLATE, compressed[BinaryCodec.HEADER_LENGTH]);
+        assertTrue(compressed.length * 2 < plain.length);
+        assertEquals(compressed.length - BinaryCodec.HEADER_LENGTH,
+                BinaryCodec.readBodyLength(ByteBuffer.wrap(compressed)));
+        assertEquals(jsonCommand.toJson(), BinaryCodec.decodeBody(body(compressed)).toJson());
+        assertTrue(FrameCompression.getStats().getCompressedFrames() > compressedFrames);
+        assertTrue(FrameCompression.getStats().getCompressionRatio() < 1);
+    }
+
+    @Test
+    void shouldNotCompressSmallFrames() {
+        JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE)
+                .addParameter(Parameters.STEPS, "3", true);
+
+        byte[] frame = BinaryCodec.encode(jsonCommand, true);
+
+        assertEquals(0, frame[BinaryCodec.HEADER_LENGTH]);
+        assertArrayEquals(BinaryCodec.encode(jsonCommand), frame);
+    }
+
+    @Test
+    void shouldRejectMalformedCompressedBodies() {
+        byte[] frame = BinaryCodec.encode(updateGameState(), true);
+        byte[] body = Arrays.copyOfRange(frame, BinaryCodec.HEADER_LENGTH, frame.length);
+
+        byte[] truncated = Arrays.copyOf(body, body.length - 10);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(truncated)));
+
+        byte[] corrupted = body.clone();
+        corrupted[body.length / 2] ^= (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(corrupted)));
+
+        byte[] trailingBytes = Arrays.copyOf(body, body.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(trailingBytes)));
+
+        byte[] unknownFlags = body.clone();
+        unknownFlags[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> BinaryCodec.decodeBody(ByteBuffer.wrap(unknownFlags)));
+    }
+
+    @Test
+    void shouldShareTheCompressedFrameAmongClients() {
+        Frame frame = Frame.of(updateGameState());
+        Frame compressed = frame.as(WireProtocol.COMPRESSED_BINARY);
+
+        assertSame(compressed, frame.as(WireProtocol.COMPRESSED_BINARY));
+        assertTrue(compressed.length() < frame.as(WireProtocol.BINARY).length());
+    }
+}
@@ -0,0 +1,85 @@
+package it.polimi.ingsw.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+    HashedWheelTimer timer;
+
+    @BeforeEach
+    void setup() {
+        // a small wheel, so that the timeouts need more than one round
+        timer = new HashedWheelTimer("test-timer", 10, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void shouldRunTheTasksInDeadlineOrder() throws InterruptedException {
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        timer.schedule(() -> { expired.add(3); done.countDown(); }, 300);
+        timer.schedule(() -> { expired.add(1); done.countDown(); }, 20);
+        timer.schedule(() -> { expired.add(2); done.countDown(); }, 150);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), expired);
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test
+    void shouldNotRunATaskBeforeItsDeadline() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.nanoTime();
+        long[] elapsedMillis = new long[1];
+
+        timer.schedule(() -> {
+            elapsedMillis[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            done.countDown();
+        }, 100);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsedMillis[0] >= 100);
+    }
+
+    @Test
+    void shouldNotRunACancelledTask() throws InterruptedException {
+        AtomicBoolean run = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> run.set(true), 50);
+        timeout.cancel();
+        timer.schedule(done::countDown, 100);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(run.get());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test
+    void shouldKeepRunningAfterAFailingTask() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        timer.schedule(() -> {
+            throw new IllegalStateException("failing task");
+        }, 10);
+        timer.schedule(done::countDown, 30);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(timer.getMaxTickLagMillis() >= timer.getTickLagMillis());
+    }
+}
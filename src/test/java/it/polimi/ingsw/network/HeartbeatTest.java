@@ -0,0 +1,86 @@
+package it.polimi.ingsw.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeartbeatTest {
+    static final long BEAT_INTERVAL = 50;
+    static final long TIMEOUT = 200;
+
+    HashedWheelTimer timer;
+    Heartbeat heartbeat;
+
+    @BeforeEach
+    void setup() {
+        timer = new HashedWheelTimer("test-heartbeat", 5, 64);
+        heartbeat = new Heartbeat(timer, BEAT_INTERVAL, TIMEOUT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        heartbeat.stop();
+        timer.stop();
+    }
+
+    @Test
+    void shouldSendBeatsWhenIdle() throws InterruptedException {
+        CountDownLatch beats = new CountDownLatch(4);
+        heartbeat.startSendingBeats(beats::countDown);
+
+        assertTrue(beats.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldNotSendBeatsWhileOtherMessagesAreSent() throws InterruptedException {
+        AtomicInteger beats = new AtomicInteger();
+        heartbeat.startSendingBeats(beats::incrementAndGet);
+
+        for (int i = 0; i < 20; i++) {
+            heartbeat.messageSent();
+            Thread.sleep(BEAT_INTERVAL / 5);
+        }
+        // only the first beat, sent when the beats started
+        assertEquals(1, beats.get());
+    }
+
+    @Test
+    void shouldTimeOutWhenNothingIsReceived() throws InterruptedException {
+        CountDownLatch timedOut = new CountDownLatch(1);
+        long start = System.nanoTime();
+        heartbeat.startCheckingTimeout(timedOut::countDown);
+
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= TIMEOUT);
+    }
+
+    @Test
+    void shouldNotTimeOutWhileMessagesAreReceived() throws InterruptedException {
+        CountDownLatch timedOut = new CountDownLatch(1);
+        heartbeat.startCheckingTimeout(timedOut::countDown);
+
+        for (int i = 0; i < 10; i++) {
+            heartbeat.messageReceived();
+            Thread.sleep(TIMEOUT / 4);
+        }
+        assertEquals(1, timedOut.getCount());
+
+        // once the messages stop the connection times out
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldNotTimeOutAfterStop() throws InterruptedException {
+        CountDownLatch timedOut = new CountDownLatch(1);
+        heartbeat.startCheckingTimeout(timedOut::countDown);
+        heartbeat.stop();
+
+        assertFalse(timedOut.await(2 * TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+}
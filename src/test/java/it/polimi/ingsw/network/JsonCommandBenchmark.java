@@ -0,0 +1,181 @@
+package it.polimi.ingsw.network;
+
+import com.google.gson.Gson;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming JsonCommand codec with the previous Gson based one, on a small move and on a move done message
+ * Run with: mvn -B test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=it.polimi.ingsw.network.JsonCommandBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCommandBenchmark {
+
+    private String smallMessage;
+    private String moveDoneMessage;
+    private String legacyMoveDoneMessage;
+    private JsonCommand moveDone;
+    private LegacyJsonCommand legacyMoveDone;
+
+    @Setup
+    public void setUp() {
+        smallMessage = new JsonCommand(Command.PLAYER_MOVE_MOVE_STUDENT_FROM_ENTRANCE_TO_ISLAND)
+                .addParameter(Parameters.STUDENT_COLOR, "RED", true)
+                .addParameter(Parameters.ISLAND_ID, "7", true)
+                .toJson();
+
+        String gameState = GsonManager.getInstance().toJson(new GameState(3, true));
+        JsonCommand lastMove = JsonCommand.fromJson(smallMessage);
+        moveDone = new JsonCommand(Command.MOVE_DONE)
+                .addParameterJson(Parameters.GAME_STATE, gameState)
+                .addParameter(Parameters.STATE_VERSION, "42", true)
+                .addParameter(Parameters.LAST_MOVE, lastMove);
+        moveDoneMessage = moveDone.toJson();
+        legacyMoveDone = new LegacyJsonCommand()
+                .addParameter("command", Command.MOVE_DONE.getCommandString(), true, false)
+                .addParameter(Parameters.GAME_STATE, gameState, true, true)
+                .addParameter(Parameters.STATE_VERSION, "42", true, false)
+                .addParameter(Parameters.LAST_MOVE, lastMove.toJson(), true, true);
+        legacyMoveDoneMessage = legacyMoveDone.toJson();
+    }
+
+    @Benchmark
+    public JsonCommand parseSmallMessage() {
+        return JsonCommand.fromJson(smallMessage);
+    }
+
+    @Benchmark
+    public LegacyJsonCommand parseSmallMessageLegacy() {
+        return LegacyJsonCommand.fromJson(smallMessage);
+    }
+
+    @Benchmark
+    public JsonCommand parseMoveDone() {
+        return JsonCommand.fromJson(moveDoneMessage);
+    }
+
+    /**
+     * The game state and the last move are embedded in the message, so they are read in the same pass
+     */
+    @Benchmark
+    public GameState readMoveDone() {
+        JsonCommand message = JsonCommand.fromJson(moveDoneMessage);
+        message.getCommandParameter(Parameters.LAST_MOVE);
+        return GsonManager.getInstance().fromJson(message.getParameter(Parameters.GAME_STATE), GameState.class);
+    }
+
+    /**
+     * The game state and the last move are quoted strings, which are parsed again once unquoted
+     */
+    @Benchmark
+    public GameState readMoveDoneLegacy() {
+        LegacyJsonCommand message = LegacyJsonCommand.fromJson(legacyMoveDoneMessage);
+        LegacyJsonCommand.fromJson(message.entries.get(Parameters.LAST_MOVE));
+        return GsonManager.getInstance().fromJson(message.entries.get(Parameters.GAME_STATE), GameState.class);
+    }
+
+    @Benchmark
+    public LegacyJsonCommand parseMoveDoneLegacy() {
+        return LegacyJsonCommand.fromJson(legacyMoveDoneMessage);
+    }
+
+    @Benchmark
+    public String writeMoveDone() {
+        return moveDone.toJson();
+    }
+
+    @Benchmark
+    public String writeMoveDoneLegacy() {
+        return legacyMoveDone.toJson();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCommandBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * The previous implementation of JsonCommand: parsing through a Gson map and writing through parallel lists
+     */
+    public static class LegacyJsonCommand {
+        private final Map<String, String> entries = new LinkedHashMap<>();
+        private final List<Boolean> useQuotes = new ArrayList<>();
+        private final List<Boolean> useSingleQuotes = new ArrayList<>();
+
+        static LegacyJsonCommand fromJson(String json) {
+            LegacyJsonCommand jsonCommand = new LegacyJsonCommand();
+            Gson gson = GsonManager.getInstance();
+            Map<?, ?> map = gson.fromJson(json, Map.class);
+            if (!map.containsKey("command"))
+                throw new IllegalArgumentException("Given string doesn't contain command parameter");
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                try {
+                    jsonCommand.entries.put((String) entry.getKey(), (String) entry.getValue());
+                } catch (ClassCastException e) {
+                    try {
+                        jsonCommand.entries.put((String) entry.getKey(), "" + Integer.parseInt(("" + entry.getValue()).replace(".0", "")));
+                    } catch (NumberFormatException e2) {
+                        jsonCommand.entries.put((String) entry.getKey(), entry.getValue().toString());
+                    }
+                }
+                jsonCommand.useQuotes.add(true);
+                jsonCommand.useSingleQuotes.add(false);
+            }
+            return jsonCommand;
+        }
+
+        LegacyJsonCommand addParameter(String parameterName, String parameterValue, boolean useQuotes, boolean useSingleQuotes) {
+            entries.put(parameterName, parameterValue);
+            this.useQuotes.add(useQuotes);
+            this.useSingleQuotes.add(useSingleQuotes);
+            return this;
+        }
+
+        String toJson() {
+            StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("{");
+            int i = 0;
+            for (Map.Entry<String, String> param : entries.entrySet()) {
+                stringBuilder.append("\"").append(param.getKey()).append("\": ");
+                if (useQuotes.get(i)) {
+                    if (useSingleQuotes.get(i))
+                        stringBuilder.append("'").append(param.getValue()).append("'");
+                    else
+                        stringBuilder.append("\"").append(param.getValue()).append("\"");
+                } else {
+                    stringBuilder.append(param.getValue());
+                }
+                if (i < useQuotes.size() - 1)
+                    stringBuilder.append(", ");
+                i++;
+            }
+            stringBuilder.append("}");
+            return stringBuilder.toString();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package it.polimi.ingsw.network;
 
 import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -84,4 +85,105 @@ class JsonCommandTest {
                 JsonCommand.fromJson(json)
         );
     }
+
+    @Test
+    void shouldReadBackEveryValueUnchanged(){
+        String gameState = "{\"name\":\"a\\\"b'c\",\"text\":\"x\\u003dy\"}";
+        JsonCommand jsonCommand = new JsonCommand(Command.MOVE_DONE)
+                .addParameter(Parameters.NICKNAME, "quote \" backslash \\ newline \n tab \t è", true)
+                .addParameterSingleQuotes(Parameters.GAME_STATE, gameState)
+                .addParameter(Parameters.STATE_VERSION, "12345678901", false)
+                .addParameter(Parameters.EXPERT_MATCH, null, true);
+
+        JsonCommand parsed = JsonCommand.fromJson(jsonCommand.toJson());
+
+        assertEquals(Command.MOVE_DONE, parsed.getCommand());
+        assertEquals("quote \" backslash \\ newline \n tab \t è", parsed.getParameter(Parameters.NICKNAME));
+        assertEquals(gameState, parsed.getParameter(Parameters.GAME_STATE));
+        assertEquals("12345678901", parsed.getParameter(Parameters.STATE_VERSION));
+        assertNull(parsed.getParameter(Parameters.EXPERT_MATCH));
+        assertEquals(jsonCommand.toJson(), parsed.toJson());
+    }
+
+    @Test
+    void shouldReplaceAParameterAddedTwice(){
+        JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_ADD_PLAYER)
+                .addParameter("tower", "BLACK", true)
+                .addParameter("custom", "1", false)
+                .addParameterSingleQuotes("tower", "WHITE")
+                .addParameter("custom", "2", true);
+
+        assertEquals("{\"command\": \"addPlayer\", \"tower\": 'WHITE', \"custom\": \"2\"}", jsonCommand.toJson());
+    }
+
+    @Test
+    void shouldReadTheCommandInAnyPosition(){
+        JsonCommand jsonCommand = JsonCommand.fromJson(" { 'steps' : 2 ; command: playerMoveMoveMotherNature, \"flag\": true } ");
+
+        assertEquals(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE, jsonCommand.getCommand());
+        assertEquals("2", jsonCommand.getParameter(Parameters.STEPS));
+        assertEquals("true", jsonCommand.getParameter("flag"));
+        assertEquals("playerMoveMoveMotherNature", jsonCommand.getParameter("command"));
+    }
+
+    @Test
+    void shouldKeepNestedValuesAsJson(){
+        String json = "{\"command\": \"beat\", \"list\": [\"a]\", 1, [b]], \"object\": {\"key\": 'va}lue', \"inner\": {}}}";
+        JsonCommand jsonCommand = JsonCommand.fromJson(json);
+
+        assertEquals("[\"a]\", 1, [b]]", jsonCommand.getParameter("list"));
+        assertEquals("{\"key\": 'va}lue', \"inner\": {}}", jsonCommand.getParameter("object"));
+        assertEquals(json, jsonCommand.toJson());
+    }
+
+    @Test
+    void shouldEmbedStructuredValues(){
+        String gameState = "{\"name\":\"a\\\"b'c\",\"list\":[1,2]}";
+        JsonCommand lastMove = new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "CAT", true)
+                .addParameter(Parameters.NICKNAME, "it's me", true);
+        JsonCommand jsonCommand = new JsonCommand(Command.MOVE_DONE)
+                .addParameterJson(Parameters.GAME_STATE, gameState)
+                .addParameter(Parameters.LAST_MOVE, lastMove);
+
+        String expected = "{\"command\": \"moveDone\", \"gameState\": " + gameState + ", \"lastMove\": " + lastMove.toJson() + "}";
+        assertEquals(expected, jsonCommand.toJson());
+
+        JsonCommand parsed = JsonCommand.fromJson(jsonCommand.toJson());
+        assertEquals(gameState, parsed.getParameter(Parameters.GAME_STATE));
+        JsonCommand parsedLastMove = parsed.getCommandParameter(Parameters.LAST_MOVE);
+        assertEquals(Command.PLAYER_MOVE_PLAY_ASSISTANT, parsedLastMove.getCommand());
+        assertEquals("it's me", parsedLastMove.getParameter(Parameters.NICKNAME));
+        assertEquals(lastMove.toJson(), parsed.getParameter(Parameters.LAST_MOVE));
+        assertEquals(expected, parsed.toJson());
+    }
+
+    @Test
+    void shouldStillReadQuotedCommands(){
+        JsonCommand lastMove = new JsonCommand(Command.ILLEGAL_MOVE).addParameter(Parameters.NICKNAME, "bob", true);
+        JsonCommand parsed = JsonCommand.fromJson(new JsonCommand(Command.MOVE_DONE)
+                .addParameterSingleQuotes(Parameters.LAST_MOVE, lastMove.toJson()).toJson());
+
+        assertEquals(Command.ILLEGAL_MOVE, parsed.getCommandParameter(Parameters.LAST_MOVE).getCommand());
+        assertEquals("bob", parsed.getCommandParameter(Parameters.LAST_MOVE).getParameter(Parameters.NICKNAME));
+        assertNull(parsed.getCommandParameter(Parameters.GAME_STATE));
+    }
+
+    @Test
+    void shouldRejectMalformedMessages(){
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson(""));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"beat\""));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"beat\"} trailing"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"beat\", \"key\": \"\\x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"notACommand\"}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": null}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"beat\", \"list\": [1, 2}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"beat\", \"list\": [\"1]}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson("{\"command\": \"moveDone\", \"lastMove\": {\"steps\": 1}}"));
+        String deepMove = "{\"command\": \"beat\"}";
+        for (int i = 0; i < 10; i++)
+            deepMove = "{\"command\": \"moveDone\", \"lastMove\": " + deepMove + "}";
+        String tooDeepMove = deepMove;
+        assertThrows(IllegalArgumentException.class, () -> JsonCommand.fromJson(tooDeepMove));
+    }
 }
@@ -0,0 +1,49 @@
+package it.polimi.ingsw.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineFrameDecoderTest {
+
+    private ByteBuffer bytes(String string) {
+        return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldDecodeMultipleMessagesInOneRead() {
+        LineFrameDecoder decoder = new LineFrameDecoder();
+        List<String> messages = decoder.decode(bytes("{\"command\": \"beat\"}\n{\"command\": \"logout\"}\n"));
+
+        assertEquals(List.of("{\"command\": \"beat\"}", "{\"command\": \"logout\"}"), messages);
+        assertEquals(0, decoder.getPendingBytes());
+    }
+
+    @Test
+    void shouldKeepIncompleteMessageUntilTerminatorArrives() {
+        LineFrameDecoder decoder = new LineFrameDecoder();
+
+        assertTrue(decoder.decode(bytes("{\"command\": ")).isEmpty());
+        assertEquals(12, decoder.getPendingBytes());
+        assertEquals(List.of("{\"command\": \"beat\"}"), decoder.decode(bytes("\"beat\"}\n")));
+    }
+
+    @Test
+    void shouldDecodeMultiByteCharacterSplitAcrossReads() {
+        LineFrameDecoder decoder = new LineFrameDecoder();
+        byte[] encoded = "è\n".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(decoder.decode(ByteBuffer.wrap(encoded, 0, 1)).isEmpty());
+        assertEquals(List.of("è"), decoder.decode(ByteBuffer.wrap(encoded, 1, encoded.length - 1)));
+    }
+
+    @Test
+    void shouldDiscardCarriageReturn() {
+        LineFrameDecoder decoder = new LineFrameDecoder();
+        assertEquals(List.of("abc"), decoder.decode(bytes("abc\r\n")));
+    }
+}
@@ -0,0 +1,92 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageDecoderTest {
+
+    private final JsonCommand login = new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "nàme", true);
+    private final JsonCommand cloud = new JsonCommand(Command.PLAYER_MOVE_PICK_STUDENTS_FROM_CLOUD).addParameter(Parameters.CLOUD_ID, "1", true);
+
+    private byte[] mixedStream() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Frame.of(login).writeTo(stream);
+        Frame.of(cloud).as(WireProtocol.BINARY).writeTo(stream);
+        Frame.of(new JsonCommand(Command.BEAT)).as(WireProtocol.BINARY).writeTo(stream);
+        Frame.of(cloud).writeTo(stream);
+        return stream.toByteArray();
+    }
+
+    private void assertMixedStream(List<JsonCommand> messages) {
+        assertEquals(4, messages.size());
+        assertEquals(login.toJson(), messages.get(0).toJson());
+        assertEquals(cloud.toJson(), messages.get(1).toJson());
+        assertEquals(Command.BEAT, messages.get(2).getCommand());
+        assertEquals(cloud.toJson(), messages.get(3).toJson());
+    }
+
+    @Test
+    void shouldDecodeJsonAndBinaryMessagesInOneRead() throws IOException {
+        MessageDecoder decoder = new MessageDecoder();
+        assertMixedStream(decoder.decode(ByteBuffer.wrap(mixedStream())));
+        assertEquals(0, decoder.getPendingBytes());
+    }
+
+    @Test
+    void shouldDecodeMessagesReceivedOneByteAtATime() throws IOException {
+        MessageDecoder decoder = new MessageDecoder();
+        byte[] stream = mixedStream();
+        List<JsonCommand> messages = new ArrayList<>();
+        for (int i = 0; i < stream.length; i++)
+            messages.addAll(decoder.decode(ByteBuffer.wrap(stream, i, 1)));
+        assertMixedStream(messages);
+        assertEquals(0, decoder.getPendingBytes());
+    }
+
+    @Test
+    void shouldGrowTheBodyAsItsBytesArrive() throws IOException {
+        JsonCommand nickname = new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "n".repeat(20000), true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Frame.of(nickname).as(WireProtocol.BINARY).writeTo(stream);
+        byte[] bytes = stream.toByteArray();
+        MessageDecoder decoder = new MessageDecoder();
+        List<JsonCommand> messages = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += 1000) {
+            messages.addAll(decoder.decode(ByteBuffer.wrap(bytes, i, Math.min(1000, bytes.length - i))));
+            if (messages.isEmpty())
+                assertEquals(Math.min(i + 1000, bytes.length), decoder.getPendingBytes());
+        }
+        assertEquals(1, messages.size());
+        assertEquals(nickname.toJson(), messages.get(0).toJson());
+    }
+
+    @Test
+    void shouldRejectOversizedFrames() {
+        MessageDecoder decoder = new MessageDecoder();
+        ByteBuffer header = ByteBuffer.allocate(BinaryCodec.HEADER_LENGTH)
+                .put(BinaryCodec.MAGIC).putInt(BinaryCodec.MAX_BODY_LENGTH + 1).flip();
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(header));
+    }
+
+    @Test
+    void shouldRejectCompressedFramesUntilTheCompressionIsNegotiated() {
+        JsonCommand nickname = new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "n".repeat(2000), true);
+        byte[] frame = BinaryCodec.encode(nickname, true);
+        assertEquals(BinaryCodec.FLAG_DEFLATE, frame[BinaryCodec.HEADER_LENGTH]);
+
+        assertThrows(IllegalArgumentException.class, () -> new MessageDecoder().decode(ByteBuffer.wrap(frame)));
+
+        MessageDecoder decoder = new MessageDecoder();
+        decoder.setDeflateAllowed(true);
+        assertEquals(nickname.toJson(), decoder.decode(ByteBuffer.wrap(frame)).get(0).toJson());
+    }
+}
@@ -0,0 +1,49 @@
+package it.polimi.ingsw.network;
+
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageReaderTest {
+
+    @Test
+    void shouldReadJsonAndBinaryMessagesFromTheSameStream() throws IOException {
+        JsonCommand login = new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "name", true);
+        JsonCommand steps = new JsonCommand(Command.PLAYER_MOVE_MOVE_MOTHER_NATURE).addParameter(Parameters.STEPS, "2", true);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Frame.of(login).writeTo(stream);
+        Frame.of(steps).as(WireProtocol.BINARY).writeTo(stream);
+        stream.write("{\"command\":\"beat\"}\r\n".getBytes());
+
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(stream.toByteArray()));
+
+        assertEquals(login.toJson(), reader.read().toJson());
+        assertEquals(steps.toJson(), reader.read().toJson());
+        assertEquals(Command.BEAT, reader.read().getCommand());
+        assertNull(reader.read());
+    }
+
+    @Test
+    void shouldReadABodyLongerThanItsInitialBuffer() throws IOException {
+        JsonCommand login = new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "n".repeat(20_000), true);
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(BinaryCodec.encode(login)));
+
+        assertEquals(login.toJson(), reader.read().toJson());
+    }
+
+    @Test
+    void shouldFailWhenTheStreamEndsInTheMiddleOfAFrame() {
+        byte[] frame = BinaryCodec.encode(new JsonCommand(Command.BEAT));
+        MessageReader reader = new MessageReader(new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 1)));
+
+        assertThrows(EOFException.class, reader::read);
+    }
+}
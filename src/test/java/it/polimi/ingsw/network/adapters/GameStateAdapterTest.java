@@ -0,0 +1,206 @@
+package it.polimi.ingsw.network.adapters;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.*;
+import it.polimi.ingsw.models.components.characters.Character;
+import it.polimi.ingsw.models.components.characters.CharacterType;
+import it.polimi.ingsw.models.components.characters.Characters;
+import it.polimi.ingsw.models.state.ExpertAttrs;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.network.GsonManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateAdapterTest {
+
+    /**
+     * The previous reflective format, the bag is compared by counts because its order is not kept
+     */
+    private static final Gson REFLECTIVE = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+            return false;
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return clazz == Bag.class;
+        }
+    }).create();
+
+    private static GameState roundTrip(GameState gameState) {
+        Gson gson = GsonManager.getInstance();
+        return gson.fromJson(gson.toJson(gameState, GameState.class), GameState.class);
+    }
+
+    private static void assertSameState(GameState expected, GameState actual) {
+        assertEquals(REFLECTIVE.toJson(expected, GameState.class), REFLECTIVE.toJson(actual, GameState.class));
+        for (Student student : Student.values())
+            assertEquals(expected.getBag().getNumStudentsByColor(student), actual.getBag().getNumStudentsByColor(student));
+    }
+
+    private static Student anyStudentInEntrance(GameManager gameManager) {
+        Entrance entrance = gameManager.getGameState().getCurrentPlayer().getBoard().getEntrance();
+        for (Student student : Student.values())
+            if (entrance.getNumStudentsByColor(student) > 0)
+                return student;
+        throw new IllegalStateException("empty entrance");
+    }
+
+    private static void playRound(GameManager gameManager) {
+        gameManager.playAssistant(Assistant.CAT);
+        gameManager.playAssistant(Assistant.DOG);
+        gameManager.playAssistant(Assistant.SNAKE);
+        for (int i = 0; i < 3; i++) {
+            gameManager.moveStudentFromEntranceToIsland(anyStudentInEntrance(gameManager), 5);
+            while (gameManager.getGameState().isStage(Stage.ACTION_MOVE_STUDENTS))
+                gameManager.moveStudentFromEntranceToHall(anyStudentInEntrance(gameManager));
+            gameManager.moveMotherNature(1);
+            int cloudId = 0;
+            while (gameManager.getGameState().getCloudById(cloudId).isEmpty())
+                cloudId++;
+            gameManager.pickStudentsFromCloud(cloudId);
+            gameManager.endTurn();
+        }
+        gameManager.nextRound();
+        gameManager.fillClouds();
+    }
+
+    @Test
+    void shouldRoundTripEmptyState() {
+        GameState gameState = new GameState(2, false);
+        GameState restored = roundTrip(gameState);
+
+        assertSameState(gameState, restored);
+        assertFalse(restored.isExpertMatch());
+        assertNull(restored.getExpertAttrs());
+        assertNull(restored.getPlayerQueue());
+    }
+
+    @Test
+    void shouldRoundTripPreparedMatch() {
+        GameManager gameManager = new GameManager(4, false);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.WHITE);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.BLACK);
+        gameManager.addPlayer("d", Wizard.DRUID, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+
+        assertSameState(gameManager.getGameState(), roundTrip(gameManager.getGameState()));
+    }
+
+    @Test
+    void shouldRoundTripExpertMatchAfterARound() {
+        GameManager gameManager = new GameManager(3, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.GREY);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        playRound(gameManager);
+
+        GameState gameState = gameManager.getGameState();
+        Island toweredIsland = gameState.getIslands().stream().filter(island -> !island.hasTowers()).findFirst().orElseThrow();
+        toweredIsland.receiveTower(Tower.GREY);
+        Island blockedIsland = gameState.getIslands().get(gameState.getIslands().size() - 1);
+        ExpertAttrs expertAttrs = gameState.getExpertAttrs();
+        expertAttrs.addBlockToIsland(blockedIsland);
+        expertAttrs.setIgnoredStudent(Student.PINK);
+        expertAttrs.setAdditionalMotherNatureSteps(2);
+
+        GameState restored = roundTrip(gameState);
+        assertSameState(gameState, restored);
+        assertSame(restored.getIslandByPosition(blockedIsland.getPosition()), restored.getExpertAttrs().getBlockedIslands().get(0));
+        assertEquals(Tower.GREY, restored.getIslandByPosition(toweredIsland.getPosition()).getTowerType());
+    }
+
+    @Test
+    void shouldRestoreCharactersFromTheirType() {
+        GameState gameState = new GameState(2, true);
+        Character circe = Characters.get(CharacterType.CIRCE);
+        circe.pickBlock();
+        Character jester = Characters.get(CharacterType.JESTER);
+        jester.receiveStudent(Student.RED);
+        jester.receiveStudent(Student.CYAN);
+        jester.restoreState(true, 0);
+        gameState.getExpertAttrs().setCharacters(List.of(circe, jester, Characters.get(CharacterType.KNIGHT)));
+
+        GameState restored = roundTrip(gameState);
+        assertSameState(gameState, restored);
+
+        Character restoredCirce = restored.getExpertAttrs().getCharacterByType(CharacterType.CIRCE);
+        assertEquals(3, restoredCirce.getNumIslandBlocks());
+        restoredCirce.receiveBlock();
+        Character restoredJester = restored.getExpertAttrs().getCharacterByType(CharacterType.JESTER);
+        assertEquals(List.of(Student.RED, Student.CYAN), restoredJester.getStudents());
+        assertEquals(jester.getCost(), restoredJester.getCost());
+        assertEquals(6, restoredJester.getStudentsLimit());
+    }
+
+    @Test
+    void shouldReadFieldsInAnyOrder() {
+        GameManager gameManager = new GameManager(2, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        GameState gameState = gameManager.getGameState();
+
+        JsonObject json = JsonParser.parseString(GsonManager.getInstance().toJson(gameState, GameState.class)).getAsJsonObject();
+        JsonObject reversed = new JsonObject();
+        List<Map.Entry<String, JsonElement>> entries = new ArrayList<>(json.entrySet());
+        for (int i = entries.size() - 1; i >= 0; i--)
+            reversed.add(entries.get(i).getKey(), entries.get(i).getValue());
+        reversed.addProperty("unknownField", 42);
+
+        assertSameState(gameState, GsonManager.getInstance().fromJson(reversed, GameState.class));
+    }
+
+    @Test
+    void shouldWriteACompactState() {
+        GameManager gameManager = new GameManager(3, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.GREY);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.WHITE);
+        gameManager.preparation();
+        GameState gameState = gameManager.getGameState();
+
+        String compact = GsonManager.getInstance().toJson(gameState, GameState.class);
+        String reflective = new Gson().toJson(gameState, GameState.class);
+        assertTrue(compact.length() < reflective.length(), compact.length() + " vs " + reflective.length());
+    }
+
+    @Test
+    void shouldWriteComponentsAlone() {
+        Gson gson = GsonManager.getInstance();
+        Island island = new Island(4, 2);
+        island.receiveStudent(Student.GREEN);
+        island.receiveTower(Tower.WHITE);
+        assertEquals("{\"position\":4,\"dimension\":2,\"students\":[0,0,1,0,0],\"tower\":\"WHITE\",\"numTowers\":1}", gson.toJson(island));
+        assertEquals(REFLECTIVE.toJson(island), REFLECTIVE.toJson(gson.fromJson(gson.toJson(island), Island.class)));
+
+        Cloud cloud = new Cloud(1, 3);
+        cloud.receiveStudent(Student.PINK);
+        cloud.receiveStudent(Student.YELLOW);
+        assertEquals(List.of(Student.PINK, Student.YELLOW), gson.fromJson(gson.toJson(cloud), Cloud.class).getStudents());
+
+        Entrance entrance = new Entrance(7);
+        entrance.receiveStudent(Student.RED);
+        assertEquals(REFLECTIVE.toJson(entrance), REFLECTIVE.toJson(gson.fromJson(gson.toJson(entrance), Entrance.class)));
+        assertEquals("null", gson.toJson(null, Island.class));
+    }
+}
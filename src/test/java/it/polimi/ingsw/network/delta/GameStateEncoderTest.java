@@ -0,0 +1,98 @@
+package it.polimi.ingsw.network.delta;
+
+import it.polimi.ingsw.models.GameManager;
+import it.polimi.ingsw.models.components.Assistant;
+import it.polimi.ingsw.models.components.Tower;
+import it.polimi.ingsw.models.components.Wizard;
+import it.polimi.ingsw.models.state.GameState;
+import it.polimi.ingsw.network.GsonManager;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateEncoderTest {
+    GameManager gameManager;
+    GameStateEncoder encoder;
+    GameStateDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        gameManager = new GameManager(3, true);
+        gameManager.addPlayer("a", Wizard.KING, Tower.BLACK);
+        gameManager.addPlayer("b", Wizard.WITCH, Tower.GREY);
+        gameManager.addPlayer("c", Wizard.SAGE, Tower.WHITE);
+        gameManager.preparation();
+        gameManager.fillClouds();
+        encoder = new GameStateEncoder();
+        decoder = new GameStateDecoder();
+    }
+
+    /**
+     * @return the message received by the clients, after being serialized and parsed
+     */
+    private JsonCommand encode() {
+        JsonCommand message = encoder.encode(gameManager.getGameState(), new JsonCommand(Command.MOVE_DONE));
+        return JsonCommand.fromJson(message.toJson());
+    }
+
+    private String serialize(GameState gameState) {
+        return GsonManager.getInstance().toJson(gameState, GameState.class);
+    }
+
+    @Test
+    void shouldSendAFullGameStateFirst() {
+        JsonCommand message = encode();
+        assertNotNull(message.getParameter(Parameters.GAME_STATE));
+        assertNull(message.getParameter(Parameters.GAME_STATE_PATCH));
+        assertEquals(serialize(gameManager.getGameState()), serialize(decoder.decode(message)));
+    }
+
+    @Test
+    void shouldRebuildTheGameStateFromThePatches() {
+        decoder.decode(encode());
+        gameManager.playAssistant(Assistant.CAT);
+        gameManager.playAssistant(Assistant.DOG);
+
+        JsonCommand message = encode();
+        assertNull(message.getParameter(Parameters.GAME_STATE));
+        assertNotNull(message.getParameter(Parameters.GAME_STATE_PATCH));
+        assertTrue(message.getParameter(Parameters.GAME_STATE_PATCH).length() < serialize(gameManager.getGameState()).length());
+        assertEquals(serialize(gameManager.getGameState()), serialize(decoder.decode(message)));
+    }
+
+    @Test
+    void shouldSendAFullGameStatePeriodically() {
+        encode();
+        for (int i = 0; i < GameStateEncoder.KEYFRAME_INTERVAL; i++)
+            assertNotNull(encode().getParameter(Parameters.GAME_STATE_PATCH));
+        assertNotNull(encode().getParameter(Parameters.GAME_STATE));
+    }
+
+    @Test
+    void shouldDetectAMissedVersion() {
+        decoder.decode(encode());
+        gameManager.playAssistant(Assistant.CAT);
+        encode();
+        gameManager.playAssistant(Assistant.DOG);
+        assertNull(decoder.decode(encode()));
+
+        JsonCommand keyframe = JsonCommand.fromJson(encoder.encodeKeyframe(new JsonCommand(Command.MOVE_DONE)).toJson());
+        assertEquals(serialize(gameManager.getGameState()), serialize(decoder.decode(keyframe)));
+    }
+
+    @Test
+    void shouldDetectAWrongChecksum() {
+        decoder.decode(encode());
+        gameManager.playAssistant(Assistant.CAT);
+        JsonCommand message = encoder.encode(gameManager.getGameState(), new JsonCommand(Command.MOVE_DONE));
+        JsonCommand corrupted = new JsonCommand(Command.MOVE_DONE)
+                .addParameterJson(Parameters.GAME_STATE_PATCH, message.getParameter(Parameters.GAME_STATE_PATCH))
+                .addParameter(Parameters.STATE_VERSION, message.getParameter(Parameters.STATE_VERSION), true)
+                .addParameter(Parameters.STATE_CHECKSUM, "0", true);
+        assertNull(decoder.decode(JsonCommand.fromJson(corrupted.toJson())));
+    }
+}
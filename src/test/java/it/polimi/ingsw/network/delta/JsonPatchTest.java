@@ -0,0 +1,70 @@
+package it.polimi.ingsw.network.delta;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPatchTest {
+
+    private static JsonElement parse(String json) {
+        return JsonParser.parseString(json);
+    }
+
+    @Test
+    void shouldReturnNullForEqualTrees() {
+        assertNull(JsonPatch.diff(parse("{\"a\": 1, \"b\": [1, 2]}"), parse("{\"a\": 1, \"b\": [1, 2]}")));
+    }
+
+    @Test
+    void shouldContainOnlyTheChangedMembers() {
+        JsonElement patch = JsonPatch.diff(parse("{\"a\": 1, \"b\": {\"c\": 2, \"d\": 3}}"), parse("{\"a\": 1, \"b\": {\"c\": 2, \"d\": 4}}"));
+        assertEquals(parse("{\"b\": {\"d\": 4}}"), patch);
+    }
+
+    @Test
+    void shouldRemoveTheMissingMembers() {
+        JsonElement source = parse("{\"a\": 1, \"b\": 2}");
+        JsonElement target = parse("{\"a\": 1}");
+        JsonElement patch = JsonPatch.diff(source, target);
+
+        assertEquals(parse("{\"b\": null}"), patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void shouldPatchArraysOfObjectsElementByElement() {
+        JsonElement source = parse("[{\"a\": 1}, {\"a\": 2}, {\"a\": 3}]");
+        JsonElement target = parse("[{\"a\": 1}, {\"a\": 5}, {\"a\": 3}]");
+        JsonElement patch = JsonPatch.diff(source, target);
+
+        assertEquals(parse("{\"[]\": {\"1\": {\"a\": 5}}}"), patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void shouldReplaceArraysThatChangeLength() {
+        JsonElement source = parse("{\"islands\": [{\"a\": 1}, {\"a\": 2}, {\"a\": 3}]}");
+        JsonElement target = parse("{\"islands\": [{\"a\": 1}, {\"a\": 5}]}");
+        JsonElement patch = JsonPatch.diff(source, target);
+
+        assertEquals(target, patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void shouldAddNewMembers() {
+        JsonElement source = parse("{\"a\": {\"b\": 1}}");
+        JsonElement target = parse("{\"a\": {\"b\": 1, \"c\": {\"d\": [1, 2]}}}");
+
+        assertEquals(target, JsonPatch.apply(source, JsonPatch.diff(source, target)));
+    }
+
+    @Test
+    void shouldHaveTheSameChecksumRegardlessOfMembersOrder() {
+        assertEquals(JsonChecksum.of(parse("{\"a\": 1, \"b\": {\"c\": true, \"d\": \"x\"}}")),
+                JsonChecksum.of(parse("{\"b\": {\"d\": \"x\", \"c\": true}, \"a\": 1}")));
+        assertNotEquals(JsonChecksum.of(parse("{\"a\": 1}")), JsonChecksum.of(parse("{\"a\": \"1\"}")));
+    }
+}
@@ -0,0 +1,155 @@
+package it.polimi.ingsw.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchMailboxTest {
+    MatchScheduler matchScheduler;
+
+    @BeforeEach
+    void setup() {
+        matchScheduler = new MatchScheduler(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        matchScheduler.shutdown();
+    }
+
+    @Test
+    void shouldProcessTheMessagesInOrder() throws InterruptedException {
+        assertMessagesProcessedInOrder(matchScheduler.createMailbox(0));
+    }
+
+    @Test
+    void shouldProcessTheMessagesInOrderOnVirtualThreads() throws InterruptedException {
+        MatchScheduler virtualScheduler = MatchScheduler.ofVirtualThreads();
+        assertTrue(virtualScheduler.isVirtual());
+        assertMessagesProcessedInOrder(virtualScheduler.createMailbox(0));
+        virtualScheduler.shutdown();
+    }
+
+    private void assertMessagesProcessedInOrder(MatchMailbox mailbox) throws InterruptedException {
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        int numMessages = MatchMailbox.MAX_BATCH_SIZE * 3;
+        for (int i = 0; i < numMessages; i++) {
+            int message = i;
+            mailbox.submit(() -> processed.add(message));
+        }
+        mailbox.submit(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < numMessages; i++)
+            assertEquals(i, processed.get(i));
+        assertEquals(0, mailbox.getQueueDepth());
+        assertTrue(mailbox.getMaxQueueDepth() > 0);
+    }
+
+    @Test
+    void shouldNeverProcessTwoMessagesOfTheSameMatchAtTheSameTime() throws InterruptedException {
+        MatchMailbox mailbox = matchScheduler.createMailbox(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int numThreads = 8;
+        int messagesPerThread = MatchMailbox.MAX_QUEUE_DEPTH / numThreads;
+        CountDownLatch done = new CountDownLatch(numThreads * messagesPerThread);
+
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            Thread sender = new Thread(() -> {
+                for (int i = 0; i < messagesPerThread; i++) {
+                    mailbox.submit(() -> {
+                        if (running.incrementAndGet() > 1)
+                            overlaps.incrementAndGet();
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+            senders.add(sender);
+            sender.start();
+        }
+        for (Thread sender : senders)
+            sender.join();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    void shouldKeepProcessingAfterAFailingMessage() throws InterruptedException {
+        MatchMailbox mailbox = matchScheduler.createMailbox(2);
+        CountDownLatch done = new CountDownLatch(1);
+
+        mailbox.submit(() -> {
+            throw new IllegalStateException("failing message");
+        });
+        mailbox.submit(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRejectTheMessagesWhenTheMailboxIsFull() throws InterruptedException {
+        MatchMailbox mailbox = matchScheduler.createMailbox(3);
+        CountDownLatch busy = new CountDownLatch(1);
+        mailbox.submit(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // the first message may not have been taken by the worker yet
+        int accepted = 0;
+        while (mailbox.submit(() -> {}))
+            accepted++;
+        assertTrue(accepted >= MatchMailbox.MAX_QUEUE_DEPTH - 1);
+        assertEquals(MatchMailbox.MAX_QUEUE_DEPTH, mailbox.getMaxQueueDepth());
+
+        busy.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        while (!mailbox.submit(done::countDown))
+            Thread.onSpinWait();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldRejectTheMessagesWhenTheQueueOfTheWorkerIsFull() throws InterruptedException {
+        ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        CountDownLatch busy = new CountDownLatch(1);
+        worker.execute(() -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.execute(() -> {});
+        MatchMailbox mailbox = new MatchMailbox(4, worker);
+        CountDownLatch done = new CountDownLatch(1);
+
+        assertFalse(mailbox.submit(done::countDown));
+        assertEquals(0, mailbox.getQueueDepth());
+
+        busy.countDown();
+        while (!mailbox.submit(done::countDown))
+            Thread.onSpinWait();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package it.polimi.ingsw.server;
+
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.MultiplexedServerConnection;
+import it.polimi.ingsw.network.ServerConnection;
+import it.polimi.ingsw.network.WireProtocol;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(10)
+class MultiplexedSessionsTest {
+
+    private Server server;
+    private MultiplexedServerConnection connection;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new Server(0);
+        connection = MultiplexedServerConnection.open(server.connectInProcess(), "host");
+    }
+
+    /**
+     * Reads messages until one with the given command arrives
+     */
+    private static JsonCommand readUntil(ServerConnection session, Command command) throws IOException {
+        JsonCommand message;
+        do {
+            message = session.read();
+            assertNotNull(message);
+        } while (message.getCommand() != command);
+        return message;
+    }
+
+    private static void send(ServerConnection session, JsonCommand jsonCommand) throws IOException {
+        session.send(jsonCommand, WireProtocol.JSON);
+    }
+
+    private static ServerConnection login(MultiplexedServerConnection connection, String nickname) throws IOException {
+        ServerConnection session = connection.openSession();
+        readUntil(session, Command.ENTER_NICKNAME);
+        send(session, session.getCapabilities().addTo(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.NICKNAME, nickname, true)));
+        assertEquals(Command.LOGIN_SUCCESSFUL, session.read().getCommand());
+        return session;
+    }
+
+    private static void joinMatch(ServerConnection session) throws IOException {
+        send(session, new JsonCommand(Command.JOIN_MATCH)
+                .addParameter(Parameters.NUM_PLAYERS, "2", true)
+                .addParameter(Parameters.EXPERT_MATCH, "false", true));
+        assertEquals(Command.JOIN_SUCCESSFUL, session.read().getCommand());
+    }
+
+    @Test
+    void shouldPlayManyClientsOnTheSameConnection() throws IOException {
+        ServerConnection first = login(connection, "bot1");
+        ServerConnection second = login(connection, "bot2");
+        assertEquals(2, connection.getNumSessions());
+
+        joinMatch(first);
+        joinMatch(second);
+
+        JsonCommand firstRequest = readUntil(first, Command.CHOOSE_WIZARD_TOWER);
+        JsonCommand secondRequest = readUntil(second, Command.CHOOSE_WIZARD_TOWER);
+        assertNotEquals(firstRequest.getParameter(Parameters.SESSION_ID), secondRequest.getParameter(Parameters.SESSION_ID));
+        assertEquals(firstRequest.getParameter(Parameters.NICKNAME), secondRequest.getParameter(Parameters.NICKNAME));
+    }
+
+    @Test
+    void shouldRefuseANicknameAlreadyUsedByAnotherSession() throws IOException {
+        login(connection, "bot");
+        ServerConnection duplicate = connection.openSession();
+        readUntil(duplicate, Command.ENTER_NICKNAME);
+
+        send(duplicate, new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "bot", true));
+        assertEquals(Command.NICKNAME_ALREADY_PRESENT, duplicate.read().getCommand());
+
+        send(duplicate, new JsonCommand(Command.LOGIN).addParameter(Parameters.NICKNAME, "host", true));
+        assertEquals(Command.NICKNAME_ALREADY_PRESENT, duplicate.read().getCommand());
+    }
+
+    @Test
+    void shouldEndTheMatchWhenASessionIsClosed() throws IOException {
+        ServerConnection first = login(connection, "bot1");
+        ServerConnection second = login(connection, "bot2");
+        joinMatch(first);
+        joinMatch(second);
+
+        second.close();
+
+        readUntil(first, Command.FORCE_END_MATCH);
+        assertNull(second.read());
+        assertThrows(IOException.class, () -> send(second, new JsonCommand(Command.PLAYER_MOVE_END_TURN)));
+    }
+
+    @Test
+    void shouldCloseTheSessionsWithTheirConnection() throws IOException {
+        ServerConnection session = login(connection, "bot");
+
+        connection.close();
+
+        assertNull(session.read());
+        assertNull(session.read());
+        assertEquals(0, connection.getNumSessions());
+    }
+}
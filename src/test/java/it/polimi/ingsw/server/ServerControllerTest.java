@@ -1,5 +1,6 @@
 package it.polimi.ingsw.server;
 
+import com.google.gson.Gson;
 import it.polimi.ingsw.network.GsonManager;
 import it.polimi.ingsw.models.GameManager;
 import it.polimi.ingsw.models.components.*;
@@ -9,16 +10,24 @@ import it.polimi.ingsw.models.components.characters.Characters;
 import it.polimi.ingsw.models.constants.GameConstants;
 import it.polimi.ingsw.models.state.GameState;
 import it.polimi.ingsw.models.state.Stage;
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.Frame;
 import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.WireFeature;
 import it.polimi.ingsw.network.messages.Command;
 import it.polimi.ingsw.network.messages.Parameters;
-import it.polimi.ingsw.network.observers.JsonCommandChangeEvent;
+import it.polimi.ingsw.server.modules.ClientHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ServerControllerTest {
@@ -75,8 +84,8 @@ class ServerControllerTest {
         String initialGameState = GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class);
         JsonCommand lastMove = new JsonCommand(Command.INITIALIZATION);
         expectedResponse = new JsonCommand(Command.MOVE_DONE)
-                .addParameterSingleQuotes(Parameters.GAME_STATE, initialGameState)
-                .addParameterSingleQuotes(Parameters.LAST_MOVE, lastMove.toJson());
+                .addParameterJson(Parameters.GAME_STATE, initialGameState)
+                .addParameter(Parameters.LAST_MOVE, lastMove);
 
         assertEquals(expectedResponse.getCommand(), response.getCommand());
         assertEquals(expectedResponse.getParameter(Parameters.GAME_STATE), response.getParameter(Parameters.GAME_STATE));
@@ -207,6 +216,28 @@ class ServerControllerTest {
         assertEquals(1, gameManager.getGameState().getIslandByPosition(gameManager.getGameState().getMotherNaturePosition()).getNumStudent(Student.RED));
     }
 
+    @Test
+    void shouldRollbackACharacterThatFailsHalfway() {
+        gameManager.getGameState().setStage(Stage.ACTION_MOVE_STUDENTS);
+        gameManager.getGameState().getCurrentPlayer().addCoin();
+        gameManager.getGameState().getExpertAttrs().getCoinsFromStock(1);
+
+        Character dionysus = Characters.get(CharacterType.DIONYSUS);
+        dionysus.receiveStudent(Student.RED);
+        gameManager.getGameState().getExpertAttrs().setCharacters(List.of(dionysus));
+        String gameStateBefore = GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class);
+
+        JsonCommand request = new JsonCommand(Command.PLAYER_MOVE_PLAY_CHARACTER)
+                .addParameter(Parameters.CHARACTER_TYPE, dionysus.getCharacterType().toString(), true)
+                .addParameter(Parameters.ISLAND_ID, "" + gameManager.getGameState().getMotherNaturePosition(), true)
+                .addParameter(Parameters.STUDENT_COLOR, Student.PINK.toString(), true);
+        JsonCommand response = serverController.handleRequest(request);
+
+        JsonCommand lastMove = response.getCommandParameter(Parameters.LAST_MOVE);
+        assertEquals(Command.ILLEGAL_MOVE, lastMove.getCommand());
+        assertEquals(gameStateBefore, GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class));
+    }
+
     @Test
     void shouldHavePlayedJesterCharacter() {
         gameManager.getGameState().setStage(Stage.ACTION_MOVE_STUDENTS);
@@ -254,10 +285,12 @@ class ServerControllerTest {
     @Test
     void shouldPerformMoveTroughPropertyChange() {
         Player currentPlayer = gameManager.getGameState().getCurrentPlayer();
+        TestClientHandler client = new TestClientHandler(Capabilities.all());
+        serverController.addClientHandlers(List.of(client));
 
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
                 .addParameter(Parameters.ASSISTANT, "SNAKE", true);
-        serverController.jsonCommandChange(new JsonCommandChangeEvent("messageReceived", jsonCommand));
+        client.receive(jsonCommand);
 
         assertEquals(5, currentPlayer.getLastPlayedAssistant().getValue());
     }
@@ -266,7 +299,103 @@ class ServerControllerTest {
     void shouldReturnIllegalMove() {
         JsonCommand jsonCommand = new JsonCommand(Command.PLAYER_MOVE_END_TURN);
         JsonCommand response = serverController.handleRequest(jsonCommand);
-        JsonCommand lastMove = JsonCommand.fromJson(response.getParameter(Parameters.LAST_MOVE));
+        JsonCommand lastMove = response.getCommandParameter(Parameters.LAST_MOVE);
         assertEquals(Command.ILLEGAL_MOVE, lastMove.getCommand());
     }
+
+    @Test
+    void shouldSendTheFullGameStateToClientsWithoutPatches() {
+        ClientHandler patchingClient = new TestClientHandler(Capabilities.of(WireFeature.STATE_PATCH));
+        ClientHandler legacyClient = new TestClientHandler(Capabilities.of());
+        serverController.addClientHandlers(List.of(patchingClient, legacyClient));
+
+        serverController.sendResponseToClients(serverController.handleRequest(new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "SNAKE", true)));
+        serverController.sendResponseToClients(serverController.handleRequest(new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "CAT", true)));
+
+        JsonCommand patched = lastMessage(patchingClient);
+        JsonCommand full = lastMessage(legacyClient);
+        assertNotNull(patched.getParameter(Parameters.GAME_STATE_PATCH));
+        assertNull(full.getParameter(Parameters.GAME_STATE_PATCH));
+        assertEquals(GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class),
+                full.getParameter(Parameters.GAME_STATE));
+        assertEquals(patched.getParameter(Parameters.STATE_VERSION), full.getParameter(Parameters.STATE_VERSION));
+        assertEquals(patched.getParameter(Parameters.LAST_MOVE), full.getParameter(Parameters.LAST_MOVE));
+    }
+
+    @Test
+    void shouldSendTheLegacyFormatToTheLegacyClients() {
+        ClientHandler legacyClient = new TestClientHandler(Capabilities.NONE);
+        serverController.addClientHandlers(List.of(legacyClient));
+
+        serverController.sendResponseToClients(serverController.handleRequest(new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "SNAKE", true)));
+        serverController.sendResponseToClients(serverController.handleRequest(new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "CAT", true)));
+
+        // legacy clients parse the message as a map of strings
+        Map<?, ?> message = new Gson().fromJson(lastFrameJson(legacyClient), Map.class);
+        assertEquals(Command.MOVE_DONE.getCommandString(), message.get("command"));
+        assertNull(message.get(Parameters.GAME_STATE_PATCH));
+        GameState gameState = GsonManager.getLegacyInstance().fromJson((String) message.get(Parameters.GAME_STATE), GameState.class);
+        assertEquals(GsonManager.getInstance().toJson(gameManager.getGameState(), GameState.class),
+                GsonManager.getInstance().toJson(gameState, GameState.class));
+        JsonCommand lastMove = JsonCommand.fromJson((String) message.get(Parameters.LAST_MOVE));
+        assertEquals("CAT", lastMove.getParameter(Parameters.ASSISTANT));
+    }
+
+    @Test
+    void shouldSendTheResyncOnlyToTheClientThatAskedForIt() {
+        TestClientHandler lostClient = new TestClientHandler(Capabilities.of(WireFeature.STATE_PATCH));
+        TestClientHandler otherClient = new TestClientHandler(Capabilities.of(WireFeature.STATE_PATCH));
+        serverController.addClientHandlers(List.of(lostClient, otherClient));
+        serverController.sendResponseToClients(serverController.handleRequest(new JsonCommand(Command.PLAYER_MOVE_PLAY_ASSISTANT)
+                .addParameter(Parameters.ASSISTANT, "SNAKE", true)));
+        lastMessage(lostClient);
+        lastMessage(otherClient);
+
+        lostClient.receive(new JsonCommand(Command.RESYNC));
+
+        assertNotNull(lastMessage(lostClient).getParameter(Parameters.GAME_STATE));
+        assertNull(otherClient.getOutboundQueue().poll());
+    }
+
+    private static JsonCommand lastMessage(ClientHandler clientHandler) {
+        return JsonCommand.fromJson(lastFrameJson(clientHandler));
+    }
+
+    private static String lastFrameJson(ClientHandler clientHandler) {
+        Frame frame;
+        Frame last = null;
+        while ((frame = clientHandler.getOutboundQueue().poll()) != null)
+            last = frame;
+        assertNotNull(last);
+        ByteBuffer bytes = last.toByteBuffer();
+        byte[] json = new byte[bytes.remaining()];
+        bytes.get(json);
+        return new String(json, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * A client handler that keeps the sent frames in its outbound queue
+     */
+    private static class TestClientHandler extends ClientHandler {
+        TestClientHandler(Capabilities capabilities) {
+            super("test");
+            setCapabilities(capabilities);
+        }
+
+        void receive(JsonCommand jsonCommand) {
+            messageReceived(jsonCommand);
+        }
+
+        @Override
+        protected void framesQueued() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package it.polimi.ingsw.server;
+
+import it.polimi.ingsw.network.Capabilities;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.ServerConnection;
+import it.polimi.ingsw.network.StreamServerConnection;
+import it.polimi.ingsw.network.WireFeature;
+import it.polimi.ingsw.network.WireProtocol;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import it.polimi.ingsw.server.modules.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTransportsTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Reads the next message that is not a beat
+     */
+    private static JsonCommand readMessage(ServerConnection connection) throws IOException {
+        JsonCommand message;
+        do {
+            message = connection.read();
+        } while (message != null && message.getCommand() == Command.BEAT);
+        return message;
+    }
+
+    /**
+     * Logs in with the capabilities of the connection and checks the negotiated ones
+     *
+     * @return the protocol negotiated with the server
+     */
+    private static WireProtocol login(ServerConnection connection, String nickname) throws IOException {
+        assertEquals(Command.ENTER_NICKNAME, readMessage(connection).getCommand());
+        connection.send(connection.getCapabilities().addTo(new JsonCommand(Command.LOGIN)
+                .addParameter(Parameters.NICKNAME, nickname, true)), WireProtocol.JSON);
+
+        JsonCommand response = readMessage(connection);
+        assertEquals(Command.LOGIN_SUCCESSFUL, response.getCommand());
+        Capabilities capabilities = Capabilities.fromMessage(response);
+        assertEquals(connection.getCapabilities().getFeatures(), capabilities.getFeatures());
+        return capabilities.getProtocol();
+    }
+
+    private static ServerConnection connectUnix(Path socketPath) throws IOException, InterruptedException {
+        for (int attempts = 0; !Files.exists(socketPath) && attempts < 100; attempts++)
+            Thread.sleep(20);
+        return StreamServerConnection.unix(socketPath);
+    }
+
+    private static void startServer(TransportMode transportMode, Path socketPath) {
+        Thread serverThread = new Thread(new Server(0, transportMode, OverflowPolicy.COALESCE, true, socketPath));
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @Test
+    void shouldExchangeMessagesInProcess() throws IOException {
+        Server server = new Server(0);
+        ServerConnection connection = server.connectInProcess();
+
+        assertEquals(WireProtocol.JSON, login(connection, "bot"));
+        assertTrue(connection.getCapabilities().supports(WireFeature.STATE_PATCH));
+
+        connection.close();
+        assertNull(connection.read());
+        assertThrows(IOException.class, () -> connection.send(new JsonCommand(Command.BEAT), WireProtocol.JSON));
+    }
+
+    @Test
+    void shouldDisconnectInProcessClientsThatSendUnexpectedMessages() throws IOException {
+        ServerConnection connection = new Server(0).connectInProcess();
+        assertEquals(Command.ENTER_NICKNAME, readMessage(connection).getCommand());
+
+        assertThrows(IOException.class,
+                () -> connection.send(new JsonCommand(Command.JOIN_MATCH), WireProtocol.JSON));
+        assertNull(connection.read());
+    }
+
+    @Test
+    void shouldAcceptClientsOnUnixSocket() throws IOException, InterruptedException {
+        Path socketPath = tempDir.resolve("eriantys.sock");
+        startServer(TransportMode.THREAD_PER_CLIENT, socketPath);
+
+        try (ServerConnection connection = connectUnix(socketPath)) {
+            WireProtocol protocol = login(connection, "unix");
+            assertEquals(WireProtocol.COMPRESSED_BINARY, protocol);
+            connection.send(new JsonCommand(Command.BEAT), protocol);
+            assertEquals(Command.BEAT, connection.read().getCommand());
+        }
+    }
+
+    @Test
+    void shouldAcceptClientsOnUnixSocketWithEventLoops() throws IOException, InterruptedException {
+        Path socketPath = tempDir.resolve("eriantys-nio.sock");
+        startServer(TransportMode.NIO, socketPath);
+
+        try (ServerConnection connection = connectUnix(socketPath)) {
+            assertEquals(WireProtocol.COMPRESSED_BINARY, login(connection, "unix-nio"));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package it.polimi.ingsw.server.modules;
+
+import it.polimi.ingsw.network.Frame;
+import it.polimi.ingsw.network.JsonCommand;
+import it.polimi.ingsw.network.messages.Command;
+import it.polimi.ingsw.network.messages.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundQueueTest {
+
+    private Frame moveDone(int version) {
+        return Frame.of(new JsonCommand(Command.MOVE_DONE).addParameter(Parameters.STATE_VERSION, "" + version, true));
+    }
+
+    private Frame patch(int version) {
+        return Frame.of(new JsonCommand(Command.MOVE_DONE)
+                .addParameterJson(Parameters.GAME_STATE_PATCH, "{\"currentTurn\":" + version + "}")
+                .addParameter(Parameters.STATE_VERSION, "" + version, true));
+    }
+
+    private Frame keyframe(int version) {
+        return Frame.of(new JsonCommand(Command.MOVE_DONE)
+                .addParameterJson(Parameters.GAME_STATE, "{\"currentTurn\":" + version + ",\"players\":[" + "{},".repeat(40) + "{}]}")
+                .addParameter(Parameters.STATE_VERSION, "" + version, true));
+    }
+
+    private Frame illegalMove() {
+        return Frame.of(new JsonCommand(Command.MOVE_DONE)
+                .addParameter(Parameters.LAST_MOVE, new JsonCommand(Command.ILLEGAL_MOVE).addParameter(Parameters.NICKNAME, "a", true)));
+    }
+
+    private Frame joinSuccessful() {
+        return Frame.of(new JsonCommand(Command.JOIN_SUCCESSFUL));
+    }
+
+    @Test
+    void shouldKeepTheFramesInOrder() {
+        OutboundQueue queue = new OutboundQueue(1024, OverflowPolicy.COALESCE);
+        Frame first = joinSuccessful();
+        Frame second = moveDone(1);
+
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertEquals(first.length() + second.length(), queue.getQueuedBytes());
+
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.getQueuedBytes());
+    }
+
+    @Test
+    void shouldCoalesceTheSupersededFramesWhenFull() {
+        Frame frame = moveDone(1);
+        OutboundQueue queue = new OutboundQueue(3 * frame.length() + joinSuccessful().length(), OverflowPolicy.COALESCE);
+        Frame join = joinSuccessful();
+
+        assertTrue(queue.offer(join));
+        assertTrue(queue.offer(moveDone(1)));
+        assertTrue(queue.offer(moveDone(2)));
+        assertTrue(queue.offer(moveDone(3)));
+        Frame latest = moveDone(4);
+        assertTrue(queue.offer(latest));
+
+        assertEquals(3, queue.getDroppedFrames());
+        assertSame(join, queue.poll());
+        assertSame(latest, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void shouldDropTheStateFramesOnlyForAWholeState() {
+        Frame firstPatch = patch(1);
+        Frame firstIllegalMove = illegalMove();
+        Frame secondPatch = patch(2);
+        OutboundQueue queue = new OutboundQueue(firstPatch.length() + firstIllegalMove.length() + secondPatch.length(),
+                OverflowPolicy.COALESCE);
+
+        assertTrue(queue.offer(firstPatch));
+        assertTrue(queue.offer(firstIllegalMove));
+        assertTrue(queue.offer(secondPatch));
+        // a frame without state supersedes only the frames without state
+        Frame secondIllegalMove = illegalMove();
+        assertTrue(queue.offer(secondIllegalMove));
+        assertEquals(1, queue.getDroppedFrames());
+        // the whole state supersedes every queued frame, it's larger than the space left by the dropped frame
+        Frame keyframe = keyframe(3);
+        assertTrue(keyframe.length() > firstIllegalMove.length());
+        assertTrue(queue.offer(keyframe));
+        assertEquals(4, queue.getDroppedFrames());
+        assertSame(keyframe, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void shouldNotDisconnectAClientFullOfPatches() {
+        Frame join = joinSuccessful();
+        OutboundQueue queue = new OutboundQueue(join.length() + 3 * patch(1).length(), OverflowPolicy.COALESCE);
+        assertTrue(queue.offer(join));
+        assertTrue(queue.offer(patch(1)));
+        assertTrue(queue.offer(patch(2)));
+        assertTrue(queue.offer(patch(3)));
+
+        // the older patches make room for the latest one, the client resyncs after the gap
+        for (int version = 4; version < 100; version++)
+            assertTrue(queue.offer(patch(version)));
+        Frame latest = patch(100);
+        assertTrue(queue.offer(latest));
+
+        assertSame(join, queue.poll());
+        assertEquals(latest.length(), queue.getQueuedBytes());
+        assertSame(latest, queue.poll());
+    }
+
+    @Test
+    void shouldNotCoalesceTheFramesOfOtherSessions() {
+        Frame otherSession = Frame.of(new JsonCommand(Command.MOVE_DONE).addParameter(Parameters.SESSION_ID, "1", true));
+        OutboundQueue queue = new OutboundQueue(otherSession.length() + moveDone(1).length(), OverflowPolicy.COALESCE);
+
+        assertTrue(queue.offer(otherSession));
+        assertTrue(queue.offer(moveDone(1)));
+        Frame latest = moveDone(2);
+        assertTrue(queue.offer(latest));
+
+        assertEquals(1, queue.getDroppedFrames());
+        assertSame(otherSession, queue.poll());
+        assertSame(latest, queue.poll());
+    }
+
+    @Test
+    void shouldOverflowWhenNothingCanBeCoalesced() {
+        Frame join = joinSuccessful();
+        OutboundQueue queue = new OutboundQueue(2 * join.length(), OverflowPolicy.COALESCE);
+
+        assertTrue(queue.offer(joinSuccessful()));
+        assertTrue(queue.offer(joinSuccessful()));
+        assertFalse(queue.offer(joinSuccessful()));
+        assertFalse(queue.offer(moveDone(1)));
+        assertEquals(0, queue.getDroppedFrames());
+    }
+
+    @Test
+    void shouldOverflowAsSoonAsFullWithTheDisconnectPolicy() {
+        Frame frame = moveDone(1);
+        OutboundQueue queue = new OutboundQueue(frame.length(), OverflowPolicy.DISCONNECT);
+
+        assertTrue(queue.offer(frame));
+        assertFalse(queue.offer(moveDone(2)));
+        assertSame(frame, queue.poll());
+    }
+
+    @Test
+    void shouldWakeUpTheWriterWhenClosed() throws InterruptedException {
+        OutboundQueue queue = new OutboundQueue(1024, OverflowPolicy.COALESCE);
+        AtomicReference<Frame> taken = new AtomicReference<>(joinSuccessful());
+        Thread writer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        writer.start();
+
+        queue.close();
+        writer.join(5000);
+        assertFalse(writer.isAlive());
+        assertNull(taken.get());
+
+        // frames sent after the close are discarded
+        assertTrue(queue.offer(joinSuccessful()));
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,118 @@
+package it.polimi.ingsw.server.modules;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitingMatchesTest {
+    WaitingMatches waitingMatches;
+
+    @BeforeEach
+    void setup() {
+        waitingMatches = new WaitingMatches();
+    }
+
+    @Test
+    void shouldFillTheOpenMatchBeforeCreatingANewOne() {
+        Match first = waitingMatches.reserveSeat(3, false).match();
+        assertSame(first, waitingMatches.reserveSeat(3, false).match());
+        assertSame(first, waitingMatches.reserveSeat(3, false).match());
+        assertTrue(first.isFull());
+
+        Match second = waitingMatches.reserveSeat(3, false).match();
+        assertNotSame(first, second);
+        assertFalse(second.isFull());
+    }
+
+    @Test
+    void shouldKeepTheTypesSeparated() {
+        Match normal = waitingMatches.reserveSeat(2, false).match();
+        Match expert = waitingMatches.reserveSeat(2, true).match();
+        Match threePlayers = waitingMatches.reserveSeat(3, false).match();
+
+        assertNotSame(normal, expert);
+        assertNotSame(normal, threePlayers);
+        assertTrue(expert.isExpertMatch());
+        assertEquals(3, threePlayers.getNumPlayers());
+
+        int openMatches = 0;
+        for (Match ignored : waitingMatches)
+            openMatches++;
+        assertEquals(3, openMatches);
+    }
+
+    @Test
+    void shouldNotJoinARemovedMatch() {
+        Match removed = waitingMatches.reserveSeat(2, false).match();
+        waitingMatches.remove(removed);
+
+        assertEquals(-1, removed.reserveSeat());
+        assertNotSame(removed, waitingMatches.reserveSeat(2, false).match());
+    }
+
+    @Test
+    void shouldNeverOverfillAMatchWithConcurrentJoins() throws InterruptedException {
+        int numPlayers = 3;
+        int numThreads = 8;
+        int joinsPerThread = 300;
+        Map<Match, AtomicInteger> seats = new ConcurrentHashMap<>();
+        AtomicInteger completedMatches = new AtomicInteger();
+        AtomicInteger firstSeats = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> joiners = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            Thread joiner = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < joinsPerThread; i++) {
+                    WaitingMatches.Seat seat = waitingMatches.reserveSeat(numPlayers, true);
+                    Match match = seat.match();
+                    if (seat.isFirst())
+                        firstSeats.incrementAndGet();
+                    seats.computeIfAbsent(match, m -> new AtomicInteger()).incrementAndGet();
+                    if (match.addClient(new TestClientHandler(), "player"))
+                        completedMatches.incrementAndGet();
+                }
+            });
+            joiners.add(joiner);
+            joiner.start();
+        }
+        start.countDown();
+        for (Thread joiner : joiners)
+            joiner.join();
+
+        int joins = numThreads * joinsPerThread;
+        for (AtomicInteger reserved : seats.values())
+            assertTrue(reserved.get() <= numPlayers);
+        assertEquals(joins / numPlayers, completedMatches.get());
+        assertEquals((joins + numPlayers - 1) / numPlayers, seats.size());
+        assertEquals(seats.size(), firstSeats.get());
+    }
+
+    private static class TestClientHandler extends ClientHandler {
+        TestClientHandler() {
+            super("test");
+        }
+
+        @Override
+        protected void framesQueued() {
+        }
+
+        @Override
+        protected void closeConnection() {
+        }
+    }
+}